@@ -6,7 +6,6 @@ import ghost.framework.context.module.IModuleClassLoader;
 import ghost.framework.core.assembly.BaseClassLoader;
 import ghost.framework.core.module.assembly.ModuleClassLoader;
 import ghost.framework.maven.FileArtifact;
-import ghost.framework.util.ReflectUtil;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -15,7 +14,7 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.List;
 import java.util.Objects;
-import java.util.Vector;
+import java.util.concurrent.CopyOnWriteArrayList;
 /**
  * @Author: 郭树灿{guo-w541}
  * @link: 手机:13715848993, QQ 27048384
@@ -61,7 +60,11 @@ final class ApplicationClassLoader extends BaseClassLoader implements IApplicati
         super.filterRepeat(fileArtifactList);
     }
 
-    private Vector<ModuleClassLoader> loaderVector = new Vector<>();
+    /**
+     * 模块类加载器列表
+     * 复用模块包时无锁遍历
+     */
+    private final List<ModuleClassLoader> loaderVector = new CopyOnWriteArrayList<>();
 
     @Override
     public void add(File file) throws MalformedURLException {
@@ -72,10 +75,8 @@ final class ApplicationClassLoader extends BaseClassLoader implements IApplicati
      * @param classLoader
      */
     @Override
-    public synchronized void remove(IModuleClassLoader classLoader) {
-        synchronized (this.loaderVector) {
-            this.loaderVector.remove(classLoader);
-        }
+    public void remove(IModuleClassLoader classLoader) {
+        this.loaderVector.remove(classLoader);
         //释放资源
         try {
             classLoader.close();
@@ -94,11 +95,9 @@ final class ApplicationClassLoader extends BaseClassLoader implements IApplicati
      * @return
      */
     @Override
-    public synchronized ModuleClassLoader create(){
+    public ModuleClassLoader create(){
         ModuleClassLoader loader = new ModuleClassLoader(this.getApp(), this);
-        synchronized (this.loaderVector){
-            this.loaderVector.add(loader);
-        }
+        this.loaderVector.add(loader);
         return loader;
     }
 
@@ -116,34 +115,32 @@ final class ApplicationClassLoader extends BaseClassLoader implements IApplicati
      * @return
      */
     public Package multiplexingeModulePackage(ModuleClassLoader classLoader, String name, String specTitle, String specVersion, String specVendor, String implTitle, String implVersion, String implVendor, URL sealBase) {
-        //锁定模块类加载器列表
-        synchronized (this.loaderVector) {
-            //遍历其它模块
-            for (ModuleClassLoader loader : this.loaderVector) {
-                //排除复用其它模块类加载器的类加载器本身
-                if (!loader.equals(classLoader)) {
-                    //锁定包列表同步
-                    synchronized (ReflectUtil.findField(this, "packages")) {
-                        //遍历模块包列表
-                        for (Package p : loader.getPackages()) {
-                            //比对包版本
-                            if (p.getName().equals(name) &&
-                                    Objects.equals(p.getSpecificationTitle(), specTitle) &&
-                                    Objects.equals(p.getSpecificationVersion(), specVersion) &&
-                                    Objects.equals(p.getSpecificationVendor(), specVendor) &&
-                                    Objects.equals(p.getImplementationTitle(), implTitle) &&
-                                    Objects.equals(p.getImplementationVersion(), implVersion) &&
-                                    Objects.equals(p.getImplementationVendor(), implVendor) &&
-                                    //比对包文件路径
-                                    (p.isSealed() && sealBase != null && p.isSealed(sealBase))
-                            ) {
-                                return p;
-                            }
-                        }
-                    }
-                }
+        //遍历其它模块
+        for (ModuleClassLoader loader : this.loaderVector) {
+            //排除复用其它模块类加载器的类加载器本身
+            if (loader.equals(classLoader)) {
+                continue;
+            }
+            //按包名称获取模块定义的包
+            Package p = loader.findDefinedPackage(name);
+            //比对包版本
+            if (p != null &&
+                    Objects.equals(p.getSpecificationTitle(), specTitle) &&
+                    Objects.equals(p.getSpecificationVersion(), specVersion) &&
+                    Objects.equals(p.getSpecificationVendor(), specVendor) &&
+                    Objects.equals(p.getImplementationTitle(), implTitle) &&
+                    Objects.equals(p.getImplementationVersion(), implVersion) &&
+                    Objects.equals(p.getImplementationVendor(), implVendor) &&
+                    //比对包文件路径
+                    (p.isSealed() && sealBase != null && p.isSealed(sealBase))
+            ) {
+                return p;
             }
         }
         return null;
     }
-}
\ No newline at end of file
+
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+}
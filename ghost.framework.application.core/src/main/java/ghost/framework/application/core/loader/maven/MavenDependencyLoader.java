@@ -4,14 +4,15 @@ import ghost.framework.beans.annotation.injection.Autowired;
 import ghost.framework.context.application.IApplication;
 import ghost.framework.context.exception.MavenDependencyLoaderException;
 import ghost.framework.context.maven.IMavenDependencyLoader;
+import ghost.framework.maven.ArtifactResolver;
 import ghost.framework.maven.ArtifactUitl;
 import ghost.framework.maven.Booter;
 import ghost.framework.maven.FileArtifact;
 import ghost.framework.maven.VerifyDownloadCallback;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.eclipse.aether.repository.RemoteRepository;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -19,6 +20,7 @@ import java.util.Map;
  * @Author: 郭树灿{guo-w541}
  * @link: 手机:13715848993, QQ 27048384
  * @Description:maven模块依赖加载器
+ * 依赖解析委托共用的 {@link ArtifactResolver}，多个包并行解析，已解析的依赖图缓存在本地仓库
  * @Date: 12:46 2019/12/8
  */
 public class MavenDependencyLoader implements IMavenDependencyLoader {
@@ -32,6 +34,46 @@ public class MavenDependencyLoader implements IMavenDependencyLoader {
     }
     private IApplication app;
     private Log log = LogFactory.getLog(MavenDependencyLoader.class);
+    /**
+     * 并行解析线程数量上限
+     */
+    private static final int MAX_RESOLVE_THREADS = 8;
+    /**
+     * 依赖解析器
+     */
+    private volatile ArtifactResolver resolver;
+
+    /**
+     * 获取依赖解析器使用权，远程仓库列表变化时重建
+     * 旧解析器停用，正在使用旧解析器的解析完成后才关闭，调用方使用完成后需要 {@link ArtifactResolver#release()}
+     *
+     * @return
+     */
+    private ArtifactResolver acquireResolver() {
+        List<RemoteRepository> repositoryList = Booter.getRemoteRepositoryList(this.app.getMavenRepositoryContainer());
+        for (; ; ) {
+            ArtifactResolver r = this.resolver;
+            if (r == null || !r.getRepositoryList().equals(repositoryList)) {
+                synchronized (this) {
+                    r = this.resolver;
+                    if (r == null || !r.getRepositoryList().equals(repositoryList)) {
+                        if (r != null) {
+                            r.retire();
+                        }
+                        r = new ArtifactResolver(
+                                this.app.getMavenLocalRepositoryFile(),//maven目录
+                                repositoryList,//maven远程仓库列表
+                                Math.min(MAX_RESOLVE_THREADS, Runtime.getRuntime().availableProcessors() * 2));
+                        this.resolver = r;
+                    }
+                }
+            }
+            //获取期间已被其它线程替换停用时重新获取
+            if (r.acquire()) {
+                return r;
+            }
+        }
+    }
 
     /**
      * 带验证依赖包是否需要下载接口下载包列表
@@ -41,13 +83,13 @@ public class MavenDependencyLoader implements IMavenDependencyLoader {
      */
     @Override
     public List<FileArtifact> loader(FileArtifact artifact, VerifyDownloadCallback downloadCallback) {
+        ArtifactResolver r = this.acquireResolver();
         try {
-            return Booter.getDependencyNodeDownloadURLArtifactList(
-                    this.app.getMavenLocalRepositoryFile(),//maven目录
-                    Booter.getRemoteRepositoryList(app.getMavenRepositoryContainer()),//maven远程仓库列表
-                    artifact, downloadCallback);
+            return r.resolve(artifact, downloadCallback);
         } catch (Exception e) {
             throw new MavenDependencyLoaderException(artifact.toString(), e);
+        } finally {
+            r.release();
         }
     }
 
@@ -58,33 +100,44 @@ public class MavenDependencyLoader implements IMavenDependencyLoader {
      * @return
      */
     @Override
-    public synchronized List<FileArtifact> loader(FileArtifact artifact) {
+    public List<FileArtifact> loader(FileArtifact artifact) {
+        ArtifactResolver r = this.acquireResolver();
         try {
-            return Booter.getDependencyNodeDownloadURLArtifactList(
-                    this.app.getMavenLocalRepositoryFile(),//maven目录
-                    Booter.getRemoteRepositoryList(app.getMavenRepositoryContainer()),//maven远程仓库列表
-                    artifact);
-
+            return r.resolve(artifact);
         } catch (Exception e) {
             throw new MavenDependencyLoaderException(artifact.toString(), e);
+        } finally {
+            r.release();
         }
     }
     /**
      * 加载包依赖
+     * 各包并行解析，返回地图按传入顺序排列
      *
      * @param artifacts 需要加载依赖的包列表
      * @return
      */
     @Override
-    public synchronized Map<FileArtifact, List<FileArtifact>> loader(List<FileArtifact> artifacts) {
+    public Map<FileArtifact, List<FileArtifact>> loader(List<FileArtifact> artifacts) {
+        long start = System.currentTimeMillis();
+        ArtifactResolver r = this.acquireResolver();
+        long hits = r.getCacheHitCount();
         //声明包加载依赖地图
-        Map<FileArtifact, List<FileArtifact>> map = new HashMap<>();
-        //遍历要加载的依赖
-        for (FileArtifact artifact : artifacts) {
-            List<FileArtifact> list = this.loader(artifact);
-            ArtifactUitl.findFirst(list, artifact);
-            map.put(artifact, list);
+        Map<FileArtifact, List<FileArtifact>> map;
+        try {
+            map = r.resolve(artifacts);
+        } catch (Exception e) {
+            throw new MavenDependencyLoaderException(artifacts.toString(), e);
+        } finally {
+            r.release();
+        }
+        //遍历加载的依赖
+        for (Map.Entry<FileArtifact, List<FileArtifact>> entry : map.entrySet()) {
+            ArtifactUitl.findFirst(entry.getValue(), entry.getKey());
+        }
+        if (log.isInfoEnabled()) {
+            log.info("maven依赖加载完成，包:" + artifacts.size() + " 缓存命中:" + (r.getCacheHitCount() - hits) + " 耗时:" + (System.currentTimeMillis() - start) + "ms");
         }
         return map;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,226 @@
+package ghost.framework.beans.indexer;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * package: ghost.framework.beans.indexer
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:编译期组件索引注释处理器
+ * 编译时收集带有 ghost.framework 注释（或被 ghost.framework 注释元注释的注释）的类型，
+ * 写入 {@link #COMPONENTS_RESOURCE_LOCATION}，格式与 ghost.framework.context.bean.CandidateComponentsIndexLoader 读取的格式一致：
+ * 每行 类型二进制名称=注释名称列表，注释名称列表包含类型注释与类型成员（构造函数、函数、字段、参数）注释。
+ * 插件包扫描加载时按索引只加载列出的类型，没有注释的类型不会被加载与初始化。
+ * 增量编译时保留上次索引中仍然存在的类型。
+ * @Date: 2020/6/22:9:30
+ */
+@SupportedAnnotationTypes("*")
+public class ComponentsIndexProcessor extends AbstractProcessor {
+    /**
+     * 索引文件位置
+     */
+    public static final String COMPONENTS_RESOURCE_LOCATION = "META-INF/ghost.components";
+    /**
+     * 框架注释包前缀
+     */
+    private static final String PREFIX = "ghost.framework.";
+    /**
+     * 类型与注释名称列表
+     */
+    private final Map<String, Set<String>> entries = new TreeMap<>();
+    /**
+     * 本次编译处理过的类型
+     */
+    private final Set<String> processed = new HashSet<>();
+    /**
+     * 注释是否为框架注释缓存
+     */
+    private final Map<String, Boolean> relevant = new HashMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getRootElements()) {
+            this.collect(element);
+        }
+        if (roundEnv.processingOver()) {
+            this.write();
+        }
+        //不占用注释，其它处理器继续处理
+        return false;
+    }
+
+    /**
+     * 收集类型与嵌套类型
+     *
+     * @param element 元素
+     */
+    private void collect(Element element) {
+        if (!element.getKind().isClass() && !element.getKind().isInterface()) {
+            return;
+        }
+        TypeElement type = (TypeElement) element;
+        String binaryName = this.processingEnv.getElementUtils().getBinaryName(type).toString();
+        this.processed.add(binaryName);
+        if (type.getKind() != ElementKind.ANNOTATION_TYPE) {
+            Set<String> names = new TreeSet<>();
+            //只索引类型本身带有框架注释的类型
+            if (this.addAnnotations(type, names)) {
+                for (Element member : type.getEnclosedElements()) {
+                    if (member.getKind().isClass() || member.getKind().isInterface()) {
+                        continue;
+                    }
+                    this.addAnnotations(member, names);
+                    if (member instanceof ExecutableElement) {
+                        for (VariableElement parameter : ((ExecutableElement) member).getParameters()) {
+                            this.addAnnotations(parameter, names);
+                        }
+                    }
+                }
+                this.entries.put(binaryName, names);
+            }
+        }
+        for (Element member : type.getEnclosedElements()) {
+            this.collect(member);
+        }
+    }
+
+    /**
+     * 添加元素的框架注释名称
+     *
+     * @param element 元素
+     * @param names   注释名称列表
+     * @return 返回元素是否带有框架注释
+     */
+    private boolean addAnnotations(Element element, Set<String> names) {
+        boolean found = false;
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement annotation = (TypeElement) mirror.getAnnotationType().asElement();
+            if (this.isRelevant(annotation, new HashSet<>())) {
+                names.add(annotation.getQualifiedName().toString());
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 判断注释是否为框架注释或被框架注释元注释
+     *
+     * @param annotation 注释类型
+     * @param visiting   正在判断的注释，避免循环元注释
+     * @return
+     */
+    private boolean isRelevant(TypeElement annotation, Set<String> visiting) {
+        String name = annotation.getQualifiedName().toString();
+        Boolean cached = this.relevant.get(name);
+        if (cached != null) {
+            return cached;
+        }
+        if (name.startsWith(PREFIX)) {
+            this.relevant.put(name, true);
+            return true;
+        }
+        if (name.startsWith("java.lang.annotation.") || !visiting.add(name)) {
+            return false;
+        }
+        boolean result = false;
+        for (AnnotationMirror mirror : annotation.getAnnotationMirrors()) {
+            if (this.isRelevant((TypeElement) mirror.getAnnotationType().asElement(), visiting)) {
+                result = true;
+                break;
+            }
+        }
+        this.relevant.put(name, result);
+        return result;
+    }
+
+    /**
+     * 合并上次索引并写入索引文件
+     */
+    private void write() {
+        Map<String, Set<String>> map = new TreeMap<>(this.readPrevious());
+        map.putAll(this.entries);
+        if (map.isEmpty()) {
+            return;
+        }
+        try {
+            FileObject file = this.processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", COMPONENTS_RESOURCE_LOCATION);
+            try (Writer writer = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8)) {
+                writer.write("#ghost components index\n");
+                for (Map.Entry<String, Set<String>> entry : map.entrySet()) {
+                    writer.write(entry.getKey());
+                    writer.write('=');
+                    writer.write(String.join(",", entry.getValue()));
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "写入组件索引错误:" + e);
+        }
+    }
+
+    /**
+     * 读取上次编译的索引，只保留仍然存在且本次未重新编译的类型
+     *
+     * @return
+     */
+    private Map<String, Set<String>> readPrevious() {
+        Map<String, Set<String>> map = new TreeMap<>();
+        try {
+            FileObject file = this.processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", COMPONENTS_RESOURCE_LOCATION);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.openInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int i = line.indexOf('=');
+                    if (line.startsWith("#") || i <= 0) {
+                        continue;
+                    }
+                    String type = line.substring(0, i);
+                    if (this.processed.contains(type) || this.processingEnv.getElementUtils().getTypeElement(type.replace('$', '.')) == null) {
+                        continue;
+                    }
+                    Set<String> names = new TreeSet<>();
+                    for (String name : line.substring(i + 1).split(",")) {
+                        if (!name.isEmpty()) {
+                            names.add(name);
+                        }
+                    }
+                    map.put(type, names);
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            //没有上次索引
+        }
+        return map;
+    }
+}
@@ -0,0 +1,170 @@
+package ghost.framework.beans.indexer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * package: ghost.framework.beans.indexer
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link ComponentsIndexProcessor} 编译生成索引测试
+ * @Date: 2020/6/26:15:10
+ */
+public class ComponentsIndexProcessorTests {
+    /**
+     * 源码目录
+     */
+    private Path src;
+    /**
+     * 编译输出目录
+     */
+    private Path out;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        this.src = Files.createTempDirectory("indexer-src");
+        this.out = Files.createTempDirectory("indexer-out");
+        this.source("ghost.framework.sample.Marker", "package ghost.framework.sample; public @interface Marker {}");
+        this.source("ghost.framework.sample.Value", "package ghost.framework.sample; public @interface Value {}");
+        this.source("com.example.Service", "package com.example; @ghost.framework.sample.Marker public @interface Service {}");
+        this.source("com.example.Other", "package com.example; public @interface Other {}");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        this.delete(this.src);
+        this.delete(this.out);
+    }
+
+    @Test
+    public void indexAnnotatedTypesWithMembers() throws IOException {
+        this.source("com.example.A", "package com.example;\n" +
+                "import ghost.framework.sample.*;\n" +
+                "@Marker public class A {\n" +
+                "    @Value String name;\n" +
+                "    public A(@Value String name) {}\n" +
+                "    @Other public void run() {}\n" +
+                "    public static class Inner {}\n" +
+                "    @Marker public static class Nested {}\n" +
+                "}");
+        this.source("com.example.Plain", "package com.example; @Other public class Plain { @ghost.framework.sample.Value String name; }");
+        this.compile("ghost.framework.sample.Marker", "ghost.framework.sample.Value", "com.example.Service", "com.example.Other", "com.example.A", "com.example.Plain");
+        //类型与成员的框架注释，不索引注释类型与没有框架注释的类型
+        assertThat(this.index()).containsExactly(
+                "com.example.A=ghost.framework.sample.Marker,ghost.framework.sample.Value",
+                "com.example.A$Nested=ghost.framework.sample.Marker");
+    }
+
+    @Test
+    public void indexMetaAnnotatedTypes() throws IOException {
+        this.source("com.example.B", "package com.example; @Service public class B {}");
+        this.source("com.example.Plain", "package com.example; @Other public class Plain {}");
+        this.compile("ghost.framework.sample.Marker", "ghost.framework.sample.Value", "com.example.Service", "com.example.Other", "com.example.B", "com.example.Plain");
+        assertThat(this.index()).containsExactly("com.example.B=com.example.Service");
+    }
+
+    @Test
+    public void noIndexWithoutAnnotatedTypes() throws IOException {
+        this.source("com.example.Plain", "package com.example; @Other public class Plain {}");
+        this.compile("com.example.Other", "com.example.Plain");
+        assertThat(Files.exists(this.out.resolve(ComponentsIndexProcessor.COMPONENTS_RESOURCE_LOCATION))).isFalse();
+    }
+
+    @Test
+    public void incrementalCompileMergesPreviousIndex() throws IOException {
+        this.source("com.example.A", "package com.example; @ghost.framework.sample.Marker public class A { @ghost.framework.sample.Marker public static class Nested {} }");
+        this.source("com.example.B", "package com.example; @Service public class B {}");
+        this.compile("ghost.framework.sample.Marker", "ghost.framework.sample.Value", "com.example.Service", "com.example.Other", "com.example.A", "com.example.B");
+        assertThat(this.index()).containsExactly(
+                "com.example.A=ghost.framework.sample.Marker",
+                "com.example.A$Nested=ghost.framework.sample.Marker",
+                "com.example.B=com.example.Service");
+        //只重新编译A与新增的C，A去掉注释与嵌套类型，B未重新编译保留
+        this.source("com.example.A", "package com.example; public class A {}");
+        this.source("com.example.C", "package com.example; @ghost.framework.sample.Marker public class C {}");
+        this.compile("com.example.A", "com.example.C");
+        assertThat(this.index()).containsExactly(
+                "com.example.B=com.example.Service",
+                "com.example.C=ghost.framework.sample.Marker");
+        //B已删除时从索引移除
+        Files.delete(this.out.resolve("com/example/B.class"));
+        this.source("com.example.D", "package com.example; @Service public class D {}");
+        this.compile("com.example.D");
+        assertThat(this.index()).containsExactly(
+                "com.example.C=ghost.framework.sample.Marker",
+                "com.example.D=com.example.Service");
+    }
+
+    /**
+     * 写入源码文件
+     *
+     * @param type    类型名称
+     * @param content 源码内容
+     * @throws IOException
+     */
+    private void source(String type, String content) throws IOException {
+        Path file = this.src.resolve(type.replace('.', '/') + ".java");
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 使用索引处理器编译指定类型，编译输出目录同时作为类路径
+     *
+     * @param types 编译的类型名称
+     * @throws IOException
+     */
+    private void compile(String... types) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            List<Path> files = new ArrayList<>();
+            for (String type : types) {
+                files.add(this.src.resolve(type.replace('.', '/') + ".java"));
+            }
+            Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjects(files.stream().map(Path::toFile).toArray(File[]::new));
+            List<String> options = Arrays.asList("-d", this.out.toString(), "-classpath", this.out.toString());
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, null, units);
+            task.setProcessors(Arrays.asList(new ComponentsIndexProcessor()));
+            assertThat(task.call()).isTrue();
+        }
+    }
+
+    /**
+     * 读取索引行，不包括注释行
+     *
+     * @return
+     * @throws IOException
+     */
+    private List<String> index() throws IOException {
+        return Files.readAllLines(this.out.resolve(ComponentsIndexProcessor.COMPONENTS_RESOURCE_LOCATION), StandardCharsets.UTF_8)
+                .stream().filter(line -> !line.startsWith("#")).collect(Collectors.toList());
+    }
+
+    private void delete(Path path) throws IOException {
+        try (Stream<Path> stream = Files.walk(path)) {
+            for (Path p : stream.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(p);
+            }
+        }
+    }
+}
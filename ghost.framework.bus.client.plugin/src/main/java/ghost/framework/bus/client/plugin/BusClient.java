@@ -6,11 +6,16 @@ import ghost.framework.beans.annotation.invoke.Loader;
 import ghost.framework.beans.annotation.stereotype.Component;
 import ghost.framework.bus.BusStatus;
 import ghost.framework.bus.IBusClient;
+import ghost.framework.bus.IBusMessageListener;
+import ghost.framework.bus.MessageEvent;
 import ghost.framework.bus.SubConstant;
+import ghost.framework.bus.SubscribeMessage;
+import ghost.framework.bus.UnsubscribeMessage;
 import ghost.framework.context.environment.IEnvironment;
 import ghost.framework.context.utils.AssemblyUtil;
 import ghost.framework.util.StopWatch;
 import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
@@ -22,6 +27,10 @@ import org.apache.commons.logging.LogFactory;
 
 import javax.net.ssl.SSLEngine;
 import java.io.*;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * package: ghost.framework.bus.client.plugin
@@ -273,6 +282,115 @@ public class BusClient implements IBusClient {
             }
         }
     }
+    /**
+     * 获取已连接通道
+     *
+     * @return
+     */
+    private Channel getChannel() {
+        if (this.future == null || !this.future.channel().isActive()) {
+            throw new IllegalStateException("Bus Client not connected");
+        }
+        return this.future.channel();
+    }
+
+    /**
+     * 订阅主题
+     *
+     * @param topic 主题名称
+     */
+    @Override
+    public void subscribe(String topic) {
+        this.getChannel().writeAndFlush(new SubscribeMessage(topic));
+    }
+
+    /**
+     * 取消订阅主题
+     *
+     * @param topic 主题名称
+     */
+    @Override
+    public void unsubscribe(String topic) {
+        this.getChannel().writeAndFlush(new UnsubscribeMessage(topic));
+    }
+
+    /**
+     * 发布主题消息
+     * 由服务端转发给订阅该主题的其它客户端
+     *
+     * @param message 主题消息
+     */
+    @Override
+    public void publish(MessageEvent message) {
+        if (message.getTopic() == null) {
+            throw new IllegalArgumentException("topic is null");
+        }
+        this.getChannel().writeAndFlush(message);
+    }
+
+    /**
+     * 主题消息监听表，键为主题名称
+     */
+    private final Map<String, List<IBusMessageListener>> listenerMap = new ConcurrentHashMap<>();
+
+    /**
+     * 添加主题消息监听
+     *
+     * @param topic    主题名称
+     * @param listener 消息监听
+     */
+    @Override
+    public void addListener(String topic, IBusMessageListener listener) {
+        if (topic == null) {
+            throw new IllegalArgumentException("topic is null");
+        }
+        if (listener == null) {
+            throw new IllegalArgumentException("listener is null");
+        }
+        this.listenerMap.computeIfAbsent(topic, k -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * 删除主题消息监听
+     *
+     * @param topic    主题名称
+     * @param listener 消息监听
+     */
+    @Override
+    public void removeListener(String topic, IBusMessageListener listener) {
+        this.listenerMap.computeIfPresent(topic, (k, list) -> {
+            list.remove(listener);
+            //没有监听时删除主题
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    /**
+     * 分发主题消息
+     * 由通道线程调用，单个监听错误不影响其它监听
+     *
+     * @param message 主题消息
+     * @return 返回接收消息的监听数量
+     */
+    int dispatch(MessageEvent message) {
+        List<IBusMessageListener> list = message.getTopic() == null ? null : this.listenerMap.get(message.getTopic());
+        if (list == null) {
+            if (this.log.isDebugEnabled()) {
+                this.log.debug("总线主题没有监听:" + message.getTopic());
+            }
+            return 0;
+        }
+        int count = 0;
+        for (IBusMessageListener listener : list) {
+            try {
+                listener.onMessage(message);
+                count++;
+            } catch (Exception e) {
+                this.log.error(e.getMessage(), e);
+            }
+        }
+        return count;
+    }
     /**
      * 关闭释放资源
      * @throws Exception
@@ -1,47 +1,57 @@
 package ghost.framework.bus.client.plugin;
 
 import ghost.framework.bus.ConnectionCompleteMessage;
+import ghost.framework.bus.MessageEvent;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
-import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.ReferenceCountUtil;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
 /**
  * package: ghost.framework.bus.client.plugin
  *
  * @Author: 郭树灿{gsc-e590}
  * @link: 手机:13715848993, QQ 27048384
- * @Description:
+ * @Description:处理服务端数据
+ * 主题消息分发给 {@link BusClient#addListener(String, ghost.framework.bus.IBusMessageListener)} 添加的监听
  * @Date: 2020/6/13:3:05
  */
-public class SubClientHandler  extends ChannelInboundHandlerAdapter {
-    @Override
-    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
-        if(msg instanceof IdleStateEvent){
-            //心跳
-        }
-        if (msg instanceof ConnectionCompleteMessage) {
-            ConnectionCompleteMessage msg1 = (ConnectionCompleteMessage) msg;
-            System.out.println("服务器端返回的数据:" + msg1.getSource().toString());
-        }
-//        AttributeKey<String> key = AttributeKey.valueOf("ServerData");
-//        ctx.channel().attr(key).set("客户端处理完毕");
-        //把客户端的通道关闭
-//        ctx.channel().close();
-    }
+public class SubClientHandler extends ChannelInboundHandlerAdapter {
+    private Log log = LogFactory.getLog(SubClientHandler.class);
+    /**
+     * 总线客户端
+     */
+    private final BusClient busClient;
 
-    @Override
-    public void channelActive(ChannelHandlerContext ctx) throws Exception {
-        super.channelActive(ctx);
+    public SubClientHandler(BusClient busClient) {
+        this.busClient = busClient;
     }
 
     @Override
-    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
-        super.channelInactive(ctx);
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        //连接完成
+        if (msg instanceof ConnectionCompleteMessage) {
+            if (this.log.isDebugEnabled()) {
+                this.log.debug("服务器端返回的数据:" + ((ConnectionCompleteMessage) msg).getSource());
+            }
+            return;
+        }
+        //主题消息
+        if (msg instanceof MessageEvent) {
+            this.busClient.dispatch((MessageEvent) msg);
+            return;
+        }
+        //未知数据
+        this.log.error("客户端接收的未知数据:" + msg);
+        ReferenceCountUtil.release(msg);
     }
 
     @Override
     public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
-        System.out.println(evt.toString());
+        if (this.log.isDebugEnabled()) {
+            this.log.debug(evt.toString());
+        }
         super.userEventTriggered(ctx, evt);
     }
 }
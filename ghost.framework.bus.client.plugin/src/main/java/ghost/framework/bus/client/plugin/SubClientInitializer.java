@@ -1,11 +1,9 @@
 package ghost.framework.bus.client.plugin;
 
 import ghost.framework.bus.SubConstant;
+import ghost.framework.bus.codec.BusMessageCodec;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.handler.codec.serialization.ClassResolvers;
-import io.netty.handler.codec.serialization.ObjectDecoder;
-import io.netty.handler.codec.serialization.ObjectEncoder;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.timeout.IdleStateHandler;
 import org.apache.commons.logging.Log;
@@ -25,8 +23,14 @@ public class SubClientInitializer extends ChannelInitializer<SocketChannel> {
     private Log log = LogFactory.getLog(SubClientInitializer.class);
     private BusClient busClient;
 
+    /**
+     * 消息编码配置
+     */
+    private final BusMessageCodec codec;
+
     public SubClientInitializer(BusClient busClient) {
         this.busClient = busClient;
+        this.codec = new BusMessageCodec(this.busClient.getEnv(), this.getClass().getClassLoader());
     }
 
     @Override
@@ -68,13 +72,11 @@ public class SubClientInitializer extends ChannelInitializer<SocketChannel> {
             //有ssl容器做ssl处理
             socketChannel.pipeline().addLast("ssl", new SslHandler(this.busClient.sslEngine));
         }
-        socketChannel.pipeline().addLast("ObjectDecoder", new ObjectDecoder(ClassResolvers.cacheDisabled(
-                this.getClass().getClassLoader()
-        )));
-        socketChannel.pipeline().addLast("ObjectEncoder", new ObjectEncoder());
+        //消息编码
+        this.codec.addLast(socketChannel.pipeline());
 //        socketChannel.pipeline().addLast("MessageEventEncoder", new BusClientToMessageEncoder(this.busClient));
 //        socketChannel.pipeline().addLast("MessageEventDecoder", new BusClientToMessageDecoder(this.busClient));
         //找到他的管道 增加他的handler
-        socketChannel.pipeline().addLast(new SubClientHandler());
+        socketChannel.pipeline().addLast(new SubClientHandler(this.busClient));
     }
 }
\ No newline at end of file
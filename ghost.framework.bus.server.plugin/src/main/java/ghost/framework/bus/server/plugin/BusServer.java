@@ -6,7 +6,9 @@ import ghost.framework.beans.annotation.invoke.Loader;
 import ghost.framework.beans.annotation.stereotype.Component;
 import ghost.framework.bus.BusStatus;
 import ghost.framework.bus.IBusServer;
+import ghost.framework.bus.MessageEvent;
 import ghost.framework.bus.SubConstant;
+import ghost.framework.bus.codec.BusMessageCodec;
 import ghost.framework.context.environment.IEnvironment;
 import ghost.framework.context.io.ResourceBytes;
 import ghost.framework.context.utils.AssemblyUtil;
@@ -16,6 +18,7 @@ import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import org.apache.commons.io.IOUtils;
@@ -104,6 +107,31 @@ public class BusServer implements IBusServer {
     private ServerBootstrap server;
     private ChannelFuture future;
     private BusStatus status = BusStatus.close;
+    /**
+     * 消息编码配置
+     */
+    protected BusMessageCodec codec;
+    /**
+     * 主题路由
+     */
+    protected BusTopicRouter router;
+
+    /**
+     * 发布主题消息
+     *
+     * @param message 主题消息
+     */
+    @Override
+    public void publish(MessageEvent message) {
+        if (this.router == null) {
+            throw new IllegalStateException("Bus Server not start");
+        }
+        try {
+            this.router.publish(message, null);
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
 
     /**
      * 获取总线服务状态
@@ -250,6 +278,9 @@ public class BusServer implements IBusServer {
             try {
                 //初始化ssl证书
                 this.initSsl();
+                //初始化消息编码与主题路由，全部通道共用
+                this.codec = new BusMessageCodec(this.env, this.getClass().getClassLoader());
+                this.router = new BusTopicRouter(this.codec);
                 new Thread(new OneRunnable<BusServer>(this) {
                     @Override
                     public void run() {
@@ -273,6 +304,18 @@ public class BusServer implements IBusServer {
                             this.getA().server.childOption(ChannelOption.SO_SNDBUF, SubConstant.Nio.DEFAULT_SNDBUF);
                             this.getA().server.childOption(ChannelOption.SO_RCVBUF, SubConstant.Nio.DEFAULT_RCVBUF);
                             this.getA().server.childOption(ChannelOption.ALLOW_HALF_CLOSURE, SubConstant.Nio.DEFAULT_ALLOW_HALF_CLOSURE);
+                            //写缓冲区水位，超过高水位的订阅通道不再写入主题消息
+                            if (this.getA().env != null &&
+                                    this.getA().env.containsKey(SubConstant.Environment.NIO_WRITE_BUFFER_LOW_WATER_MARK) &&
+                                    this.getA().env.containsKey(SubConstant.Environment.NIO_WRITE_BUFFER_HIGH_WATER_MARK)) {
+                                this.getA().server.childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(
+                                        this.getA().env.getInt(SubConstant.Environment.NIO_WRITE_BUFFER_LOW_WATER_MARK),
+                                        this.getA().env.getInt(SubConstant.Environment.NIO_WRITE_BUFFER_HIGH_WATER_MARK)));
+                            } else {
+                                this.getA().server.childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(
+                                        SubConstant.Nio.DEFAULT_WRITE_BUFFER_LOW_WATER_MARK,
+                                        SubConstant.Nio.DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK));
+                            }
                             if (this.getA().env == null) {
                                 this.getA().future = this.getA().server.bind(SubConstant.Nio.DEFAULT_PORT).sync();// 绑定端口，开始接收进来的连接
                             } else {
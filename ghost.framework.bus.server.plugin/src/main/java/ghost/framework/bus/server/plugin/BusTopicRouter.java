@@ -0,0 +1,185 @@
+package ghost.framework.bus.server.plugin;
+
+import ghost.framework.bus.MessageEvent;
+import ghost.framework.bus.codec.BusMessageCodec;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * package: ghost.framework.bus.server.plugin
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:总线主题路由
+ * 保存主题到订阅通道的对应关系，最后一个订阅通道取消订阅或关闭时删除主题；
+ * 发布消息时只编码一次，每个订阅通道写入同一缓冲区的副本，
+ * 刷新由管道中的 {@link io.netty.handler.flush.FlushConsolidationHandler} 合并；
+ * 超过写缓冲区高水位（不可写）的通道跳过本次消息，避免慢订阅者阻塞或占满内存。
+ * @Date: 2020/6/15:9:30
+ */
+final class BusTopicRouter {
+    private Log log = LogFactory.getLog(BusTopicRouter.class);
+    /**
+     * 通道已订阅的主题，只在通道线程中访问
+     */
+    private static final AttributeKey<Set<String>> TOPICS = AttributeKey.valueOf(BusTopicRouter.class.getName() + ".topics");
+    /**
+     * 消息编码配置
+     */
+    private final BusMessageCodec codec;
+    /**
+     * 订阅表，键为主题名称
+     */
+    final Map<String, ChannelGroup> topicMap = new ConcurrentHashMap<>();
+    /**
+     * 因通道不可写丢弃的消息数量
+     */
+    private final LongAdder droppedCount = new LongAdder();
+
+    BusTopicRouter(BusMessageCodec codec) {
+        this.codec = codec;
+    }
+
+    /**
+     * 订阅主题
+     *
+     * @param topic   主题名称
+     * @param channel 订阅通道
+     */
+    void subscribe(String topic, Channel channel) {
+        //在同一个计算中添加通道，避免添加到并发删除的空主题
+        this.topicMap.compute(topic, (k, group) -> {
+            if (group == null) {
+                group = new DefaultChannelGroup(k, GlobalEventExecutor.INSTANCE);
+            }
+            group.add(channel);
+            return group;
+        });
+        Attribute<Set<String>> attribute = channel.attr(TOPICS);
+        Set<String> topics = attribute.get();
+        if (topics == null) {
+            topics = new HashSet<>();
+            attribute.set(topics);
+        }
+        topics.add(topic);
+    }
+
+    /**
+     * 取消订阅主题
+     *
+     * @param topic   主题名称
+     * @param channel 订阅通道
+     */
+    void unsubscribe(String topic, Channel channel) {
+        Set<String> topics = channel.attr(TOPICS).get();
+        if (topics != null) {
+            topics.remove(topic);
+        }
+        this.remove(topic, channel);
+    }
+
+    /**
+     * 删除通道的全部订阅
+     * 通道关闭时调用
+     *
+     * @param channel 订阅通道
+     */
+    void remove(Channel channel) {
+        Set<String> topics = channel.attr(TOPICS).getAndSet(null);
+        if (topics == null) {
+            return;
+        }
+        for (String topic : topics) {
+            this.remove(topic, channel);
+        }
+    }
+
+    /**
+     * 从主题删除通道
+     *
+     * @param topic   主题名称
+     * @param channel 订阅通道
+     */
+    private void remove(String topic, Channel channel) {
+        this.topicMap.computeIfPresent(topic, (k, group) -> {
+            group.remove(channel);
+            //没有订阅通道时删除主题
+            return group.isEmpty() ? null : group;
+        });
+    }
+
+    /**
+     * 发布主题消息
+     *
+     * @param message 主题消息
+     * @param sender  发布消息的通道，不转发给自己，服务端发布时为null
+     * @return 返回写入的通道数量
+     * @throws Exception
+     */
+    int publish(MessageEvent message, Channel sender) throws Exception {
+        ChannelGroup group = message.getTopic() == null ? null : this.topicMap.get(message.getTopic());
+        if (group == null || group.isEmpty()) {
+            return 0;
+        }
+        ByteBuf buf = null;
+        int count = 0;
+        try {
+            for (Channel channel : group) {
+                if (channel == sender) {
+                    continue;
+                }
+                //慢订阅者跳过
+                if (!channel.isWritable()) {
+                    this.droppedCount.increment();
+                    if (this.log.isDebugEnabled()) {
+                        this.log.debug("总线通道不可写，丢弃主题消息:" + message.getTopic() + " " + channel.remoteAddress());
+                    }
+                    continue;
+                }
+                if (buf == null) {
+                    buf = this.codec.encode(channel.alloc(), message);
+                }
+                channel.writeAndFlush(buf.retainedDuplicate(), channel.voidPromise());
+                count++;
+            }
+        } finally {
+            if (buf != null) {
+                buf.release();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 获取主题订阅通道数量
+     *
+     * @param topic 主题名称
+     * @return
+     */
+    int getSubscriberCount(String topic) {
+        ChannelGroup group = this.topicMap.get(topic);
+        return group == null ? 0 : group.size();
+    }
+
+    /**
+     * 获取因通道不可写丢弃的消息数量
+     *
+     * @return
+     */
+    long getDroppedCount() {
+        return this.droppedCount.sum();
+    }
+}
@@ -1,7 +1,9 @@
 package ghost.framework.bus.server.plugin;
 
 import ghost.framework.bus.ConnectionCompleteMessage;
-import ghost.framework.bus.IBusServer;
+import ghost.framework.bus.MessageEvent;
+import ghost.framework.bus.SubscribeMessage;
+import ghost.framework.bus.UnsubscribeMessage;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.util.ReferenceCountUtil;
@@ -18,9 +20,9 @@ import java.net.InetAddress;
  * @Date: 2020/6/12:20:34
  */
 final class SubServerHandler extends ChannelInboundHandlerAdapter {
-    private IBusServer busServer;
+    private BusServer busServer;
 
-    public SubServerHandler(IBusServer busServer) {
+    public SubServerHandler(BusServer busServer) {
         this.busServer = busServer;
     }
 
@@ -29,6 +31,21 @@ final class SubServerHandler extends ChannelInboundHandlerAdapter {
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
         try {
+            //订阅主题
+            if (msg instanceof SubscribeMessage) {
+                this.busServer.router.subscribe((String) ((SubscribeMessage) msg).getSource(), ctx.channel());
+                return;
+            }
+            //取消订阅主题
+            if (msg instanceof UnsubscribeMessage) {
+                this.busServer.router.unsubscribe((String) ((UnsubscribeMessage) msg).getSource(), ctx.channel());
+                return;
+            }
+            //主题消息转发给其它订阅通道
+            if (msg instanceof MessageEvent && ((MessageEvent) msg).getTopic() != null) {
+                this.busServer.router.publish((MessageEvent) msg, ctx.channel());
+                return;
+            }
             super.channelRead(ctx, msg);
 //            ByteBuf in = (ByteBuf) msg;
 //            int readableBytes = in.readableBytes();
@@ -69,4 +86,13 @@ final class SubServerHandler extends ChannelInboundHandlerAdapter {
         //StaticVar.chc = ctx;
         super.channelActive(ctx);
     }
+
+    /**
+     * 连接关闭时删除通道的全部订阅
+     */
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        this.busServer.router.remove(ctx.channel());
+        super.channelInactive(ctx);
+    }
 }
\ No newline at end of file
@@ -3,9 +3,7 @@ package ghost.framework.bus.server.plugin;
 import ghost.framework.bus.SubConstant;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.handler.codec.serialization.ClassResolvers;
-import io.netty.handler.codec.serialization.ObjectDecoder;
-import io.netty.handler.codec.serialization.ObjectEncoder;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.timeout.IdleStateHandler;
 import org.apache.commons.logging.Log;
@@ -69,15 +67,15 @@ final class SubServerInitializer extends ChannelInitializer<SocketChannel> {
 //        socketChannel.pipeline().addLast("StringEncoder", new StringEncoder());
 //        socketChannel.pipeline().addLast("base64Decoder", new Base64Decoder());
 //        socketChannel.pipeline().addLast("base64Encoder", new Base64Encoder());
+        //合并主题消息扇出时的刷新
+        socketChannel.pipeline().addFirst("FlushConsolidation", new FlushConsolidationHandler(SubConstant.Nio.DEFAULT_EXPLICIT_FLUSH_AFTER_FLUSHES, true));
         //判断是否有ssl容器
         if (this.busServer.sslEngine != null) {
             //有ssl容器做ssl处理
             socketChannel.pipeline().addLast("ssl", new SslHandler(this.busServer.sslEngine));
         }
-        socketChannel.pipeline().addLast("ObjectDecoder", new ObjectDecoder(ClassResolvers.cacheDisabled(
-                this.getClass().getClassLoader()
-        )));
-        socketChannel.pipeline().addLast("ObjectEncoder", new ObjectEncoder());
+        //消息编码
+        this.busServer.codec.addLast(socketChannel.pipeline());
 //        socketChannel.pipeline().addLast("MessageEventEncoder", new BusServerToMessageEncoder(this.busServer));
 //        socketChannel.pipeline().addLast("MessageEventDecoder", new BusServerToMessageDecoder(this.busServer));
         // 自定义处理类
@@ -0,0 +1,137 @@
+package ghost.framework.bus.server.plugin;
+
+import ghost.framework.bus.MessageEvent;
+import ghost.framework.bus.codec.BusMessageCodec;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * package: ghost.framework.bus.server.plugin
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link BusTopicRouter} 主题订阅与转发测试
+ * @Date: 2020/6/26:17:30
+ */
+public class BusTopicRouterTests {
+    private final BusMessageCodec codec = new BusMessageCodec(null, BusTopicRouterTests.class.getClassLoader());
+    private final BusTopicRouter router = new BusTopicRouter(this.codec);
+    /**
+     * 测试创建的通道
+     */
+    private final List<EmbeddedChannel> channels = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() {
+        for (EmbeddedChannel channel : this.channels) {
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    @Test
+    public void publishToOtherSubscribers() throws Exception {
+        EmbeddedChannel sender = this.channel();
+        EmbeddedChannel first = this.channel();
+        EmbeddedChannel second = this.channel();
+        EmbeddedChannel other = this.channel();
+        this.router.subscribe("topic", sender);
+        this.router.subscribe("topic", first);
+        this.router.subscribe("topic", second);
+        this.router.subscribe("other", other);
+        //不转发给发布消息的通道
+        assertThat(this.router.publish(new MessageEvent("value", "topic"), sender)).isEqualTo(2);
+        assertThat(this.read(first).getSource()).isEqualTo("value");
+        assertThat(this.read(second).getTopic()).isEqualTo("topic");
+        assertThat((Object) sender.readOutbound()).isNull();
+        assertThat((Object) other.readOutbound()).isNull();
+        //服务端发布时转发给全部订阅通道
+        assertThat(this.router.publish(new MessageEvent("server", "topic"), null)).isEqualTo(3);
+        assertThat(this.read(sender).getSource()).isEqualTo("server");
+    }
+
+    @Test
+    public void publishWithoutSubscribers() throws Exception {
+        EmbeddedChannel channel = this.channel();
+        this.router.subscribe("topic", channel);
+        assertThat(this.router.publish(new MessageEvent("value"), null)).isEqualTo(0);
+        assertThat(this.router.publish(new MessageEvent("value", "missing"), null)).isEqualTo(0);
+        assertThat((Object) channel.readOutbound()).isNull();
+    }
+
+    @Test
+    public void lastUnsubscribeRemovesTopic() {
+        EmbeddedChannel first = this.channel();
+        EmbeddedChannel second = this.channel();
+        this.router.subscribe("topic", first);
+        this.router.subscribe("topic", second);
+        this.router.unsubscribe("topic", first);
+        assertThat(this.router.getSubscriberCount("topic")).isEqualTo(1);
+        assertThat(this.router.topicMap.containsKey("topic")).isTrue();
+        this.router.unsubscribe("topic", second);
+        assertThat(this.router.getSubscriberCount("topic")).isEqualTo(0);
+        assertThat(this.router.topicMap.containsKey("topic")).isFalse();
+        //重新订阅已删除的主题
+        this.router.subscribe("topic", first);
+        assertThat(this.router.getSubscriberCount("topic")).isEqualTo(1);
+    }
+
+    @Test
+    public void removeChannelDropsAllSubscriptions() {
+        EmbeddedChannel channel = this.channel();
+        EmbeddedChannel remain = this.channel();
+        this.router.subscribe("first", channel);
+        this.router.subscribe("second", channel);
+        this.router.subscribe("second", remain);
+        this.router.remove(channel);
+        assertThat(this.router.topicMap.containsKey("first")).isFalse();
+        assertThat(this.router.getSubscriberCount("second")).isEqualTo(1);
+        //重复删除无影响
+        this.router.remove(channel);
+        assertThat(this.router.getSubscriberCount("second")).isEqualTo(1);
+    }
+
+    @Test
+    public void skipUnwritableSubscriber() throws Exception {
+        EmbeddedChannel slow = this.channel();
+        EmbeddedChannel fast = this.channel();
+        slow.config().setWriteBufferWaterMark(new WriteBufferWaterMark(1, 2));
+        //未刷新的数据超过高水位后通道不可写
+        slow.write(Unpooled.wrappedBuffer(new byte[8]));
+        assertThat(slow.isWritable()).isFalse();
+        this.router.subscribe("topic", slow);
+        this.router.subscribe("topic", fast);
+        assertThat(this.router.publish(new MessageEvent("value", "topic"), null)).isEqualTo(1);
+        assertThat(this.router.getDroppedCount()).isEqualTo(1L);
+        assertThat(this.read(fast).getSource()).isEqualTo("value");
+    }
+
+    private EmbeddedChannel channel() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        this.channels.add(channel);
+        return channel;
+    }
+
+    /**
+     * 读取通道写出的帧并解码
+     *
+     * @param channel 订阅通道
+     * @return
+     */
+    private MessageEvent read(EmbeddedChannel channel) {
+        ByteBuf frame = channel.readOutbound();
+        assertThat((Object) frame).isNotNull();
+        EmbeddedChannel decoder = this.channel();
+        this.codec.addLast(decoder.pipeline());
+        decoder.writeInbound(frame);
+        return decoder.readInbound();
+    }
+}
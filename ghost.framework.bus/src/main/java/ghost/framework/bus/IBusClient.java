@@ -29,6 +29,45 @@ public interface IBusClient extends AutoCloseable {
      */
     BusStatus getStatus();
 
+    /**
+     * 订阅主题
+     *
+     * @param topic 主题名称
+     */
+    void subscribe(String topic);
+
+    /**
+     * 取消订阅主题
+     *
+     * @param topic 主题名称
+     */
+    void unsubscribe(String topic);
+
+    /**
+     * 发布主题消息
+     * 由总线服务转发给其它订阅该主题的客户端
+     *
+     * @param message 主题消息
+     */
+    void publish(MessageEvent message);
+
+    /**
+     * 添加主题消息监听
+     * 只接收已订阅主题的消息，同一监听可以添加到多个主题
+     *
+     * @param topic    主题名称
+     * @param listener 消息监听
+     */
+    void addListener(String topic, IBusMessageListener listener);
+
+    /**
+     * 删除主题消息监听
+     *
+     * @param topic    主题名称
+     * @param listener 消息监听
+     */
+    void removeListener(String topic, IBusMessageListener listener);
+
     /**
      * 获取应用env
      *
@@ -0,0 +1,21 @@
+package ghost.framework.bus;
+
+/**
+ * package: ghost.framework.bus
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:总线主题消息监听接口
+ * 由总线客户端的通道线程调用，不能执行阻塞操作，耗时处理需要转交给其它线程
+ * {@link IBusClient#addListener(String, IBusMessageListener)}
+ * @Date: 2020/6/15:11:20
+ */
+@FunctionalInterface
+public interface IBusMessageListener {
+    /**
+     * 接收主题消息
+     *
+     * @param message 主题消息
+     */
+    void onMessage(MessageEvent message);
+}
@@ -30,6 +30,14 @@ public interface IBusServer extends AutoCloseable{
      */
     BusStatus getStatus();
 
+    /**
+     * 发布主题消息
+     * 写入全部订阅 {@link MessageEvent#getTopic()} 主题的通道
+     *
+     * @param message 主题消息
+     */
+    void publish(MessageEvent message);
+
     /**
      * 获取应用env
      * @return
@@ -28,4 +28,38 @@ public class MessageEvent extends EventObject {
         super(source);
         this.source = source;
     }
+
+    /**
+     * 初始化主题消息事件
+     *
+     * @param source 消息内容
+     * @param topic  消息主题
+     */
+    public MessageEvent(Object source, String topic) {
+        this(source);
+        this.topic = topic;
+    }
+
+    /**
+     * 消息主题，没有主题时为null
+     */
+    private String topic;
+
+    /**
+     * 获取消息主题
+     *
+     * @return
+     */
+    public String getTopic() {
+        return topic;
+    }
+
+    /**
+     * 设置消息主题
+     *
+     * @param topic
+     */
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
 }
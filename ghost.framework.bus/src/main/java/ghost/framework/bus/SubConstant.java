@@ -80,6 +80,23 @@ public final class SubConstant {
          * 会发生剩余的数据，造成了数据的不确定性，使用SO_LINGER可以阻塞close()的调用时间，直到数据完全发送
          */
         public static final boolean DEFAULT_LINGER = true;
+        /**
+         * 默认写缓冲区低水位
+         * 单位字节
+         * 通道待发送数据降到低水位以下时恢复为可写
+         */
+        public static final int DEFAULT_WRITE_BUFFER_LOW_WATER_MARK = 256 * 1024;
+        /**
+         * 默认写缓冲区高水位
+         * 单位字节
+         * 通道待发送数据超过高水位时为不可写，主题消息不再写入该通道，避免慢订阅者占用内存
+         */
+        public static final int DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK = 1024 * 1024;
+        /**
+         * 默认合并刷新数量
+         * 连续写入时每累计指定数量的刷新才实际刷新一次
+         */
+        public static final int DEFAULT_EXPLICIT_FLUSH_AFTER_FLUSHES = 256;
     }
 
     /**
@@ -185,5 +202,65 @@ public final class SubConstant {
          * 保持连接
          */
         public static final String NIO_KEEPALIVE = "ghost.framework.bus.nio.keepalive";
+        /**
+         * 写缓冲区低水位
+         * 单位字节
+         */
+        public static final String NIO_WRITE_BUFFER_LOW_WATER_MARK = "ghost.framework.bus.nio.write.buffer.low.water.mark";
+        /**
+         * 写缓冲区高水位
+         * 单位字节
+         */
+        public static final String NIO_WRITE_BUFFER_HIGH_WATER_MARK = "ghost.framework.bus.nio.write.buffer.high.water.mark";
+        /**
+         * 消息负载序列化器名称
+         * {@link Codec#SERIALIZER_JSON}
+         * {@link Codec#SERIALIZER_JAVA}
+         */
+        public static final String CODEC_SERIALIZER = "ghost.framework.bus.codec.serializer";
+        /**
+         * 消息帧最大长度
+         * 单位字节
+         */
+        public static final String CODEC_MAX_FRAME_LENGTH = "ghost.framework.bus.codec.max.frame.length";
+        /**
+         * 允许解码的消息事件与消息内容类型名称
+         * 多个类型使用逗号分隔
+         */
+        public static final String CODEC_TYPES = "ghost.framework.bus.codec.types";
+    }
+
+    /**
+     * 消息编码常量
+     */
+    public static class Codec {
+        /**
+         * 消息帧标识
+         */
+        public static final short MAGIC = 0x4742;
+        /**
+         * 消息帧版本
+         */
+        public static final byte VERSION = 2;
+        /**
+         * 短字符串null的长度标记
+         */
+        public static final int NULL_STRING_LENGTH = 0xFFFF;
+        /**
+         * 短字符串最大utf8字节数，最大无符号short值保留作为null标记
+         */
+        public static final int MAX_STRING_LENGTH = NULL_STRING_LENGTH - 1;
+        /**
+         * 消息帧最大长度
+         */
+        public static final int DEFAULT_MAX_FRAME_LENGTH = 16 * 1024 * 1024;
+        /**
+         * json序列化器名称
+         */
+        public static final String SERIALIZER_JSON = "json";
+        /**
+         * java序列化器名称
+         */
+        public static final String SERIALIZER_JAVA = "java";
     }
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package ghost.framework.bus;
+
+/**
+ * package: ghost.framework.bus
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:订阅主题消息事件
+ * 消息内容为订阅的主题名称
+ * @Date: 2020/6/15:9:12
+ */
+public class SubscribeMessage extends MessageEvent {
+    private static final long serialVersionUID = 4431562217382902853L;
+
+    /**
+     * 初始化订阅主题消息事件
+     *
+     * @param source 主题名称
+     */
+    public SubscribeMessage(Object source) {
+        super(source);
+    }
+}
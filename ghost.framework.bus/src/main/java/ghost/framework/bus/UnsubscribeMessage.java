@@ -0,0 +1,23 @@
+package ghost.framework.bus;
+
+/**
+ * package: ghost.framework.bus
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:取消订阅主题消息事件
+ * 消息内容为取消订阅的主题名称
+ * @Date: 2020/6/15:9:14
+ */
+public class UnsubscribeMessage extends MessageEvent {
+    private static final long serialVersionUID = -2950146380624390877L;
+
+    /**
+     * 初始化取消订阅主题消息事件
+     *
+     * @param source 主题名称
+     */
+    public UnsubscribeMessage(Object source) {
+        super(source);
+    }
+}
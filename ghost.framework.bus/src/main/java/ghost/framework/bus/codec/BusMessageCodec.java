@@ -0,0 +1,116 @@
+package ghost.framework.bus.codec;
+
+import ghost.framework.bus.SubConstant;
+import ghost.framework.context.environment.IEnvironment;
+import ghost.framework.bus.MessageEvent;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelPipeline;
+
+/**
+ * package: ghost.framework.bus.codec
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:总线消息编码配置
+ * 总线服务与客户端各创建一个，按env选择序列化器，全部通道共用类型解析器与编码器，
+ * 解码只接受配置的序列化器与已注册的类型
+ * {@link SubConstant.Environment#CODEC_SERIALIZER}
+ * {@link SubConstant.Environment#CODEC_MAX_FRAME_LENGTH}
+ * {@link SubConstant.Environment#CODEC_TYPES}
+ * @Date: 2020/6/14:11:05
+ */
+public final class BusMessageCodec {
+    /**
+     * 消息类型解析器
+     */
+    private final BusMessageTypeResolver typeResolver;
+    /**
+     * 配置的序列化器
+     */
+    private final IBusMessageSerializer serializer;
+    /**
+     * 消息编码器
+     */
+    private final BusMessageEncoder encoder;
+    /**
+     * 消息帧最大长度
+     */
+    private final int maxFrameLength;
+
+    /**
+     * 初始化总线消息编码配置
+     *
+     * @param env         应用env，为null时使用默认配置
+     * @param classLoader 配置注册的消息类型加载器
+     * @throws IllegalArgumentException 配置的序列化器不支持或注册的消息类型不存在
+     */
+    public BusMessageCodec(IEnvironment env, ClassLoader classLoader) {
+        this.typeResolver = new BusMessageTypeResolver(classLoader);
+        if (env != null && env.containsKey(SubConstant.Environment.CODEC_TYPES)) {
+            try {
+                this.typeResolver.register(env.getString(SubConstant.Environment.CODEC_TYPES).split(","));
+            } catch (ClassNotFoundException e) {
+                throw new IllegalArgumentException(SubConstant.Environment.CODEC_TYPES + ":" + e.getMessage(), e);
+            }
+        }
+        //选择编解码使用的序列化器，默认json
+        String name = SubConstant.Codec.SERIALIZER_JSON;
+        if (env != null && env.containsKey(SubConstant.Environment.CODEC_SERIALIZER)) {
+            name = env.getString(SubConstant.Environment.CODEC_SERIALIZER);
+        }
+        if (SubConstant.Codec.SERIALIZER_JSON.equalsIgnoreCase(name)) {
+            this.serializer = new JsonBusMessageSerializer();
+        } else if (SubConstant.Codec.SERIALIZER_JAVA.equalsIgnoreCase(name)) {
+            this.serializer = new JavaBusMessageSerializer(this.typeResolver);
+        } else {
+            throw new IllegalArgumentException("bus message serializer not supported:" + name);
+        }
+        this.encoder = new BusMessageEncoder(this.serializer);
+        if (env != null && env.containsKey(SubConstant.Environment.CODEC_MAX_FRAME_LENGTH)) {
+            this.maxFrameLength = env.getInt(SubConstant.Environment.CODEC_MAX_FRAME_LENGTH);
+        } else {
+            this.maxFrameLength = SubConstant.Codec.DEFAULT_MAX_FRAME_LENGTH;
+        }
+    }
+
+    /**
+     * 获取消息类型解析器
+     * 用于注册应用的消息事件与消息内容类型
+     *
+     * @return
+     */
+    public BusMessageTypeResolver getTypeResolver() {
+        return typeResolver;
+    }
+
+    /**
+     * 添加消息编码处理
+     *
+     * @param pipeline 通道管道
+     */
+    public void addLast(ChannelPipeline pipeline) {
+        pipeline.addLast("MessageEventDecoder", new BusMessageDecoder(this.maxFrameLength, this.typeResolver, this.serializer));
+        pipeline.addLast("MessageEventEncoder", this.encoder);
+    }
+
+    /**
+     * 编码消息帧
+     * 发布给多个通道的消息只编码一次，各通道写入缓冲区的副本，编码器对已编码的缓冲区直接放行
+     *
+     * @param allocator 缓冲区分配器
+     * @param message   消息事件
+     * @return 返回消息帧缓冲区，由调用方释放
+     * @throws Exception
+     */
+    public ByteBuf encode(ByteBufAllocator allocator, MessageEvent message) throws Exception {
+        ByteBuf buf = allocator.ioBuffer();
+        try {
+            this.encoder.write(message, buf);
+            return buf;
+        } catch (Exception e) {
+            buf.release();
+            throw e;
+        }
+    }
+}
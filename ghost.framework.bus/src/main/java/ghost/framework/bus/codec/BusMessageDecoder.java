@@ -0,0 +1,113 @@
+package ghost.framework.bus.codec;
+
+import ghost.framework.bus.MessageEvent;
+import ghost.framework.bus.SubConstant;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * package: ghost.framework.bus.codec
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:总线消息解码器
+ * 按 {@link BusMessageEncoder} 的消息帧格式解码，只接受配置的序列化器编号，其它编号的消息帧拒绝，
+ * 类型只从共用的 {@link BusMessageTypeResolver} 已注册类型中解析
+ * @Date: 2020/6/14:10:52
+ */
+public final class BusMessageDecoder extends LengthFieldBasedFrameDecoder {
+    /**
+     * 配置的序列化器
+     */
+    private final IBusMessageSerializer serializer;
+    /**
+     * 消息类型解析器
+     */
+    private final BusMessageTypeResolver typeResolver;
+
+    /**
+     * 初始化总线消息解码器
+     *
+     * @param maxFrameLength 消息帧最大长度
+     * @param typeResolver   消息类型解析器
+     * @param serializer     配置的序列化器
+     */
+    public BusMessageDecoder(int maxFrameLength, BusMessageTypeResolver typeResolver, IBusMessageSerializer serializer) {
+        super(maxFrameLength, 0, 4, 0, 4);
+        this.typeResolver = typeResolver;
+        this.serializer = serializer;
+    }
+
+    @Override
+    protected Object decode(ChannelHandlerContext ctx, ByteBuf in) throws Exception {
+        ByteBuf frame = (ByteBuf) super.decode(ctx, in);
+        if (frame == null) {
+            return null;
+        }
+        try {
+            if (frame.readShort() != SubConstant.Codec.MAGIC) {
+                throw new CorruptedFrameException("bus message magic error");
+            }
+            byte version = frame.readByte();
+            if (version != SubConstant.Codec.VERSION) {
+                throw new CorruptedFrameException("bus message version error:" + version);
+            }
+            byte id = frame.readByte();
+            if (id != this.serializer.getId()) {
+                throw new CorruptedFrameException("bus message serializer not supported:" + id);
+            }
+            Class<?> eventType = this.resolve(readString(frame));
+            String topic = readString(frame);
+            Class<?> sourceType = this.resolve(readString(frame));
+            MessageEvent event = this.typeResolver.newMessage(eventType, this.serializer.deserialize(frame, sourceType));
+            event.setTopic(topic);
+            return event;
+        } finally {
+            frame.release();
+        }
+    }
+
+    /**
+     * 解析已注册的类型
+     *
+     * @param name 类型名称
+     * @return
+     * @throws CorruptedFrameException 类型未注册
+     */
+    private Class<?> resolve(String name) {
+        try {
+            return this.typeResolver.resolve(name);
+        } catch (ClassNotFoundException e) {
+            throw new CorruptedFrameException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 读取短字符串
+     *
+     * @param in 输入缓冲区
+     * @return 长度为 {@link SubConstant.Codec#NULL_STRING_LENGTH} 时返回null，长度为0时返回空字符串
+     */
+    static String readString(ByteBuf in) {
+        int length = in.readUnsignedShort();
+        if (length == SubConstant.Codec.NULL_STRING_LENGTH) {
+            return null;
+        }
+        if (length == 0) {
+            return "";
+        }
+        return in.readCharSequence(length, StandardCharsets.UTF_8).toString();
+    }
+
+    /**
+     * 帧已经按长度切分，不需要复制
+     */
+    @Override
+    protected ByteBuf extractFrame(ChannelHandlerContext ctx, ByteBuf buffer, int index, int length) {
+        return buffer.retainedSlice(index, length);
+    }
+}
@@ -0,0 +1,93 @@
+package ghost.framework.bus.codec;
+
+import ghost.framework.bus.MessageEvent;
+import ghost.framework.bus.SubConstant;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.EncoderException;
+import io.netty.handler.codec.MessageToByteEncoder;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * package: ghost.framework.bus.codec
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:总线消息编码器
+ * 消息帧格式：
+ * int 帧长度（不包括长度字段）
+ * short 帧标识 {@link SubConstant.Codec#MAGIC}
+ * byte 帧版本 {@link SubConstant.Codec#VERSION}
+ * byte 序列化器编号 {@link IBusMessageSerializer#getId()}
+ * short+utf8 消息事件类型名称
+ * short+utf8 消息主题，没有主题时长度为 {@link SubConstant.Codec#NULL_STRING_LENGTH}
+ * short+utf8 消息内容类型名称
+ * 短字符串最多 {@link SubConstant.Codec#MAX_STRING_LENGTH} 个utf8字节，空字符串长度为0
+ * 剩余字节 消息内容
+ * 编码直接写入通道分配的池化缓冲区，不产生中间数组
+ * @Date: 2020/6/14:10:40
+ */
+@ChannelHandler.Sharable
+public final class BusMessageEncoder extends MessageToByteEncoder<MessageEvent> {
+    /**
+     * 消息内容序列化器
+     */
+    private final IBusMessageSerializer serializer;
+
+    public BusMessageEncoder(IBusMessageSerializer serializer) {
+        super(MessageEvent.class);
+        this.serializer = serializer;
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, MessageEvent msg, ByteBuf out) throws Exception {
+        this.write(msg, out);
+    }
+
+    /**
+     * 写入消息帧
+     *
+     * @param msg 消息事件
+     * @param out 输出缓冲区
+     * @throws Exception
+     */
+    void write(MessageEvent msg, ByteBuf out) throws Exception {
+        int start = out.writerIndex();
+        //预留帧长度
+        out.writeInt(0);
+        out.writeShort(SubConstant.Codec.MAGIC);
+        out.writeByte(SubConstant.Codec.VERSION);
+        out.writeByte(this.serializer.getId());
+        writeString(out, msg.getClass().getName());
+        writeString(out, msg.getTopic());
+        writeString(out, msg.getSource().getClass().getName());
+        this.serializer.serialize(msg.getSource(), out);
+        //回填帧长度
+        out.setInt(start, out.writerIndex() - start - 4);
+    }
+
+    /**
+     * 写入短字符串
+     *
+     * @param out   输出缓冲区
+     * @param value 字符串，null写入长度 {@link SubConstant.Codec#NULL_STRING_LENGTH}
+     * @throws EncoderException 字符串超过 {@link SubConstant.Codec#MAX_STRING_LENGTH} 个utf8字节
+     */
+    static void writeString(ByteBuf out, String value) {
+        if (value == null) {
+            out.writeShort(SubConstant.Codec.NULL_STRING_LENGTH);
+            return;
+        }
+        int index = out.writerIndex();
+        out.writeShort(0);
+        int length = out.writeCharSequence(value, StandardCharsets.UTF_8);
+        if (length > SubConstant.Codec.MAX_STRING_LENGTH) {
+            //撤销已写入的内容，避免截断长度后写出错位的帧
+            out.writerIndex(index);
+            throw new EncoderException("bus message string too long:" + length + " bytes, max " + SubConstant.Codec.MAX_STRING_LENGTH);
+        }
+        out.setShort(index, length);
+    }
+}
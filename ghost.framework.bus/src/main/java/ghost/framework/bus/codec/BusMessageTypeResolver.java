@@ -0,0 +1,117 @@
+package ghost.framework.bus.codec;
+
+import ghost.framework.bus.ConnectionCompleteMessage;
+import ghost.framework.bus.MessageEvent;
+import ghost.framework.bus.SubscribeMessage;
+import ghost.framework.bus.UnsubscribeMessage;
+
+import java.lang.reflect.Constructor;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * package: ghost.framework.bus.codec
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:总线消息类型解析器
+ * 只解析已注册的类型，消息帧中的类型名称不会加载任意类型，未注册的类型解码时拒绝。
+ * 默认注册总线内置消息事件与基础类型，应用的消息事件与消息内容类型需要通过 {@link #register(Class[])}
+ * 或 {@link ghost.framework.bus.SubConstant.Environment#CODEC_TYPES} 注册。
+ * 同一个总线服务或客户端的全部通道共用，缓存消息事件类型到构建函数的对应关系。
+ * @Date: 2020/6/14:10:30
+ */
+public final class BusMessageTypeResolver {
+    /**
+     * 类型加载器，只用于加载配置注册的类型
+     */
+    private final ClassLoader classLoader;
+    /**
+     * 已注册的类型
+     */
+    private final Map<String, Class<?>> typeMap = new ConcurrentHashMap<>();
+    /**
+     * 消息事件构建函数缓存
+     */
+    private final Map<Class<?>, Constructor<?>> constructorMap = new ConcurrentHashMap<>();
+
+    public BusMessageTypeResolver(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+        //总线内置消息事件
+        this.register(MessageEvent.class, SubscribeMessage.class, UnsubscribeMessage.class, ConnectionCompleteMessage.class);
+        //基础类型
+        this.register(String.class, Boolean.class, Byte.class, Short.class, Integer.class, Long.class,
+                Float.class, Double.class, Character.class, Number.class, byte[].class);
+    }
+
+    /**
+     * 注册类型
+     *
+     * @param types 消息事件类型或消息内容类型
+     */
+    public void register(Class<?>... types) {
+        for (Class<?> type : types) {
+            this.typeMap.put(type.getName(), type);
+        }
+    }
+
+    /**
+     * 按类型名称注册类型
+     *
+     * @param names 类型名称
+     * @throws ClassNotFoundException
+     */
+    public void register(String... names) throws ClassNotFoundException {
+        for (String name : names) {
+            name = name.trim();
+            if (!name.isEmpty()) {
+                this.register(Class.forName(name, false, this.classLoader));
+            }
+        }
+    }
+
+    /**
+     * 判断类型是否已注册
+     *
+     * @param name 类型名称
+     * @return
+     */
+    public boolean isRegistered(String name) {
+        return name != null && this.typeMap.containsKey(name);
+    }
+
+    /**
+     * 解析已注册的类型
+     *
+     * @param name 类型名称
+     * @return
+     * @throws ClassNotFoundException 类型未注册
+     */
+    public Class<?> resolve(String name) throws ClassNotFoundException {
+        Class<?> c = name == null ? null : this.typeMap.get(name);
+        if (c == null) {
+            throw new ClassNotFoundException("bus message type not registered:" + name);
+        }
+        return c;
+    }
+
+    /**
+     * 创建消息事件
+     *
+     * @param type   消息事件类型
+     * @param source 消息内容
+     * @return
+     * @throws ReflectiveOperationException
+     */
+    public MessageEvent newMessage(Class<?> type, Object source) throws ReflectiveOperationException {
+        Constructor<?> constructor = this.constructorMap.get(type);
+        if (constructor == null) {
+            if (!MessageEvent.class.isAssignableFrom(type)) {
+                throw new ClassCastException(type.getName() + " not " + MessageEvent.class.getName());
+            }
+            constructor = type.getConstructor(Object.class);
+            this.constructorMap.put(type, constructor);
+        }
+        return (MessageEvent) constructor.newInstance(source);
+    }
+}
@@ -0,0 +1,51 @@
+package ghost.framework.bus.codec;
+
+import io.netty.buffer.ByteBuf;
+
+import java.io.IOException;
+
+/**
+ * package: ghost.framework.bus.codec
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:总线消息负载序列化接口
+ * 序列化器编号写入消息帧头，解码时只接受配置的序列化器编号
+ * @Date: 2020/6/14:10:05
+ */
+public interface IBusMessageSerializer {
+    /**
+     * 获取序列化器编号
+     *
+     * @return
+     */
+    byte getId();
+
+    /**
+     * 获取序列化器名称
+     * {@link ghost.framework.bus.SubConstant.Environment#CODEC_SERIALIZER}
+     *
+     * @return
+     */
+    String getName();
+
+    /**
+     * 序列化消息负载
+     * 直接写入输出缓冲区
+     *
+     * @param value 消息负载
+     * @param out   输出缓冲区
+     * @throws IOException
+     */
+    void serialize(Object value, ByteBuf out) throws IOException;
+
+    /**
+     * 反序列化消息负载
+     *
+     * @param in   消息负载缓冲区
+     * @param type 消息负载类型
+     * @return 返回消息负载
+     * @throws IOException
+     */
+    Object deserialize(ByteBuf in, Class<?> type) throws IOException;
+}
@@ -0,0 +1,73 @@
+package ghost.framework.bus.codec;
+
+import ghost.framework.bus.SubConstant;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+
+/**
+ * package: ghost.framework.bus.codec
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:java消息负载序列化器
+ * 用于不能转换为json的消息负载，对象流中的类型只使用 {@link BusMessageTypeResolver} 已注册的类型，
+ * 未注册的类型拒绝反序列化
+ * @Date: 2020/6/14:10:20
+ */
+public final class JavaBusMessageSerializer implements IBusMessageSerializer {
+    /**
+     * 序列化器编号
+     */
+    public static final byte ID = 2;
+    /**
+     * 消息类型解析器
+     */
+    private final BusMessageTypeResolver typeResolver;
+
+    public JavaBusMessageSerializer(BusMessageTypeResolver typeResolver) {
+        this.typeResolver = typeResolver;
+    }
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public String getName() {
+        return SubConstant.Codec.SERIALIZER_JAVA;
+    }
+
+    @Override
+    public void serialize(Object value, ByteBuf out) throws IOException {
+        try (ObjectOutputStream stream = new ObjectOutputStream(new ByteBufOutputStream(out))) {
+            stream.writeObject(value);
+        }
+    }
+
+    @Override
+    public Object deserialize(ByteBuf in, Class<?> type) throws IOException {
+        try (ObjectInputStream stream = new ObjectInputStream(new ByteBufInputStream(in)) {
+            @Override
+            protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+                return typeResolver.resolve(desc.getName());
+            }
+
+            @Override
+            protected Class<?> resolveProxyClass(String[] interfaces) throws IOException, ClassNotFoundException {
+                throw new InvalidClassException("bus message proxy class not supported");
+            }
+        }) {
+            return stream.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+}
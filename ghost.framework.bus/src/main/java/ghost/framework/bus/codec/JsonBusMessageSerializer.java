@@ -0,0 +1,63 @@
+package ghost.framework.bus.codec;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ghost.framework.bus.SubConstant;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * package: ghost.framework.bus.codec
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:json消息负载序列化器
+ * @Date: 2020/6/14:10:12
+ */
+public final class JsonBusMessageSerializer implements IBusMessageSerializer {
+    /**
+     * 序列化器编号
+     */
+    public static final byte ID = 1;
+    /**
+     * json对象映射
+     */
+    private final ObjectMapper mapper;
+
+    public JsonBusMessageSerializer() {
+        this(new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false));
+    }
+
+    public JsonBusMessageSerializer(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public String getName() {
+        return SubConstant.Codec.SERIALIZER_JSON;
+    }
+
+    @Override
+    public void serialize(Object value, ByteBuf out) throws IOException {
+        try (OutputStream stream = new ByteBufOutputStream(out)) {
+            this.mapper.writeValue(stream, value);
+        }
+    }
+
+    @Override
+    public Object deserialize(ByteBuf in, Class<?> type) throws IOException {
+        try (InputStream stream = new ByteBufInputStream(in)) {
+            return this.mapper.readValue(stream, type);
+        }
+    }
+}
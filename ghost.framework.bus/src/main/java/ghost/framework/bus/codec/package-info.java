@@ -0,0 +1,7 @@
+/**
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:总线消息二进制编码
+ * @Date: 2020/6/14:10:02
+ */
+package ghost.framework.bus.codec;
@@ -0,0 +1,107 @@
+package ghost.framework.bus.codec;
+
+import ghost.framework.bus.MessageEvent;
+import ghost.framework.bus.SubConstant;
+import ghost.framework.context.environment.Environment;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.serialization.ClassResolvers;
+import io.netty.handler.codec.serialization.ObjectDecoder;
+import io.netty.handler.codec.serialization.ObjectEncoder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * package: ghost.framework.bus.codec
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:总线消息编解码基准测试
+ * 对比 {@link BusMessageCodec} 消息帧与原来通道使用的 {@link ObjectEncoder}、{@link ObjectDecoder} java序列化的编码加解码往返
+ * @Date: 2020/6/27:15:10
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BusMessageCodecBenchmark {
+    /**
+     * 消息帧使用的序列化器
+     */
+    @Param({SubConstant.Codec.SERIALIZER_JSON, SubConstant.Codec.SERIALIZER_JAVA})
+    public String serializer;
+    private EmbeddedChannel codecChannel;
+    private EmbeddedChannel objectChannel;
+    private MessageEvent message;
+
+    @Setup
+    public void setup() {
+        Environment env = new Environment();
+        env.setString(SubConstant.Environment.CODEC_SERIALIZER, this.serializer);
+        env.setString(SubConstant.Environment.CODEC_TYPES, Payload.class.getName());
+        this.codecChannel = new EmbeddedChannel();
+        new BusMessageCodec(env, this.getClass().getClassLoader()).addLast(this.codecChannel.pipeline());
+        this.objectChannel = new EmbeddedChannel(new ObjectDecoder(ClassResolvers.cacheDisabled(this.getClass().getClassLoader())), new ObjectEncoder());
+        this.message = new MessageEvent(new Payload("value", 1L), "topic");
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.codecChannel.finishAndReleaseAll();
+        this.objectChannel.finishAndReleaseAll();
+    }
+
+    /**
+     * 消息帧编码后解码
+     *
+     * @return
+     */
+    @Benchmark
+    public Object codec() {
+        return this.roundTrip(this.codecChannel);
+    }
+
+    /**
+     * java序列化编码后解码
+     *
+     * @return
+     */
+    @Benchmark
+    public Object objectSerialization() {
+        return this.roundTrip(this.objectChannel);
+    }
+
+    private Object roundTrip(EmbeddedChannel channel) {
+        channel.writeOutbound(this.message);
+        ByteBuf buf = channel.readOutbound();
+        channel.writeInbound(buf);
+        return channel.readInbound();
+    }
+
+    public static class Payload implements Serializable {
+        private static final long serialVersionUID = 1L;
+        public String value;
+        public long id;
+
+        public Payload() {
+        }
+
+        public Payload(String value, long id) {
+            this.value = value;
+            this.id = id;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BusMessageCodecBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
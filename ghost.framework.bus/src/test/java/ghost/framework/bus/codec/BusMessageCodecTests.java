@@ -0,0 +1,185 @@
+package ghost.framework.bus.codec;
+
+import ghost.framework.bus.MessageEvent;
+import ghost.framework.bus.SubConstant;
+import ghost.framework.bus.SubscribeMessage;
+import ghost.framework.context.environment.Environment;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.DecoderException;
+import io.netty.handler.codec.EncoderException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * package: ghost.framework.bus.codec
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link BusMessageCodec} 编解码测试
+ * @Date: 2020/6/14:11:30
+ */
+public class BusMessageCodecTests {
+    private final BusMessageTypeResolver typeResolver = new BusMessageTypeResolver(BusMessageCodecTests.class.getClassLoader());
+
+    @Test
+    public void jsonRoundTrip() throws Exception {
+        BusMessageCodec codec = new BusMessageCodec(null, BusMessageCodecTests.class.getClassLoader());
+        EmbeddedChannel channel = new EmbeddedChannel();
+        codec.addLast(channel.pipeline());
+        channel.writeInbound(codec.encode(ByteBufAllocator.DEFAULT, new MessageEvent("value", "topic")));
+        MessageEvent event = channel.readInbound();
+        assertThat(event).isInstanceOf(MessageEvent.class);
+        assertThat(event.getSource()).isEqualTo("value");
+        assertThat(event.getTopic()).isEqualTo("topic");
+    }
+
+    @Test
+    public void javaRoundTrip() throws Exception {
+        JavaBusMessageSerializer serializer = new JavaBusMessageSerializer(this.typeResolver);
+        this.typeResolver.register(Payload.class);
+        MessageEvent event = this.roundTrip(serializer, new SubscribeMessage(new Payload("value")));
+        assertThat(event).isInstanceOf(SubscribeMessage.class);
+        assertThat(((Payload) event.getSource()).value).isEqualTo("value");
+        assertThat(event.getTopic()).isNull();
+    }
+
+    @Test
+    public void registeredTypeRoundTrip() throws Exception {
+        this.typeResolver.register(CustomMessage.class.getName());
+        MessageEvent event = this.roundTrip(new JsonBusMessageSerializer(), new CustomMessage(1L));
+        assertThat(event).isInstanceOf(CustomMessage.class);
+        assertThat(event.getSource()).isEqualTo(1L);
+    }
+
+    @Test
+    public void rejectUnregisteredMessageType() throws Exception {
+        JsonBusMessageSerializer serializer = new JsonBusMessageSerializer();
+        assertThatThrownBy(() -> this.roundTrip(serializer, new CustomMessage(1L)))
+                .isInstanceOf(CorruptedFrameException.class)
+                .hasMessageContaining(CustomMessage.class.getName());
+        assertThatThrownBy(() -> this.roundTrip(serializer, new MessageEvent(new Payload("value"))))
+                .isInstanceOf(CorruptedFrameException.class)
+                .hasMessageContaining(Payload.class.getName());
+    }
+
+    @Test
+    public void rejectUnregisteredJavaObjectStreamType() throws Exception {
+        this.typeResolver.register(Payload.class);
+        Payload payload = new Payload("value");
+        //消息内容类型已注册，对象流中的其它类型未注册
+        payload.attachment = new Date();
+        assertThatThrownBy(() -> this.roundTrip(new JavaBusMessageSerializer(this.typeResolver), new MessageEvent(payload)))
+                .isInstanceOf(DecoderException.class)
+                .hasCauseInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void rejectOtherSerializer() throws Exception {
+        ByteBuf frame = this.encode(new JavaBusMessageSerializer(this.typeResolver), new MessageEvent("value"));
+        EmbeddedChannel channel = new EmbeddedChannel(new BusMessageDecoder(1024, this.typeResolver, new JsonBusMessageSerializer()));
+        assertThatThrownBy(() -> channel.writeInbound(frame))
+                .isInstanceOf(CorruptedFrameException.class)
+                .hasMessageContaining("serializer");
+    }
+
+    @Test
+    public void rejectUnsupportedSerializerName() {
+        Environment env = new Environment();
+        env.setString(SubConstant.Environment.CODEC_SERIALIZER, "unknown");
+        assertThatThrownBy(() -> new BusMessageCodec(env, BusMessageCodecTests.class.getClassLoader()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("unknown");
+    }
+
+    @Test
+    public void emptyTopicDistinctFromNull() throws Exception {
+        JsonBusMessageSerializer serializer = new JsonBusMessageSerializer();
+        assertThat(this.roundTrip(serializer, new MessageEvent("value", "")).getTopic()).isEqualTo("");
+        assertThat(this.roundTrip(serializer, new MessageEvent("value")).getTopic()).isNull();
+    }
+
+    @Test
+    public void maxLengthStringRoundTrip() {
+        ByteBuf buf = ByteBufAllocator.DEFAULT.heapBuffer();
+        try {
+            String value = this.repeat('a', SubConstant.Codec.MAX_STRING_LENGTH);
+            BusMessageEncoder.writeString(buf, value);
+            BusMessageEncoder.writeString(buf, null);
+            assertThat(BusMessageDecoder.readString(buf)).isEqualTo(value);
+            assertThat(BusMessageDecoder.readString(buf)).isNull();
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void rejectTooLongString() {
+        ByteBuf buf = ByteBufAllocator.DEFAULT.heapBuffer();
+        try {
+            buf.writeInt(1);
+            //字符数未超过，utf8字节数超过
+            String value = this.repeat('中', SubConstant.Codec.MAX_STRING_LENGTH / 3 + 1);
+            assertThatThrownBy(() -> BusMessageEncoder.writeString(buf, value))
+                    .isInstanceOf(EncoderException.class)
+                    .hasMessageContaining("too long");
+            assertThat(buf.writerIndex()).isEqualTo(4);
+            assertThatThrownBy(() -> this.encode(new JsonBusMessageSerializer(), new MessageEvent("value", this.repeat('a', SubConstant.Codec.MAX_STRING_LENGTH + 1))))
+                    .isInstanceOf(EncoderException.class);
+        } finally {
+            buf.release();
+        }
+    }
+
+    /**
+     * 编码后按同一序列化器解码
+     */
+    private MessageEvent roundTrip(IBusMessageSerializer serializer, MessageEvent message) throws Exception {
+        ByteBuf frame = this.encode(serializer, message);
+        EmbeddedChannel channel = new EmbeddedChannel(new BusMessageDecoder(1024, this.typeResolver, serializer));
+        channel.writeInbound(frame);
+        return channel.readInbound();
+    }
+
+    private ByteBuf encode(IBusMessageSerializer serializer, MessageEvent message) throws Exception {
+        ByteBuf frame = ByteBufAllocator.DEFAULT.heapBuffer();
+        new BusMessageEncoder(serializer).write(message, frame);
+        return frame;
+    }
+
+    private String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    public static class CustomMessage extends MessageEvent {
+        private static final long serialVersionUID = 1L;
+
+        public CustomMessage(Object source) {
+            super(source);
+        }
+    }
+
+    public static class Payload implements Serializable {
+        private static final long serialVersionUID = 1L;
+        public String value;
+        public Object attachment;
+
+        public Payload() {
+        }
+
+        public Payload(String value) {
+            this.value = value;
+        }
+    }
+}
@@ -3,10 +3,15 @@ import ghost.framework.beans.annotation.constraints.NotNull;
 import ghost.framework.beans.annotation.constraints.Nullable;
 import ghost.framework.context.assembly.IClassLoader;
 import ghost.framework.context.assembly.IGetClassLoader;
+import ghost.framework.context.proxy.IMethodAdvice;
+import ghost.framework.context.proxy.IProxyTarget;
 import ghost.framework.context.proxy.cglib.CglibException;
+import ghost.framework.context.proxy.cglib.CglibMethodInterceptor;
+import ghost.framework.context.proxy.cglib.CglibProxyFactory;
 import ghost.framework.util.Assert;
 import ghost.framework.util.ReflectUtil;
-import net.sf.cglib.proxy.Enhancer;
+import net.sf.cglib.proxy.Callback;
+import net.sf.cglib.proxy.MethodInterceptor;
 import java.io.Serializable;
 import java.lang.reflect.Constructor;
 
@@ -306,29 +311,19 @@ public interface ICglibInstance extends IGetClassLoader {
     default <T> T createCglibEnhancer(@NotNull Class<?> c, @Nullable Class<?>[] interfaces,
                                       @NotNull net.sf.cglib.proxy.InvocationHandler handler,
                                       @NotNull Class<?>[] argumentTypes, @NotNull Object[] parameters) {
-        //没有构建参数创建代理对象
-        Enhancer enhancer = new Enhancer();
-        //设置代理类型
-        enhancer.setSuperclass(c);
-        //判断是否有继承的接口类型
-        if (interfaces != null && interfaces.length > 0) {
-            //添加动态构建
-            enhancer.setInterfaces(interfaces);
+        //代理回调接口
+        Callback callback = handler;
+        //回调对象同时是函数通知时使用编译调用拦截器，不再反射调用目标对象
+        if (handler instanceof IMethodAdvice && handler instanceof IProxyTarget) {
+            callback = new CglibMethodInterceptor<>((IProxyTarget<Object>) handler, c, (IMethodAdvice<?>) handler);
         }
-        //判断是否需要序列化
-        if (Serializable.class.isAssignableFrom(c)) {
-            enhancer.setSerialVersionUID(this.getSerialVersionUID(c));
-        }
-        //设置类型加载器
-        enhancer.setClassLoader((ClassLoader) this.getClassLoader());
-        //设置代理回调接口
-        enhancer.setCallback(handler);
-        if (argumentTypes == null) {
-            //返回构建器
-            return (T) enhancer.create();
-        }
-        //返回构建器
-        return (T) enhancer.create(argumentTypes, parameters);
+        //获取缓存的代理类型
+        Class<?> proxyClass = CglibProxyFactory.getProxyClass(c, interfaces, (ClassLoader) this.getClassLoader(),
+                callback instanceof MethodInterceptor ? MethodInterceptor.class : net.sf.cglib.proxy.InvocationHandler.class,
+                //判断是否需要序列化
+                Serializable.class.isAssignableFrom(c) ? this.getSerialVersionUID(c) : null);
+        //返回代理对象
+        return CglibProxyFactory.newInstance(proxyClass, callback, argumentTypes, parameters);
     }
 
     /**
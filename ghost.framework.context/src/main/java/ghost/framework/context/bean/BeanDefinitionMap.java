@@ -0,0 +1,219 @@
+package ghost.framework.context.bean;
+
+import ghost.framework.beans.annotation.constraints.NotNull;
+import ghost.framework.beans.annotation.constraints.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * package: ghost.framework.context.bean
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:带类型索引的绑定地图
+ * 写入时复制有序快照，读取不加锁；
+ * 类型（包括接口与父类）到绑定定义的索引与绑定对象类型名称索引在首次查询时建立，
+ * 在绑定添加或删除（插件加载或卸载）时整体失效。
+ * 写入操作锁定地图本身，与原有 synchronized (beanMap) 的调用方式保持兼容。
+ * @Date: 2020/6/2:10:12
+ */
+public class BeanDefinitionMap extends AbstractMap<String, IBeanDefinition> {
+    /**
+     * 未找到类型绑定定义的占位对象
+     */
+    private static final List<IBeanDefinition> EMPTY = Collections.emptyList();
+    /**
+     * 有序绑定快照
+     * 只在锁定地图时替换，读取直接使用当前快照
+     */
+    private volatile Map<String, IBeanDefinition> snapshot = Collections.emptyMap();
+    /**
+     * 类型索引
+     * 键为查询类型，值为按绑定顺序排列的可分配绑定定义列表
+     */
+    private volatile ConcurrentHashMap<Class<?>, List<IBeanDefinition>> typeIndex = new ConcurrentHashMap<>();
+    /**
+     * 绑定对象类型名称索引
+     * 用于跨类加载器同名类型比较，在首次查询时按当前快照建立
+     */
+    private volatile ClassNameIndex classNameIndex;
+
+    /**
+     * 获取指定类型的第一个绑定定义
+     * 按绑定顺序返回第一个对象类型可以分配给指定类型的绑定定义
+     *
+     * @param c 绑定类型，可以是接口或父类
+     * @return 未找到时返回null
+     */
+    @Nullable
+    public IBeanDefinition getTypeDefinition(@NotNull Class<?> c) {
+        List<IBeanDefinition> list = this.getTypeDefinitions(c);
+        return list.isEmpty() ? null : list.get(0);
+    }
+
+    /**
+     * 获取指定类型的全部绑定定义
+     *
+     * @param c 绑定类型，可以是接口或父类
+     * @return 返回只读列表，未找到时返回空列表
+     */
+    @NotNull
+    public List<IBeanDefinition> getTypeDefinitions(@NotNull Class<?> c) {
+        ConcurrentHashMap<Class<?>, List<IBeanDefinition>> index = this.typeIndex;
+        List<IBeanDefinition> list = index.get(c);
+        if (list != null) {
+            return list;
+        }
+        //索引未命中时扫描当前快照，之后相同类型查询不再扫描
+        Map<String, IBeanDefinition> map = this.snapshot;
+        List<IBeanDefinition> result = null;
+        for (IBeanDefinition definition : map.values()) {
+            Object o = definition.getObject();
+            if (o != null && c.isInstance(o)) {
+                if (result == null) {
+                    result = new ArrayList<>(1);
+                }
+                result.add(definition);
+            }
+        }
+        list = result == null ? EMPTY : Collections.unmodifiableList(result);
+        //快照在扫描期间已经替换时不写入旧索引
+        if (map == this.snapshot) {
+            index.putIfAbsent(c, list);
+        }
+        return list;
+    }
+
+    /**
+     * 判断是否存在指定类型的绑定定义
+     *
+     * @param c 绑定类型
+     * @return
+     */
+    public boolean containsType(@NotNull Class<?> c) {
+        return !this.getTypeDefinitions(c).isEmpty();
+    }
+
+    /**
+     * 判断是否存在指定类型名称的绑定对象
+     * 按名称比较，不同类加载器加载的同名类型也视为存在
+     *
+     * @param name 绑定对象类型名称
+     * @return
+     */
+    public boolean containsClassName(@NotNull String name) {
+        Map<String, IBeanDefinition> map = this.snapshot;
+        ClassNameIndex index = this.classNameIndex;
+        //索引不是按当前快照建立时重新建立
+        if (index == null || index.snapshot != map) {
+            index = new ClassNameIndex(map);
+            this.classNameIndex = index;
+        }
+        return index.names.contains(name);
+    }
+
+    /**
+     * 使类型索引失效
+     * 绑定地图变更时自动调用，插件加载或卸载导致类型关系变化时也可以直接调用
+     */
+    public void invalidate() {
+        this.typeIndex = new ConcurrentHashMap<>();
+        this.classNameIndex = null;
+    }
+
+    @Override
+    public IBeanDefinition get(Object key) {
+        return this.snapshot.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return this.snapshot.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return this.snapshot.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.snapshot.isEmpty();
+    }
+
+    @Override
+    public synchronized IBeanDefinition put(String key, IBeanDefinition value) {
+        LinkedHashMap<String, IBeanDefinition> map = new LinkedHashMap<>(this.snapshot);
+        IBeanDefinition old = map.put(key, value);
+        this.publish(map);
+        return old;
+    }
+
+    @Override
+    public synchronized void putAll(Map<? extends String, ? extends IBeanDefinition> m) {
+        LinkedHashMap<String, IBeanDefinition> map = new LinkedHashMap<>(this.snapshot);
+        map.putAll(m);
+        this.publish(map);
+    }
+
+    @Override
+    public synchronized IBeanDefinition remove(Object key) {
+        if (!this.snapshot.containsKey(key)) {
+            return null;
+        }
+        LinkedHashMap<String, IBeanDefinition> map = new LinkedHashMap<>(this.snapshot);
+        IBeanDefinition old = map.remove(key);
+        this.publish(map);
+        return old;
+    }
+
+    @Override
+    public synchronized void clear() {
+        this.publish(new LinkedHashMap<>());
+    }
+
+    /**
+     * 发布新快照并使类型索引失效
+     *
+     * @param map 新绑定地图
+     */
+    private void publish(LinkedHashMap<String, IBeanDefinition> map) {
+        this.snapshot = Collections.unmodifiableMap(map);
+        this.invalidate();
+    }
+
+    /**
+     * 快照的绑定对象类型名称索引
+     */
+    private static final class ClassNameIndex {
+        /**
+         * 建立索引的快照
+         */
+        private final Map<String, IBeanDefinition> snapshot;
+        /**
+         * 绑定对象类型名称
+         */
+        private final Set<String> names = new HashSet<>();
+
+        private ClassNameIndex(Map<String, IBeanDefinition> snapshot) {
+            this.snapshot = snapshot;
+            for (IBeanDefinition definition : snapshot.values()) {
+                Object o = definition.getObject();
+                if (o != null) {
+                    this.names.add(o.getClass().getName());
+                }
+            }
+        }
+    }
+
+    /**
+     * 返回当前快照的只读条目集合
+     *
+     * @return
+     */
+    @Override
+    public Set<Entry<String, IBeanDefinition>> entrySet() {
+        return this.snapshot.entrySet();
+    }
+}
@@ -3,6 +3,11 @@ package ghost.framework.context.bean.factory;
 import ghost.framework.context.base.ICoreInterface;
 
 import java.lang.annotation.Annotation;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * @Author: 郭树灿{guo-w541}
@@ -13,6 +18,7 @@ import java.lang.annotation.Annotation;
  * @param <T> 注释类型
  * @param <E> 注释绑定事件目标处理
  * @param <L> {@link IClassAnnotationBeanFactory <O, T, E>} 接口类型或继承 {@link IClassAnnotationBeanFactory <O, T, E>} 接口对象
+ * 添加删除工厂时同时维护 注释类型->工厂列表 地图，按注释类型获取工厂不再遍历全部工厂
  */
 public abstract class AbstractAnnotationBeanFactoryContainer
         <
@@ -23,6 +29,73 @@ public abstract class AbstractAnnotationBeanFactoryContainer
                 >
         extends AbstractBeanFactoryContainer<L>
         implements IAnnotationBeanFactoryContainer<O, T, E, L> {
+    /**
+     * 注释类型工厂地图
+     * 工厂列表按添加顺序排列，遍历时为快照，遍历中添加删除工厂不影响当前遍历
+     */
+    private final Map<Class<? extends Annotation>, List<L>> annotationFactoryMap = new ConcurrentHashMap<>();
+
+    /**
+     * 添加工厂
+     *
+     * @param factory 注释事件工厂
+     * @return
+     */
+    @Override
+    public boolean add(L factory) {
+        synchronized (this.annotationFactoryMap) {
+            if (!super.add(factory)) {
+                return false;
+            }
+            this.annotationFactoryMap.computeIfAbsent(factory.getAnnotationClass(), k -> new CopyOnWriteArrayList<>()).add(factory);
+            return true;
+        }
+    }
+
+    /**
+     * 删除工厂
+     *
+     * @param factory 注释事件工厂
+     * @return
+     */
+    @Override
+    public boolean remove(Object factory) {
+        synchronized (this.annotationFactoryMap) {
+            if (!super.remove(factory)) {
+                return false;
+            }
+            if (factory instanceof IAnnotationBeanFactory) {
+                this.annotationFactoryMap.computeIfPresent(((IAnnotationBeanFactory<?, ?, ?>) factory).getAnnotationClass(), (k, list) -> {
+                    list.remove(factory);
+                    return list.isEmpty() ? null : list;
+                });
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 清除全部工厂
+     */
+    @Override
+    public void clear() {
+        synchronized (this.annotationFactoryMap) {
+            super.clear();
+            this.annotationFactoryMap.clear();
+        }
+    }
+
+    /**
+     * 获取注释类型的工厂列表
+     *
+     * @param annotation 注释类型
+     * @return 返回按添加顺序排列的工厂列表，没有工厂时返回空列表
+     */
+    protected List<L> getAnnotationFactoryList(Class<? extends Annotation> annotation) {
+        List<L> list = this.annotationFactoryMap.get(annotation);
+        return list == null ? Collections.emptyList() : list;
+    }
+
     /**
      * 获取注释事件工厂接口
      *
@@ -32,12 +105,9 @@ public abstract class AbstractAnnotationBeanFactoryContainer
      */
     @Override
     public <R extends IAnnotationBeanFactory<O, T, E>> R getAnnotationEventFactory(Class<? extends Annotation> annotation) {
-        //遍历注释事件工厂列表
-        for (IAnnotationBeanFactory<O, T, E> eventFactory : this) {
-            //比对注释类型
-            if (eventFactory.getAnnotationClass().equals(annotation)) {
-                return (R)eventFactory;
-            }
+        //返回注释类型的第一个工厂
+        for (L factory : this.getAnnotationFactoryList(annotation)) {
+            return (R) factory;
         }
         return null;
     }
@@ -3,6 +3,7 @@ package ghost.framework.context.bean.utils;
 import ghost.framework.beans.annotation.conditional.ConditionalOnMissingBean;
 import ghost.framework.beans.annotation.order.Order;
 import ghost.framework.beans.annotation.stereotype.Service;
+import ghost.framework.context.bean.BeanDefinitionMap;
 import ghost.framework.context.bean.BeanMethod;
 import ghost.framework.context.bean.IBeanDefinition;
 import ghost.framework.beans.BeanException;
@@ -72,6 +73,10 @@ public class BeanUtil {
      * @return
      */
     public static <B extends IBeanDefinition> boolean beanContains(Map<String, B> map, String name) {
+        //索引地图直接查找
+        if (map instanceof BeanDefinitionMap) {
+            return map.containsKey(name);
+        }
         //接口类型处理
         synchronized (map) {
             //遍历绑定定义对象
@@ -106,6 +111,19 @@ public class BeanUtil {
      * @return
      */
     public static <B extends IBeanDefinition> boolean beanContains(Map<String, B> map, Class<?> c) {
+        //索引地图使用类型索引
+        if (map instanceof BeanDefinitionMap) {
+            BeanDefinitionMap definitionMap = (BeanDefinitionMap) map;
+            if (definitionMap.containsType(c)) {
+                return true;
+            }
+            if (c.isInterface()) {
+                return false;
+            }
+            String cn = c.getName();
+            //跨类加载器同名类型按名称索引比较
+            return definitionMap.containsKey(cn) || definitionMap.containsClassName(cn);
+        }
         //判断类型是否未接口
         if (c.isInterface()) {
             //接口类型处理
@@ -284,6 +302,10 @@ public class BeanUtil {
      * @return
      */
     public static IBeanDefinition getInterfaceBeanDefinition(Map<String, IBeanDefinition> map, Class<?> c) {
+        //索引地图使用类型索引
+        if (map instanceof BeanDefinitionMap) {
+            return ((BeanDefinitionMap) map).getTypeDefinition(c);
+        }
         synchronized (map) {
             for (Map.Entry<String, IBeanDefinition> entry : map.entrySet()) {
                 if (c.isAssignableFrom(entry.getValue().getObject().getClass())) {
@@ -356,6 +378,29 @@ public class BeanUtil {
 //        return o.getClass().getName();
 //    }
 
+    /**
+     * 使用类型获取绑定定义列表
+     *
+     * @param map 绑定地图
+     * @param c   绑定类型，可以是接口或父类
+     * @return 返回按绑定顺序排列的绑定定义列表
+     */
+    public static List<IBeanDefinition> getTypeBeanDefinitionList(Map<String, IBeanDefinition> map, Class<?> c) {
+        //索引地图使用类型索引
+        if (map instanceof BeanDefinitionMap) {
+            return ((BeanDefinitionMap) map).getTypeDefinitions(c);
+        }
+        List<IBeanDefinition> list = new ArrayList<>();
+        synchronized (map) {
+            for (Map.Entry<String, IBeanDefinition> entry : map.entrySet()) {
+                if (c.isAssignableFrom(entry.getValue().getObject().getClass())) {
+                    list.add(entry.getValue());
+                }
+            }
+        }
+        return list;
+    }
+
     /**
      * 是否为绑定服务
      *
@@ -482,6 +527,10 @@ public class BeanUtil {
      * @return
      */
     public static IBeanDefinition getNameBeanDefinition(Map<String, IBeanDefinition> beanMap, String name) {
+        //索引地图读取不需要锁定
+        if (beanMap instanceof BeanDefinitionMap) {
+            return beanMap.get(name);
+        }
         synchronized (beanMap) {
             return beanMap.get(name);
         }
@@ -496,6 +545,19 @@ public class BeanUtil {
      * @return
      */
     public static IBeanDefinition getBeanDefinition(Map<String, IBeanDefinition> beanMap, String name, ClassLoader loader) {
+        //索引地图读取不需要锁定
+        if (beanMap instanceof BeanDefinitionMap) {
+            IBeanDefinition definition = beanMap.get(name);
+            if (definition != null) {
+                return definition;
+            }
+            //如果注入的是接口时判断是否有该接口继承的绑定对象
+            try {
+                return ((BeanDefinitionMap) beanMap).getTypeDefinition(Class.forName(name, false, loader));
+            } catch (ClassNotFoundException e) {
+                throw new BeanException(e.getMessage(), e);
+            }
+        }
         synchronized (beanMap) {
             if (beanMap.containsKey(name)) {
                 return beanMap.get(name);
@@ -602,6 +664,10 @@ public class BeanUtil {
      * @return 返回删除后的绑定定义对象
      */
     public static IBeanDefinition removeBean(Map<String, IBeanDefinition> beanMap, IBeanDefinition definition) {
+        //索引地图删除时同步失效类型索引
+        if (beanMap instanceof BeanDefinitionMap) {
+            return beanMap.remove(definition.getName()) == null ? null : definition;
+        }
         boolean isDefinition = false;
         synchronized (beanMap) {
             for (Map.Entry<String, IBeanDefinition> entry : beanMap.entrySet()) {
@@ -0,0 +1,79 @@
+package ghost.framework.context.proxy;
+
+import java.lang.reflect.Method;
+
+/**
+ * package: ghost.framework.context.proxy
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:函数代理通知接口
+ * 创建代理时对每个代理函数调用一次 {@link #matches(Method)} 确定通知链，调用时不再判断。
+ * 单次调用的上下文由 {@link #before(Object, Method, Object[])} 返回，保存在调用栈中传给后续通知函数，
+ * 通知对象本身不保存调用状态，多线程同时调用同一个代理对象时互不影响。
+ * @Date: 2020/6/25:9:40
+ */
+public interface IMethodAdvice<C> {
+    /**
+     * 判断函数是否需要通知
+     * 创建代理时调用
+     *
+     * @param method 代理函数
+     * @return
+     */
+    default boolean matches(Method method) {
+        return true;
+    }
+
+    /**
+     * 调用函数前
+     *
+     * @param target 代理目标对象
+     * @param method 代理函数
+     * @param args   调用参数
+     * @return 返回本次调用上下文
+     * @throws Throwable
+     */
+    default C before(Object target, Method method, Object[] args) throws Throwable {
+        return null;
+    }
+
+    /**
+     * 调用函数后
+     *
+     * @param context 本次调用上下文
+     * @param target  代理目标对象
+     * @param method  代理函数
+     * @param args    调用参数
+     * @param result  函数返回值
+     * @throws Throwable
+     */
+    default void after(C context, Object target, Method method, Object[] args, Object result) throws Throwable {
+    }
+
+    /**
+     * 调用函数错误
+     *
+     * @param context   本次调用上下文
+     * @param target    代理目标对象
+     * @param method    代理函数
+     * @param args      调用参数
+     * @param throwable 错误对象
+     * @return 返回true表示错误已经处理不再传播，返回false继续传播错误
+     */
+    default boolean throwing(C context, Object target, Method method, Object[] args, Throwable throwable) {
+        return false;
+    }
+
+    /**
+     * 调用完成后，无论是否出现错误都会调用
+     *
+     * @param context   本次调用上下文，{@link #before(Object, Method, Object[])} 出现错误时为null
+     * @param target    代理目标对象
+     * @param method    代理函数
+     * @param args      调用参数
+     * @param throwable 调用过程出现的错误，未出现错误为null
+     */
+    default void afterProcessing(C context, Object target, Method method, Object[] args, Throwable throwable) {
+    }
+}
@@ -0,0 +1,159 @@
+package ghost.framework.context.proxy.cglib;
+
+import ghost.framework.context.proxy.IMethodAdvice;
+import ghost.framework.context.proxy.IProxyTarget;
+import net.sf.cglib.proxy.MethodInterceptor;
+import net.sf.cglib.proxy.MethodProxy;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * package: ghost.framework.context.proxy.cglib
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:cglib编译调用代理拦截器
+ * 使用 {@link MethodProxy#invoke(Object, Object[])} 通过cglib生成的FastClass直接调用代理目标对象函数，不使用反射调用。
+ * 创建时为代理类型的每个可代理函数计算通知链，没有通知的函数直接调用目标对象；
+ * 每次调用的通知上下文保存在调用栈中，拦截器不保存调用状态。
+ * @Date: 2020/6/25:10:05
+ */
+public final class CglibMethodInterceptor<T> implements MethodInterceptor {
+    /**
+     * 没有通知
+     */
+    private static final IMethodAdvice[] EMPTY = new IMethodAdvice[0];
+    /**
+     * 代理目标对象来源
+     */
+    private final IProxyTarget<T> target;
+    /**
+     * 通知列表
+     */
+    private final IMethodAdvice[] advices;
+    /**
+     * 函数与通知链
+     */
+    private final Map<Method, IMethodAdvice[]> chains = new ConcurrentHashMap<>();
+
+    /**
+     * 初始化cglib编译调用代理拦截器
+     *
+     * @param target  代理目标对象来源，每次调用时获取目标对象
+     * @param c       代理类型
+     * @param advices 通知列表
+     */
+    public CglibMethodInterceptor(IProxyTarget<T> target, Class<?> c, IMethodAdvice... advices) {
+        this.target = target;
+        this.advices = advices == null ? EMPTY : advices;
+        //预先计算全部可代理函数的通知链
+        for (Method method : getProxyMethods(c)) {
+            this.chains.put(method, this.chain(method));
+        }
+    }
+
+    @Override
+    public Object intercept(Object o, Method method, Object[] objects, MethodProxy methodProxy) throws Throwable {
+        IMethodAdvice[] chain = this.chains.get(method);
+        if (chain == null) {
+            //接口等创建时未计算的函数
+            chain = this.chains.computeIfAbsent(method, this::chain);
+        }
+        T t = this.target.getTarget();
+        if (chain.length == 0) {
+            return methodProxy.invoke(t, objects);
+        }
+        Object[] contexts = new Object[chain.length];
+        Throwable throwable = null;
+        try {
+            //调用函数前
+            for (int i = 0; i < chain.length; i++) {
+                contexts[i] = chain[i].before(t, method, objects);
+            }
+            //调用函数
+            Object r = methodProxy.invoke(t, objects);
+            //调用函数后
+            for (int i = 0; i < chain.length; i++) {
+                chain[i].after(contexts[i], t, method, objects, r);
+            }
+            return r;
+        } catch (Throwable e) {
+            throwable = e;
+            //调用错误函数
+            for (int i = 0; i < chain.length; i++) {
+                if (chain[i].throwing(contexts[i], t, method, objects, e)) {
+                    //错误已经处理
+                    return null;
+                }
+            }
+            //没有处理错误，继续传播
+            throw e;
+        } finally {
+            //调用后
+            for (int i = chain.length - 1; i >= 0; i--) {
+                chain[i].afterProcessing(contexts[i], t, method, objects, throwable);
+            }
+        }
+    }
+
+    /**
+     * 计算函数通知链
+     *
+     * @param method 代理函数
+     * @return
+     */
+    private IMethodAdvice[] chain(Method method) {
+        List<IMethodAdvice> list = new ArrayList<>(this.advices.length);
+        for (IMethodAdvice advice : this.advices) {
+            if (advice.matches(method)) {
+                list.add(advice);
+            }
+        }
+        return list.isEmpty() ? EMPTY : list.toArray(new IMethodAdvice[list.size()]);
+    }
+
+    /**
+     * 获取类型可被cglib代理的函数，不包括静态、私有与final函数
+     *
+     * @param c 代理类型
+     * @return
+     */
+    private static List<Method> getProxyMethods(Class<?> c) {
+        List<Method> list = new ArrayList<>();
+        Set<Class<?>> visited = new HashSet<>();
+        for (Class<?> type = c; type != null; type = type.getSuperclass()) {
+            addProxyMethods(type, list, visited);
+        }
+        return list;
+    }
+
+    /**
+     * 添加类型与继承接口声明的可代理函数
+     *
+     * @param type    类型
+     * @param list    函数列表
+     * @param visited 已经添加的类型
+     */
+    private static void addProxyMethods(Class<?> type, List<Method> list, Set<Class<?>> visited) {
+        if (!visited.add(type)) {
+            return;
+        }
+        for (Method method : type.getDeclaredMethods()) {
+            int modifiers = method.getModifiers();
+            if (Modifier.isStatic(modifiers) || Modifier.isPrivate(modifiers) || Modifier.isFinal(modifiers) || method.isBridge()) {
+                continue;
+            }
+            list.add(method);
+        }
+        for (Class<?> i : type.getInterfaces()) {
+            addProxyMethods(i, list, visited);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package ghost.framework.context.proxy.cglib;
+
+import net.sf.cglib.proxy.Callback;
+import net.sf.cglib.proxy.Enhancer;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * package: ghost.framework.context.proxy.cglib
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:cglib代理类型工厂
+ * 按 代理类型、继承接口、类加载器与回调类型 缓存生成的代理类型，同一代理类型只生成一次，
+ * 创建代理对象时不再构建 {@link Enhancer} 与计算cglib缓存键。
+ * 缓存保存在被代理类型的 {@link ClassValue} 中，缓存键的类加载器、继承接口与回调类型以及缓存的代理类型都使用弱引用，
+ * 缓存不会阻止类加载器与代理类型卸载，已卸载的缓存在下次生成代理类型时清除。
+ * @Date: 2020/6/25:10:40
+ */
+public final class CglibProxyFactory {
+    /**
+     * 代理类型缓存
+     */
+    private static final ClassValue<Map<Key, WeakReference<Class<?>>>> proxyClasses = new ClassValue<Map<Key, WeakReference<Class<?>>>>() {
+        @Override
+        protected Map<Key, WeakReference<Class<?>>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private CglibProxyFactory() {
+    }
+
+    /**
+     * 获取代理类型，没有缓存时生成
+     *
+     * @param c                代理类型
+     * @param interfaces       实现代理构建对象继承的接口
+     * @param classLoader      类加载器
+     * @param callbackType     回调类型
+     * @param serialVersionUID 序列化版本，不需要序列化时为null
+     * @return
+     */
+    public static Class<?> getProxyClass(Class<?> c, Class<?>[] interfaces, ClassLoader classLoader, Class<? extends Callback> callbackType, Long serialVersionUID) {
+        Key key = new Key(interfaces, classLoader, callbackType);
+        Map<Key, WeakReference<Class<?>>> map = proxyClasses.get(c);
+        WeakReference<Class<?>> reference = map.get(key);
+        Class<?> proxyClass = reference == null ? null : reference.get();
+        if (proxyClass == null) {
+            synchronized (map) {
+                reference = map.get(key);
+                proxyClass = reference == null ? null : reference.get();
+                if (proxyClass == null) {
+                    //清除已卸载的缓存
+                    map.entrySet().removeIf(e -> e.getKey().isCleared() || e.getValue().get() == null);
+                    Enhancer enhancer = new Enhancer();
+                    //设置代理类型
+                    enhancer.setSuperclass(c);
+                    //判断是否有继承的接口类型
+                    if (interfaces != null && interfaces.length > 0) {
+                        enhancer.setInterfaces(interfaces);
+                    }
+                    if (serialVersionUID != null) {
+                        enhancer.setSerialVersionUID(serialVersionUID);
+                    }
+                    enhancer.setClassLoader(classLoader);
+                    enhancer.setCallbackType(callbackType);
+                    proxyClass = enhancer.createClass();
+                    map.put(key, new WeakReference<>(proxyClass));
+                }
+            }
+        }
+        return proxyClass;
+    }
+
+    /**
+     * 创建代理对象
+     *
+     * @param proxyClass    代理类型
+     * @param callback      代理回调对象
+     * @param argumentTypes 指定构建数组参数类型，为null时使用无参数构建
+     * @param parameters    指定构建数组参数
+     * @param <T>           返回类型
+     * @return 返回代理对象
+     */
+    public static <T> T newInstance(Class<?> proxyClass, Callback callback, Class<?>[] argumentTypes, Object[] parameters) {
+        //回调对象在构建函数中按线程绑定
+        Enhancer.registerCallbacks(proxyClass, new Callback[]{callback});
+        try {
+            if (argumentTypes == null) {
+                return (T) ReflectUtils.newInstance(proxyClass);
+            }
+            return (T) ReflectUtils.newInstance(proxyClass, argumentTypes, parameters);
+        } finally {
+            Enhancer.registerCallbacks(proxyClass, null);
+        }
+    }
+
+    /**
+     * 代理类型缓存键
+     * 弱引用类加载器、继承接口与回调类型，按引用对象的标识比较，已释放的缓存键不与任何缓存键相等
+     */
+    private static final class Key {
+        /**
+         * 引用对象为null时保存null
+         */
+        private final WeakReference<?>[] references;
+        private final int hashCode;
+
+        private Key(Class<?>[] interfaces, ClassLoader classLoader, Class<? extends Callback> callbackType) {
+            int length = interfaces == null ? 0 : interfaces.length;
+            this.references = new WeakReference<?>[length + 2];
+            this.references[0] = reference(classLoader);
+            this.references[1] = reference(callbackType);
+            int hashCode = 31 * System.identityHashCode(classLoader) + System.identityHashCode(callbackType);
+            for (int i = 0; i < length; i++) {
+                this.references[i + 2] = reference(interfaces[i]);
+                hashCode = 31 * hashCode + System.identityHashCode(interfaces[i]);
+            }
+            this.hashCode = hashCode;
+        }
+
+        private static WeakReference<?> reference(Object o) {
+            return o == null ? null : new WeakReference<>(o);
+        }
+
+        private static Object get(WeakReference<?> reference) {
+            return reference == null ? null : reference.get();
+        }
+
+        /**
+         * 判断是否有引用对象已释放
+         *
+         * @return
+         */
+        private boolean isCleared() {
+            for (WeakReference<?> reference : this.references) {
+                if (reference != null && reference.get() == null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            if (this.hashCode != key.hashCode || this.references.length != key.references.length || this.isCleared() || key.isCleared()) {
+                return false;
+            }
+            for (int i = 0; i < this.references.length; i++) {
+                if (get(this.references[i]) != get(key.references[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+    }
+}
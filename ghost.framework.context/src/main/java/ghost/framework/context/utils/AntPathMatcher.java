@@ -197,6 +197,22 @@ public class AntPathMatcher implements PathMatcher {
 		return doMatch(pattern, path, false, null);
 	}
 
+	/**
+	 * Match a single path segment (no separators) against a single pattern segment,
+	 * using the same cached segment matchers as {@link #match(String, String)}.
+	 * <p>Intended for callers that pre-tokenize their patterns, e.g. route indexes.
+	 * @param pattern the pattern segment, e.g. {@code {language}.json}
+	 * @param segment the path segment to test
+	 * @param uriTemplateVariables map to add extracted URI template variables to,
+	 * or {@code null} if not needed
+	 * @return {@code true} if the segment matched
+	 */
+	public boolean matchSegment(String pattern, String segment,
+			@Nullable Map<String, String> uriTemplateVariables) {
+
+		return matchStrings(pattern, segment, uriTemplateVariables);
+	}
+
 	/**
 	 * Actually match the given {@code path} against the given {@code pattern}.
 	 * @param pattern the pattern to match against
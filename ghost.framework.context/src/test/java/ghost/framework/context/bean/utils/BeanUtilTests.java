@@ -0,0 +1,106 @@
+package ghost.framework.context.bean.utils;
+
+import ghost.framework.context.bean.BeanDefinitionMap;
+import ghost.framework.context.bean.IBeanDefinition;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * package: ghost.framework.context.bean.utils
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link BeanUtil} 绑定类型查找测试
+ * @Date: 2020/6/28:10:10
+ */
+public class BeanUtilTests {
+    /**
+     * 绑定对象读取次数
+     */
+    private final AtomicInteger reads = new AtomicInteger();
+    private final BeanDefinitionMap map = new BeanDefinitionMap();
+
+    @Test
+    public void containsByTypeAndName() {
+        this.map.put("list", this.definition(new ArrayList<>()));
+        this.map.put(Bean.class.getName(), this.definition(new Bean()));
+        assertThat(BeanUtil.beanContains(this.map, ArrayList.class)).isTrue();
+        assertThat(BeanUtil.beanContains(this.map, List.class)).isTrue();
+        assertThat(BeanUtil.beanContains(this.map, Bean.class)).isTrue();
+        assertThat(BeanUtil.beanContains(this.map, HashMap.class)).isFalse();
+    }
+
+    @Test
+    public void containsSameNameFromOtherClassLoader() throws Exception {
+        this.map.put("bean", this.definition(new Bean()));
+        URL location = BeanUtilTests.class.getProtectionDomain().getCodeSource().getLocation();
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{location}, null)) {
+            Class<?> other = loader.loadClass(Bean.class.getName());
+            assertThat(other).isNotSameAs(Bean.class);
+            assertThat(BeanUtil.beanContains(this.map, other)).isTrue();
+        }
+    }
+
+    @Test
+    public void repeatedMissDoesNotScan() {
+        for (int i = 0; i < 100; i++) {
+            this.map.put("list" + i, this.definition(new ArrayList<>()));
+        }
+        assertThat(BeanUtil.beanContains(this.map, HashMap.class)).isFalse();
+        //首次查询建立类型与名称索引，之后相同类型未命中不再遍历绑定
+        int reads = this.reads.get();
+        for (int i = 0; i < 100; i++) {
+            assertThat(BeanUtil.beanContains(this.map, HashMap.class)).isFalse();
+        }
+        assertThat(this.reads.get()).isEqualTo(reads);
+    }
+
+    @Test
+    public void nameIndexFollowsChanges() throws Exception {
+        URL location = BeanUtilTests.class.getProtectionDomain().getCodeSource().getLocation();
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{location}, null)) {
+            Class<?> other = loader.loadClass(Bean.class.getName());
+            assertThat(BeanUtil.beanContains(this.map, other)).isFalse();
+            this.map.put("bean", this.definition(new Bean()));
+            assertThat(BeanUtil.beanContains(this.map, other)).isTrue();
+            this.map.remove("bean");
+            assertThat(BeanUtil.beanContains(this.map, other)).isFalse();
+        }
+    }
+
+    /**
+     * 创建绑定定义
+     *
+     * @param o 绑定对象
+     * @return
+     */
+    private IBeanDefinition definition(Object o) {
+        return (IBeanDefinition) Proxy.newProxyInstance(this.getClass().getClassLoader(), new Class<?>[]{IBeanDefinition.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getObject":
+                    this.reads.incrementAndGet();
+                    return o;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "definition:" + o.getClass().getName();
+                default:
+                    return null;
+            }
+        });
+    }
+
+    public static class Bean {
+    }
+}
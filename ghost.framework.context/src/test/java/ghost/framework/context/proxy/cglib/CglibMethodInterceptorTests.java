@@ -0,0 +1,175 @@
+package ghost.framework.context.proxy.cglib;
+
+import ghost.framework.context.proxy.IMethodAdvice;
+import ghost.framework.context.proxy.IProxyTarget;
+import net.sf.cglib.proxy.MethodInterceptor;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * package: ghost.framework.context.proxy.cglib
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link CglibMethodInterceptor} 通知调用顺序测试
+ * @Date: 2020/6/25:11:30
+ */
+public class CglibMethodInterceptorTests {
+    private final List<String> events = new ArrayList<>();
+
+    @Test
+    public void adviceOrder() {
+        Service proxy = this.proxy(new RecordAdvice("a", false), new RecordAdvice("b", false));
+        assertThat(proxy.echo("value")).isEqualTo("value");
+        assertThat(this.events).containsExactly(
+                "a.before", "b.before",
+                "invoke:echo",
+                "a.after:value", "b.after:value",
+                "b.afterProcessing:null", "a.afterProcessing:null");
+    }
+
+    @Test
+    public void throwingHandledStopsChain() {
+        Service proxy = this.proxy(new RecordAdvice("a", false), new RecordAdvice("b", true), new RecordAdvice("c", false));
+        assertThat(proxy.fail()).isNull();
+        assertThat(this.events).containsExactly(
+                "a.before", "b.before", "c.before",
+                "invoke:fail",
+                "a.throwing", "b.throwing",
+                "c.afterProcessing:IllegalStateException", "b.afterProcessing:IllegalStateException", "a.afterProcessing:IllegalStateException");
+    }
+
+    @Test
+    public void throwingUnhandledPropagates() {
+        Service proxy = this.proxy(new RecordAdvice("a", false), new RecordAdvice("b", false));
+        assertThatThrownBy(proxy::fail)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("fail");
+        assertThat(this.events).containsExactly(
+                "a.before", "b.before",
+                "invoke:fail",
+                "a.throwing", "b.throwing",
+                "b.afterProcessing:IllegalStateException", "a.afterProcessing:IllegalStateException");
+    }
+
+    @Test
+    public void adviceOnlyOnMatchedMethods() {
+        RecordAdvice echo = new RecordAdvice("echo", false) {
+            @Override
+            public boolean matches(Method method) {
+                return method.getName().equals("echo");
+            }
+        };
+        Service proxy = this.proxy(echo, new RecordAdvice("all", false));
+        proxy.run();
+        assertThat(this.events).containsExactly(
+                "all.before",
+                "invoke:run",
+                "all.after:null",
+                "all.afterProcessing:null");
+    }
+
+    @Test
+    public void proxyClassCached() {
+        Class<?> proxyClass = CglibProxyFactory.getProxyClass(Service.class, null, Service.class.getClassLoader(), MethodInterceptor.class, null);
+        assertThat(CglibProxyFactory.getProxyClass(Service.class, null, Service.class.getClassLoader(), MethodInterceptor.class, null)).isSameAs(proxyClass);
+        assertThat(CglibProxyFactory.getProxyClass(Service.class, new Class<?>[]{Runnable.class}, Service.class.getClassLoader(), MethodInterceptor.class, null)).isNotSameAs(proxyClass);
+    }
+
+    /**
+     * 创建代理对象
+     *
+     * @param advices 通知列表
+     * @return
+     */
+    private Service proxy(IMethodAdvice<?>... advices) {
+        Class<?> proxyClass = CglibProxyFactory.getProxyClass(Service.class, null, Service.class.getClassLoader(), MethodInterceptor.class, null);
+        Target target = new Target();
+        target.setTarget(new Service(this.events));
+        return CglibProxyFactory.newInstance(proxyClass, new CglibMethodInterceptor<>(target, Service.class, advices), null, null);
+    }
+
+    public static class Service {
+        private final List<String> events;
+
+        public Service() {
+            this(null);
+        }
+
+        public Service(List<String> events) {
+            this.events = events;
+        }
+
+        public String echo(String value) {
+            this.events.add("invoke:echo");
+            return value;
+        }
+
+        public String fail() {
+            this.events.add("invoke:fail");
+            throw new IllegalStateException("fail");
+        }
+
+        public void run() {
+            this.events.add("invoke:run");
+        }
+    }
+
+    private static final class Target implements IProxyTarget<Service> {
+        private Service target;
+
+        @Override
+        public Service getTarget() {
+            return target;
+        }
+
+        @Override
+        public void setTarget(Service target) {
+            this.target = target;
+        }
+    }
+
+    /**
+     * 记录调用顺序的通知，通知上下文为通知名称
+     */
+    private class RecordAdvice implements IMethodAdvice<String> {
+        private final String name;
+        private final boolean handled;
+
+        RecordAdvice(String name, boolean handled) {
+            this.name = name;
+            this.handled = handled;
+        }
+
+        @Override
+        public String before(Object target, Method method, Object[] args) {
+            events.add(this.name + ".before");
+            return this.name;
+        }
+
+        @Override
+        public void after(String context, Object target, Method method, Object[] args, Object result) {
+            assertThat(context).isEqualTo(this.name);
+            events.add(this.name + ".after:" + result);
+        }
+
+        @Override
+        public boolean throwing(String context, Object target, Method method, Object[] args, Throwable throwable) {
+            assertThat(context).isEqualTo(this.name);
+            events.add(this.name + ".throwing");
+            return this.handled;
+        }
+
+        @Override
+        public void afterProcessing(String context, Object target, Method method, Object[] args, Throwable throwable) {
+            assertThat(context).isEqualTo(this.name);
+            events.add(this.name + ".afterProcessing:" + (throwable == null ? null : throwable.getClass().getSimpleName()));
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package ghost.framework.context.proxy.cglib;
+
+import ghost.framework.context.proxy.IMethodAdvice;
+import ghost.framework.context.proxy.IProxyTarget;
+import net.sf.cglib.proxy.InvocationHandler;
+import net.sf.cglib.proxy.MethodInterceptor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * package: ghost.framework.context.proxy.cglib
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:cglib代理控制器调用基准测试
+ * 全部线程并发调用同一个代理控制器，对比 {@link InvocationHandler} 回调反射调用并把请求上下文写入共用字段，
+ * 与 {@link CglibMethodInterceptor} 按预先计算的通知链调用 {@link net.sf.cglib.proxy.MethodProxy}、通知上下文保存在调用栈，
+ * 以未代理的直接调用作为基准
+ * @Date: 2020/6/27:15:40
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class CglibProxyBenchmark {
+    /**
+     * 模拟请求线程的同步上下文
+     */
+    private static final ThreadLocal<Object> CONTEXT = ThreadLocal.withInitial(Object::new);
+    /**
+     * 通知数量
+     */
+    @Param({"1", "4"})
+    public int advices;
+    private Controller controller;
+    private Controller reflectProxy;
+    private Controller interceptorProxy;
+
+    @Setup
+    public void setup() {
+        IMethodAdvice<?>[] advices = new IMethodAdvice<?>[this.advices];
+        for (int i = 0; i < advices.length; i++) {
+            advices[i] = new ContextAdvice();
+        }
+        this.controller = new Controller();
+        ClassLoader classLoader = Controller.class.getClassLoader();
+        this.reflectProxy = CglibProxyFactory.newInstance(
+                CglibProxyFactory.getProxyClass(Controller.class, null, classLoader, InvocationHandler.class, null),
+                new ReflectHandler(this.controller, advices), null, null);
+        Target target = new Target();
+        target.setTarget(this.controller);
+        this.interceptorProxy = CglibProxyFactory.newInstance(
+                CglibProxyFactory.getProxyClass(Controller.class, null, classLoader, MethodInterceptor.class, null),
+                new CglibMethodInterceptor<>(target, Controller.class, advices), null, null);
+    }
+
+    /**
+     * 未代理的直接调用
+     *
+     * @return
+     */
+    @Benchmark
+    public String direct() {
+        return this.controller.handle("name", 1);
+    }
+
+    /**
+     * {@link InvocationHandler} 回调反射调用
+     *
+     * @return
+     */
+    @Benchmark
+    public String reflect() {
+        return this.reflectProxy.handle("name", 1);
+    }
+
+    /**
+     * {@link CglibMethodInterceptor} 回调调用
+     *
+     * @return
+     */
+    @Benchmark
+    public String interceptor() {
+        return this.interceptorProxy.handle("name", 1);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CglibProxyBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    public static class Controller {
+        public String handle(String name, int id) {
+            return name;
+        }
+    }
+
+    private static final class Target implements IProxyTarget<Controller> {
+        private Controller target;
+
+        @Override
+        public Controller getTarget() {
+            return target;
+        }
+
+        @Override
+        public void setTarget(Controller target) {
+            this.target = target;
+        }
+    }
+
+    /**
+     * 获取请求上下文的通知，通知上下文为请求上下文
+     */
+    private static final class ContextAdvice implements IMethodAdvice<Object> {
+        @Override
+        public Object before(Object target, Method method, Object[] args) {
+            return CONTEXT.get();
+        }
+
+        @Override
+        public void after(Object context, Object target, Method method, Object[] args, Object result) {
+            if (context == null) {
+                throw new IllegalStateException(method.toString());
+            }
+        }
+    }
+
+    /**
+     * 代理回调改用 {@link CglibMethodInterceptor} 前的调用方式
+     * 每次调用把请求上下文写入全部线程共用的字段，反射调用目标函数
+     */
+    private static final class ReflectHandler implements InvocationHandler {
+        private final Object target;
+        private final IMethodAdvice[] advices;
+        /**
+         * 请求上下文，全部线程共用
+         */
+        private Object context;
+
+        ReflectHandler(Object target, IMethodAdvice<?>[] advices) {
+            this.target = target;
+            this.advices = advices;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Object invoke(Object o, Method method, Object[] objects) throws Throwable {
+            Object r = null;
+            Throwable throwable = null;
+            try {
+                this.context = CONTEXT.get();
+                for (IMethodAdvice advice : this.advices) {
+                    advice.before(this.target, method, objects);
+                }
+                r = method.invoke(this.target, objects);
+                for (IMethodAdvice advice : this.advices) {
+                    advice.after(this.context, this.target, method, objects, r);
+                }
+            } catch (InvocationTargetException e) {
+                throwable = e.getTargetException();
+                throw throwable;
+            } finally {
+                for (int i = this.advices.length - 1; i >= 0; i--) {
+                    this.advices[i].afterProcessing(this.context, this.target, method, objects, throwable);
+                }
+            }
+            return r;
+        }
+    }
+}
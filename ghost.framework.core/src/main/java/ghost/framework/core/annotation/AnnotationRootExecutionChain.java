@@ -1,7 +1,6 @@
 package ghost.framework.core.annotation;
 
 import ghost.framework.beans.annotation.order.Order;
-import ghost.framework.beans.annotation.stereotype.Service;
 import ghost.framework.beans.annotation.tags.AnnotationTag;
 import ghost.framework.context.annotation.*;
 import ghost.framework.context.application.IApplication;
@@ -15,8 +14,10 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
-import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * package: ghost.framework.core.annotation
@@ -24,6 +25,7 @@ import java.util.function.Predicate;
  * @Author: 郭树灿{guo-w541}
  * @link: 手机:13715848993, QQ 27048384
  * @Description:注释根执行链
+ * 类、函数、声明、构建与参数的注释链按所属类缓存在 {@link ClassValue}，注释链变动后重新计算
  * @Date: 2020/2/17:0:40
  * @param <K> 注释类型
  * @param <V> 注释链对象
@@ -130,7 +132,11 @@ public class AnnotationRootExecutionChain
     @Override
     public boolean removeExclusion(K k) {
         synchronized (exclusionList) {
-            return exclusionList.remove(k);
+            if (!exclusionList.remove(k)) {
+                return false;
+            }
+            this.version.incrementAndGet();
+            return true;
         }
     }
 
@@ -146,7 +152,9 @@ public class AnnotationRootExecutionChain
             if (exclusionList.contains(k)) {
                 return false;
             }
-            return exclusionList.add(k);
+            exclusionList.add(k);
+            this.version.incrementAndGet();
+            return true;
         }
     }
 
@@ -163,6 +171,23 @@ public class AnnotationRootExecutionChain
      * 注释执行链地图
      */
     private Map<V, L> mapSet = new HashMap();
+    /**
+     * 注释类型与注释链对象地图
+     */
+    private final Map<K, V> annotationMap = new ConcurrentHashMap<>();
+    /**
+     * 注释链版本，注释链添加删除、依赖添加与排除注释变动时递增，缓存版本不一致时重新计算
+     */
+    final AtomicLong version = new AtomicLong();
+    /**
+     * 按所属类缓存目标的注释链
+     */
+    private final ClassValue<Map<Object, CachedChain<V>>> chainCache = new ClassValue<Map<Object, CachedChain<V>>>() {
+        @Override
+        protected Map<Object, CachedChain<V>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
 
     @Override
     public Set<Entry<V, L>> entrySet() {
@@ -172,9 +197,34 @@ public class AnnotationRootExecutionChain
     @Override
     public L put(V key, L value) {
         mapSet.put(key, value);
+        this.annotationMap.put(key.getAnnotationClass(), key);
+        this.version.incrementAndGet();
         return value;
     }
 
+    /**
+     * 删除注释链对象
+     *
+     * @param key 注释链对象
+     * @return
+     */
+    @Override
+    public L remove(Object key) {
+        L l = mapSet.remove(key);
+        if (l != null) {
+            this.annotationMap.remove(((V) key).getAnnotationClass(), key);
+            this.version.incrementAndGet();
+        }
+        return l;
+    }
+
+    @Override
+    public void clear() {
+        mapSet.clear();
+        this.annotationMap.clear();
+        this.version.incrementAndGet();
+    }
+
     /**
      * 重写比对 {@link K} 注释类型
      *
@@ -184,7 +234,7 @@ public class AnnotationRootExecutionChain
     @Override
     public boolean containsKey(Object key) {
         Assert.notNull(key, "containsKey is key null error");
-        return mapSet.entrySet().stream().anyMatch(a -> a.getKey().getAnnotationClass().equals(key));
+        return this.annotationMap.containsKey(key);
     }
 
     /**
@@ -195,28 +245,7 @@ public class AnnotationRootExecutionChain
      */
     public V get(K key) {
         Assert.notNull(key, "get is key null error");
-        IOutAnnotation<K, V, L> outAnnotation = new OutAnnotation<K, V, L>(null, key) {
-            private V v;
-
-            @Override
-            public V getOut() {
-                return v;
-            }
-
-            @Override
-            public boolean test(V out) {
-                if (out.getAnnotationClass().equals(this.getKey())) {
-                    this.v = out;
-                    return true;
-                }
-                return false;
-            }
-        };
-        //等待返回是否找到对象
-        if (mapSet.entrySet().stream().anyMatch(a -> outAnnotation.test(a.getKey()))) {
-            return outAnnotation.getOut();
-        }
-        return null;
+        return this.annotationMap.get(key);
     }
 
     /**
@@ -240,6 +269,7 @@ public class AnnotationRootExecutionChain
                 continue;
             }
             v.getDepend().add(kv);
+            this.version.incrementAndGet();
         }
         return v;
     }
@@ -266,6 +296,7 @@ public class AnnotationRootExecutionChain
                 continue;
             }
             v.getDepend().add(kv);
+            this.version.incrementAndGet();
         }
         return v;
     }
@@ -295,6 +326,7 @@ public class AnnotationRootExecutionChain
                     continue;
                 }
                 vs[i].getDepend().add(kv);
+                this.version.incrementAndGet();
             }
         }
         return vs;
@@ -323,6 +355,7 @@ public class AnnotationRootExecutionChain
                     continue;
                 }
                 vs[i].getDepend().add(kv);
+                this.version.incrementAndGet();
             }
         }
         return vs;
@@ -347,6 +380,7 @@ public class AnnotationRootExecutionChain
                 continue;
             }
             v.getDepend().add(kv);
+            this.version.incrementAndGet();
         }
         return v;
     }
@@ -372,6 +406,7 @@ public class AnnotationRootExecutionChain
                     continue;
                 }
                 vs[i].getDepend().add(kv);
+                this.version.incrementAndGet();
             }
         }
         return vs;
@@ -586,18 +621,7 @@ public class AnnotationRootExecutionChain
      */
     @Override
     public Map<K, ExecutionAnnotation<K, V, L>> getExecutionChain(Constructor target) {
-        //声明返回注释链地图
-        Map<K, ExecutionAnnotation<K, V, L>> list = new HashMap<>();
-        //声明注释链列表
-        List<V> vList = this.getExecutionChainList(target.getDeclaredAnnotations());
-        //判断是否需要排列注释链
-        if (vList.size() <= 1) {
-            for (V v : vList) {
-                list.put(v.getAnnotationClass(), new ExecutionAnnotation<>(v));
-            }
-            return list;
-        }
-        return this.sort(vList, constructorEnumSort);
+        return this.getExecutionChain(target.getDeclaringClass(), target, target::getDeclaredAnnotations, constructorEnumSort);
     }
 
     /**
@@ -608,18 +632,7 @@ public class AnnotationRootExecutionChain
      */
     @Override
     public Map<K, ExecutionAnnotation<K, V, L>> getExecutionChain(Parameter target) {
-        //声明返回注释链地图
-        Map<K, ExecutionAnnotation<K, V, L>> list = new HashMap<>();
-        //声明注释链列表
-        List<V> vList = this.getExecutionChainList(target.getAnnotations());
-        //判断是否需要排列注释链
-        if (vList.size() <= 1) {
-            for (V v : vList) {
-                list.put(v.getAnnotationClass(), new ExecutionAnnotation<>(v));
-            }
-            return list;
-        }
-        return this.sort(vList, parameterEnumSort);
+        return this.getExecutionChain(target.getDeclaringExecutable().getDeclaringClass(), target, target::getAnnotations, parameterEnumSort);
     }
 
     /**
@@ -630,18 +643,7 @@ public class AnnotationRootExecutionChain
      */
     @Override
     public Map<K, ExecutionAnnotation<K, V, L>> getExecutionChain(Package target) {
-        //声明返回注释链地图
-        Map<K, ExecutionAnnotation<K, V, L>> list = new HashMap<>();
-        //声明注释链列表
-        List<V> vList = this.getExecutionChainList(target.getAnnotations());
-        //判断是否需要排列注释链
-        if (vList.size() <= 1) {
-            for (V v : vList) {
-                list.put(v.getAnnotationClass(), new ExecutionAnnotation<>(v));
-            }
-            return list;
-        }
-        return this.sort(vList, packageEnumSort);
+        return this.toExecutionChain(this.getSortExecutionChainList(target.getAnnotations(), packageEnumSort));
     }
 
     /**
@@ -652,18 +654,7 @@ public class AnnotationRootExecutionChain
      */
     @Override
     public Map<K, ExecutionAnnotation<K, V, L>> getExecutionChain(Method target) {
-        //声明返回注释链地图
-        Map<K, ExecutionAnnotation<K, V, L>> list = new HashMap<>();
-        //声明注释链列表
-        List<V> vList = this.getExecutionChainList(target.getDeclaredAnnotations());
-        //判断是否需要排列注释链
-        if (vList.size() <= 1) {
-            for (V v : vList) {
-                list.put(v.getAnnotationClass(), new ExecutionAnnotation<>(v));
-            }
-            return list;
-        }
-        return this.sort(vList, methodEnumSort);
+        return this.getExecutionChain(target.getDeclaringClass(), target, target::getDeclaredAnnotations, methodEnumSort);
     }
 
     /**
@@ -674,18 +665,7 @@ public class AnnotationRootExecutionChain
      */
     @Override
     public Map<K, ExecutionAnnotation<K, V, L>> getExecutionChain(Field target) {
-        //声明返回注释链地图
-        Map<K, ExecutionAnnotation<K, V, L>> list = new HashMap<>();
-        //声明注释链列表
-        List<V> vList = this.getExecutionChainList(target.getDeclaredAnnotations());
-        //判断是否需要排列注释链
-        if (vList.size() <= 1) {
-            for (V v : vList) {
-                list.put(v.getAnnotationClass(), new ExecutionAnnotation<>(v));
-            }
-            return list;
-        }
-        return this.sort(vList, fieldEnumSort);
+        return this.getExecutionChain(target.getDeclaringClass(), target, target::getDeclaredAnnotations, fieldEnumSort);
     }
 
     /**
@@ -696,18 +676,7 @@ public class AnnotationRootExecutionChain
      */
     @Override
     public Map<K, ExecutionAnnotation<K, V, L>> getExecutionChain(Class<?> target) {
-        //声明返回注释链地图
-        Map<K, ExecutionAnnotation<K, V, L>> list = new HashMap<>();
-        //声明注释链列表
-        List<V> vList = this.getExecutionChainList(target.getDeclaredAnnotations());
-        //判断是否需要排列注释链
-        if (vList.size() <= 1) {
-            for (V v : vList) {
-                list.put(v.getAnnotationClass(), new ExecutionAnnotation<>(v));
-            }
-            return list;
-        }
-        return this.sort(vList, classEnumSort);
+        return this.getExecutionChain(target, target, target::getDeclaredAnnotations, classEnumSort);
     }
 
     /**
@@ -730,12 +699,16 @@ public class AnnotationRootExecutionChain
         for (Annotation annotation : annotations) {
             this.fill(kList, (K) ProxyUtil.getProxyObjectAnnotationClass(annotation));
         }
-        //清理没有在注释链的注释
+        //清理没有在注释链与已经排除的注释
+        List<K> exclusions;
+        synchronized (this.exclusionList) {
+            exclusions = new ArrayList<>(this.exclusionList);
+        }
         List<K> del = new ArrayList<>();
         kList.forEach(new Consumer<K>() {
             @Override
             public void accept(K k) {
-                if (!containsKey(k)) {
+                if (!containsKey(k) || exclusions.contains(k)) {
                     del.add(k);
                 }
             }
@@ -758,23 +731,80 @@ public class AnnotationRootExecutionChain
      */
     @Override
     public Map<K, ExecutionAnnotation<K, V, L>> getExecutionChain(Annotation[] annotations) {
-        //声明返回注释链地图
-        Map<K, ExecutionAnnotation<K, V, L>> list = new HashMap<>();
-        //判断是否有注释
-        if (annotations.length == 0) {
-            //没有注释直接返回
-            return list;
+        return this.toExecutionChain(this.getSortExecutionChainList(annotations, classEnumSort));
+    }
+
+    /**
+     * 获取缓存的注释链
+     *
+     * @param owner       目标所属类
+     * @param target      目标，类、函数、声明、构建或参数
+     * @param annotations 目标注释
+     * @param enumSort    排序枚举
+     * @return 返回新的注释链地图，每次调用的执行状态相互独立
+     */
+    private Map<K, ExecutionAnnotation<K, V, L>> getExecutionChain(Class<?> owner, Object target, Supplier<Annotation[]> annotations, List<AnnotationEnumTagSort> enumSort) {
+        Map<Object, CachedChain<V>> map = this.chainCache.get(owner);
+        //先获取版本，计算期间注释链变动时下次重新计算
+        long v = this.version.get();
+        CachedChain<V> chain = map.get(target);
+        if (chain == null || chain.version != v) {
+            chain = new CachedChain<>(v, this.getSortExecutionChainList(annotations.get(), enumSort));
+            map.put(target, chain);
         }
+        return this.toExecutionChain(chain.list);
+    }
+
+    /**
+     * 获取排序后的注释链列表
+     *
+     * @param annotations 数组注释
+     * @param enumSort    排序枚举
+     * @return
+     */
+    private List<V> getSortExecutionChainList(Annotation[] annotations, List<AnnotationEnumTagSort> enumSort) {
         //声明注释链列表
         List<V> vList = this.getExecutionChainList(annotations);
         //判断是否需要排列注释链
         if (vList.size() <= 1) {
-            for (V v : vList) {
-                list.put(v.getAnnotationClass(), new ExecutionAnnotation<>(v));
-            }
-            return list;
+            return vList;
+        }
+        return this.sort(vList, enumSort);
+    }
+
+    /**
+     * 创建注释链地图
+     *
+     * @param vList 排序后的注释链列表
+     * @return
+     */
+    private Map<K, ExecutionAnnotation<K, V, L>> toExecutionChain(List<V> vList) {
+        LinkedHashMap<K, ExecutionAnnotation<K, V, L>> map = new LinkedHashMap<>();
+        for (V v : vList) {
+            map.put(v.getAnnotationClass(), new ExecutionAnnotation<K, V, L>(v));
+        }
+        return map;
+    }
+
+    /**
+     * 缓存的注释链
+     *
+     * @param <V> 注释链对象
+     */
+    private static final class CachedChain<V> {
+        /**
+         * 计算时的注释链版本
+         */
+        private final long version;
+        /**
+         * 排序后的注释链列表
+         */
+        private final List<V> list;
+
+        private CachedChain(long version, List<V> list) {
+            this.version = version;
+            this.list = list;
         }
-        return this.sort(vList, classEnumSort);
     }
 
     private void fillSort(List<V> root, Set<V> set) {
@@ -791,7 +821,7 @@ public class AnnotationRootExecutionChain
      * @param root
      * @param enumSort 排序枚举
      */
-    private LinkedHashMap<K, ExecutionAnnotation<K, V, L>> sort(List<V> root, List<AnnotationEnumTagSort> enumSort) {
+    private List<V> sort(List<V> root, List<AnnotationEnumTagSort> enumSort) {
         //按照枚举排序
         List<V> newRoot = new ArrayList<>();
         for (AnnotationEnumTagSort s : enumSort) {
@@ -813,27 +843,7 @@ public class AnnotationRootExecutionChain
                 return 0;
             }
         });
-        //填充返回注释执行链
-        LinkedHashMap<K, ExecutionAnnotation<K, V, L>> map = new LinkedHashMap<K, ExecutionAnnotation<K, V, L>>();
-        newRoot.forEach(new Consumer<V>() {
-            @Override
-            public void accept(V entry) {
-                map.put(entry.getAnnotationClass(), new ExecutionAnnotation<K, V, L>(entry));
-            }
-        });
-        //调试测试
-        if (logger.isDebugEnabled()) {
-            map.entrySet().stream().anyMatch(new Predicate<Entry<K, ExecutionAnnotation<K, V, L>>>() {
-                @Override
-                public boolean test(Entry<K, ExecutionAnnotation<K, V, L>> entry) {
-                    if (entry.getKey().equals(Service.class)) {
-                        return true;
-                    }
-                    return false;
-                }
-            });
-        }
-        return map;
+        return newRoot;
     }
 
     private void fill(List<K> list, K k) {
@@ -864,7 +874,7 @@ public class AnnotationRootExecutionChain
                 return null;
             }
             //
-            this.remove(v);
+            this.remove((Object) v);
             //删除依赖域
             mapSet.entrySet().forEach(new Consumer<Entry<V, L>>() {
                 @Override
@@ -937,7 +947,9 @@ public class AnnotationRootExecutionChain
                 }
             });
             //删除垂直域
-            list.forEach(mapSet::remove);
+            for (V v : list) {
+                this.remove((Object) v);
+            }
         }
         //判断是否有删除域
         return list.size() > 0;
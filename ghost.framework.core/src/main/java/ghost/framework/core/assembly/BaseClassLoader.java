@@ -6,6 +6,7 @@ import ghost.framework.context.assembly.IClassLoader;
 import ghost.framework.context.locale.ILocale;
 import ghost.framework.maven.FileArtifact;
 import ghost.framework.maven.MavenArtifactException;
+import ghost.framework.util.BoundedLruCache;
 import ghost.framework.util.FileUtil;
 import ghost.framework.util.ReflectUtil;
 import org.eclipse.aether.artifact.Artifact;
@@ -20,6 +21,8 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.security.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.jar.Attributes;
 import java.util.jar.Manifest;
 
@@ -87,6 +90,7 @@ public abstract class BaseClassLoader extends ClassLoader implements IClassLoade
         }
         this.acc = AccessController.getContext();
         this.ucp = new URLPaths(app, new URL[]{}, this.acc);
+        this.packageIndex = new PackageIndex(this.ucp);
         this.initialized  = true;
     }
     private final IApplication app;
@@ -198,12 +202,35 @@ public abstract class BaseClassLoader extends ClassLoader implements IClassLoade
      * url包加载类
      */
     private URLPaths ucp;
+    /**
+     * 包索引，加载类时按包路径查找包
+     */
+    private final PackageIndex packageIndex;
+    /**
+     * 不存在类缓存上限，超过时淘汰最久未访问的类名称
+     */
+    private static final int MAX_MISSING_CLASSES = 8192;
+    /**
+     * 已知不存在的类名称
+     * 模块类加载时先经过应用类加载器，应用类加载器会反复查找模块的类，缓存后不再搜索包
+     */
+    private final BoundedLruCache<String, Boolean> missingClasses = new BoundedLruCache<>(MAX_MISSING_CLASSES);
+    /**
+     * 包变动版本，包变动后查找中的类不加入不存在类缓存
+     */
+    private final AtomicLong urlVersion = new AtomicLong();
+    /**
+     * 本加载器定义的包，不包含父级加载器的包
+     */
+    private final Map<String, Package> definedPackages = new ConcurrentHashMap<>();
     /**
      * 删除包
      * @param url 包url
      */
     @Override
     public void removeURL(URL url) throws IllegalArgumentException, IllegalAccessException, IOException {
+        //先删除索引，包加载器关闭后不再从索引查找
+        this.packageIndex.remove(url);
         this.ucp.remove(url);
     }
     /**
@@ -213,6 +240,10 @@ public abstract class BaseClassLoader extends ClassLoader implements IClassLoade
     @Override
     public void addURL(URL url) {
         this.ucp.addURL(url);
+        this.packageIndex.add(url);
+        //新包可能包含之前不存在的类
+        this.urlVersion.incrementAndGet();
+        this.missingClasses.clear();
     }
 
     @Override
@@ -229,10 +260,21 @@ public abstract class BaseClassLoader extends ClassLoader implements IClassLoade
     protected Package definePackage(String name, String specTitle, String specVersion, String specVendor, String implTitle, String implVersion, String implVendor, URL sealBase) throws IllegalArgumentException {
         //向其它类模块加载器查询是否已经有相同版本的包信息，如果有将返回其它模块已经定义的相同版本模块包对象
         Package p = this.multiplexingePackage(name, specTitle, specVersion, specVendor, implTitle, implVersion, implVendor, sealBase);
-        if (p != null) {
-            return p;
+        if (p == null) {
+            p = super.definePackage(name, specTitle, specVersion, specVendor, implTitle, implVersion, implVendor, sealBase);
         }
-        return super.definePackage(name, specTitle, specVersion, specVendor, implTitle, implVersion, implVendor, sealBase);
+        this.definedPackages.put(name, p);
+        return p;
+    }
+
+    /**
+     * 获取本加载器定义的包
+     * 与 {@link #getPackage(String)} 不同，不查找父级加载器
+     * @param name 包名称
+     * @return 返回包对象，没有定义返回null
+     */
+    public Package findDefinedPackage(String name) {
+        return this.definedPackages.get(name);
     }
 
     /**
@@ -571,26 +613,40 @@ public abstract class BaseClassLoader extends ClassLoader implements IClassLoade
      */
     @Override
     protected Class<?> findClass(String name) throws ClassNotFoundException {
+        //已知不存在的类不再搜索包
+        if (this.missingClasses.get(name) != null) {
+            throw new ClassNotFoundException(name);
+        }
+        long version = this.urlVersion.get();
         try {
-            //从基础加载器获取包信息
-            return super.findClass(name);
-        } catch (ClassNotFoundException e) {
-            try {
-                //获取类文件资源
-                Resource resource = this.ucp.getResource(ReflectUtil.getClassNamePath(name));
-                //判断类文件资源是否有效，如果无效侧所以加载的包中没有此类文件资源
-                if (resource == null) {
-                    throw new ClassNotFoundException(name);
-                }
-                //使用资源对象定义类
-                return this.defineClass(name, resource);
-            } catch (IllegalArgumentException e0) {
-                e0.addSuppressed(new Throwable(name));
-                throw new ClassNotFoundException(e0.getMessage());
-            } catch (IOException e1) {
-                e1.addSuppressed(new Throwable(name));
-                throw new ClassNotFoundException(e1.getMessage());
+            //按包索引获取类文件资源
+            Resource resource = this.packageIndex.getResource(ReflectUtil.getClassNamePath(name));
+            //判断类文件资源是否有效，如果无效侧所以加载的包中没有此类文件资源
+            if (resource == null) {
+                this.addMissingClass(name, version);
+                throw new ClassNotFoundException(name);
             }
+            //使用资源对象定义类
+            return this.defineClass(name, resource);
+        } catch (IllegalArgumentException e0) {
+            e0.addSuppressed(new Throwable(name));
+            throw new ClassNotFoundException(e0.getMessage());
+        } catch (IOException e1) {
+            e1.addSuppressed(new Throwable(name));
+            throw new ClassNotFoundException(e1.getMessage());
+        }
+    }
+
+    /**
+     * 添加不存在类
+     * @param name 类名称
+     * @param version 开始查找时的包变动版本
+     */
+    private void addMissingClass(String name, long version) {
+        this.missingClasses.put(name, Boolean.TRUE);
+        //查找期间添加了包，结果可能已经过期
+        if (this.urlVersion.get() != version) {
+            this.missingClasses.remove(name);
         }
     }
     /*
@@ -648,6 +704,18 @@ public abstract class BaseClassLoader extends ClassLoader implements IClassLoade
         synchronized (this.pdcache) {
             this. pdcache.clear();
         }
+        this.packageIndex.close();
+        this.missingClasses.clear();
+        this.definedPackages.clear();
+        //关闭全部包
+        List<IOException> errors = this.ucp.closeLoaders();
+        if (!errors.isEmpty()) {
+            IOException e = errors.get(0);
+            for (int i = 1; i < errors.size(); i++) {
+                e.addSuppressed(errors.get(i));
+            }
+            throw e;
+        }
     }
     /**
      * 验证包是否存在
@@ -0,0 +1,307 @@
+package ghost.framework.core.assembly;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import sun.misc.Resource;
+import sun.misc.URLClassPath;
+import sun.net.util.URLUtil;
+
+import java.io.Closeable;
+import java.io.File;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * package: ghost.framework.core.assembly
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:类加载器包索引
+ * 添加包时读取一次包目录，建立 包路径->包url 索引，加载类时只在含有该类包路径的包中查找，不再逐个探测全部包。
+ * 索引与查找使用类加载器 {@link URLClassPath} 已经打开的包加载器，jar包目录从包加载器已打开的 {@link JarFile} 读取，
+ * 每个包只打开一次，包由 {@link URLClassPath} 关闭。同一包路径的多个包按添加顺序查找。
+ * 无法建立索引的包（非本地文件等）记录为未索引包，在索引包之后按添加顺序查找。
+ * @Date: 2020/6/20:14:10
+ */
+final class PackageIndex implements Closeable {
+    private static final Log log = LogFactory.getLog(PackageIndex.class);
+    /**
+     * {@link URLClassPath} 按位置打开包加载器函数
+     */
+    private static final MethodHandle GET_LOADER;
+    /**
+     * {@link URLClassPath} 包url与包加载器
+     */
+    private static final MethodHandle LMAP;
+    /**
+     * 包加载器获取资源函数
+     */
+    private static final MethodHandle LOADER_GET_RESOURCE;
+    /**
+     * jar包加载器获取jar文件函数
+     */
+    private static final MethodHandle JAR_LOADER_GET_JAR_FILE;
+    /**
+     * jar包加载器类型
+     */
+    private static final Class<?> JAR_LOADER;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            Method getLoader = URLClassPath.class.getDeclaredMethod("getLoader", int.class);
+            getLoader.setAccessible(true);
+            GET_LOADER = lookup.unreflect(getLoader);
+            Field lmap = URLClassPath.class.getDeclaredField("lmap");
+            lmap.setAccessible(true);
+            LMAP = lookup.unreflectGetter(lmap);
+            Class<?> loader = Class.forName("sun.misc.URLClassPath$Loader");
+            Method getResource = loader.getDeclaredMethod("getResource", String.class, boolean.class);
+            getResource.setAccessible(true);
+            LOADER_GET_RESOURCE = lookup.unreflect(getResource);
+            JAR_LOADER = Class.forName("sun.misc.URLClassPath$JarLoader");
+            Method getJarFile = JAR_LOADER.getDeclaredMethod("getJarFile");
+            getJarFile.setAccessible(true);
+            JAR_LOADER_GET_JAR_FILE = lookup.unreflect(getJarFile);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * 包路径与包url列表索引
+     */
+    private final Map<String, List<URL>> packages = new ConcurrentHashMap<>();
+    /**
+     * 包url与包加载器
+     */
+    private final Map<URL, Object> loaders = new ConcurrentHashMap<>();
+    /**
+     * 包url与包含的包路径，删除包时使用
+     */
+    private final Map<URL, Set<String>> urlPackages = new ConcurrentHashMap<>();
+    /**
+     * 未建立索引的包url列表
+     */
+    private final List<URL> unindexed = new CopyOnWriteArrayList<>();
+    /**
+     * 类加载器包列表
+     */
+    private final URLClassPath ucp;
+
+    /**
+     * 初始化类加载器包索引
+     *
+     * @param ucp 类加载器包列表
+     */
+    PackageIndex(URLClassPath ucp) {
+        this.ucp = ucp;
+    }
+
+    /**
+     * 添加包并建立索引
+     * 包需要先添加到类加载器包列表
+     *
+     * @param url 包url
+     */
+    synchronized void add(URL url) {
+        if (this.loaders.containsKey(url)) {
+            return;
+        }
+        Object loader;
+        try {
+            loader = this.openLoader(url);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            log.warn("包加载器错误:" + url, e);
+            return;
+        }
+        //包无法打开，包列表中没有此包的资源
+        if (loader == null) {
+            return;
+        }
+        this.loaders.put(url, loader);
+        Set<String> names;
+        try {
+            names = scan(url, loader);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            log.warn("包索引错误，改为顺序查找:" + url, e);
+            names = null;
+        }
+        if (names == null) {
+            this.unindexed.add(url);
+            return;
+        }
+        this.urlPackages.put(url, names);
+        for (String name : names) {
+            this.packages.computeIfAbsent(name, k -> new CopyOnWriteArrayList<>()).add(url);
+        }
+    }
+
+    /**
+     * 获取类加载器包列表已经打开的包加载器，没有打开时按顺序打开到此包
+     *
+     * @param url 包url
+     * @return 返回包加载器，包无法打开时返回null
+     * @throws Throwable
+     */
+    private Object openLoader(URL url) throws Throwable {
+        String key = URLUtil.urlNoFragString(url);
+        synchronized (this.ucp) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> lmap = (Map<String, Object>) LMAP.invoke(this.ucp);
+            Object loader = lmap.get(key);
+            for (int i = 0; loader == null; i++) {
+                //已经打开全部包
+                if (GET_LOADER.invoke(this.ucp, i) == null) {
+                    return null;
+                }
+                loader = lmap.get(key);
+            }
+            return loader;
+        }
+    }
+
+    /**
+     * 删除包索引
+     *
+     * @param url 包url
+     */
+    synchronized void remove(URL url) {
+        if (this.loaders.remove(url) == null) {
+            return;
+        }
+        this.unindexed.remove(url);
+        Set<String> names = this.urlPackages.remove(url);
+        if (names != null) {
+            for (String name : names) {
+                List<URL> list = this.packages.get(name);
+                if (list != null) {
+                    list.remove(url);
+                    if (list.isEmpty()) {
+                        this.packages.remove(name);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取资源
+     *
+     * @param name 资源路径，如 a/b/C.class
+     * @return 返回资源，没有找到返回null
+     */
+    Resource getResource(String name) {
+        int i = name.lastIndexOf('/');
+        List<URL> list = this.packages.get(i == -1 ? "" : name.substring(0, i));
+        if (list != null) {
+            for (URL url : list) {
+                Resource resource = this.getResource(url, name);
+                if (resource != null) {
+                    return resource;
+                }
+            }
+        }
+        for (URL url : this.unindexed) {
+            Resource resource = this.getResource(url, name);
+            if (resource != null) {
+                return resource;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 从指定包获取资源
+     *
+     * @param url  包url
+     * @param name 资源路径
+     * @return
+     */
+    private Resource getResource(URL url, String name) {
+        Object loader = this.loaders.get(url);
+        //包已经被删除
+        if (loader == null) {
+            return null;
+        }
+        try {
+            return (Resource) LOADER_GET_RESOURCE.invoke(loader, name, false);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 读取包内全部包路径
+     * jar包从包加载器已经打开的jar文件读取
+     *
+     * @param url    包url
+     * @param loader 包加载器
+     * @return 返回包路径列表，不是本地文件时返回null
+     * @throws Throwable
+     */
+    private static Set<String> scan(URL url, Object loader) throws Throwable {
+        if (!"file".equals(url.getProtocol())) {
+            return null;
+        }
+        Set<String> names = new HashSet<>();
+        if (JAR_LOADER.isInstance(loader)) {
+            JarFile jar = (JarFile) JAR_LOADER_GET_JAR_FILE.invoke(loader);
+            //延迟打开的jar包
+            if (jar == null) {
+                return null;
+            }
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                int i = entry.getName().lastIndexOf('/');
+                names.add(i == -1 ? "" : entry.getName().substring(0, i));
+            }
+            return names;
+        }
+        File file = new File(url.toURI());
+        if (!file.isDirectory()) {
+            return null;
+        }
+        Path root = file.toPath();
+        try (Stream<Path> stream = Files.walk(root)) {
+            stream.filter(Files::isRegularFile).forEach(p -> {
+                Path parent = root.relativize(p).getParent();
+                names.add(parent == null ? "" : parent.toString().replace(File.separatorChar, '/'));
+            });
+        }
+        return names;
+    }
+
+    /**
+     * 清除全部包索引
+     * 包由类加载器包列表关闭
+     */
+    @Override
+    public synchronized void close() {
+        this.loaders.clear();
+        this.urlPackages.clear();
+        this.packages.clear();
+        this.unindexed.clear();
+    }
+}
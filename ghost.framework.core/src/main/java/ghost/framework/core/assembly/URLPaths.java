@@ -15,6 +15,7 @@ import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 import org.eclipse.aether.artifact.Artifact;
 import sun.misc.Resource;
 import sun.misc.URLClassPath;
+import sun.net.util.URLUtil;
 
 import java.io.Closeable;
 import java.io.File;
@@ -191,6 +192,11 @@ public class URLPaths extends URLClassPath implements IGetArtifacts {
                 path.remove(url);
             }
         }
+        //删除包加载器缓存，重新添加相同包时重新打开
+        synchronized (this) {
+            HashMap<String, Object> lmap = ReflectUtil.findField(this, "lmap");
+            lmap.remove(URLUtil.urlNoFragString(url));
+        }
         //获取已经加载的包列表
         ArrayList<Object> loaders = ReflectUtil.findField(this, "loaders");
         synchronized (loaders) {
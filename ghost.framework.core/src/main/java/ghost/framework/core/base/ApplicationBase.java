@@ -15,6 +15,7 @@ import ghost.framework.context.assembly.IGetClassLoader;
 import ghost.framework.context.base.ICoreInterface;
 import ghost.framework.context.base.IInstance;
 import ghost.framework.context.base.IObjectInjection;
+import ghost.framework.context.bean.BeanDefinitionMap;
 import ghost.framework.context.bean.IBean;
 import ghost.framework.context.bean.IBeanDefinition;
 import ghost.framework.context.bean.exception.AnnotationNotBeanException;
@@ -222,8 +223,9 @@ public abstract class ApplicationBase
 
     /**
      * 绑定地图
+     * 带类型索引，读取不加锁，绑定变更时索引失效
      */
-    private Map<String, IBeanDefinition> beanMap = new LinkedHashMap<>();
+    private final BeanDefinitionMap beanMap = new BeanDefinitionMap();
 
     /**
      * 获取绑定地图
@@ -543,10 +545,9 @@ public abstract class ApplicationBase
     public boolean isAutoBean() {
         //判断获取是否自动绑定
         IEnvironment env = null;
-        synchronized (this.getBeanMap()) {
-            if (this.getBeanMap().containsKey(IApplicationEnvironment.class.getName())) {
-                env = (IEnvironment) this.getBeanMap().get(IApplicationEnvironment.class.getName()).getObject();
-            }
+        IBeanDefinition definition = this.beanMap.get(IApplicationEnvironment.class.getName());
+        if (definition != null) {
+            env = (IEnvironment) definition.getObject();
         }
         if (env != null && env.containsKey(ApplicationConstant.Bean.AUTO_BEAN)) {
             return env.getBoolean(ApplicationConstant.Bean.AUTO_BEAN);
@@ -992,9 +993,22 @@ public abstract class ApplicationBase
         this.closeDefinition(definition);
     }
 
+    /**
+     * 获取指定类型的全部绑定对象
+     *
+     * @param c   绑定类型，可以是接口或父类
+     * @param <T>
+     * @return 按绑定顺序返回绑定对象列表
+     */
     @Override
     public <T> Collection<T> getBeans(Class<T> c) {
-        return null;
+        Assert.notNull(c, "getBeans null class error");
+        List<IBeanDefinition> definitions = this.beanMap.getTypeDefinitions(c);
+        List<T> list = new ArrayList<>(definitions.size());
+        for (IBeanDefinition definition : definitions) {
+            list.add((T) definition.getObject());
+        }
+        return list;
     }
 
     /**
@@ -1109,14 +1123,11 @@ public abstract class ApplicationBase
         try {
             //判断是否自动绑定类型
             if (this.isAutoBean()) {
-                IBeanDefinition definition = null;
-                synchronized (this.beanMap) {
-                    definition = this.getBeanDefinition(c);
-                }
+                IBeanDefinition definition = this.getBeanDefinition(c);
                 if (definition == null) {
                     return this.addBean(c);
                 }
-                return (T) this.getBeanDefinition(c).getObject();
+                return (T) definition.getObject();
             }
             return (T) this.getBeanDefinition(c).getObject();
         } catch (NullPointerException e) {
@@ -13,7 +13,6 @@ import ghost.framework.context.bean.factory.IClassAnnotationBeanFactoryContainer
 import ghost.framework.context.bean.factory.IClassAnnotationBeanTargetHandle;
 
 import java.lang.annotation.Annotation;
-import java.util.ArrayList;
 import java.util.Map;
 
 /**
@@ -307,8 +306,9 @@ public class ClassAnnotationBeanFactoryContainer
         }
         for (Map.Entry<Class<? extends Annotation>, ExecutionAnnotation> entry: event.getExecutionAnnotationChain().entrySet()) {
             //搜索类型注释事件工厂
-            for (L factory : new ArrayList<L>(this)) {
-                if (factory.getAnnotationClass().equals(entry.getKey()) && !factory.isLoader(event)) {
+            //按注释类型获取工厂列表
+            for (L factory : this.getAnnotationFactoryList(entry.getKey())) {
+                if (!factory.isLoader(event)) {
                     //定位拥有者
                     factory.positionOwner(event);
                     //加载
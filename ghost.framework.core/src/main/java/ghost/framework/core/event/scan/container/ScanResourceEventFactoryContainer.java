@@ -1,12 +1,21 @@
 package ghost.framework.core.event.scan.container;
 
+import ghost.framework.beans.BeanException;
 import ghost.framework.beans.annotation.injection.Autowired;
 import ghost.framework.beans.annotation.stereotype.Component;
 import ghost.framework.context.application.IApplication;
 import ghost.framework.context.base.ICoreInterface;
+import ghost.framework.context.bean.factory.IExecuteOwnerBeanTargetHandle;
 import ghost.framework.context.bean.factory.scan.IScanResourceBeanTargetHandle;
 import ghost.framework.context.bean.factory.scan.container.IScanResourceBeanFactoryContainer;
 import ghost.framework.context.bean.factory.scan.factory.IScanResourceBeanFactory;
+import ghost.framework.context.maven.ExecuteOwnerBeanTargetHandle;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
 
 /**
  * package: ghost.framework.core.event.scan.container
@@ -14,6 +23,8 @@ import ghost.framework.context.bean.factory.scan.factory.IScanResourceBeanFactor
  * @Author: 郭树灿{guo-w541}
  * @link: 手机:13715848993, QQ 27048384
  * @Description:扫描资源事件工厂容器
+ * 扫描模式加载插件包时，包内有编译期组件索引则只加载索引列出的类型，否则反射扫描包内类型，见 {@link ScanResourceTypeResolver}
+ * 类型按与注释模式相同的规则定位拥有者后绑定，见 {@link ScanResourceTypePositionOwner}
  * @Date: 2020/2/23:13:36
  */
 @Component
@@ -26,11 +37,18 @@ public class ScanResourceEventFactoryContainer
                 >
         extends AbstractScanEventFactoryContainer<O, T, E, L>
         implements IScanResourceBeanFactoryContainer<O, T, E, L> {
+    private static final Log log = LogFactory.getLog(ScanResourceEventFactoryContainer.class);
+
     public ScanResourceEventFactoryContainer(@Autowired IApplication app) {
         this.app = app;
+        this.positionOwner = new ScanResourceTypePositionOwner(app);
     }
 
     private IApplication app;
+    /**
+     * 扫描类型定位拥有者
+     */
+    private final ScanResourceTypePositionOwner positionOwner;
 
     /**
      * 加载事件
@@ -39,7 +57,27 @@ public class ScanResourceEventFactoryContainer
      */
     @Override
     public void loader(E event) {
-        throw new UnsupportedOperationException();
+        File file = event.getArtifact().getFile();
+        long start = System.currentTimeMillis();
+        List<Class<?>> types;
+        try {
+            types = ScanResourceTypeResolver.getTypes((ClassLoader) event.getOwner().getClassLoader(), file);
+        } catch (IOException e) {
+            throw new BeanException(file.toString(), e);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("扫描包:" + event.getArtifact() + " 类型:" + types.size() + " 耗时:" + (System.currentTimeMillis() - start) + "ms");
+        }
+        //定位类型拥有者后绑定扫描到的类型
+        for (Class<?> c : types) {
+            IExecuteOwnerBeanTargetHandle<ICoreInterface, Class<?>> handle = new ExecuteOwnerBeanTargetHandle<>(event.getOwner(), c);
+            this.positionOwner.positionOwner(handle);
+            handle.getExecuteOwner().addBean(c);
+        }
+        //执行扫描资源事件工厂
+        for (L factory : this) {
+            factory.loader(event);
+        }
     }
 
     /**
@@ -0,0 +1,63 @@
+package ghost.framework.core.event.scan.container;
+
+import ghost.framework.beans.annotation.application.Application;
+import ghost.framework.beans.annotation.module.Module;
+import ghost.framework.beans.annotation.module.ModuleArtifact;
+import ghost.framework.context.application.IApplication;
+import ghost.framework.context.base.ICoreInterface;
+import ghost.framework.context.bean.factory.IBeanPositionOwner;
+import ghost.framework.context.bean.factory.IExecuteOwnerBeanTargetHandle;
+
+/**
+ * package: ghost.framework.core.event.scan.container
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:扫描资源类型定位拥有者
+ * 与注释模式加载插件包时 ghost.framework.maven.plugin.loader.MavenPluginLoader 定位类型拥有者的规则一致，
+ * 按类型的 {@link Module}、{@link ModuleArtifact}、{@link Application} 注释与代码位置定位执行拥有者，都没有时使用原始拥有者
+ * @Date: 2020/6/26:16:20
+ */
+final class ScanResourceTypePositionOwner
+        implements IBeanPositionOwner<ICoreInterface, Class<?>, IExecuteOwnerBeanTargetHandle<ICoreInterface, Class<?>>> {
+    private final IApplication app;
+
+    ScanResourceTypePositionOwner(IApplication app) {
+        this.app = app;
+    }
+
+    @Override
+    public IApplication getApp() {
+        return app;
+    }
+
+    /**
+     * 获取事件的应用注释
+     * @param event
+     * @return
+     */
+    @Override
+    public Application getApplicationAnnotation(IExecuteOwnerBeanTargetHandle<ICoreInterface, Class<?>> event) {
+        return event.getTarget().getAnnotation(Application.class);
+    }
+
+    /**
+     * 获取事件的模块依赖注释
+     * @param event
+     * @return
+     */
+    @Override
+    public ModuleArtifact getModuleArtifactAnnotation(IExecuteOwnerBeanTargetHandle<ICoreInterface, Class<?>> event) {
+        return event.getTarget().getAnnotation(ModuleArtifact.class);
+    }
+
+    /**
+     * 获取事件的模块注释
+     * @param event
+     * @return
+     */
+    @Override
+    public Module getModuleAnnotation(IExecuteOwnerBeanTargetHandle<ICoreInterface, Class<?>> event) {
+        return event.getTarget().getAnnotation(Module.class);
+    }
+}
@@ -0,0 +1,172 @@
+package ghost.framework.core.event.scan.container;
+
+import ghost.framework.context.bean.CandidateComponentsIndexLoader;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.annotation.Annotation;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * package: ghost.framework.core.event.scan.container
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:扫描资源类型解析
+ * 包内有编译期生成的 {@link CandidateComponentsIndexLoader#COMPONENTS_RESOURCE_LOCATION} 索引时只加载索引列出的类型，
+ * 没有注释的类型不会被加载与初始化；没有索引的包逐个加载包内类型（不初始化），保留带有框架注释的类型。
+ * 索引只读取本包内的文件，不读取类加载器中其它包的索引。
+ * @Date: 2020/6/22:10:15
+ */
+final class ScanResourceTypeResolver {
+    private static final Log log = LogFactory.getLog(ScanResourceTypeResolver.class);
+    /**
+     * 框架注释包前缀
+     */
+    private static final String PREFIX = "ghost.framework.";
+
+    private ScanResourceTypeResolver() {
+    }
+
+    /**
+     * 获取包内需要加载的类型
+     *
+     * @param loader 类加载器
+     * @param file   包文件
+     * @return 返回类型列表
+     * @throws IOException
+     */
+    static List<Class<?>> getTypes(ClassLoader loader, File file) throws IOException {
+        try (JarFile jar = new JarFile(file, false)) {
+            List<String> names = readIndex(jar);
+            if (names == null) {
+                if (log.isDebugEnabled()) {
+                    log.debug("包没有组件索引，使用反射扫描:" + file);
+                }
+                return scan(loader, jar);
+            }
+            List<Class<?>> list = new ArrayList<>(names.size());
+            for (String name : names) {
+                try {
+                    list.add(Class.forName(name, false, loader));
+                } catch (ClassNotFoundException | LinkageError e) {
+                    //索引与包内容不一致
+                    log.warn("组件索引类型加载错误:" + name + " " + file, e);
+                }
+            }
+            return list;
+        }
+    }
+
+    /**
+     * 读取包内组件索引
+     *
+     * @param jar 包文件
+     * @return 返回索引的类型名称列表，包内没有索引时返回null
+     * @throws IOException
+     */
+    private static List<String> readIndex(JarFile jar) throws IOException {
+        JarEntry entry = jar.getJarEntry(CandidateComponentsIndexLoader.COMPONENTS_RESOURCE_LOCATION);
+        if (entry == null) {
+            return null;
+        }
+        Set<String> names = new LinkedHashSet<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(jar.getInputStream(entry), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                int i = line.indexOf('=');
+                if (line.isEmpty() || line.startsWith("#") || i <= 0) {
+                    continue;
+                }
+                names.add(line.substring(0, i).trim());
+            }
+        }
+        return new ArrayList<>(names);
+    }
+
+    /**
+     * 反射扫描包内带有框架注释的类型
+     *
+     * @param loader 类加载器
+     * @param jar    包文件
+     * @return
+     */
+    private static List<Class<?>> scan(ClassLoader loader, JarFile jar) {
+        List<Class<?>> list = new ArrayList<>();
+        Enumeration<JarEntry> entries = jar.entries();
+        while (entries.hasMoreElements()) {
+            String name = entries.nextElement().getName();
+            if (!name.endsWith(".class") || name.endsWith("package-info.class") || name.endsWith("module-info.class")) {
+                continue;
+            }
+            String className = name.substring(0, name.length() - 6).replace('/', '.');
+            Class<?> c;
+            try {
+                c = Class.forName(className, false, loader);
+            } catch (ClassNotFoundException | LinkageError e) {
+                if (log.isDebugEnabled()) {
+                    log.debug("扫描类型加载错误:" + className, e);
+                }
+                continue;
+            }
+            if (c.isAnnotation() || c.isAnonymousClass() || c.isLocalClass() || c.isSynthetic()) {
+                continue;
+            }
+            if (isAnnotated(c.getDeclaredAnnotations())) {
+                list.add(c);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 判断是否有框架注释
+     *
+     * @param annotations 注释列表
+     * @return
+     */
+    private static boolean isAnnotated(Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            if (isRelevant(annotation.annotationType(), new HashSet<>())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 判断注释是否为框架注释或被框架注释元注释，与编译期索引的判断一致
+     *
+     * @param annotationType 注释类型
+     * @param visiting       正在判断的注释，避免循环元注释
+     * @return
+     */
+    private static boolean isRelevant(Class<? extends Annotation> annotationType, Set<Class<?>> visiting) {
+        String name = annotationType.getName();
+        if (name.startsWith(PREFIX)) {
+            return true;
+        }
+        if (name.startsWith("java.lang.annotation.") || !visiting.add(annotationType)) {
+            return false;
+        }
+        for (Annotation annotation : annotationType.getDeclaredAnnotations()) {
+            if (isRelevant(annotation.annotationType(), visiting)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
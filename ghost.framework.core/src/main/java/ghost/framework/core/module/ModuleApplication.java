@@ -16,6 +16,7 @@ import ghost.framework.beans.application.event.GenericApplicationEvent;
 import ghost.framework.context.application.event.IEventPublisherContainer;
 import ghost.framework.context.assembly.IClassLoader;
 import ghost.framework.context.base.ApplicationHome;
+import ghost.framework.context.bean.IBeanDefinition;
 import ghost.framework.context.environment.IEnvironment;
 import ghost.framework.context.maven.IMavenPluginLoader;
 import ghost.framework.context.module.IModule;
@@ -218,10 +219,9 @@ public final class ModuleApplication extends ApplicationBase implements IModule
     public boolean isAutoBean() {
         //判断获取是否自动绑定
         IEnvironment env = null;
-        synchronized (this.getBeanMap()) {
-            if (this.getBeanMap().containsKey(ModuleEnvironment.class.getName())) {
-                env = (IEnvironment) this.getBeanMap().get(ModuleEnvironment.class.getName()).getObject();
-            }
+        IBeanDefinition definition = this.getBeanMap().get(ModuleEnvironment.class.getName());
+        if (definition != null) {
+            env = (IEnvironment) definition.getObject();
         }
         if (env != null && env.containsKey(ModuleConstant.Bean.AUTO_BEAN)) {
             return env.getBoolean(ModuleConstant.Bean.AUTO_BEAN);
@@ -0,0 +1,125 @@
+package ghost.framework.core.annotation;
+
+import ghost.framework.beans.annotation.tags.AnnotationTag;
+import ghost.framework.context.annotation.IAnnotationExecutionChain;
+import ghost.framework.context.application.IApplication;
+import org.junit.jupiter.api.Test;
+
+import java.lang.annotation.*;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * package: ghost.framework.core.annotation
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link AnnotationRootExecutionChain} 注释链缓存失效测试
+ * @Date: 2020/6/26:10:20
+ */
+@SuppressWarnings({"unchecked", "rawtypes"})
+public class AnnotationRootExecutionChainTests {
+    private final AnnotationRootExecutionChain root = new AnnotationRootExecutionChain(this.application());
+
+    @Test
+    public void exclusionChangesRecomputeCachedChain() {
+        this.root.add(First.class, AnnotationTag.AnnotationTags.Container);
+        assertThat(this.root.getExecutionChain(Target1.class).keySet()).containsExactly(First.class);
+        //缓存后添加排除注释
+        assertThat(this.root.addExclusion(First.class)).isTrue();
+        assertThat(this.root.getExecutionChain(Target1.class)).isEmpty();
+        assertThat(this.root.removeExclusion(First.class)).isTrue();
+        assertThat(this.root.getExecutionChain(Target1.class).keySet()).containsExactly(First.class);
+        //没有变动时不改变版本
+        long version = this.root.version.get();
+        assertThat(this.root.removeExclusion(First.class)).isFalse();
+        assertThat(this.root.version.get()).isEqualTo(version);
+    }
+
+    @Test
+    public void addDependInvalidatesCachedChain() {
+        this.root.add(First.class, AnnotationTag.AnnotationTags.Container);
+        this.root.add(Second.class, AnnotationTag.AnnotationTags.Container);
+        this.root.getExecutionChain(Target1.class);
+        long version = this.root.version.get();
+        //依赖注释已经存在，只添加依赖关系
+        IAnnotationExecutionChain first = this.root.addDepend(First.class, new Class[]{Second.class}, AnnotationTag.AnnotationTags.Container);
+        assertThat(first.getDepend()).containsExactly(this.root.get(Second.class));
+        assertThat(this.root.version.get()).isGreaterThan(version);
+        //重复依赖不改变版本
+        version = this.root.version.get();
+        this.root.addDepend(First.class, new Class[]{Second.class}, AnnotationTag.AnnotationTags.Container);
+        assertThat(this.root.version.get()).isEqualTo(version);
+    }
+
+    @Test
+    public void concurrentExclusionChangesNotCachedStale() throws Exception {
+        this.root.add(First.class, AnnotationTag.AnnotationTags.Container);
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch started = new CountDownLatch(4);
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> {
+                started.countDown();
+                while (running.get()) {
+                    this.root.getExecutionChain(Target1.class);
+                }
+            });
+            thread.start();
+            readers.add(thread);
+        }
+        started.await();
+        for (int i = 0; i < 2000; i++) {
+            this.root.addExclusion(First.class);
+            this.root.removeExclusion(First.class);
+        }
+        this.root.addExclusion(First.class);
+        running.set(false);
+        for (Thread thread : readers) {
+            thread.join();
+        }
+        //读取线程在变动期间缓存的旧版本注释链不能再被使用
+        assertThat(this.root.getExecutionChain(Target1.class)).isEmpty();
+        this.root.removeExclusion(First.class);
+        assertThat(this.root.getExecutionChain(Target1.class).keySet()).containsExactly(First.class);
+    }
+
+    /**
+     * 创建不做任何处理的应用
+     *
+     * @return
+     */
+    private IApplication application() {
+        return (IApplication) Proxy.newProxyInstance(this.getClass().getClassLoader(), new Class<?>[]{IApplication.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "application";
+                default:
+                    return null;
+            }
+        });
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.TYPE)
+    @interface First {
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.TYPE)
+    @interface Second {
+    }
+
+    @First
+    static class Target1 {
+    }
+}
@@ -0,0 +1,205 @@
+package ghost.framework.core.assembly;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sun.misc.Resource;
+import sun.misc.URLClassPath;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * package: ghost.framework.core.assembly
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link PackageIndex} 按包路径查找资源测试
+ * @Date: 2020/6/26:18:10
+ */
+public class PackageIndexTests {
+    /**
+     * 测试包目录
+     */
+    private Path dir;
+    private URLClassPath ucp;
+    private PackageIndex index;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        this.dir = Files.createTempDirectory("package-index");
+        this.ucp = new URLClassPath(new URL[0]);
+        this.index = new PackageIndex(this.ucp);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        this.index.close();
+        this.ucp.closeLoaders();
+        try (Stream<Path> stream = Files.walk(this.dir)) {
+            for (Path p : stream.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(p);
+            }
+        }
+    }
+
+    @Test
+    public void findByPackagePath() throws IOException {
+        URL a = this.jar("a.jar", "com/a/A.txt", "com/shared/S.txt", "root.txt");
+        URL b = this.jar("b.jar", "com/b/B.txt", "com/shared/S.txt");
+        URL c = this.directory("classes", "com/c/C.txt");
+        this.add(a);
+        this.add(b);
+        this.add(c);
+        assertThat(this.content("com/a/A.txt")).isEqualTo("a.jar:com/a/A.txt");
+        assertThat(this.content("com/b/B.txt")).isEqualTo("b.jar:com/b/B.txt");
+        assertThat(this.content("com/c/C.txt")).isEqualTo("classes:com/c/C.txt");
+        assertThat(this.content("root.txt")).isEqualTo("a.jar:root.txt");
+        //同一包路径按添加顺序查找
+        assertThat(this.content("com/shared/S.txt")).isEqualTo("a.jar:com/shared/S.txt");
+        //包路径存在但资源不存在
+        assertThat(this.index.getResource("com/a/Missing.txt")).isNull();
+        assertThat(this.index.getResource("com/missing/A.txt")).isNull();
+    }
+
+    @Test
+    public void removeDropsPackages() throws IOException {
+        URL a = this.jar("a.jar", "com/a/A.txt", "com/shared/S.txt");
+        URL b = this.jar("b.jar", "com/shared/S.txt");
+        this.add(a);
+        this.add(b);
+        this.index.remove(a);
+        assertThat(this.index.getResource("com/a/A.txt")).isNull();
+        assertThat(this.content("com/shared/S.txt")).isEqualTo("b.jar:com/shared/S.txt");
+        //重复删除与添加
+        this.index.remove(a);
+        this.index.add(a);
+        this.index.add(a);
+        assertThat(this.content("com/a/A.txt")).isEqualTo("a.jar:com/a/A.txt");
+    }
+
+    @Test
+    public void missingJarIsIgnored() throws IOException {
+        URL missing = this.dir.resolve("missing.jar").toUri().toURL();
+        this.add(missing);
+        assertThat(this.index.getResource("com/a/A.txt")).isNull();
+    }
+
+    @Test
+    public void concurrentLookupWhileChanging() throws Exception {
+        URL stable = this.jar("stable.jar", "com/a/A.txt");
+        URL changing = this.jar("changing.jar", "com/b/B.txt");
+        this.add(stable);
+        this.ucp.addURL(changing);
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch started = new CountDownLatch(4);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> {
+                    started.countDown();
+                    int found = 0;
+                    while (running.get()) {
+                        //稳定的包始终可以找到
+                        assertThat(this.index.getResource("com/a/A.txt")).isNotNull();
+                        Resource resource = this.index.getResource("com/b/B.txt");
+                        if (resource != null) {
+                            assertThat(resource.getURL().toString()).contains("changing.jar");
+                            found++;
+                        }
+                    }
+                    return found;
+                }));
+            }
+            started.await();
+            for (int i = 0; i < 500; i++) {
+                this.index.add(changing);
+                this.index.remove(changing);
+            }
+            running.set(false);
+            for (Future<Integer> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            running.set(false);
+            executor.shutdownNow();
+        }
+        assertThat(this.index.getResource("com/b/B.txt")).isNull();
+    }
+
+    private void add(URL url) {
+        this.ucp.addURL(url);
+        this.index.add(url);
+    }
+
+    /**
+     * 读取资源内容
+     *
+     * @param name 资源路径
+     * @return
+     * @throws IOException
+     */
+    private String content(String name) throws IOException {
+        Resource resource = this.index.getResource(name);
+        assertThat(resource).isNotNull();
+        return new String(resource.getBytes(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 创建jar包，资源内容为 包名:资源路径
+     *
+     * @param name    包名
+     * @param entries 资源路径
+     * @return
+     * @throws IOException
+     */
+    private URL jar(String name, String... entries) throws IOException {
+        Path file = this.dir.resolve(name);
+        try (JarOutputStream jar = new JarOutputStream(Files.newOutputStream(file))) {
+            for (String entry : entries) {
+                jar.putNextEntry(new JarEntry(entry));
+                jar.write((name + ":" + entry).getBytes(StandardCharsets.UTF_8));
+                jar.closeEntry();
+            }
+        }
+        return file.toUri().toURL();
+    }
+
+    /**
+     * 创建类目录，资源内容为 目录名:资源路径
+     *
+     * @param name    目录名
+     * @param entries 资源路径
+     * @return
+     * @throws IOException
+     */
+    private URL directory(String name, String... entries) throws IOException {
+        Path root = this.dir.resolve(name);
+        for (String entry : entries) {
+            Path file = root.resolve(entry.replace('/', File.separatorChar));
+            Files.createDirectories(file.getParent());
+            Files.write(file, (name + ":" + entry).getBytes(StandardCharsets.UTF_8));
+        }
+        return root.toUri().toURL();
+    }
+}
@@ -0,0 +1,138 @@
+package ghost.framework.core.event.scan.container;
+
+import ghost.framework.beans.annotation.stereotype.Component;
+import ghost.framework.context.bean.CandidateComponentsIndexLoader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * package: ghost.framework.core.event.scan.container
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link ScanResourceTypeResolver} 按包内组件索引与反射扫描解析类型测试
+ * @Date: 2020/6/26:16:40
+ */
+public class ScanResourceTypeResolverTests {
+    private final ClassLoader loader = ScanResourceTypeResolverTests.class.getClassLoader();
+    /**
+     * 测试包文件
+     */
+    private File file;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        this.file = File.createTempFile("scan", ".jar");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        this.file.delete();
+    }
+
+    @Test
+    public void scanWithoutIndex() throws IOException {
+        this.jar(null, Annotated.class, MetaAnnotated.class, Meta.class, Plain.class, FailingInitializer.class);
+        List<Class<?>> types = ScanResourceTypeResolver.getTypes(this.loader, this.file);
+        //不返回注释类型与没有框架注释的类型，加载类型时不执行静态初始化
+        assertThat(types).containsExactlyInAnyOrder(Annotated.class, MetaAnnotated.class, FailingInitializer.class);
+    }
+
+    @Test
+    public void scanSkipsUnloadableEntries() throws IOException {
+        try (JarOutputStream jar = new JarOutputStream(Files.newOutputStream(this.file.toPath()))) {
+            this.write(jar, Annotated.class);
+            jar.putNextEntry(new JarEntry("com/example/Missing.class"));
+            jar.write(new byte[]{1, 2, 3});
+            jar.closeEntry();
+        }
+        assertThat(ScanResourceTypeResolver.getTypes(this.loader, this.file)).containsExactly(Annotated.class);
+    }
+
+    @Test
+    public void indexListsLoadedTypes() throws IOException {
+        //索引只列出Plain，包内其它带注释的类型不加载，索引中不存在的类型忽略
+        this.jar(Plain.class.getName() + "=ghost.framework.beans.annotation.stereotype.Component\n" +
+                        "com.example.Missing=ghost.framework.beans.annotation.stereotype.Component\n",
+                Annotated.class, Plain.class);
+        assertThat(ScanResourceTypeResolver.getTypes(this.loader, this.file)).containsExactly(Plain.class);
+    }
+
+    @Test
+    public void emptyIndexLoadsNothing() throws IOException {
+        this.jar("#ghost components index\n", Annotated.class);
+        assertThat(ScanResourceTypeResolver.getTypes(this.loader, this.file)).isEmpty();
+    }
+
+    /**
+     * 写入测试包
+     *
+     * @param index 组件索引内容，为null时不写入索引
+     * @param types 包内类型
+     * @throws IOException
+     */
+    private void jar(String index, Class<?>... types) throws IOException {
+        try (JarOutputStream jar = new JarOutputStream(Files.newOutputStream(this.file.toPath()))) {
+            if (index != null) {
+                jar.putNextEntry(new JarEntry(CandidateComponentsIndexLoader.COMPONENTS_RESOURCE_LOCATION));
+                jar.write(index.getBytes(StandardCharsets.UTF_8));
+                jar.closeEntry();
+            }
+            for (Class<?> c : types) {
+                this.write(jar, c);
+            }
+        }
+    }
+
+    private void write(JarOutputStream jar, Class<?> c) throws IOException {
+        String name = c.getName().replace('.', '/') + ".class";
+        jar.putNextEntry(new JarEntry(name));
+        try (InputStream in = this.loader.getResourceAsStream(name)) {
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                jar.write(buffer, 0, n);
+            }
+        }
+        jar.closeEntry();
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @Component
+    public @interface Meta {
+    }
+
+    @Component
+    public static class Annotated {
+    }
+
+    @Meta
+    public static class MetaAnnotated {
+    }
+
+    public static class Plain {
+    }
+
+    @Component
+    public static class FailingInitializer {
+        static {
+            if (true) {
+                throw new IllegalStateException("initialized");
+            }
+        }
+    }
+}
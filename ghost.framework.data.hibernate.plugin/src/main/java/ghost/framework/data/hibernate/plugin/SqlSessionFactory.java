@@ -2,6 +2,7 @@ package ghost.framework.data.hibernate.plugin;
 
 import ghost.framework.data.hibernate.HibernateUtils;
 import ghost.framework.data.hibernate.ISessionFactory;
+import ghost.framework.data.hibernate.ScrollableResultsIterator;
 import ghost.framework.util.Assert;
 import org.hibernate.*;
 import org.hibernate.boot.spi.SessionFactoryOptions;
@@ -9,6 +10,7 @@ import org.hibernate.criterion.DetachedCriteria;
 import org.hibernate.engine.jdbc.connections.internal.DriverManagerConnectionProviderImpl;
 import org.hibernate.engine.spi.FilterDefinition;
 import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
 import org.hibernate.metadata.ClassMetadata;
 import org.hibernate.metadata.CollectionMetadata;
 import org.hibernate.stat.Statistics;
@@ -28,6 +30,8 @@ import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.ToIntBiFunction;
+import java.util.stream.Stream;
 
 /**
  * package: ghost.framework.data.hibernate.plugin
@@ -36,6 +40,8 @@ import java.util.Set;
  * @link: 手机:13715848993, QQ 27048384
  * @Description:重新包装会话工厂
  * 主要用途在于重构实体后新旧会话交替执行
+ * 不带会话参数的查询函数使用只读会话执行，实体不进入脏检查快照，会话不自动刷新；
+ * 流式查询使用只向前滚动结果逐行读取；批量写入使用无状态会话与jdbc批处理。
  * @Date: 2020/3/13:15:02
  */
 final class SqlSessionFactory implements ISessionFactory {
@@ -48,6 +54,37 @@ final class SqlSessionFactory implements ISessionFactory {
      * 当重新配置实体完成后设置到currentd当前会话工厂
      */
     private SessionFactory old;
+    /**
+     * 滚动查询每次从数据库读取的行数
+     */
+    private int fetchSize = 1000;
+    /**
+     * 批量写入的jdbc批处理大小
+     */
+    private int batchSize = 50;
+
+    @Override
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    @Override
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    @Override
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("setBatchSize is batchSize less than 1 error");
+        }
+        this.batchSize = batchSize;
+    }
 
     public SessionFactory getOld() {
         return old;
@@ -92,6 +129,20 @@ final class SqlSessionFactory implements ISessionFactory {
         return current.openSession();
     }
 
+    /**
+     * 打开只读会话
+     * 加载的实体不保存脏检查快照，会话不自动刷新
+     *
+     * @return
+     * @throws HibernateException
+     */
+    private Session openReadOnlySession() throws HibernateException {
+        Session session = current.openSession();
+        session.setDefaultReadOnly(true);
+        session.setHibernateFlushMode(FlushMode.MANUAL);
+        return session;
+    }
+
     @Override
     public Session getCurrentSession() throws HibernateException {
         return current.getCurrentSession();
@@ -318,7 +369,7 @@ final class SqlSessionFactory implements ISessionFactory {
     @Override
     public <T> List<T> select(DetachedCriteria criteria, int start, int length) throws SQLException {
         Transaction transaction = null;
-        try (Session session = this.openSession()) {
+        try (Session session = this.openReadOnlySession()) {
             transaction = session.beginTransaction();
             List<T> list = HibernateUtils.list(session, criteria, start, length);
             transaction.commit();
@@ -334,7 +385,7 @@ final class SqlSessionFactory implements ISessionFactory {
     @Override
     public <T> List<T> mapSelect(DetachedCriteria criteria, int start, int length, String[] propertys) throws SQLException {
         Transaction transaction = null;
-        try (Session session = this.openSession()) {
+        try (Session session = this.openReadOnlySession()) {
             transaction = session.beginTransaction();
             List<T> list = HibernateUtils.mapSelect(session, criteria, start, length, propertys);
             transaction.commit();
@@ -355,7 +406,7 @@ final class SqlSessionFactory implements ISessionFactory {
     @Override
     public <T> List<T> mapSelect(DetachedCriteria criteria, int start, int length, String[] propertys, String[] ass) throws SQLException {
         Transaction transaction = null;
-        try (Session session = this.openSession()) {
+        try (Session session = this.openReadOnlySession()) {
             transaction = session.beginTransaction();
             List<T> list = HibernateUtils.mapSelect(session, criteria, start, length, propertys, ass);
             transaction.commit();
@@ -381,7 +432,7 @@ final class SqlSessionFactory implements ISessionFactory {
     @Override
     public <T> List<T> mapSelect(DetachedCriteria criteria, int start, int length, Class<?> map) throws SQLException {
         Transaction transaction = null;
-        try (Session session = this.openSession()) {
+        try (Session session = this.openReadOnlySession()) {
             transaction = session.beginTransaction();
             List<T> list = HibernateUtils.mapSelect(session, criteria, start, length, map);
             transaction.commit();
@@ -402,7 +453,7 @@ final class SqlSessionFactory implements ISessionFactory {
     @Override
     public <T> List<T> mapSelect(DetachedCriteria criteria, Class<?> map) throws SQLException {
         Transaction transaction = null;
-        try (Session session = this.openSession()) {
+        try (Session session = this.openReadOnlySession()) {
             transaction = session.beginTransaction();
             List<T> list = HibernateUtils.mapSelect(session, criteria, map);
             transaction.commit();
@@ -418,7 +469,7 @@ final class SqlSessionFactory implements ISessionFactory {
     @Override
     public <T> List<T> mapSelect(DetachedCriteria criteria, int start, int length) throws SQLException {
         Transaction transaction = null;
-        try (Session session = this.openSession()) {
+        try (Session session = this.openReadOnlySession()) {
             transaction = session.beginTransaction();
             List<T> list = HibernateUtils.mapSelect(session, criteria, start, length);
             transaction.commit();
@@ -439,7 +490,7 @@ final class SqlSessionFactory implements ISessionFactory {
     @Override
     public <T> T get(Class<T> entity, Map<String, Object> where) throws SQLException {
         Transaction transaction = null;
-        try (Session session = this.openSession()) {
+        try (Session session = this.openReadOnlySession()) {
             transaction = session.beginTransaction();
             T t = HibernateUtils.get(session, entity, where);
             transaction.commit();
@@ -455,7 +506,7 @@ final class SqlSessionFactory implements ISessionFactory {
     @Override
     public <T> T get(Class<T> entity, String name, Serializable id) throws SQLException {
         Transaction transaction = null;
-        try (Session session = this.openSession()) {
+        try (Session session = this.openReadOnlySession()) {
             transaction = session.beginTransaction();
             T t = HibernateUtils.get(session, entity, name, id);
             transaction.commit();
@@ -490,7 +541,7 @@ final class SqlSessionFactory implements ISessionFactory {
     @Override
     public <T> T uniqueResult(Class<?> entity, Object id, String uniqueName) throws SQLException {
         Transaction transaction = null;
-        try (Session session = this.openSession()) {
+        try (Session session = this.openReadOnlySession()) {
             transaction = session.beginTransaction();
             T t = HibernateUtils.uniqueResult(session, entity, id, uniqueName);
             transaction.commit();
@@ -638,7 +689,7 @@ final class SqlSessionFactory implements ISessionFactory {
     @Override
     public <T> T get(Class<T> entity) throws SQLException {
         Transaction transaction = null;
-        try (Session session = this.openSession()) {
+        try (Session session = this.openReadOnlySession()) {
             transaction = session.beginTransaction();
             T t = HibernateUtils.get(session, entity);
             transaction.commit();
@@ -881,7 +932,7 @@ final class SqlSessionFactory implements ISessionFactory {
     @Override
     public <T> long count(Class<T> entity, String[] names, Object[] values) throws SQLException {
         Transaction transaction = null;
-        try (Session session = this.openSession()) {
+        try (Session session = this.openReadOnlySession()) {
             transaction = session.beginTransaction();
             long l = HibernateUtils.count(session, entity, names, values);
             transaction.commit();
@@ -912,7 +963,7 @@ final class SqlSessionFactory implements ISessionFactory {
     @Override
     public <T> T uniqueResult(DetachedCriteria criteria) throws SQLException {
         Transaction transaction = null;
-        try (Session session = this.openSession()) {
+        try (Session session = this.openReadOnlySession()) {
             transaction = session.beginTransaction();
             T t = HibernateUtils.uniqueResult(session, criteria);
             transaction.commit();
@@ -928,7 +979,7 @@ final class SqlSessionFactory implements ISessionFactory {
     @Override
     public <T> T uniqueResult(Class<?> entity, String[] names, Object[] values, String uniqueName) throws SQLException {
         Transaction transaction = null;
-        try (Session session = this.openSession()) {
+        try (Session session = this.openReadOnlySession()) {
             transaction = session.beginTransaction();
             T t = HibernateUtils.uniqueResult(session, entity, names, values, uniqueName);
             transaction.commit();
@@ -1026,7 +1077,7 @@ final class SqlSessionFactory implements ISessionFactory {
     @Override
     public <T> List<T> select(Class<T> entity, Object id) throws SQLException {
         Transaction transaction = null;
-        try (Session session = this.openSession()) {
+        try (Session session = this.openReadOnlySession()) {
             transaction = session.beginTransaction();
             List<T> list = HibernateUtils.select(session, entity, id);
             transaction.commit();
@@ -1058,7 +1109,7 @@ final class SqlSessionFactory implements ISessionFactory {
     @Override
     public <T> List<T> select(Class<T> entity, String[] names, Object[] values) throws SQLException {
         Transaction transaction = null;
-        try (Session session = this.openSession()) {
+        try (Session session = this.openReadOnlySession()) {
             transaction = session.beginTransaction();
             List<T> list = HibernateUtils.select(session, entity, names, values);
             transaction.commit();
@@ -1135,7 +1186,7 @@ final class SqlSessionFactory implements ISessionFactory {
     @Override
     public <T> boolean exists(Class<T> entity, Object id) throws SQLException {
         Transaction transaction = null;
-        try (Session session = this.openSession()) {
+        try (Session session = this.openReadOnlySession()) {
             transaction = session.beginTransaction();
             boolean b = HibernateUtils.exists(session, entity, id);
             transaction.commit();
@@ -1237,7 +1288,7 @@ final class SqlSessionFactory implements ISessionFactory {
     @Override
     public <T> T uniqueResult(Class<?> entity, String uniqueName) throws SQLException {
         Transaction transaction = null;
-        try (Session session = this.openSession()) {
+        try (Session session = this.openReadOnlySession()) {
             transaction = session.beginTransaction();
             T t = HibernateUtils.uniqueResult(session, entity, uniqueName);
             transaction.commit();
@@ -1279,7 +1330,7 @@ final class SqlSessionFactory implements ISessionFactory {
     @Override
     public <T> boolean exists(Class<T> entity, String name, Object v) throws SQLException {
         Transaction transaction = null;
-        try (Session session = this.openSession()) {
+        try (Session session = this.openReadOnlySession()) {
             transaction = session.beginTransaction();
             boolean b = HibernateUtils.exists(session, entity, name, v);
             transaction.commit();
@@ -1300,7 +1351,7 @@ final class SqlSessionFactory implements ISessionFactory {
     @Override
     public <T> List<T> select(Class<T> entity, String name, Object v) throws SQLException {
         Transaction transaction = null;
-        try (Session session = this.openSession()) {
+        try (Session session = this.openReadOnlySession()) {
             transaction = session.beginTransaction();
             List<T> list = HibernateUtils.list(session, entity, name, v);
             transaction.commit();
@@ -1321,7 +1372,7 @@ final class SqlSessionFactory implements ISessionFactory {
     @Override
     public <T> List<T> select(Class<T> entity, String[] names, Object[] values, List<String> notIds) throws SQLException {
         Transaction transaction = null;
-        try (Session session = this.openSession()) {
+        try (Session session = this.openReadOnlySession()) {
             transaction = session.beginTransaction();
             List<T> list = HibernateUtils.select(session, entity, names, values, notIds);
             transaction.commit();
@@ -1342,7 +1393,7 @@ final class SqlSessionFactory implements ISessionFactory {
     @Override
     public <K, V> Map<K, V> map(DetachedCriteria criteria, String[] projectionList) throws SQLException {
         Transaction transaction = null;
-        try (Session session = this.openSession()) {
+        try (Session session = this.openReadOnlySession()) {
             transaction = session.beginTransaction();
             Map<K, V> map = HibernateUtils.map(session, criteria, projectionList);
             transaction.commit();
@@ -1358,7 +1409,7 @@ final class SqlSessionFactory implements ISessionFactory {
     @Override
     public <T> T get(Class<T> entity, String[] names, Object[] values) throws SQLException {
         Transaction transaction = null;
-        try (Session session = this.openSession()) {
+        try (Session session = this.openReadOnlySession()) {
             transaction = session.beginTransaction();
             T t = HibernateUtils.get(session, entity, names, values);
             transaction.commit();
@@ -1374,7 +1425,7 @@ final class SqlSessionFactory implements ISessionFactory {
     @Override
     public <T> T findById(Class<T> entity, Object id) throws SQLException {
         Transaction transaction = null;
-        try (Session session = this.openSession()) {
+        try (Session session = this.openReadOnlySession()) {
             transaction = session.beginTransaction();
             T t = this.findById(session, entity, id);
             transaction.commit();
@@ -1436,7 +1487,7 @@ final class SqlSessionFactory implements ISessionFactory {
     @Override
     public <T> List<T> findAll(Class<T> entity) throws SQLException {
         Transaction transaction = null;
-        try (Session session = this.openSession()) {
+        try (Session session = this.openReadOnlySession()) {
             transaction = session.beginTransaction();
             List<T> list = HibernateUtils.select(session, entity);
             transaction.commit();
@@ -1497,7 +1548,7 @@ final class SqlSessionFactory implements ISessionFactory {
     @Override
     public <T> long count(Class<T> entity) throws SQLException {
         Transaction transaction = null;
-        try (Session session = this.openSession()) {
+        try (Session session = this.openReadOnlySession()) {
             transaction = session.beginTransaction();
             long c = HibernateUtils.count(session, entity);
             transaction.commit();
@@ -1513,7 +1564,7 @@ final class SqlSessionFactory implements ISessionFactory {
     @Override
     public long count(DetachedCriteria criteria) throws SQLException {
         Transaction transaction = null;
-        try (Session session = this.openSession()) {
+        try (Session session = this.openReadOnlySession()) {
             transaction = session.beginTransaction();
             long c = HibernateUtils.count(session, criteria);
             transaction.commit();
@@ -1529,7 +1580,7 @@ final class SqlSessionFactory implements ISessionFactory {
     @Override
     public <T> List<T> list(Class<T> entity) throws SQLException {
         Transaction transaction = null;
-        try (Session session = this.openSession()) {
+        try (Session session = this.openReadOnlySession()) {
             transaction = session.beginTransaction();
             List<T> c = HibernateUtils.list(session, entity);
             transaction.commit();
@@ -1542,6 +1593,80 @@ final class SqlSessionFactory implements ISessionFactory {
         }
     }
 
+    @Override
+    public <T> Stream<T> stream(DetachedCriteria criteria) throws SQLException {
+        return this.<T>iterator(criteria).stream();
+    }
+
+    @Override
+    public <T> Stream<T> mapStream(DetachedCriteria criteria, Class<?> map) throws SQLException {
+        Session session = this.openReadOnlySession();
+        Transaction transaction = null;
+        try {
+            transaction = session.beginTransaction();
+            return new ScrollableResultsIterator<T>(session, transaction, HibernateUtils.mapScroll(session, criteria, map, this.fetchSize), this.fetchSize).stream();
+        } catch (Exception e) {
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            session.close();
+            throw new SQLException(e);
+        }
+    }
+
+    @Override
+    public <T> ScrollableResultsIterator<T> iterator(DetachedCriteria criteria) throws SQLException {
+        Session session = this.openReadOnlySession();
+        Transaction transaction = null;
+        try {
+            transaction = session.beginTransaction();
+            return new ScrollableResultsIterator<>(session, transaction, HibernateUtils.scroll(session, criteria, this.fetchSize), this.fetchSize);
+        } catch (Exception e) {
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            session.close();
+            throw new SQLException(e);
+        }
+    }
+
+    @Override
+    public int insertBatch(Iterable<?> entityList) throws SQLException {
+        return this.batch(entityList, HibernateUtils::insertAll);
+    }
+
+    @Override
+    public int updateBatch(Iterable<?> entityList) throws SQLException {
+        return this.batch(entityList, HibernateUtils::updateAll);
+    }
+
+    /**
+     * 使用无状态会话批量写入
+     * 使用数据库自增主键的实体无法批量插入，每行单独执行
+     *
+     * @param entityList 实体列表
+     * @param function   写入函数
+     * @return 返回写入数量
+     * @throws SQLException
+     */
+    private int batch(Iterable<?> entityList, ToIntBiFunction<StatelessSession, Iterable<?>> function) throws SQLException {
+        Transaction transaction = null;
+        try (StatelessSession session = this.openStatelessSession()) {
+            session.setJdbcBatchSize(this.batchSize);
+            transaction = session.beginTransaction();
+            int i = function.applyAsInt(session, entityList);
+            //提交前执行未满批处理大小的剩余语句
+            ((SharedSessionContractImplementor) session).getJdbcCoordinator().executeBatch();
+            transaction.commit();
+            return i;
+        } catch (Exception e) {
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            throw new SQLException(e);
+        }
+    }
+
 //    @Override
 //    public <E, K, V, I> List<Map<K, V>> mapSelect(Class<E> entity, List<I> ids, String[] projectionList) throws SQLException {
 //        DetachedCriteria criteria = DetachedCriteria.forClass(entity);
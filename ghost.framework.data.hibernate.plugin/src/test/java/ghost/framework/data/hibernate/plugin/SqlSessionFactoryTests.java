@@ -0,0 +1,100 @@
+package ghost.framework.data.hibernate.plugin;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.criterion.DetachedCriteria;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * package: ghost.framework.data.hibernate.plugin
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link SqlSessionFactory} 滚动查询会话关闭测试
+ * @Date: 2020/6/24:11:40
+ */
+public class SqlSessionFactoryTests {
+    /**
+     * 会话与事务的调用记录
+     */
+    private final List<String> calls = new ArrayList<>();
+    private final SqlSessionFactory factory = new SqlSessionFactory(this.sessionFactory());
+
+    @Test
+    public void streamScrollErrorClosesSession() {
+        //会话不是hibernate内部会话，打开滚动结果时出错
+        assertThatThrownBy(() -> this.factory.stream(DetachedCriteria.forClass(Object.class)))
+                .isInstanceOf(SQLException.class);
+        assertThat(this.calls).containsExactly(
+                "session.setDefaultReadOnly:true", "session.setHibernateFlushMode:MANUAL", "session.beginTransaction",
+                "transaction.rollback", "session.close");
+    }
+
+    @Test
+    public void mapStreamScrollErrorClosesSession() {
+        assertThatThrownBy(() -> this.factory.mapStream(DetachedCriteria.forClass(Object.class), null))
+                .isInstanceOf(SQLException.class);
+        assertThat(this.calls).containsExactly(
+                "session.setDefaultReadOnly:true", "session.setHibernateFlushMode:MANUAL", "session.beginTransaction",
+                "transaction.rollback", "session.close");
+    }
+
+    @Test
+    public void batchSizeMustBePositive() {
+        assertThatThrownBy(() -> this.factory.setBatchSize(0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("batchSize");
+        this.factory.setBatchSize(10);
+        assertThat(this.factory.getBatchSize()).isEqualTo(10);
+    }
+
+    /**
+     * 创建记录会话调用的会话工厂
+     *
+     * @return
+     */
+    private SessionFactory sessionFactory() {
+        Transaction transaction = (Transaction) Proxy.newProxyInstance(this.getClass().getClassLoader(), new Class<?>[]{Transaction.class}, (proxy, method, args) -> {
+            if (method.getName().equals("isActive")) {
+                return true;
+            }
+            this.calls.add("transaction." + method.getName());
+            return null;
+        });
+        Session session = (Session) Proxy.newProxyInstance(this.getClass().getClassLoader(), new Class<?>[]{Session.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "setDefaultReadOnly":
+                case "setHibernateFlushMode":
+                    this.calls.add("session." + method.getName() + ":" + args[0]);
+                    return null;
+                case "beginTransaction":
+                    this.calls.add("session.beginTransaction");
+                    return transaction;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "session";
+                default:
+                    this.calls.add("session." + method.getName());
+                    return null;
+            }
+        });
+        return (SessionFactory) Proxy.newProxyInstance(this.getClass().getClassLoader(), new Class<?>[]{SessionFactory.class}, (proxy, method, args) -> {
+            if (method.getName().equals("openSession")) {
+                return session;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+}
@@ -199,6 +199,33 @@ public final class HibernateUtils {
         return list;
     }
 
+    /**
+     * 只向前滚动查询实体
+     *
+     * @param session   会话
+     * @param criteria  查询器
+     * @param fetchSize 每次从数据库读取的行数
+     * @return
+     */
+    public static ScrollableResults scroll(Session session, DetachedCriteria criteria, int fetchSize) {
+        return criteria.getExecutableCriteria(session).setCacheMode(CacheMode.IGNORE).setFetchSize(fetchSize).scroll(ScrollMode.FORWARD_ONLY);
+    }
+
+    /**
+     * 只向前滚动查询映射对象
+     *
+     * @param session   会话
+     * @param criteria  查询器
+     * @param map       映射类型，为null时映射为map
+     * @param fetchSize 每次从数据库读取的行数
+     * @return
+     */
+    public static ScrollableResults mapScroll(Session session, DetachedCriteria criteria, Class<?> map, int fetchSize) {
+        Criteria c = criteria.getExecutableCriteria(session).setCacheMode(CacheMode.IGNORE).setFetchSize(fetchSize);
+        c.setResultTransformer(map == null ? Transformers.ALIAS_TO_ENTITY_MAP : Transformers.aliasToBean(map));
+        return c.scroll(ScrollMode.FORWARD_ONLY);
+    }
+
     public static <T> List<T> select(Session session, DetachedCriteria criteria) {
         session.setCacheMode(CacheMode.GET);
         List<T> list = criteria.getExecutableCriteria(session).setResultTransformer(Transformers.aliasToBean(HashMap.class)).list();
@@ -1097,6 +1124,38 @@ public final class HibernateUtils {
         }
     }
 
+    /**
+     * 使用无状态会话批量插入
+     *
+     * @param session    无状态会话
+     * @param entityList 实体列表
+     * @return 返回插入数量
+     */
+    public static int insertAll(StatelessSession session, Iterable<?> entityList) {
+        int i = 0;
+        for (Object entity : entityList) {
+            session.insert(entity);
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * 使用无状态会话批量更新
+     *
+     * @param session    无状态会话
+     * @param entityList 实体列表
+     * @return 返回更新数量
+     */
+    public static int updateAll(StatelessSession session, Iterable<?> entityList) {
+        int i = 0;
+        for (Object entity : entityList) {
+            session.update(entity);
+            i++;
+        }
+        return i;
+    }
+
     public static <T> List<T> list(Session session, Class<T> entity) {
         return DetachedCriteria.forClass(entity).getExecutableCriteria(session).list();
     }
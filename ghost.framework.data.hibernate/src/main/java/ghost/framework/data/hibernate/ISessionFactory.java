@@ -9,6 +9,7 @@ import java.io.Serializable;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * package: ghost.framework.data.hibernate
@@ -937,4 +938,85 @@ public interface ISessionFactory extends SessionFactory {
 
     <T> List<T> list(Class<T> entity) throws SQLException;
 //    <E, K, V, I> List<Map<K, V>> mapSelect(Class<E> entity, List<I> ids, String[] projectionList) throws SQLException;
+
+    /**
+     * 获取滚动查询每次从数据库读取的行数
+     *
+     * @return
+     */
+    int getFetchSize();
+
+    /**
+     * 设置滚动查询每次从数据库读取的行数
+     * mysql需要连接参数useCursorFetch=true才按此行数分批读取
+     *
+     * @param fetchSize
+     */
+    void setFetchSize(int fetchSize);
+
+    /**
+     * 获取批量写入的jdbc批处理大小
+     *
+     * @return
+     */
+    int getBatchSize();
+
+    /**
+     * 设置批量写入的jdbc批处理大小
+     *
+     * @param batchSize
+     */
+    void setBatchSize(int batchSize);
+
+    /**
+     * 只读流式查询实体
+     * 返回的流持有会话与事务，使用完成后必须关闭流
+     *
+     * @param criteria 查询器
+     * @param <T>
+     * @return
+     * @throws SQLException
+     */
+    <T> Stream<T> stream(DetachedCriteria criteria) throws SQLException;
+
+    /**
+     * 只读流式查询映射对象
+     * 返回的流持有会话与事务，使用完成后必须关闭流
+     *
+     * @param criteria 查询器
+     * @param map      映射类型，为null时映射为map
+     * @param <T>
+     * @return
+     * @throws SQLException
+     */
+    <T> Stream<T> mapStream(DetachedCriteria criteria, Class<?> map) throws SQLException;
+
+    /**
+     * 只读滚动查询实体
+     * 返回的迭代器持有会话与事务，使用完成后必须关闭迭代器
+     *
+     * @param criteria 查询器
+     * @param <T>
+     * @return
+     * @throws SQLException
+     */
+    <T> ScrollableResultsIterator<T> iterator(DetachedCriteria criteria) throws SQLException;
+
+    /**
+     * 使用无状态会话批量插入，不经过会话缓存与脏检查
+     *
+     * @param entityList 实体列表
+     * @return 返回插入数量
+     * @throws SQLException
+     */
+    int insertBatch(Iterable<?> entityList) throws SQLException;
+
+    /**
+     * 使用无状态会话批量更新，不经过会话缓存与脏检查
+     *
+     * @param entityList 实体列表
+     * @return 返回更新数量
+     * @throws SQLException
+     */
+    int updateBatch(Iterable<?> entityList) throws SQLException;
 }
\ No newline at end of file
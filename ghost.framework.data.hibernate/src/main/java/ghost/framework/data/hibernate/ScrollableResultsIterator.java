@@ -0,0 +1,151 @@
+package ghost.framework.data.hibernate;
+
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * package: ghost.framework.data.hibernate
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:滚动查询结果迭代器
+ * 使用 {@link ScrollableResults} 逐行读取结果，不把全部结果加载到列表，
+ * 每读取 {@link #clearSize} 行清除一次会话缓存，读取任意行数的结果时内存保持不变。
+ * 迭代器持有会话与事务，读取完成或出错后必须调用 {@link #close()} 释放，
+ * 使用 {@link #stream()} 时关闭流即释放。
+ * 会话清除后之前返回的实体变为游离状态，不能再加载延迟关联。
+ * @Date: 2020/6/24:10:30
+ */
+public final class ScrollableResultsIterator<T> implements Iterator<T>, AutoCloseable {
+    /**
+     * 查询会话
+     */
+    private final Session session;
+    /**
+     * 查询事务
+     */
+    private final Transaction transaction;
+    /**
+     * 滚动查询结果
+     */
+    private final ScrollableResults results;
+    /**
+     * 清除会话缓存的行数
+     */
+    private final int clearSize;
+    /**
+     * 已经返回的行数
+     */
+    private long count;
+    /**
+     * 是否已经移动到下一行
+     */
+    private boolean advanced;
+    /**
+     * 下一行是否存在
+     */
+    private boolean hasNext;
+    /**
+     * 是否已经关闭
+     */
+    private boolean closed;
+
+    /**
+     * 初始化滚动查询结果迭代器
+     *
+     * @param session     查询会话
+     * @param transaction 查询事务
+     * @param results     滚动查询结果
+     * @param clearSize   清除会话缓存的行数
+     */
+    public ScrollableResultsIterator(Session session, Transaction transaction, ScrollableResults results, int clearSize) {
+        this.session = session;
+        this.transaction = transaction;
+        this.results = results;
+        this.clearSize = clearSize > 0 ? clearSize : 1;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (this.closed) {
+            return false;
+        }
+        if (!this.advanced) {
+            //读取下一行前清除已经返回的实体，调用者处理当前行时实体仍然有效
+            if (this.count > 0 && this.count % this.clearSize == 0) {
+                this.session.clear();
+            }
+            try {
+                this.hasNext = this.results.next();
+            } catch (RuntimeException e) {
+                this.close(false);
+                throw e;
+            }
+            this.advanced = true;
+            if (!this.hasNext) {
+                this.close();
+            }
+        }
+        return this.hasNext;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        this.advanced = false;
+        this.count++;
+        return (T) this.results.get(0);
+    }
+
+    /**
+     * 转换为流，关闭流时关闭迭代器
+     *
+     * @return
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false).onClose(this::close);
+    }
+
+    /**
+     * 关闭查询结果、提交事务并关闭会话
+     */
+    @Override
+    public void close() {
+        this.close(true);
+    }
+
+    /**
+     * 关闭查询结果与会话
+     *
+     * @param commit 是否提交事务，否则回滚事务
+     */
+    private void close(boolean commit) {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        try {
+            this.results.close();
+            if (this.transaction.isActive()) {
+                if (commit) {
+                    this.transaction.commit();
+                } else {
+                    this.transaction.rollback();
+                }
+            }
+        } finally {
+            this.session.close();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package ghost.framework.data.hibernate;
+
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * package: ghost.framework.data.hibernate
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link ScrollableResultsIterator} 读取与关闭测试
+ * @Date: 2020/6/24:11:20
+ */
+public class ScrollableResultsIteratorTests {
+    /**
+     * 会话、事务与滚动结果的调用记录
+     */
+    private final List<String> calls = new ArrayList<>();
+    /**
+     * 事务是否活动
+     */
+    private boolean active = true;
+
+    @Test
+    public void readAllClosesAndCommits() {
+        ScrollableResultsIterator<Integer> iterator = this.iterator(5, -1, 2);
+        List<Integer> list = new ArrayList<>();
+        iterator.forEachRemaining(list::add);
+        assertThat(list).containsExactly(0, 1, 2, 3, 4);
+        //每2行清除一次会话，读取结束时关闭
+        assertThat(this.calls).containsExactly("session.clear", "session.clear", "results.close", "transaction.commit", "session.close");
+        assertThat(iterator.hasNext()).isFalse();
+    }
+
+    @Test
+    public void streamCloseReleasesSession() {
+        List<Integer> list;
+        try (Stream<Integer> stream = this.iterator(100, -1, 10).stream()) {
+            list = stream.limit(3).collect(Collectors.toList());
+            //未读取完成时保持打开
+            assertThat(this.calls).isEmpty();
+        }
+        assertThat(list).containsExactly(0, 1, 2);
+        assertThat(this.calls).containsExactly("results.close", "transaction.commit", "session.close");
+    }
+
+    @Test
+    public void readErrorRollsBack() {
+        ScrollableResultsIterator<Integer> iterator = this.iterator(5, 3, 10);
+        assertThatThrownBy(() -> iterator.forEachRemaining(i -> {
+        }))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("scroll");
+        assertThat(this.calls).containsExactly("results.close", "transaction.rollback", "session.close");
+        assertThat(iterator.hasNext()).isFalse();
+    }
+
+    @Test
+    public void closeOnce() {
+        ScrollableResultsIterator<Integer> iterator = this.iterator(5, -1, 10);
+        iterator.next();
+        iterator.close();
+        iterator.close();
+        assertThat(this.calls).containsExactly("results.close", "transaction.commit", "session.close");
+    }
+
+    @Test
+    public void closeInactiveTransaction() {
+        ScrollableResultsIterator<Integer> iterator = this.iterator(5, -1, 10);
+        this.active = false;
+        iterator.close();
+        assertThat(this.calls).containsExactly("results.close", "session.close");
+    }
+
+    /**
+     * 创建滚动查询结果迭代器
+     *
+     * @param rows      结果行数
+     * @param failRow   读取出错的行，小于0不出错
+     * @param clearSize 清除会话缓存的行数
+     * @return
+     */
+    private ScrollableResultsIterator<Integer> iterator(int rows, int failRow, int clearSize) {
+        Session session = this.proxy(Session.class, "session");
+        Transaction transaction = this.proxy(Transaction.class, "transaction");
+        Iterator<Integer> source = new Iterator<Integer>() {
+            private int row;
+
+            @Override
+            public boolean hasNext() {
+                return this.row < rows;
+            }
+
+            @Override
+            public Integer next() {
+                return this.row++;
+            }
+        };
+        Integer[] current = new Integer[1];
+        ScrollableResults results = (ScrollableResults) Proxy.newProxyInstance(this.getClass().getClassLoader(), new Class<?>[]{ScrollableResults.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "next":
+                    if (!source.hasNext()) {
+                        return false;
+                    }
+                    current[0] = source.next();
+                    if (current[0] == failRow) {
+                        throw new IllegalStateException("scroll error");
+                    }
+                    return true;
+                case "get":
+                    return current[0];
+                default:
+                    this.calls.add("results." + method.getName());
+                    return null;
+            }
+        });
+        return new ScrollableResultsIterator<>(session, transaction, results, clearSize);
+    }
+
+    /**
+     * 创建记录调用的接口对象
+     *
+     * @param type 接口类型
+     * @param name 记录名称
+     * @param <T>
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T proxy(Class<T> type, String name) {
+        return (T) Proxy.newProxyInstance(this.getClass().getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getName().equals("isActive")) {
+                return this.active;
+            }
+            this.calls.add(name + "." + method.getName());
+            return null;
+        });
+    }
+}
@@ -0,0 +1,349 @@
+/*
+ * Copyright 2014-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ghost.framework.data.keyvalue.core;
+
+import ghost.framework.beans.annotation.constraints.Nullable;
+import ghost.framework.data.commons.util.CloseableIterator;
+import ghost.framework.data.keyvalue.core.SpelIndexPredicates.Operator;
+import ghost.framework.data.keyvalue.core.SpelIndexPredicates.Predicate;
+import ghost.framework.expression.spel.standard.SpelExpressionParser;
+import ghost.framework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
+
+/**
+ * {@link QueryEngine} executing SpEL based {@link ghost.framework.data.keyvalue.core.query.KeyValueQuery queries}
+ * with the help of secondary indexes declared per keyspace via {@link #addIndex(String, String, IndexType)}.
+ * <p />
+ * Conjuncts of the criteria comparing a top level property against a value (see {@link SpelIndexPredicates}) are
+ * answered by the index of that property: {@link IndexType#HASH} indexes answer equality,
+ * {@link IndexType#SORTED} indexes equality and ranges. The remaining conjuncts are evaluated as SpEL against the
+ * candidates the indexes returned; a query without any usable index behaves like the default engine. Matching happens
+ * before sorting and offset/limit are applied while iterating.
+ * <p />
+ * Indexes are maintained by the adapter, which has to route every write of an indexed keyspace through
+ * {@link #put(String, Object, Object, Supplier)}, {@link #delete(String, Object, Supplier)} and
+ * {@link #clear(String, Runnable)}. {@link ghost.framework.data.map.MapKeyValueAdapter} does so. Objects modified in
+ * place have to be put again to be re-indexed.
+ *
+ * @author 郭树灿{gsc-e590}
+ * @since 2.3
+ */
+public class IndexedQueryEngine extends QueryEngine<KeyValueAdapter, SpelCriteria, Comparator<?>> {
+
+	private static final SpelExpressionParser PARSER = new SpelExpressionParser();
+
+	private final Map<String, KeyspaceIndex> indexes = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a new {@link IndexedQueryEngine} without indexes.
+	 */
+	public IndexedQueryEngine() {
+		super(new SpelCriteriaAccessor(PARSER), new SpelSortAccessor(PARSER));
+	}
+
+	/**
+	 * Declare a secondary index on a top level property of the objects stored in {@code keyspace}. Objects already
+	 * stored are indexed right away if the adapter is registered. Indexes should be declared before the keyspace is
+	 * written concurrently, writes racing with the declaration may be missed.
+	 *
+	 * @param keyspace must not be {@literal null}.
+	 * @param property must not be {@literal null} or empty.
+	 * @param type must not be {@literal null}.
+	 * @return this {@link IndexedQueryEngine}.
+	 */
+	public IndexedQueryEngine addIndex(String keyspace, String property, IndexType type) {
+
+		Assert.notNull(keyspace, "Keyspace must not be null!");
+		Assert.hasText(property, "Property must not be null or empty!");
+		Assert.notNull(type, "IndexType must not be null!");
+
+		KeyspaceIndex index = indexes.computeIfAbsent(keyspace, it -> new KeyspaceIndex());
+		Lock lock = index.getLock().writeLock();
+		lock.lock();
+
+		try {
+
+			List<Map.Entry<Object, Object>> entries = new ArrayList<>();
+			KeyValueAdapter adapter = getAdapter();
+
+			if (adapter != null) {
+				try (CloseableIterator<Map.Entry<Object, Object>> iterator = adapter.entries(keyspace)) {
+					iterator.forEachRemaining(entries::add);
+				}
+			}
+
+			index.addIndex(property, type, entries);
+		} finally {
+			lock.unlock();
+		}
+
+		return this;
+	}
+
+	/**
+	 * Store an object and update the indexes of its keyspace atomically with regard to queries.
+	 *
+	 * @param keyspace must not be {@literal null}.
+	 * @param id must not be {@literal null}.
+	 * @param item must not be {@literal null}.
+	 * @param write performs the actual write and returns the previous object.
+	 * @return the result of {@code write}.
+	 * @throws IllegalArgumentException if a {@link IndexType#SORTED} index cannot compare the value of {@code item},
+	 *           {@code write} is not called then.
+	 */
+	@Nullable
+	public Object put(String keyspace, Object id, Object item, Supplier<Object> write) {
+		return update(keyspace, id, item, write);
+	}
+
+	/**
+	 * Remove an object and its index entries atomically with regard to queries.
+	 *
+	 * @param keyspace must not be {@literal null}.
+	 * @param id must not be {@literal null}.
+	 * @param delete performs the actual removal and returns the removed object.
+	 * @return the result of {@code delete}.
+	 */
+	@Nullable
+	public Object delete(String keyspace, Object id, Supplier<Object> delete) {
+		return update(keyspace, id, null, delete);
+	}
+
+	/**
+	 * Clear a keyspace, or all keyspaces, together with their index entries.
+	 *
+	 * @param keyspace can be {@literal null} to clear all keyspaces.
+	 * @param clear performs the actual removal.
+	 */
+	public void clear(@Nullable String keyspace, Runnable clear) {
+
+		List<KeyspaceIndex> affected = new ArrayList<>();
+
+		// lock in keyspace order so that concurrent calls cannot deadlock
+		if (keyspace == null) {
+			affected.addAll(new TreeMap<>(indexes).values());
+		} else if (indexes.containsKey(keyspace)) {
+			affected.add(indexes.get(keyspace));
+		}
+
+		affected.forEach(it -> it.getLock().writeLock().lock());
+
+		try {
+			clear.run();
+			affected.forEach(KeyspaceIndex::clear);
+		} finally {
+			affected.forEach(it -> it.getLock().writeLock().unlock());
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see ghost.framework.data.keyvalue.core.QueryEngine#execute(java.lang.Object, java.lang.Object, long, int, java.lang.String)
+	 */
+	@Override
+	public Collection<?> execute(@Nullable SpelCriteria criteria, @Nullable Comparator<?> sort, long offset, int rows,
+			String keyspace) {
+
+		KeyspaceIndex index = criteria != null ? indexes.get(keyspace) : null;
+
+		if (index == null) {
+			return SpelQueryEngine.filterSortAndPage(getRequiredAdapter().getAllOf(keyspace), criteria, sort, offset,
+					rows);
+		}
+
+		Lock lock = index.getLock().readLock();
+		lock.lock();
+
+		try {
+
+			Candidates candidates = findCandidates(criteria, index, keyspace);
+			return SpelQueryEngine.filterSortAndPage(candidates.source, candidates.residual, sort, offset, rows);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see ghost.framework.data.keyvalue.core.QueryEngine#count(java.lang.Object, java.lang.String)
+	 */
+	@Override
+	public long count(@Nullable SpelCriteria criteria, String keyspace) {
+
+		KeyspaceIndex index = criteria != null ? indexes.get(keyspace) : null;
+
+		if (index == null) {
+			return criteria == null ? getRequiredAdapter().count(keyspace)
+					: SpelQueryEngine.countMatching(getRequiredAdapter().getAllOf(keyspace), criteria);
+		}
+
+		Lock lock = index.getLock().readLock();
+		lock.lock();
+
+		try {
+
+			Candidates candidates = findCandidates(criteria, index, keyspace);
+			return SpelQueryEngine.countMatching(candidates.source, candidates.residual);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Nullable
+	private Object update(String keyspace, Object id, @Nullable Object item, Supplier<Object> write) {
+
+		KeyspaceIndex index = indexes.get(keyspace);
+
+		if (index == null) {
+			return write.get();
+		}
+
+		Lock lock = index.getLock().writeLock();
+		lock.lock();
+
+		try {
+
+			if (item != null) {
+				index.check(item);
+			}
+
+			Object previous = write.get();
+			index.update(id, item);
+			return previous;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Intersect the ids matching the indexable conjuncts, smallest set first. Must be called holding the read lock.
+	 */
+	private Candidates findCandidates(SpelCriteria criteria, KeyspaceIndex index, String keyspace) {
+
+		SpelIndexPredicates predicates = SpelIndexPredicates.of(criteria.getExpression());
+		List<Collection<Object>> matches = new ArrayList<>();
+		boolean complete = predicates.isComplete();
+
+		for (Predicate predicate : predicates.getPredicates()) {
+
+			Collection<Object> ids = lookup(predicate, index, criteria);
+
+			if (ids == null) {
+				complete = false;
+			} else {
+				matches.add(ids);
+			}
+		}
+
+		if (matches.isEmpty()) {
+			return new Candidates(getRequiredAdapter().getAllOf(keyspace), criteria);
+		}
+
+		matches.sort(Comparator.comparingInt(Collection::size));
+
+		List<Object> source = new ArrayList<>();
+
+		candidates: for (Object id : matches.get(0)) {
+
+			for (int i = 1; i < matches.size(); i++) {
+				if (!matches.get(i).contains(id)) {
+					continue candidates;
+				}
+			}
+
+			Object item = getRequiredAdapter().get(id, keyspace);
+
+			if (item != null) {
+				source.add(item);
+			}
+		}
+
+		return new Candidates(source, complete ? null : criteria);
+	}
+
+	/**
+	 * @return matching ids or {@literal null} if the predicate cannot be answered by an index.
+	 */
+	@Nullable
+	private static Collection<Object> lookup(Predicate predicate, KeyspaceIndex index, SpelCriteria criteria) {
+
+		KeyspaceIndex.PropertyIndex propertyIndex = index.getIndex(predicate.getProperty());
+
+		if (propertyIndex == null
+				|| (predicate.getOperator() != Operator.EQ && propertyIndex.getType() != IndexType.SORTED)) {
+			return null;
+		}
+
+		Object value = predicate.getOperand().resolve(criteria.getContext());
+
+		if (value == null) {
+			return null;
+		}
+
+		switch (predicate.getOperator()) {
+			case EQ:
+				return propertyIndex.equalTo(value);
+			case GT:
+				return propertyIndex.range(value, false, null, false);
+			case GE:
+				return propertyIndex.range(value, true, null, false);
+			case LT:
+				return propertyIndex.range(null, false, value, false);
+			case LE:
+				return propertyIndex.range(null, false, value, true);
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * Type of a secondary index.
+	 */
+	public enum IndexType {
+
+		/**
+		 * Hash index answering equality.
+		 */
+		HASH,
+
+		/**
+		 * Sorted index answering equality and ranges. Indexed values have to be mutually comparable, writes of an
+		 * incomparable value are rejected with an {@link IllegalArgumentException}.
+		 */
+		SORTED
+	}
+
+	private static class Candidates {
+
+		private final Iterable<?> source;
+		private final @Nullable SpelCriteria residual;
+
+		Candidates(Iterable<?> source, @Nullable SpelCriteria residual) {
+
+			this.source = source;
+			this.residual = residual;
+		}
+	}
+}
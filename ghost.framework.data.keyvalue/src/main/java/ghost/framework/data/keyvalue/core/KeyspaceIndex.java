@@ -0,0 +1,360 @@
+/*
+ * Copyright 2014-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ghost.framework.data.keyvalue.core;
+
+import ghost.framework.beans.annotation.constraints.Nullable;
+import ghost.framework.data.keyvalue.core.IndexedQueryEngine.IndexType;
+import ghost.framework.util.ReflectionUtils;
+import ghost.framework.util.StringUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Secondary indexes declared for a single keyspace. Writes to the keyspace and index updates run under the write lock,
+ * index lookups together with loading the matching objects under the read lock, so a query never sees an index that is
+ * out of step with the store.
+ * <p />
+ * Index keys are normalized so that numbers compare by value regardless of their boxed type, as the SpEL comparison
+ * operators do. Values of a {@link IndexType#SORTED} index have to be mutually comparable: writes of an incomparable
+ * value are rejected before they reach the store, lookups with an incomparable value are left to SpEL.
+ *
+ * @author 郭树灿{gsc-e590}
+ * @since 2.3
+ */
+class KeyspaceIndex {
+
+	private static final ClassValue<Map<String, Function<Object, Object>>> ACCESSORS = new ClassValue<Map<String, Function<Object, Object>>>() {
+
+		@Override
+		protected Map<String, Function<Object, Object>> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Map<String, PropertyIndex> indexes = new ConcurrentHashMap<>();
+
+	ReadWriteLock getLock() {
+		return lock;
+	}
+
+	/**
+	 * Declare an index and fill it from the given entries. Must be called holding the write lock.
+	 */
+	void addIndex(String property, IndexType type, Iterable<? extends Map.Entry<Object, Object>> entries) {
+
+		PropertyIndex index = new PropertyIndex(property, type);
+
+		for (Map.Entry<Object, Object> entry : entries) {
+			index.add(entry.getKey(), entry.getValue());
+		}
+
+		indexes.put(property, index);
+	}
+
+	@Nullable
+	PropertyIndex getIndex(String property) {
+		return indexes.get(property);
+	}
+
+	boolean isEmpty() {
+		return indexes.isEmpty();
+	}
+
+	/**
+	 * Verify that {@code item} can be added to every index, so that a rejected write leaves store and indexes unchanged.
+	 *
+	 * @throws IllegalArgumentException if a {@link IndexType#SORTED} index cannot compare the value of {@code item}.
+	 */
+	void check(Object item) {
+
+		for (PropertyIndex index : indexes.values()) {
+			index.check(item);
+		}
+	}
+
+	/**
+	 * Must be called holding the write lock.
+	 */
+	void update(Object id, @Nullable Object item) {
+
+		for (PropertyIndex index : indexes.values()) {
+
+			index.remove(id);
+
+			if (item != null) {
+				index.add(id, item);
+			}
+		}
+	}
+
+	/**
+	 * Must be called holding the write lock.
+	 */
+	void clear() {
+		indexes.values().forEach(PropertyIndex::clear);
+	}
+
+	/**
+	 * Normalize a value to the key it is indexed under. Numbers become {@link BigDecimal}s without trailing zeros so
+	 * that equal values share a hash bucket.
+	 */
+	@Nullable
+	static Object normalize(@Nullable Object value) {
+
+		BigDecimal number = null;
+
+		if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+			number = BigDecimal.valueOf(((Number) value).longValue());
+		} else if (value instanceof Double || value instanceof Float) {
+
+			double d = ((Number) value).doubleValue();
+
+			if (Double.isNaN(d) || Double.isInfinite(d)) {
+				return value;
+			}
+
+			number = BigDecimal.valueOf(d);
+		} else if (value instanceof BigInteger) {
+			number = new BigDecimal((BigInteger) value);
+		} else if (value instanceof BigDecimal) {
+			number = (BigDecimal) value;
+		}
+
+		return number != null ? number.stripTrailingZeros() : value;
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the keys are not mutually comparable.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static int compareKeys(Object left, Object right) {
+
+		if (left instanceof Comparable) {
+			try {
+				return ((Comparable) left).compareTo(right);
+			} catch (ClassCastException ex) {
+				// fall through
+			}
+		}
+
+		throw new IllegalArgumentException(String.format("Cannot compare %s with %s in a sorted index!",
+				left.getClass().getName(), right.getClass().getName()));
+	}
+
+	@Nullable
+	private static Object readProperty(Object item, String property) {
+		return ACCESSORS.get(item.getClass()).computeIfAbsent(property, it -> createAccessor(item.getClass(), it))
+				.apply(item);
+	}
+
+	private static Function<Object, Object> createAccessor(Class<?> type, String property) {
+
+		String suffix = StringUtils.capitalize(property);
+		Method getter = ReflectionUtils.findMethod(type, "get" + suffix);
+
+		if (getter == null) {
+			getter = ReflectionUtils.findMethod(type, "is" + suffix);
+		}
+
+		if (getter != null) {
+
+			Method method = getter;
+			ReflectionUtils.makeAccessible(method);
+			return it -> ReflectionUtils.invokeMethod(method, it);
+		}
+
+		Field field = ReflectionUtils.findField(type, property);
+
+		if (field != null) {
+
+			ReflectionUtils.makeAccessible(field);
+			return it -> ReflectionUtils.getField(field, it);
+		}
+
+		return it -> null;
+	}
+
+	/**
+	 * Index over a single property. Remembers the key every id was indexed under, so objects modified in place before
+	 * being put again are still removed from their old bucket.
+	 */
+	static class PropertyIndex {
+
+		private final String property;
+		private final IndexType type;
+		private final Map<Object, Set<Object>> buckets;
+		private final Map<Object, Object> keys = new HashMap<>();
+		private final Set<Object> nullIds = new HashSet<>();
+
+		PropertyIndex(String property, IndexType type) {
+
+			this.property = property;
+			this.type = type;
+			this.buckets = type == IndexType.SORTED ? new TreeMap<>(KeyspaceIndex::compareKeys) : new HashMap<>();
+		}
+
+		IndexType getType() {
+			return type;
+		}
+
+		/**
+		 * @throws IllegalArgumentException if the index is {@link IndexType#SORTED} and cannot compare the value of
+		 *           {@code item}.
+		 */
+		void check(Object item) {
+
+			Object key = normalize(readProperty(item, property));
+
+			if (key == null || type != IndexType.SORTED) {
+				return;
+			}
+
+			// an empty TreeMap compares the first key with itself on insertion but never on lookup
+			compareKeys(key, key);
+
+			// keys already in the index are mutually comparable, so one of them stands for all
+			NavigableMap<Object, Set<Object>> sorted = (NavigableMap<Object, Set<Object>>) buckets;
+
+			if (!sorted.isEmpty()) {
+				Object existing = sorted.firstKey();
+				compareKeys(key, existing);
+				compareKeys(existing, key);
+			}
+		}
+
+		void add(Object id, Object item) {
+
+			Object key = normalize(readProperty(item, property));
+
+			if (key == null) {
+				nullIds.add(id);
+				return;
+			}
+
+			buckets.computeIfAbsent(key, it -> new HashSet<>()).add(id);
+			keys.put(id, key);
+		}
+
+		void remove(Object id) {
+
+			if (nullIds.remove(id)) {
+				return;
+			}
+
+			Object key = keys.remove(id);
+
+			if (key == null) {
+				return;
+			}
+
+			Set<Object> bucket = buckets.get(key);
+
+			if (bucket != null && bucket.remove(id) && bucket.isEmpty()) {
+				buckets.remove(key);
+			}
+		}
+
+		void clear() {
+
+			keys.clear();
+			buckets.clear();
+			nullIds.clear();
+		}
+
+		/**
+		 * @return ids whose property equals {@code value} or {@literal null} if {@code value} cannot be compared with
+		 *         the indexed values.
+		 */
+		@Nullable
+		Collection<Object> equalTo(Object value) {
+
+			Set<Object> bucket;
+
+			try {
+				bucket = buckets.get(normalize(value));
+			} catch (IllegalArgumentException ex) {
+				return null;
+			}
+
+			return bucket != null ? bucket : Collections.emptySet();
+		}
+
+		/**
+		 * Ids matching a range on a {@link IndexType#SORTED} index. SpEL orders {@literal null} before any value, so
+		 * ids with a {@literal null} property match {@code <} and {@code <=}.
+		 *
+		 * @param lower can be {@literal null} for an open lower bound.
+		 * @param upper can be {@literal null} for an open upper bound.
+		 * @return matching ids or {@literal null} if a bound cannot be compared with the indexed values.
+		 */
+		@Nullable
+		Set<Object> range(@Nullable Object lower, boolean lowerInclusive, @Nullable Object upper,
+				boolean upperInclusive) {
+
+			try {
+				return doRange(lower, lowerInclusive, upper, upperInclusive);
+			} catch (IllegalArgumentException ex) {
+				return null;
+			}
+		}
+
+		private Set<Object> doRange(@Nullable Object lower, boolean lowerInclusive, @Nullable Object upper,
+				boolean upperInclusive) {
+
+			NavigableMap<Object, Set<Object>> sorted = (NavigableMap<Object, Set<Object>>) buckets;
+			Object from = normalize(lower);
+			Object to = normalize(upper);
+
+			if (from != null && to != null && compareKeys(from, to) > 0) {
+				return Collections.emptySet();
+			}
+
+			NavigableMap<Object, Set<Object>> view = sorted;
+
+			if (from != null) {
+				view = view.tailMap(from, lowerInclusive);
+			}
+			if (to != null) {
+				view = view.headMap(to, upperInclusive);
+			}
+
+			Set<Object> result = new HashSet<>();
+			view.values().forEach(result::addAll);
+
+			if (from == null) {
+				result.addAll(nullIds);
+			}
+
+			return result;
+		}
+	}
+}
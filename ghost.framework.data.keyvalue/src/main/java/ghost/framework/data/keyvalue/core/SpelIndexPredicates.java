@@ -0,0 +1,289 @@
+/*
+ * Copyright 2014-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ghost.framework.data.keyvalue.core;
+
+import ghost.framework.beans.annotation.constraints.Nullable;
+import ghost.framework.expression.EvaluationContext;
+import ghost.framework.expression.spel.SpelNode;
+import ghost.framework.expression.spel.ast.BooleanLiteral;
+import ghost.framework.expression.spel.ast.CompoundExpression;
+import ghost.framework.expression.spel.ast.Indexer;
+import ghost.framework.expression.spel.ast.Literal;
+import ghost.framework.expression.spel.ast.MethodReference;
+import ghost.framework.expression.spel.ast.NullLiteral;
+import ghost.framework.expression.spel.ast.OpAnd;
+import ghost.framework.expression.spel.ast.OpEQ;
+import ghost.framework.expression.spel.ast.OpGE;
+import ghost.framework.expression.spel.ast.OpGT;
+import ghost.framework.expression.spel.ast.OpLE;
+import ghost.framework.expression.spel.ast.OpLT;
+import ghost.framework.expression.spel.ast.PropertyOrFieldReference;
+import ghost.framework.expression.spel.ast.VariableReference;
+import ghost.framework.expression.spel.standard.SpelExpression;
+import ghost.framework.expression.spel.standard.SpelExpressionParser;
+import ghost.framework.util.ConcurrentReferenceHashMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Extracts the conjuncts of a {@link SpelExpression} that can be answered by a secondary index. Recognized are
+ * comparisons ({@code ==, >, >=, <, <=}) and {@code equals(…)} calls between a top level property of the candidate
+ * ({@code #it?.name}, or {@code name} against a literal) and a literal, a parameter reference ({@code [0]}) or a
+ * variable, combined with {@code and}/{@code &&}. The result only depends on the expression and is cached per
+ * expression instance.
+ *
+ * @author 郭树灿{gsc-e590}
+ * @since 2.3
+ */
+final class SpelIndexPredicates {
+
+	private static final SpelExpressionParser PARSER = new SpelExpressionParser();
+	private static final Map<SpelExpression, SpelIndexPredicates> CACHE = new ConcurrentReferenceHashMap<>();
+
+	private final List<Predicate> predicates;
+	private final boolean complete;
+
+	private SpelIndexPredicates(List<Predicate> predicates, boolean complete) {
+
+		this.predicates = Collections.unmodifiableList(predicates);
+		this.complete = complete;
+	}
+
+	/**
+	 * @param expression must not be {@literal null}.
+	 * @return never {@literal null}.
+	 */
+	static SpelIndexPredicates of(SpelExpression expression) {
+		return CACHE.computeIfAbsent(expression, it -> analyze(it.getAST()));
+	}
+
+	/**
+	 * @return the recognized conjuncts, never {@literal null}.
+	 */
+	List<Predicate> getPredicates() {
+		return predicates;
+	}
+
+	/**
+	 * @return {@literal true} if the expression consists of recognized conjuncts only.
+	 */
+	boolean isComplete() {
+		return complete;
+	}
+
+	private static SpelIndexPredicates analyze(SpelNode root) {
+
+		List<Predicate> predicates = new ArrayList<>();
+		boolean complete = collect(root, predicates);
+
+		return new SpelIndexPredicates(predicates, complete);
+	}
+
+	private static boolean collect(SpelNode node, List<Predicate> target) {
+
+		if (node instanceof OpAnd) {
+
+			boolean left = collect(node.getChild(0), target);
+			boolean right = collect(node.getChild(1), target);
+			return left && right;
+		}
+
+		if (node instanceof BooleanLiteral && Boolean.TRUE.equals(((Literal) node).getLiteralValue().getValue())) {
+			return true;
+		}
+
+		Predicate predicate = toPredicate(node);
+
+		if (predicate == null) {
+			return false;
+		}
+
+		target.add(predicate);
+		return true;
+	}
+
+	@Nullable
+	private static Predicate toPredicate(SpelNode node) {
+
+		Operator operator = Operator.of(node);
+
+		if (operator != null) {
+
+			Predicate predicate = toPredicate(node.getChild(0), operator, node.getChild(1));
+			return predicate != null ? predicate : toPredicate(node.getChild(1), operator.flip(), node.getChild(0));
+		}
+
+		// #it?.name?.equals(…)
+		if (node instanceof CompoundExpression && node.getChildCount() == 3 && isCandidate(node.getChild(0))
+				&& node.getChild(1) instanceof PropertyOrFieldReference && node.getChild(2) instanceof MethodReference) {
+
+			MethodReference method = (MethodReference) node.getChild(2);
+
+			if ("equals".equals(method.getName()) && method.getChildCount() == 1) {
+
+				Operand operand = Operand.of(method.getChild(0));
+				return operand != null
+						? new Predicate(((PropertyOrFieldReference) node.getChild(1)).getName(), Operator.EQ, operand)
+						: null;
+			}
+		}
+
+		return null;
+	}
+
+	@Nullable
+	private static Predicate toPredicate(SpelNode propertyNode, Operator operator, SpelNode operandNode) {
+
+		Operand operand = Operand.of(operandNode);
+
+		if (operand == null) {
+			return null;
+		}
+
+		// a bare property refers to the candidate only while the candidate is the root object, i.e. without parameters
+		if (propertyNode instanceof PropertyOrFieldReference && operand.literal) {
+			return new Predicate(((PropertyOrFieldReference) propertyNode).getName(), operator, operand);
+		}
+
+		if (propertyNode instanceof CompoundExpression && propertyNode.getChildCount() == 2
+				&& isCandidate(propertyNode.getChild(0)) && propertyNode.getChild(1) instanceof PropertyOrFieldReference) {
+			return new Predicate(((PropertyOrFieldReference) propertyNode.getChild(1)).getName(), operator, operand);
+		}
+
+		return null;
+	}
+
+	private static boolean isCandidate(SpelNode node) {
+		return node instanceof VariableReference && "#it".equals(node.toStringAST());
+	}
+
+	enum Operator {
+
+		EQ, GT, GE, LT, LE;
+
+		@Nullable
+		static Operator of(SpelNode node) {
+
+			if (node instanceof OpEQ) {
+				return EQ;
+			}
+			if (node instanceof OpGT) {
+				return GT;
+			}
+			if (node instanceof OpGE) {
+				return GE;
+			}
+			if (node instanceof OpLT) {
+				return LT;
+			}
+			if (node instanceof OpLE) {
+				return LE;
+			}
+
+			return null;
+		}
+
+		/**
+		 * @return the operator to use when property and operand swap sides.
+		 */
+		Operator flip() {
+
+			switch (this) {
+				case GT:
+					return LT;
+				case GE:
+					return LE;
+				case LT:
+					return GT;
+				case LE:
+					return GE;
+				default:
+					return this;
+			}
+		}
+	}
+
+	/**
+	 * Right hand side of a {@link Predicate}, either a literal or an expression resolved against the
+	 * {@link EvaluationContext} of the query, e.g. a repository method parameter.
+	 */
+	static final class Operand {
+
+		private final boolean literal;
+		private final @Nullable Object value;
+		private final @Nullable SpelExpression expression;
+
+		private Operand(boolean literal, @Nullable Object value, @Nullable SpelExpression expression) {
+
+			this.literal = literal;
+			this.value = value;
+			this.expression = expression;
+		}
+
+		@Nullable
+		static Operand of(SpelNode node) {
+
+			if (node instanceof NullLiteral) {
+				return null;
+			}
+
+			if (node instanceof Literal) {
+				return new Operand(true, ((Literal) node).getLiteralValue().getValue(), null);
+			}
+
+			if (node instanceof Indexer || (node instanceof VariableReference && !isCandidate(node)
+					&& !"#this".equals(node.toStringAST()) && !"#root".equals(node.toStringAST()))) {
+				return new Operand(false, null, PARSER.parseRaw(node.toStringAST()));
+			}
+
+			return null;
+		}
+
+		@Nullable
+		Object resolve(EvaluationContext context) {
+			return expression != null ? expression.getValue(context) : value;
+		}
+	}
+
+	static final class Predicate {
+
+		private final String property;
+		private final Operator operator;
+		private final Operand operand;
+
+		Predicate(String property, Operator operator, Operand operand) {
+
+			this.property = property;
+			this.operator = operator;
+			this.operand = operand;
+		}
+
+		String getProperty() {
+			return property;
+		}
+
+		Operator getOperator() {
+			return operator;
+		}
+
+		Operand getOperand() {
+			return operand;
+		}
+	}
+}
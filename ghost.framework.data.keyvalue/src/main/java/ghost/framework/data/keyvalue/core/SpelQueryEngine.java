@@ -21,11 +21,11 @@ import ghost.framework.expression.spel.SpelEvaluationException;
 import ghost.framework.expression.spel.standard.SpelExpression;
 import ghost.framework.expression.spel.standard.SpelExpressionParser;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.PriorityQueue;
 
 /**
  * {@link QueryEngine} implementation specific for executing {@link SpelExpression} based {@link KeyValueQuery} against
@@ -54,7 +54,7 @@ class SpelQueryEngine extends QueryEngine<KeyValueAdapter, SpelCriteria, Compara
 	@Override
 	public Collection<?> execute(@Nullable SpelCriteria criteria, @Nullable Comparator<?> sort, long offset, int rows,
 								 String keyspace) {
-		return sortAndFilterMatchingRange(getRequiredAdapter().getAllOf(keyspace), criteria, sort, offset, rows);
+		return filterSortAndPage(getRequiredAdapter().getAllOf(keyspace), criteria, sort, offset, rows);
 	}
 
 	/*
@@ -63,41 +63,139 @@ class SpelQueryEngine extends QueryEngine<KeyValueAdapter, SpelCriteria, Compara
 	 */
 	@Override
 	public long count(@Nullable SpelCriteria criteria, String keyspace) {
-		return filterMatchingRange(IterableConverter.toList(getRequiredAdapter().getAllOf(keyspace)), criteria, -1, -1)
-				.size();
+		return countMatching(getRequiredAdapter().getAllOf(keyspace), criteria);
 	}
 
-	@SuppressWarnings({ "unchecked", "rawtypes" })
-	private List<?> sortAndFilterMatchingRange(Iterable<?> source, @Nullable SpelCriteria criteria,
-			@Nullable Comparator sort, long offset, int rows) {
+	/**
+	 * Filter {@code source} before sorting, so only matching elements are sorted. Without a sort, offset and limit are
+	 * applied while iterating and iteration stops once {@code rows} elements are collected. With a sort and a limit
+	 * only the first {@code offset + rows} elements are kept in a bounded heap instead of sorting all matches.
+	 *
+	 * @param source must not be {@literal null}.
+	 * @param criteria can be {@literal null} to match all elements.
+	 * @param sort can be {@literal null} to keep the iteration order.
+	 * @param offset elements to skip, ignored if not positive.
+	 * @param rows maximum number of elements, ignored if not positive.
+	 * @return never {@literal null}.
+	 */
+	@SuppressWarnings("unchecked")
+	static List<Object> filterSortAndPage(Iterable<?> source, @Nullable SpelCriteria criteria,
+			@Nullable Comparator<?> sort, long offset, int rows) {
 
-		List<?> tmp = IterableConverter.toList(source);
-		if (sort != null) {
-			tmp.sort(sort);
-		}
+		long skip = Math.max(offset, 0);
 
-		return filterMatchingRange(tmp, criteria, offset, rows);
-	}
+		if (sort == null) {
+
+			List<Object> result = new ArrayList<>();
+
+			for (Object candidate : source) {
 
-	private static <S> List<S> filterMatchingRange(List<S> source, @Nullable SpelCriteria criteria, long offset,
-			int rows) {
+				if (criteria != null && !evaluateExpression(criteria, candidate)) {
+					continue;
+				}
+				if (skip > 0) {
+					skip--;
+					continue;
+				}
 
-		Stream<S> stream = source.stream();
+				result.add(candidate);
 
-		if (criteria != null) {
-			stream = stream.filter(it -> evaluateExpression(criteria, it));
+				if (rows > 0 && result.size() >= rows) {
+					break;
+				}
+			}
+
+			return result;
+		}
+
+		Comparator<Object> comparator = (Comparator<Object>) sort;
+		List<Object> matches;
+
+		if (rows > 0 && skip + rows <= Integer.MAX_VALUE - 1) {
+
+			int capacity = (int) (skip + rows);
+			Comparator<Ranked> ranked = (left, right) -> {
+				int result = comparator.compare(left.value, right.value);
+				return result != 0 ? result : Long.compare(left.position, right.position);
+			};
+			PriorityQueue<Ranked> heap = new PriorityQueue<>(Math.min(capacity, 1024) + 1, ranked.reversed());
+			long position = 0;
+
+			for (Object candidate : source) {
+
+				if (criteria != null && !evaluateExpression(criteria, candidate)) {
+					continue;
+				}
+
+				// a later candidate never displaces an equal one, so ties keep encounter order as List.sort would
+				if (heap.size() < capacity) {
+					heap.add(new Ranked(candidate, position++));
+				} else if (comparator.compare(candidate, heap.peek().value) < 0) {
+					heap.poll();
+					heap.add(new Ranked(candidate, position++));
+				}
+			}
+
+			List<Ranked> kept = new ArrayList<>(heap);
+			kept.sort(ranked);
+			matches = new ArrayList<>(kept.size());
+			for (Ranked match : kept) {
+				matches.add(match.value);
+			}
+		} else {
+
+			matches = new ArrayList<>();
+
+			for (Object candidate : source) {
+				if (criteria == null || evaluateExpression(criteria, candidate)) {
+					matches.add(candidate);
+				}
+			}
+
+			matches.sort(comparator);
 		}
-		if (offset > 0) {
-			stream = stream.skip(offset);
+
+		if (skip >= matches.size()) {
+			return new ArrayList<>();
 		}
-		if (rows > 0) {
-			stream = stream.limit(rows);
+
+		int to = rows > 0 ? (int) Math.min(matches.size(), skip + rows) : matches.size();
+		return skip > 0 || to < matches.size() ? new ArrayList<>(matches.subList((int) skip, to)) : matches;
+	}
+
+	/**
+	 * @param source must not be {@literal null}.
+	 * @param criteria can be {@literal null} to count all elements.
+	 * @return the number of matching elements.
+	 */
+	static long countMatching(Iterable<?> source, @Nullable SpelCriteria criteria) {
+
+		long count = 0;
+
+		for (Object candidate : source) {
+			if (criteria == null || evaluateExpression(criteria, candidate)) {
+				count++;
+			}
 		}
 
-		return stream.collect(Collectors.toList());
+		return count;
+	}
+
+	/**
+	 * Element kept in the bounded heap together with its position in the source.
+	 */
+	private static final class Ranked {
+
+		private final Object value;
+		private final long position;
+
+		Ranked(Object value, long position) {
+			this.value = value;
+			this.position = position;
+		}
 	}
 
-	private static boolean evaluateExpression(SpelCriteria criteria, Object candidate) {
+	static boolean evaluateExpression(SpelCriteria criteria, Object candidate) {
 
 		try {
 			return criteria.getExpression().getValue(criteria.getContext(), candidate, Boolean.class);
@@ -15,10 +15,13 @@
  */
 package ghost.framework.data.map;
 
+import ghost.framework.beans.annotation.constraints.Nullable;
 import ghost.framework.context.CollectionFactory;
 import ghost.framework.data.keyvalue.core.AbstractKeyValueAdapter;
 import ghost.framework.data.keyvalue.core.ForwardingCloseableIterator;
+import ghost.framework.data.keyvalue.core.IndexedQueryEngine;
 import ghost.framework.data.keyvalue.core.KeyValueAdapter;
+import ghost.framework.data.keyvalue.core.QueryEngine;
 import ghost.framework.util.Assert;
 import ghost.framework.util.ClassUtils;
 import ghost.framework.data.commons.util.CloseableIterator;
@@ -37,6 +40,7 @@ public class MapKeyValueAdapter extends AbstractKeyValueAdapter {
 	@SuppressWarnings("rawtypes") //
 	private final Class<? extends Map> keySpaceMapType;
 	private final Map<String, Map<Object, Object>> store;
+	private final @Nullable IndexedQueryEngine indexedQueryEngine;
 
 	/**
 	 * Create new {@link MapKeyValueAdapter} using {@link ConcurrentHashMap} as backing store type.
@@ -52,7 +56,31 @@ public class MapKeyValueAdapter extends AbstractKeyValueAdapter {
 	 */
 	@SuppressWarnings("rawtypes")
 	public MapKeyValueAdapter(Class<? extends Map> mapType) {
-		this(CollectionFactory.createMap(mapType, 100), mapType);
+		this(CollectionFactory.createMap(mapType, 100), mapType, null);
+	}
+
+	/**
+	 * Create new {@link MapKeyValueAdapter} using {@link ConcurrentHashMap} as backing store type and the given
+	 * {@link QueryEngine}.
+	 *
+	 * @param engine can be {@literal null} to use the default query engine, e.g. an {@link IndexedQueryEngine}.
+	 * @since 2.3
+	 */
+	public MapKeyValueAdapter(@Nullable QueryEngine<? extends KeyValueAdapter, ?, ?> engine) {
+		this(ConcurrentHashMap.class, engine);
+	}
+
+	/**
+	 * Creates a new {@link MapKeyValueAdapter} using the given {@link Map} type as backing store and the given
+	 * {@link QueryEngine}.
+	 *
+	 * @param mapType must not be {@literal null}.
+	 * @param engine can be {@literal null} to use the default query engine, e.g. an {@link IndexedQueryEngine}.
+	 * @since 2.3
+	 */
+	@SuppressWarnings("rawtypes")
+	public MapKeyValueAdapter(Class<? extends Map> mapType, @Nullable QueryEngine<? extends KeyValueAdapter, ?, ?> engine) {
+		this(CollectionFactory.createMap(mapType, 100), mapType, engine);
 	}
 
 	/**
@@ -62,7 +90,7 @@ public class MapKeyValueAdapter extends AbstractKeyValueAdapter {
 	 */
 	@SuppressWarnings({"rawtypes", "unchecked"})
 	public MapKeyValueAdapter(Map<String, Map<Object, Object>> store) {
-		this(store, (Class<? extends Map>) ClassUtils.getUserClass(store));
+		this(store, (Class<? extends Map>) ClassUtils.getUserClass(store), null);
 	}
 
 	/**
@@ -70,15 +98,21 @@ public class MapKeyValueAdapter extends AbstractKeyValueAdapter {
 	 *
 	 * @param store           must not be {@literal null}.
 	 * @param keySpaceMapType must not be {@literal null}.
+	 * @param engine can be {@literal null} to use the default query engine.
 	 */
 	@SuppressWarnings("rawtypes")
-	private MapKeyValueAdapter(Map<String, Map<Object, Object>> store, Class<? extends Map> keySpaceMapType) {
+	private MapKeyValueAdapter(Map<String, Map<Object, Object>> store, Class<? extends Map> keySpaceMapType,
+			@Nullable QueryEngine<? extends KeyValueAdapter, ?, ?> engine) {
+
+		super(engine);
 
 		Assert.notNull(store, "Store must not be null.");
 		Assert.notNull(keySpaceMapType, "Map type to be used for key spaces must not be null!");
 
 		this.store = store;
 		this.keySpaceMapType = keySpaceMapType;
+		this.indexedQueryEngine = getQueryEngine() instanceof IndexedQueryEngine ? (IndexedQueryEngine) getQueryEngine()
+				: null;
 	}
 
 	/*
@@ -91,7 +125,13 @@ public class MapKeyValueAdapter extends AbstractKeyValueAdapter {
 		Assert.notNull(id, "Cannot add item with null id.");
 		Assert.notNull(keyspace, "Cannot add item for null collection.");
 
-		return getKeySpaceMap(keyspace).put(id, item);
+		Map<Object, Object> keySpaceMap = getKeySpaceMap(keyspace);
+
+		if (indexedQueryEngine != null) {
+			return indexedQueryEngine.put(keyspace, id, item, () -> keySpaceMap.put(id, item));
+		}
+
+		return keySpaceMap.put(id, item);
 	}
 
 	/*
@@ -130,7 +170,14 @@ public class MapKeyValueAdapter extends AbstractKeyValueAdapter {
 	public Object delete(Object id, String keyspace) {
 
 		Assert.notNull(id, "Cannot delete item with null id.");
-		return getKeySpaceMap(keyspace).remove(id);
+
+		Map<Object, Object> keySpaceMap = getKeySpaceMap(keyspace);
+
+		if (indexedQueryEngine != null) {
+			return indexedQueryEngine.delete(keyspace, id, () -> keySpaceMap.remove(id));
+		}
+
+		return keySpaceMap.remove(id);
 	}
 
 	/*
@@ -157,7 +204,14 @@ public class MapKeyValueAdapter extends AbstractKeyValueAdapter {
 	 */
 	@Override
 	public void deleteAllOf(String keyspace) {
-		getKeySpaceMap(keyspace).clear();
+
+		Map<Object, Object> keySpaceMap = getKeySpaceMap(keyspace);
+
+		if (indexedQueryEngine != null) {
+			indexedQueryEngine.clear(keyspace, keySpaceMap::clear);
+		} else {
+			keySpaceMap.clear();
+		}
 	}
 
 	/*
@@ -166,7 +220,12 @@ public class MapKeyValueAdapter extends AbstractKeyValueAdapter {
 	 */
 	@Override
 	public void clear() {
-		store.clear();
+
+		if (indexedQueryEngine != null) {
+			indexedQueryEngine.clear(null, store::clear);
+		} else {
+			store.clear();
+		}
 	}
 
 	/*
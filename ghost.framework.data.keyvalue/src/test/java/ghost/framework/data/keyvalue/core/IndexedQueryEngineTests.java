@@ -0,0 +1,180 @@
+/*
+ * Copyright 2014-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ghost.framework.data.keyvalue.core;
+
+import ghost.framework.data.keyvalue.core.IndexedQueryEngine.IndexType;
+import ghost.framework.data.keyvalue.core.query.KeyValueQuery;
+import ghost.framework.data.map.MapKeyValueAdapter;
+import ghost.framework.expression.spel.SpelEvaluationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link IndexedQueryEngine} comparing its results with {@link SpelQueryEngine}.
+ *
+ * @author 郭树灿{gsc-e590}
+ */
+class IndexedQueryEngineTests {
+
+	private static final String KEYSPACE = "people";
+
+	private static final List<String> EXPRESSIONS = Arrays.asList( //
+			"name == 'alice'", //
+			"name == 'nobody'", //
+			"age == 30", //
+			"age == 30L", //
+			"age == 30.0", //
+			"age > 30", //
+			"age >= 30", //
+			"age < 30", //
+			"age <= 30", //
+			"age > 25 and age < 40", //
+			"age >= 30 and name == 'bob'", //
+			"age > 20 or name == 'dave'", //
+			"age == 'thirty'");
+
+	private final MapKeyValueAdapter reference = new MapKeyValueAdapter(new SpelQueryEngine());
+	private final IndexedQueryEngine engine = new IndexedQueryEngine();
+	private MapKeyValueAdapter indexed;
+
+	@BeforeEach
+	void setUp() {
+
+		engine.addIndex(KEYSPACE, "name", IndexType.HASH).addIndex(KEYSPACE, "age", IndexType.SORTED);
+		indexed = new MapKeyValueAdapter(engine);
+
+		put(new Person("1", "alice", 30));
+		put(new Person("2", "bob", 30L));
+		put(new Person("3", "carol", new BigDecimal("42.50")));
+		put(new Person("4", "dave", null));
+		put(new Person("5", "erin", 19));
+		put(new Person("6", "bob", 35.5d));
+	}
+
+	@Test
+	void matchesSpelQueryEngine() {
+
+		for (String expression : EXPRESSIONS) {
+
+			assertThat(ids(indexed, expression)).as(expression).isEqualTo(ids(reference, expression));
+			assertThat(indexed.count(new KeyValueQuery<>(expression), KEYSPACE)).as(expression)
+					.isEqualTo(reference.count(new KeyValueQuery<>(expression), KEYSPACE));
+		}
+	}
+
+	@Test
+	void matchesSpelQueryEngineAfterUpdateAndDelete() {
+
+		put(new Person("1", "alice", 45));
+		indexed.delete("5", KEYSPACE);
+		reference.delete("5", KEYSPACE);
+
+		for (String expression : EXPRESSIONS) {
+			assertThat(ids(indexed, expression)).as(expression).isEqualTo(ids(reference, expression));
+		}
+	}
+
+	@Test
+	void leavesIncomparableRangeToSpel() {
+
+		assertThatThrownBy(() -> ids(reference, "age > 'thirty'")).isInstanceOf(SpelEvaluationException.class);
+		assertThatThrownBy(() -> ids(indexed, "age > 'thirty'")).isInstanceOf(SpelEvaluationException.class);
+	}
+
+	@Test
+	void rejectsIncomparableValueBeforeWriting() {
+
+		assertThatThrownBy(() -> indexed.put("7", new Person("7", "frank", "thirty"), KEYSPACE))
+				.isInstanceOf(IllegalArgumentException.class);
+
+		assertThat(indexed.get("7", KEYSPACE)).isNull();
+		assertThat(indexed.count(KEYSPACE)).isEqualTo(6L);
+		assertThat(ids(indexed, "name == 'frank'")).isEmpty();
+	}
+
+	@Test
+	void rejectsIncomparableValueOnUpdateKeepingOldEntry() {
+
+		assertThatThrownBy(() -> indexed.put("1", new Person("1", "alice", "thirty"), KEYSPACE))
+				.isInstanceOf(IllegalArgumentException.class);
+
+		assertThat(ids(indexed, "age == 30")).isEqualTo(ids(reference, "age == 30"));
+		assertThat(ids(indexed, "name == 'alice'")).containsExactly("1");
+	}
+
+	@Test
+	void rejectsIncomparableFirstValue() {
+
+		IndexedQueryEngine empty = new IndexedQueryEngine().addIndex(KEYSPACE, "age", IndexType.SORTED);
+		MapKeyValueAdapter adapter = new MapKeyValueAdapter(empty);
+
+		assertThatThrownBy(() -> adapter.put("1", new Person("1", "alice", new Object()), KEYSPACE))
+				.isInstanceOf(IllegalArgumentException.class);
+
+		assertThat(adapter.count(KEYSPACE)).isEqualTo(0L);
+
+		adapter.put("1", new Person("1", "alice", 30), KEYSPACE);
+		assertThat(ids(adapter, "age == 30")).containsExactly("1");
+	}
+
+	private void put(Person person) {
+
+		indexed.put(person.getId(), person, KEYSPACE);
+		reference.put(person.getId(), person, KEYSPACE);
+	}
+
+	private static Set<String> ids(MapKeyValueAdapter adapter, String expression) {
+
+		Set<String> ids = new TreeSet<>();
+		adapter.find(new KeyValueQuery<>(expression), KEYSPACE, Person.class).forEach(it -> ids.add(it.getId()));
+		return ids;
+	}
+
+	static class Person {
+
+		private final String id;
+		private final String name;
+		private final Object age;
+
+		Person(String id, String name, Object age) {
+
+			this.id = id;
+			this.name = name;
+			this.age = age;
+		}
+
+		public String getId() {
+			return id;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public Object getAge() {
+			return age;
+		}
+	}
+}
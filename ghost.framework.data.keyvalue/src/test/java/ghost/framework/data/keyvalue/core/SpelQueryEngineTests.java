@@ -0,0 +1,70 @@
+/*
+ * Copyright 2014-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ghost.framework.data.keyvalue.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link SpelQueryEngine} sorting and paging.
+ *
+ * @author 郭树灿{gsc-e590}
+ */
+class SpelQueryEngineTests {
+
+	private static final Comparator<String> BY_FIRST_CHAR = Comparator.comparing(it -> it.charAt(0));
+
+	@Test
+	void boundedSortKeepsEncounterOrderOnTies() {
+
+		List<String> source = new ArrayList<>();
+
+		for (int i = 0; i < 40; i++) {
+			source.add((char) ('a' + (i * 7) % 3) + String.valueOf(i));
+		}
+
+		List<String> expected = new ArrayList<>(source);
+		expected.sort(BY_FIRST_CHAR);
+
+		for (int offset = 0; offset < 40; offset += 5) {
+			for (int rows = 1; rows <= 20; rows += 3) {
+
+				List<Object> page = SpelQueryEngine.filterSortAndPage(source, null, BY_FIRST_CHAR, offset, rows);
+
+				assertThat(page).as("offset %s rows %s", offset, rows)
+						.isEqualTo(new ArrayList<>(expected.subList(offset, Math.min(40, offset + rows))));
+			}
+		}
+	}
+
+	@Test
+	void unboundedSortKeepsEncounterOrderOnTies() {
+
+		List<String> source = new ArrayList<>();
+
+		for (int i = 0; i < 10; i++) {
+			source.add((i % 2 == 0 ? "b" : "a") + i);
+		}
+
+		assertThat(SpelQueryEngine.filterSortAndPage(source, null, BY_FIRST_CHAR, 2, 0)).containsExactly("a5", "a7",
+				"a9", "b0", "b2", "b4", "b6", "b8");
+	}
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2017-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ghost.framework.data.redis.cache;
+
+import ghost.framework.beans.annotation.constraints.Nullable;
+import ghost.framework.data.dao.DataAccessException;
+import ghost.framework.data.redis.connection.RedisConnection;
+import ghost.framework.data.redis.connection.core.Cursor;
+import ghost.framework.data.redis.connection.core.ScanOptions;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * A collection of predefined {@link BatchStrategy} implementations using {@code KEYS} or {@code SCAN} command.
+ *
+ * @see BatchStrategy
+ */
+public abstract class BatchStrategies {
+
+	private BatchStrategies() {}
+
+	/**
+	 * A {@link BatchStrategy} using a single {@code KEYS} and {@code DEL} command to remove all matching keys.
+	 * {@code KEYS} scans the entire keyspace of the Redis database and can block the Redis worker thread for a long
+	 * time on large keyspaces.
+	 *
+	 * @return batching strategy using {@code KEYS}.
+	 */
+	public static BatchStrategy keys() {
+		return Keys.INSTANCE;
+	}
+
+	/**
+	 * A {@link BatchStrategy} using a {@code SCAN} cursors and potentially multiple {@code UNLINK} commands to remove all
+	 * matching keys. This strategy allows a configurable batch size to optimize for scan batching.
+	 * <p>
+	 * Note that using the {@code SCAN} strategy might be not supported on all drivers and Redis operation modes.
+	 *
+	 * @param batchSize the batch size to use for scanning and deleting keys, must be greater {@literal 0}.
+	 * @return batching strategy using {@code SCAN}.
+	 */
+	public static BatchStrategy scan(int batchSize) {
+		return scan(batchSize, null);
+	}
+
+	/**
+	 * A {@link BatchStrategy} using a {@code SCAN} cursors and potentially multiple {@code UNLINK} commands to remove all
+	 * matching keys, reporting progress after every batch.
+	 *
+	 * @param batchSize the batch size to use for scanning and deleting keys, must be greater {@literal 0}.
+	 * @param progress called with the cache name and the number of keys removed so far after every batch. Can be
+	 *          {@literal null}.
+	 * @return batching strategy using {@code SCAN}.
+	 */
+	public static BatchStrategy scan(int batchSize, @Nullable ObjLongConsumer<String> progress) {
+
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("Batch size must be greater than zero!");
+		}
+
+		return new Scan(batchSize, progress);
+	}
+
+	/**
+	 * {@link BatchStrategy} using {@code KEYS}.
+	 */
+	static class Keys implements BatchStrategy {
+
+		static Keys INSTANCE = new Keys();
+
+		@Override
+		public long cleanCache(RedisConnection connection, String name, byte[] pattern) {
+
+			byte[][] keys = Optional.ofNullable(connection.keys(pattern)).orElse(Collections.emptySet())
+					.toArray(new byte[0][]);
+
+			if (keys.length > 0) {
+				connection.del(keys);
+			}
+
+			return keys.length;
+		}
+	}
+
+	/**
+	 * {@link BatchStrategy} using {@code SCAN}. Keys are removed with {@code UNLINK} so that reclaiming the memory of
+	 * large values happens in the background on the Redis server; servers before Redis 4.0 fall back to {@code DEL}.
+	 */
+	static class Scan implements BatchStrategy {
+
+		private static final Log logger = LogFactory.getLog(Scan.class);
+
+		private final int batchSize;
+		private final @Nullable ObjLongConsumer<String> progress;
+		private volatile boolean unlinkSupported = true;
+
+		Scan(int batchSize, @Nullable ObjLongConsumer<String> progress) {
+			this.batchSize = batchSize;
+			this.progress = progress;
+		}
+
+		@Override
+		public long cleanCache(RedisConnection connection, String name, byte[] pattern) {
+
+			ScanOptions options = ScanOptions.scanOptions().count(batchSize)
+					.match(new String(pattern, StandardCharsets.UTF_8)).build();
+
+			long count = 0;
+			byte[][] batch = new byte[batchSize][];
+			int size = 0;
+
+			Cursor<byte[]> cursor = connection.scan(options);
+			try {
+				while (cursor.hasNext()) {
+
+					batch[size++] = cursor.next();
+
+					if (size == batchSize) {
+						count += remove(connection, name, batch, size, count);
+						size = 0;
+					}
+				}
+
+				if (size > 0) {
+					count += remove(connection, name, batch, size, count);
+				}
+			} finally {
+				try {
+					cursor.close();
+				} catch (IOException ex) {
+					logger.debug("Failed to close SCAN cursor", ex);
+				}
+			}
+
+			return count;
+		}
+
+		private int remove(RedisConnection connection, String name, byte[][] batch, int size, long removed) {
+
+			byte[][] keys = size == batch.length ? batch : Arrays.copyOf(batch, size);
+
+			if (unlinkSupported) {
+				try {
+					connection.unlink(keys);
+				} catch (DataAccessException ex) {
+					logger.debug("UNLINK not supported, falling back to DEL", ex);
+					unlinkSupported = false;
+					connection.del(keys);
+				}
+			} else {
+				connection.del(keys);
+			}
+
+			if (progress != null) {
+				progress.accept(name, removed + size);
+			}
+
+			return size;
+		}
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2017-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ghost.framework.data.redis.cache;
+
+import ghost.framework.beans.annotation.constraints.Nullable;
+import ghost.framework.util.BoundedLruCache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded in-process store backing the local level of a {@link NearCachingRedisCache}. Values are kept as the
+ * deserialized store values, so a hit costs neither a round trip nor a deserialization. Entries are held in a
+ * {@link BoundedLruCache} which evicts the least recently used entries once {@code maxSize} is exceeded.
+ * <p />
+ * Every invalidation advances a generation counter. Values loaded from Redis are only kept if no invalidation happened
+ * while they were being loaded, see {@link #putIfCurrent(String, Object, long)}.
+ *
+ * @author 郭树灿{gsc-e590}
+ * @since 2.3
+ */
+final class LocalCache {
+
+	private final BoundedLruCache<String, Entry> entries;
+	private final AtomicLong generation = new AtomicLong();
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	private final long ttlNanos;
+
+	LocalCache(LocalCacheConfiguration configuration) {
+
+		this.entries = new BoundedLruCache<>(configuration.getMaxSize());
+		this.ttlNanos = configuration.getTtl().toNanos();
+	}
+
+	/**
+	 * @param key must not be {@literal null}.
+	 * @return the store value or {@literal null} if absent or expired.
+	 */
+	@Nullable
+	Object get(String key) {
+
+		Entry entry = entries.get(key);
+
+		if (entry == null) {
+			missCount.increment();
+			return null;
+		}
+
+		if (System.nanoTime() - entry.created >= ttlNanos) {
+			entries.remove(key, entry);
+			missCount.increment();
+			return null;
+		}
+
+		hitCount.increment();
+		return entry.value;
+	}
+
+	/**
+	 * @return the generation to pass to {@link #putIfCurrent(String, Object, long)} for a value about to be loaded.
+	 */
+	long generation() {
+		return generation.get();
+	}
+
+	/**
+	 * Store a value written by this node.
+	 *
+	 * @param key must not be {@literal null}.
+	 * @param value must not be {@literal null}.
+	 */
+	void put(String key, Object value) {
+
+		entries.put(key, new Entry(value));
+	}
+
+	/**
+	 * Store a value loaded from Redis unless an invalidation happened since {@code generation} was obtained. The check
+	 * runs after the put so an invalidation racing with it either removes the entry or is seen by the check.
+	 *
+	 * @param key must not be {@literal null}.
+	 * @param value must not be {@literal null}.
+	 * @param generation obtained through {@link #generation()} before the load.
+	 */
+	void putIfCurrent(String key, Object value, long generation) {
+
+		Entry entry = new Entry(value);
+		entries.put(key, entry);
+
+		if (this.generation.get() != generation) {
+			entries.remove(key, entry);
+		}
+	}
+
+	/**
+	 * @param key must not be {@literal null}.
+	 */
+	void invalidate(String key) {
+
+		generation.incrementAndGet();
+		entries.remove(key);
+	}
+
+	void clear() {
+
+		generation.incrementAndGet();
+		entries.clear();
+	}
+
+	int size() {
+		return entries.size();
+	}
+
+	long getHitCount() {
+		return hitCount.sum();
+	}
+
+	long getMissCount() {
+		return missCount.sum();
+	}
+
+	private static final class Entry {
+
+		private final Object value;
+		private final long created = System.nanoTime();
+
+		Entry(Object value) {
+
+			this.value = value;
+		}
+	}
+}
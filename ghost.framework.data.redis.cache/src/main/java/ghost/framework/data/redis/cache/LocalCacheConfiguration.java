@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ghost.framework.data.redis.cache;
+
+import ghost.framework.util.Assert;
+
+import java.time.Duration;
+
+/**
+ * Immutable {@link LocalCacheConfiguration} describing the in-process level of a {@link NearCachingRedisCache}.
+ * <p />
+ * The local level holds at most {@link #getMaxSize()} entries, each for at most {@link #getTtl()}. The TTL bounds how
+ * long a node may serve a stale value when an invalidation message is lost.
+ *
+ * @author 郭树灿{gsc-e590}
+ * @since 2.3
+ * @see NearCachingRedisCache
+ */
+public class LocalCacheConfiguration {
+
+	private final int maxSize;
+	private final Duration ttl;
+
+	private LocalCacheConfiguration(int maxSize, Duration ttl) {
+
+		this.maxSize = maxSize;
+		this.ttl = ttl;
+	}
+
+	/**
+	 * Default {@link LocalCacheConfiguration}: {@literal 1000} entries kept for {@literal 60} seconds.
+	 *
+	 * @return new {@link LocalCacheConfiguration}.
+	 */
+	public static LocalCacheConfiguration defaultLocalCacheConfig() {
+		return new LocalCacheConfiguration(1000, Duration.ofSeconds(60));
+	}
+
+	/**
+	 * Set the maximum number of entries kept in-process.
+	 *
+	 * @param maxSize must be positive.
+	 * @return new {@link LocalCacheConfiguration}.
+	 */
+	public LocalCacheConfiguration maxSize(int maxSize) {
+
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("MaxSize must be positive!");
+		}
+
+		return new LocalCacheConfiguration(maxSize, ttl);
+	}
+
+	/**
+	 * Set the time an entry is kept in-process after it was loaded or written.
+	 *
+	 * @param ttl must not be {@literal null}, zero or negative.
+	 * @return new {@link LocalCacheConfiguration}.
+	 */
+	public LocalCacheConfiguration entryTtl(Duration ttl) {
+
+		Assert.notNull(ttl, "TTL must not be null!");
+		if (ttl.isZero() || ttl.isNegative()) {
+			throw new IllegalArgumentException("TTL must be positive!");
+		}
+
+		return new LocalCacheConfiguration(maxSize, ttl);
+	}
+
+	/**
+	 * @return the maximum number of entries kept in-process.
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * @return never {@literal null}.
+	 */
+	public Duration getTtl() {
+		return ttl;
+	}
+}
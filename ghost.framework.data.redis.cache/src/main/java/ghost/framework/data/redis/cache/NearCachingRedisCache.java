@@ -0,0 +1,236 @@
+/*
+ * Copyright 2017-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ghost.framework.data.redis.cache;
+
+import ghost.framework.beans.annotation.constraints.Nullable;
+import ghost.framework.util.Assert;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link RedisCache} with a bounded in-process level in front of Redis. Reads are served from the local level when
+ * possible; writes go to Redis first and are then broadcast through a {@link RedisCacheInvalidationChannel} so other
+ * nodes drop their local copy.
+ * <p />
+ * Values held locally are shared between callers and should be treated as immutable.
+ *
+ * @author 郭树灿{gsc-e590}
+ * @since 2.3
+ * @see LocalCacheConfiguration
+ * @see RedisCacheInvalidationChannel
+ */
+public class NearCachingRedisCache extends RedisCache {
+
+	private final LocalCache localCache;
+	private final @Nullable RedisCacheInvalidationChannel invalidationChannel;
+	private final LongAdder remoteHitCount = new LongAdder();
+	private final LongAdder remoteMissCount = new LongAdder();
+
+	/**
+	 * Create new {@link NearCachingRedisCache}.
+	 *
+	 * @param name must not be {@literal null}.
+	 * @param cacheWriter must not be {@literal null}.
+	 * @param cacheConfig must not be {@literal null}.
+	 * @param localCacheConfig must not be {@literal null}.
+	 * @param invalidationChannel can be {@literal null} on a single node; other nodes are then not notified.
+	 */
+	protected NearCachingRedisCache(String name, RedisCacheWriter cacheWriter, RedisCacheConfiguration cacheConfig,
+			LocalCacheConfiguration localCacheConfig, @Nullable RedisCacheInvalidationChannel invalidationChannel) {
+
+		super(name, cacheWriter, cacheConfig);
+
+		Assert.notNull(localCacheConfig, "LocalCacheConfig must not be null!");
+
+		this.localCache = new LocalCache(localCacheConfig);
+		this.invalidationChannel = invalidationChannel;
+
+		if (invalidationChannel != null) {
+			invalidationChannel.register(this);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see ghost.framework.data.redis.cache.RedisCache#lookup(java.lang.Object)
+	 */
+	@Override
+	protected Object lookup(Object key) {
+
+		String cacheKey = createCacheKey(key);
+		Object value = localCache.get(cacheKey);
+
+		if (value != null) {
+			return value;
+		}
+
+		long generation = localCache.generation();
+		value = super.lookup(key);
+
+		if (value == null) {
+			remoteMissCount.increment();
+			return null;
+		}
+
+		remoteHitCount.increment();
+		localCache.putIfCurrent(cacheKey, value, generation);
+		return value;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see ghost.framework.data.redis.cache.RedisCache#put(java.lang.Object, java.lang.Object)
+	 */
+	@Override
+	public void put(Object key, @Nullable Object value) {
+
+		String cacheKey = createCacheKey(key);
+		long generation = localCache.generation();
+
+		super.put(key, value);
+
+		// an invalidation arriving while Redis was written may carry a newer value from another node
+		localCache.putIfCurrent(cacheKey, preProcessCacheValue(value), generation);
+		publishEvict(cacheKey);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see ghost.framework.data.redis.cache.RedisCache#putIfAbsent(java.lang.Object, java.lang.Object)
+	 */
+	@Override
+	public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+
+		ValueWrapper existing = super.putIfAbsent(key, value);
+
+		String cacheKey = createCacheKey(key);
+		localCache.invalidate(cacheKey);
+
+		if (existing == null) {
+			publishEvict(cacheKey);
+		}
+
+		return existing;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see ghost.framework.data.redis.cache.RedisCache#evict(java.lang.Object)
+	 */
+	@Override
+	public void evict(Object key) {
+
+		super.evict(key);
+
+		String cacheKey = createCacheKey(key);
+		localCache.invalidate(cacheKey);
+		publishEvict(cacheKey);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see ghost.framework.data.redis.cache.RedisCache#clear()
+	 */
+	@Override
+	public void clear() {
+
+		super.clear();
+
+		localCache.clear();
+
+		if (invalidationChannel != null) {
+			invalidationChannel.publishClear(getName());
+		}
+	}
+
+	/**
+	 * Drop the local copy of the given key after another node changed it.
+	 *
+	 * @param cacheKey the prefixed cache key, must not be {@literal null}.
+	 */
+	void invalidateLocal(String cacheKey) {
+		localCache.invalidate(cacheKey);
+	}
+
+	/**
+	 * Drop all local copies after another node cleared the cache.
+	 */
+	void clearLocal() {
+		localCache.clear();
+	}
+
+	/**
+	 * @return number of entries currently held in-process.
+	 */
+	public int getLocalSize() {
+		return localCache.size();
+	}
+
+	/**
+	 * @return number of lookups answered by the local level.
+	 */
+	public long getLocalHitCount() {
+		return localCache.getHitCount();
+	}
+
+	/**
+	 * @return number of lookups the local level passed on to Redis.
+	 */
+	public long getLocalMissCount() {
+		return localCache.getMissCount();
+	}
+
+	/**
+	 * @return number of lookups passed on to Redis that found a value.
+	 */
+	public long getRemoteHitCount() {
+		return remoteHitCount.sum();
+	}
+
+	/**
+	 * @return number of lookups passed on to Redis that found nothing.
+	 */
+	public long getRemoteMissCount() {
+		return remoteMissCount.sum();
+	}
+
+	/**
+	 * @return local hits divided by all lookups, {@literal 0} before the first lookup.
+	 */
+	public double getLocalHitRatio() {
+		return ratio(getLocalHitCount(), getLocalMissCount());
+	}
+
+	/**
+	 * @return Redis hits divided by all lookups passed on to Redis, {@literal 0} before the first one.
+	 */
+	public double getRemoteHitRatio() {
+		return ratio(getRemoteHitCount(), getRemoteMissCount());
+	}
+
+	private void publishEvict(String cacheKey) {
+
+		if (invalidationChannel != null) {
+			invalidationChannel.publishEvict(getName(), cacheKey);
+		}
+	}
+
+	private static double ratio(long hits, long misses) {
+
+		long total = hits + misses;
+		return total == 0 ? 0 : (double) hits / total;
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2017-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ghost.framework.data.redis.cache;
+
+import ghost.framework.beans.annotation.constraints.Nullable;
+import ghost.framework.data.dao.DataAccessException;
+import ghost.framework.data.redis.connection.Message;
+import ghost.framework.data.redis.connection.MessageListener;
+import ghost.framework.data.redis.connection.RedisConnection;
+import ghost.framework.data.redis.connection.RedisConnectionFactory;
+import ghost.framework.data.redis.listener.ChannelTopic;
+import ghost.framework.data.redis.listener.RedisMessageListenerContainer;
+import ghost.framework.util.Assert;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Redis Pub/Sub channel broadcasting writes of {@link NearCachingRedisCache}s so every node drops its stale local
+ * copy. One instance is shared by all caches of a {@link RedisCacheManager}.
+ * <p />
+ * Messages are {@code nodeId \n op \n cacheName [\n cacheKey]} with {@code op} being {@literal E} (evict) or
+ * {@literal C} (clear). A node ignores the messages it published itself. A message lost while a node is disconnected
+ * leaves its local copy stale until the {@link LocalCacheConfiguration#getTtl() local TTL} expires.
+ *
+ * @author 郭树灿{gsc-e590}
+ * @since 2.3
+ */
+public class RedisCacheInvalidationChannel implements MessageListener {
+
+	/**
+	 * Default channel name.
+	 */
+	public static final String DEFAULT_CHANNEL = "redis-cache:invalidate";
+
+	private static final Log logger = LogFactory.getLog(RedisCacheInvalidationChannel.class);
+
+	private static final String EVICT = "E";
+	private static final String CLEAR = "C";
+
+	private final RedisConnectionFactory connectionFactory;
+	private final byte[] channel;
+	private final String nodeId = UUID.randomUUID().toString();
+	private final Map<String, NearCachingRedisCache> caches = new ConcurrentHashMap<>();
+
+	/**
+	 * Create new {@link RedisCacheInvalidationChannel} using {@link #DEFAULT_CHANNEL}.
+	 *
+	 * @param connectionFactory used to publish, must not be {@literal null}.
+	 * @param listenerContainer used to subscribe, must not be {@literal null}.
+	 */
+	public RedisCacheInvalidationChannel(RedisConnectionFactory connectionFactory,
+			RedisMessageListenerContainer listenerContainer) {
+		this(connectionFactory, listenerContainer, DEFAULT_CHANNEL);
+	}
+
+	/**
+	 * Create new {@link RedisCacheInvalidationChannel}.
+	 *
+	 * @param connectionFactory used to publish, must not be {@literal null}.
+	 * @param listenerContainer used to subscribe, must not be {@literal null}.
+	 * @param channel channel name, must not be {@literal null} or empty.
+	 */
+	public RedisCacheInvalidationChannel(RedisConnectionFactory connectionFactory,
+			RedisMessageListenerContainer listenerContainer, String channel) {
+
+		Assert.notNull(connectionFactory, "ConnectionFactory must not be null!");
+		Assert.notNull(listenerContainer, "ListenerContainer must not be null!");
+		Assert.hasText(channel, "Channel must not be null or empty!");
+
+		this.connectionFactory = connectionFactory;
+		this.channel = channel.getBytes(StandardCharsets.UTF_8);
+
+		listenerContainer.addMessageListener(this, new ChannelTopic(channel));
+	}
+
+	/**
+	 * @param cache must not be {@literal null}.
+	 */
+	void register(NearCachingRedisCache cache) {
+		caches.put(cache.getName(), cache);
+	}
+
+	void publishEvict(String cacheName, String cacheKey) {
+		publish(nodeId + '\n' + EVICT + '\n' + cacheName + '\n' + cacheKey);
+	}
+
+	void publishClear(String cacheName) {
+		publish(nodeId + '\n' + CLEAR + '\n' + cacheName);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see ghost.framework.data.redis.connection.MessageListener#onMessage(ghost.framework.data.redis.connection.Message, byte[])
+	 */
+	@Override
+	public void onMessage(Message message, @Nullable byte[] pattern) {
+
+		// the cache key may contain line breaks, it is always the last part.
+		String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\n", 4);
+
+		if (parts.length < 3 || nodeId.equals(parts[0])) {
+			return;
+		}
+
+		NearCachingRedisCache cache = caches.get(parts[2]);
+
+		if (cache == null) {
+			return;
+		}
+
+		if (CLEAR.equals(parts[1])) {
+			cache.clearLocal();
+		} else if (EVICT.equals(parts[1]) && parts.length == 4) {
+			cache.invalidateLocal(parts[3]);
+		}
+	}
+
+	/**
+	 * @return the id identifying this node in published messages.
+	 */
+	public String getNodeId() {
+		return nodeId;
+	}
+
+	/**
+	 * Publish without failing the cache operation: the write already reached Redis and other nodes fall back to the
+	 * local TTL.
+	 */
+	private void publish(String body) {
+
+		RedisConnection connection = connectionFactory.getConnection();
+
+		try {
+			connection.publish(channel, body.getBytes(StandardCharsets.UTF_8));
+		} catch (DataAccessException e) {
+			logger.warn("Failed to publish cache invalidation, other nodes keep their local copy until its TTL expires", e);
+		} finally {
+			connection.close();
+		}
+	}
+}
@@ -42,6 +42,9 @@ public class RedisCacheManager extends AbstractRedisCacheTransactionManager {
 	private final RedisCacheConfiguration defaultCacheConfig;
 	private final Map<String, RedisCacheConfiguration> initialCacheConfiguration;
 	private final boolean allowInFlightCacheCreation;
+	private final Map<String, LocalCacheConfiguration> localCacheConfiguration = new HashMap<>();
+	private @Nullable LocalCacheConfiguration defaultLocalCacheConfig;
+	private @Nullable RedisCacheInvalidationChannel invalidationChannel;
 	/**
 	 * Creates new {@link RedisCacheManager} using given {@link RedisCacheWriter} and default
 	 * {@link RedisCacheConfiguration}.
@@ -265,7 +268,15 @@ public class RedisCacheManager extends AbstractRedisCacheTransactionManager {
 	 * @return never {@literal null}.
 	 */
 	protected RedisCache createRedisCache(String name, @Nullable RedisCacheConfiguration cacheConfig) {
-		return new RedisCache(name, cacheWriter, cacheConfig != null ? cacheConfig : defaultCacheConfig);
+
+		RedisCacheConfiguration redisCacheConfig = cacheConfig != null ? cacheConfig : defaultCacheConfig;
+		LocalCacheConfiguration localCacheConfig = localCacheConfiguration.getOrDefault(name, defaultLocalCacheConfig);
+
+		if (localCacheConfig != null) {
+			return new NearCachingRedisCache(name, cacheWriter, redisCacheConfig, localCacheConfig, invalidationChannel);
+		}
+
+		return new RedisCache(name, cacheWriter, redisCacheConfig);
 	}
 
 	/**
@@ -283,6 +294,9 @@ public class RedisCacheManager extends AbstractRedisCacheTransactionManager {
 		private final Map<String, RedisCacheConfiguration> initialCaches = new LinkedHashMap<>();
 		private boolean enableTransactions;
 		boolean allowInFlightCacheCreation = true;
+		private final Map<String, LocalCacheConfiguration> localCaches = new LinkedHashMap<>();
+		private @Nullable LocalCacheConfiguration defaultLocalCacheConfiguration;
+		private @Nullable RedisCacheInvalidationChannel invalidationChannel;
 
 		private RedisCacheManagerBuilder() {}
 
@@ -408,6 +422,57 @@ public class RedisCacheManager extends AbstractRedisCacheTransactionManager {
 			return this;
 		}
 
+		/**
+		 * Put a {@link LocalCacheConfiguration local level} in front of every {@link RedisCache} without an explicit
+		 * {@link #withLocalCache(String, LocalCacheConfiguration) local cache configuration}.
+		 *
+		 * @param localCacheConfiguration must not be {@literal null}.
+		 * @return this {@link RedisCacheManagerBuilder}.
+		 * @since 2.3
+		 * @see NearCachingRedisCache
+		 */
+		public RedisCacheManagerBuilder localCacheDefaults(LocalCacheConfiguration localCacheConfiguration) {
+
+			Assert.notNull(localCacheConfiguration, "LocalCacheConfiguration must not be null!");
+
+			this.defaultLocalCacheConfiguration = localCacheConfiguration;
+			return this;
+		}
+
+		/**
+		 * Put a {@link LocalCacheConfiguration local level} in front of the given cache.
+		 *
+		 * @param cacheName must not be {@literal null}.
+		 * @param localCacheConfiguration must not be {@literal null}.
+		 * @return this {@link RedisCacheManagerBuilder}.
+		 * @since 2.3
+		 * @see NearCachingRedisCache
+		 */
+		public RedisCacheManagerBuilder withLocalCache(String cacheName, LocalCacheConfiguration localCacheConfiguration) {
+
+			Assert.notNull(cacheName, "CacheName must not be null!");
+			Assert.notNull(localCacheConfiguration, "LocalCacheConfiguration must not be null!");
+
+			this.localCaches.put(cacheName, localCacheConfiguration);
+			return this;
+		}
+
+		/**
+		 * Broadcast writes of caches with a local level through the given channel. Without a channel local levels are
+		 * only kept consistent with writes made on this node.
+		 *
+		 * @param invalidationChannel must not be {@literal null}.
+		 * @return this {@link RedisCacheManagerBuilder}.
+		 * @since 2.3
+		 */
+		public RedisCacheManagerBuilder localCacheInvalidation(RedisCacheInvalidationChannel invalidationChannel) {
+
+			Assert.notNull(invalidationChannel, "InvalidationChannel must not be null!");
+
+			this.invalidationChannel = invalidationChannel;
+			return this;
+		}
+
 		/**
 		 * Disable in-flight {@link ghost.framework.cache.Cache} creation for unconfigured caches.
 		 * <p />
@@ -458,6 +523,10 @@ public class RedisCacheManager extends AbstractRedisCacheTransactionManager {
 			RedisCacheManager cm = new RedisCacheManager(cacheWriter, defaultCacheConfiguration, initialCaches,
 					allowInFlightCacheCreation);
 
+			cm.localCacheConfiguration.putAll(localCaches);
+			cm.defaultLocalCacheConfig = defaultLocalCacheConfiguration;
+			cm.invalidationChannel = invalidationChannel;
+
 //			cm.setTransactionAware(enableTransactions);
 
 			return cm;
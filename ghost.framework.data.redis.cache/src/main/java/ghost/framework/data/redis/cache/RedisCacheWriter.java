@@ -59,6 +59,40 @@ public interface RedisCacheWriter {
 		return new DefaultRedisCacheWriter(connectionFactory, Duration.ofMillis(50));
 	}
 
+	/**
+	 * Create new {@link RedisCacheWriter} without locking behavior.
+	 *
+	 * @param connectionFactory must not be {@literal null}.
+	 * @param batchStrategy strategy used to clear the cache, e.g. {@link BatchStrategies#scan(int)}. Must not be
+	 *          {@literal null}.
+	 * @return new instance of {@link DefaultRedisCacheWriter}.
+	 */
+	static RedisCacheWriter nonLockingRedisCacheWriter(RedisConnectionFactory connectionFactory,
+			BatchStrategy batchStrategy) {
+
+		Assert.notNull(connectionFactory, "ConnectionFactory must not be null!");
+		Assert.notNull(batchStrategy, "BatchStrategy must not be null!");
+
+		return new DefaultRedisCacheWriter(connectionFactory, Duration.ZERO, batchStrategy);
+	}
+
+	/**
+	 * Create new {@link RedisCacheWriter} with locking behavior.
+	 *
+	 * @param connectionFactory must not be {@literal null}.
+	 * @param batchStrategy strategy used to clear the cache, e.g. {@link BatchStrategies#scan(int)}. Must not be
+	 *          {@literal null}.
+	 * @return new instance of {@link DefaultRedisCacheWriter}.
+	 */
+	static RedisCacheWriter lockingRedisCacheWriter(RedisConnectionFactory connectionFactory,
+			BatchStrategy batchStrategy) {
+
+		Assert.notNull(connectionFactory, "ConnectionFactory must not be null!");
+		Assert.notNull(batchStrategy, "BatchStrategy must not be null!");
+
+		return new DefaultRedisCacheWriter(connectionFactory, Duration.ofMillis(50), batchStrategy);
+	}
+
 	/**
 	 * Write the given key/value pair to Redis an set the expiration time if defined.
 	 *
@@ -100,7 +134,8 @@ public interface RedisCacheWriter {
 	void remove(String name, byte[] key);
 
 	/**
-	 * Remove all keys following the given pattern.
+	 * Remove all keys following the given pattern. How the keys are looked up and removed is defined by the
+	 * {@link BatchStrategy} the writer was created with.
 	 *
 	 * @param name The cache name must not be {@literal null}.
 	 * @param pattern The pattern for the keys to remove. Must not be {@literal null}.
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2017-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ghost.framework.data.redis.cache;
+
+import ghost.framework.data.dao.DataAccessException;
+import ghost.framework.data.redis.connection.RedisConnection;
+import ghost.framework.data.redis.connection.core.Cursor;
+import ghost.framework.data.redis.connection.core.ScanOptions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Unit tests for {@link BatchStrategies}.
+ *
+ * @author 郭树灿{gsc-e590}
+ */
+class BatchStrategiesTests {
+
+	private static final byte[] PATTERN = "cache::*".getBytes(StandardCharsets.UTF_8);
+
+	private final List<String> calls = new ArrayList<>();
+	private final List<Long> progress = new ArrayList<>();
+	private ScanOptions scanOptions;
+	private boolean cursorClosed;
+	private boolean unlinkSupported = true;
+
+	@Test
+	void scanUnlinksInBatches() {
+
+		long removed = BatchStrategies.scan(2, (name, count) -> progress.add(count))
+				.cleanCache(connection(keys("a", "b", "c", "d", "e")), "cache", PATTERN);
+
+		assertThat(removed).isEqualTo(5L);
+		assertThat(calls).containsExactly("unlink:2", "unlink:2", "unlink:1");
+		assertThat(progress).containsExactly(2L, 4L, 5L);
+		assertThat(scanOptions.getCount()).isEqualTo(2L);
+		assertThat(scanOptions.getPattern()).isEqualTo("cache::*");
+		assertThat(cursorClosed).isTrue();
+	}
+
+	@Test
+	void scanFallsBackToDelWithoutUnlink() {
+
+		unlinkSupported = false;
+		BatchStrategy strategy = BatchStrategies.scan(2);
+
+		long removed = strategy.cleanCache(connection(keys("a", "b", "c")), "cache", PATTERN);
+
+		assertThat(removed).isEqualTo(3L);
+		assertThat(calls).containsExactly("unlink:2", "del:2", "del:1");
+
+		// the strategy remembers that UNLINK is not available
+		calls.clear();
+		strategy.cleanCache(connection(keys("f")), "cache", PATTERN);
+
+		assertThat(calls).containsExactly("del:1");
+	}
+
+	@Test
+	void scanWithoutMatchesRemovesNothing() {
+
+		long removed = BatchStrategies.scan(10).cleanCache(connection(keys()), "cache", PATTERN);
+
+		assertThat(removed).isEqualTo(0L);
+		assertThat(calls).isEmpty();
+		assertThat(cursorClosed).isTrue();
+	}
+
+	@Test
+	void keysUsesSingleDel() {
+
+		assertThat(BatchStrategies.keys().cleanCache(connection(keys("a", "b", "c")), "cache", PATTERN)).isEqualTo(3L);
+		assertThat(calls).containsExactly("keys", "del:3");
+
+		calls.clear();
+
+		assertThat(BatchStrategies.keys().cleanCache(connection(keys()), "cache", PATTERN)).isEqualTo(0L);
+		assertThat(calls).containsExactly("keys");
+	}
+
+	@Test
+	void rejectsNonPositiveBatchSize() {
+
+		assertThatIllegalArgumentException().isThrownBy(() -> BatchStrategies.scan(0));
+		assertThatIllegalArgumentException().isThrownBy(() -> BatchStrategies.scan(-1, null));
+	}
+
+	private static Set<byte[]> keys(String... keys) {
+
+		Set<byte[]> set = new LinkedHashSet<>();
+		for (String key : keys) {
+			set.add(key.getBytes(StandardCharsets.UTF_8));
+		}
+		return set;
+	}
+
+	private RedisConnection connection(Set<byte[]> keys) {
+
+		return (RedisConnection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { RedisConnection.class },
+				(proxy, method, args) -> {
+
+					switch (method.getName()) {
+						case "scan":
+							scanOptions = (ScanOptions) args[0];
+							return cursor(keys.iterator());
+						case "keys":
+							calls.add("keys");
+							return keys;
+						case "unlink":
+							calls.add("unlink:" + ((byte[][]) args[0]).length);
+							if (!unlinkSupported) {
+								throw new UnsupportedCommandException();
+							}
+							return (long) ((byte[][]) args[0]).length;
+						case "del":
+							calls.add("del:" + ((byte[][]) args[0]).length);
+							return (long) ((byte[][]) args[0]).length;
+						default:
+							throw new UnsupportedOperationException(method.getName());
+					}
+				});
+	}
+
+	@SuppressWarnings("unchecked")
+	private Cursor<byte[]> cursor(Iterator<byte[]> iterator) {
+
+		return (Cursor<byte[]>) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Cursor.class },
+				(proxy, method, args) -> {
+
+					switch (method.getName()) {
+						case "hasNext":
+							return iterator.hasNext();
+						case "next":
+							return iterator.next();
+						case "close":
+							cursorClosed = true;
+							return null;
+						default:
+							throw new UnsupportedOperationException(method.getName());
+					}
+				});
+	}
+
+	@SuppressWarnings("serial")
+	static class UnsupportedCommandException extends DataAccessException {
+
+		UnsupportedCommandException() {
+			super("ERR unknown command 'UNLINK'");
+		}
+	}
+}
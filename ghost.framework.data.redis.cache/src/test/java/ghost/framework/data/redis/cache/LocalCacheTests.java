@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ghost.framework.data.redis.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Unit tests for {@link LocalCache}.
+ *
+ * @author 郭树灿{gsc-e590}
+ */
+class LocalCacheTests {
+
+	private final LocalCache cache = new LocalCache(
+			LocalCacheConfiguration.defaultLocalCacheConfig().maxSize(2).entryTtl(Duration.ofMinutes(1)));
+
+	@Test
+	void loadRacingWithInvalidationIsDiscarded() {
+
+		long generation = cache.generation();
+
+		cache.invalidate("key");
+		cache.putIfCurrent("key", "stale", generation);
+
+		assertThat(cache.get("key")).isNull();
+
+		cache.putIfCurrent("key", "fresh", cache.generation());
+
+		assertThat(cache.get("key")).isEqualTo("fresh");
+	}
+
+	@Test
+	void loadRacingWithClearIsDiscarded() {
+
+		long generation = cache.generation();
+
+		cache.clear();
+		cache.putIfCurrent("key", "stale", generation);
+
+		assertThat(cache.size()).isEqualTo(0);
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedBeyondMaxSize() {
+
+		cache.put("a", 1);
+		cache.put("b", 2);
+		cache.put("c", 3);
+
+		assertThat(cache.size()).isEqualTo(2);
+		assertThat(cache.get("c")).isEqualTo(3);
+	}
+
+	@Test
+	void expiredEntryIsMissed() throws InterruptedException {
+
+		LocalCache cache = new LocalCache(LocalCacheConfiguration.defaultLocalCacheConfig().entryTtl(Duration.ofMillis(1)));
+
+		cache.put("key", "value");
+		Thread.sleep(5);
+
+		assertThat(cache.get("key")).isNull();
+		assertThat(cache.size()).isEqualTo(0);
+		assertThat(cache.getMissCount()).isEqualTo(1L);
+	}
+
+	@Test
+	void rejectsInvalidConfiguration() {
+
+		assertThatIllegalArgumentException().isThrownBy(() -> LocalCacheConfiguration.defaultLocalCacheConfig().maxSize(0));
+		assertThatIllegalArgumentException().isThrownBy(() -> LocalCacheConfiguration.defaultLocalCacheConfig().entryTtl(Duration.ZERO));
+	}
+}
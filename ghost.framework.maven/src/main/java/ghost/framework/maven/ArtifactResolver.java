@@ -0,0 +1,351 @@
+package ghost.framework.maven;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.collection.DependencyCollectionException;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * package: ghost.framework.maven
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:maven包依赖解析器
+ * 所有解析共用一个 {@link RepositorySystem} 与会话，多个包的依赖并行解析；
+ * 解析结果保存在 {@link ResolvedGraphCache}，本地仓库持有全部包时重启直接使用缓存。
+ * 返回的包列表与 {@link Booter#getDependencyNodeDownloadURLArtifactList(File, List, Artifact)} 一致，第一个为根包。
+ * 共用解析器的调用方解析前 {@link #acquire()}，解析后 {@link #release()}；
+ * 替换解析器时 {@link #retire()} 旧解析器，正在进行的解析完成后才关闭线程池。
+ * @Date: 2020/6/18:10:20
+ */
+public final class ArtifactResolver implements AutoCloseable {
+    private static final Log log = LogFactory.getLog(ArtifactResolver.class);
+    /**
+     * 仓库系统
+     */
+    private final RepositorySystem system;
+    /**
+     * 仓库会话
+     */
+    private final RepositorySystemSession session;
+    /**
+     * 本地仓库目录
+     */
+    private final File localRepositoryFile;
+    /**
+     * 远程仓库列表
+     */
+    private final List<RemoteRepository> repositoryList;
+    /**
+     * 已解析依赖图缓存
+     */
+    private final ResolvedGraphCache cache;
+    /**
+     * 并行解析线程池
+     */
+    private final ThreadPoolExecutor executor;
+    /**
+     * 解析次数
+     */
+    private final LongAdder resolveCount = new LongAdder();
+    /**
+     * 缓存命中次数
+     */
+    private final LongAdder cacheHitCount = new LongAdder();
+    /**
+     * 解析耗时纳秒
+     */
+    private final LongAdder resolveNanos = new LongAdder();
+    /**
+     * 持有解析器的使用者数量
+     */
+    private int users;
+    /**
+     * 解析器是否已经停用，停用后不再接受新的使用者，最后一个使用者释放时关闭
+     */
+    private boolean retired;
+
+    /**
+     * 初始化maven包依赖解析器
+     *
+     * @param localRepositoryFile  本地仓库目录
+     * @param remoteRepositoryList 远程仓库列表，为空时使用默认仓库列表
+     * @param threads              并行解析线程数量
+     */
+    public ArtifactResolver(File localRepositoryFile, List<RemoteRepository> remoteRepositoryList, int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads:" + threads);
+        }
+        this.localRepositoryFile = localRepositoryFile;
+        this.repositoryList = remoteRepositoryList == null || remoteRepositoryList.isEmpty() ? Booter.newRepositories() : remoteRepositoryList;
+        this.system = Booter.newRepositorySystem();
+        this.session = Booter.newSession(this.system, localRepositoryFile);
+        this.cache = new ResolvedGraphCache(localRepositoryFile);
+        AtomicInteger index = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "maven-resolver-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        //启动完成后空闲线程自动退出
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 解析包依赖
+     *
+     * @param artifact 需要解析依赖的包
+     * @return 返回包列表，第一个为根包
+     * @throws DependencyCollectionException
+     * @throws ArtifactResolutionException
+     */
+    public List<FileArtifact> resolve(FileArtifact artifact) throws DependencyCollectionException, ArtifactResolutionException {
+        long start = System.nanoTime();
+        try {
+            List<FileArtifact> list = this.cache.get(artifact);
+            if (list != null) {
+                this.cacheHitCount.increment();
+                return list;
+            }
+            list = this.doResolve(artifact);
+            this.cache.put(artifact, list);
+            return list;
+        } finally {
+            this.resolveCount.increment();
+            this.resolveNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 带验证依赖包是否需要下载接口解析包依赖
+     * 只有验证需要下载的包才设置包文件
+     *
+     * @param artifact         需要解析依赖的包
+     * @param downloadCallback 验证下载回调接口
+     * @return 返回包列表，第一个为根包
+     * @throws DependencyCollectionException
+     * @throws ArtifactResolutionException
+     */
+    public List<FileArtifact> resolve(FileArtifact artifact, VerifyDownloadCallback downloadCallback) throws DependencyCollectionException, ArtifactResolutionException {
+        List<FileArtifact> fileArtifacts = new ArrayList<>();
+        for (FileArtifact resolved : this.resolve(artifact)) {
+            FileArtifact fileArtifact = new FileArtifact(resolved.getArtifact());
+            //验证包是否需要下载，如果无需下载侧不设置包路径
+            if (downloadCallback.isDownload(fileArtifact)) {
+                //判断是否重复
+                if (ArtifactUitl.contains(fileArtifacts, resolved.getFile())) {
+                    continue;
+                }
+                fileArtifact.setFile(resolved.getFile());
+            }
+            fileArtifacts.add(fileArtifact);
+        }
+        return fileArtifacts;
+    }
+
+    /**
+     * 并行解析多个包依赖
+     *
+     * @param artifacts 需要解析依赖的包列表
+     * @return 返回按传入顺序排列的包依赖地图
+     * @throws Exception 任意包解析失败时抛出该包的错误
+     */
+    public Map<FileArtifact, List<FileArtifact>> resolve(List<FileArtifact> artifacts) throws Exception {
+        Map<FileArtifact, Future<List<FileArtifact>>> futures = new LinkedHashMap<>();
+        for (FileArtifact artifact : artifacts) {
+            futures.put(artifact, this.executor.submit(() -> this.resolve(artifact)));
+        }
+        Map<FileArtifact, List<FileArtifact>> map = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<FileArtifact, Future<List<FileArtifact>>> entry : futures.entrySet()) {
+                map.put(entry.getKey(), entry.getValue().get());
+            }
+        } catch (ExecutionException e) {
+            //取消未完成的解析
+            futures.values().forEach(f -> f.cancel(true));
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+        return map;
+    }
+
+    /**
+     * 解析包依赖图并下载本地仓库缺少的包
+     *
+     * @param artifact 需要解析依赖的包
+     * @return
+     * @throws DependencyCollectionException
+     * @throws ArtifactResolutionException
+     */
+    private List<FileArtifact> doResolve(FileArtifact artifact) throws DependencyCollectionException, ArtifactResolutionException {
+        DependencyNode node = Booter.getDependencyNode(this.system, this.session, this.repositoryList, artifact);
+        List<Artifact> artifactList = new ArrayList<>();
+        Booter.dependencyNodeArtifactList(node, artifactList);
+        List<FileArtifact> fileArtifacts = new ArrayList<>();
+        this.add(fileArtifacts, artifact);
+        for (Artifact a : artifactList) {
+            this.add(fileArtifacts, a);
+        }
+        return fileArtifacts;
+    }
+
+    /**
+     * 添加包，本地仓库缺少包或为快照版本时下载
+     *
+     * @param fileArtifacts 包列表
+     * @param artifact      包信息
+     * @throws ArtifactResolutionException
+     */
+    private void add(List<FileArtifact> fileArtifacts, Artifact artifact) throws ArtifactResolutionException {
+        Params params = new Params(artifact);
+        params.setSavePath(this.localRepositoryFile);
+        File jar = params.getJarPath();
+        //判断是否重复
+        if (ArtifactUitl.contains(fileArtifacts, jar)) {
+            return;
+        }
+        if (!jar.isFile() || artifact.isSnapshot()) {
+            ArtifactRequest request = new ArtifactRequest();
+            request.setArtifact(new DefaultArtifact(params.getGroupId() + ":" + params.getArtifactId() + ":" + params.getVersion()));
+            request.setRepositories(this.repositoryList);
+            this.system.resolveArtifact(this.session, request);
+        }
+        FileArtifact fileArtifact = new FileArtifact(artifact);
+        fileArtifact.setFile(jar);
+        fileArtifacts.add(fileArtifact);
+    }
+
+    /**
+     * 获取解析次数
+     *
+     * @return
+     */
+    public long getResolveCount() {
+        return this.resolveCount.sum();
+    }
+
+    /**
+     * 获取缓存命中次数
+     *
+     * @return
+     */
+    public long getCacheHitCount() {
+        return this.cacheHitCount.sum();
+    }
+
+    /**
+     * 获取累计解析耗时毫秒，并行解析时为各包耗时之和
+     *
+     * @return
+     */
+    public long getResolveMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.resolveNanos.sum());
+    }
+
+    /**
+     * 获取远程仓库列表
+     *
+     * @return
+     */
+    public List<RemoteRepository> getRepositoryList() {
+        return this.repositoryList;
+    }
+
+    /**
+     * 获取已解析依赖图缓存
+     *
+     * @return
+     */
+    public ResolvedGraphCache getCache() {
+        return this.cache;
+    }
+
+    /**
+     * 获取解析器使用权
+     *
+     * @return 解析器已经停用时返回false
+     */
+    public synchronized boolean acquire() {
+        if (this.retired) {
+            return false;
+        }
+        this.users++;
+        return true;
+    }
+
+    /**
+     * 释放解析器使用权，解析器已经停用且没有其它使用者时关闭
+     */
+    public void release() {
+        boolean close;
+        synchronized (this) {
+            if (this.users <= 0) {
+                throw new IllegalStateException("ArtifactResolver release without acquire");
+            }
+            close = --this.users == 0 && this.retired;
+        }
+        if (close) {
+            this.close();
+        }
+    }
+
+    /**
+     * 停用解析器，不再接受新的使用者，没有使用者时立即关闭，否则在最后一个使用者释放时关闭
+     */
+    public void retire() {
+        boolean close;
+        synchronized (this) {
+            if (this.retired) {
+                return;
+            }
+            this.retired = true;
+            close = this.users == 0;
+        }
+        if (close) {
+            this.close();
+        }
+    }
+
+    /**
+     * 获取解析线程池是否已经关闭
+     *
+     * @return
+     */
+    public boolean isClosed() {
+        return this.executor.isShutdown();
+    }
+
+    /**
+     * 关闭解析线程池
+     * 共用的解析器应使用 {@link #retire()}，直接关闭会中断正在进行的解析
+     */
+    @Override
+    public void close() {
+        this.executor.shutdownNow();
+        if (log.isDebugEnabled()) {
+            log.debug("maven依赖解析器关闭，解析:" + this.getResolveCount() + " 缓存命中:" + this.getCacheHitCount() + " 耗时:" + this.getResolveMillis() + "ms");
+        }
+    }
+}
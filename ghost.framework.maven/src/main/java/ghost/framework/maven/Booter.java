@@ -1,5 +1,7 @@
 package ghost.framework.maven;
 
+import ghost.framework.maven.aether.concurrency.LockingSyncContextFactory;
+import ghost.framework.maven.filemanager.internal.DefaultFileManager;
 import ghost.framework.util.ExceptionUtil;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
@@ -1127,6 +1129,8 @@ public final class Booter {
         locator.addService(ArtifactDescriptorReader.class, DefaultArtifactDescriptorReader.class);
         locator.addService(VersionRangeResolver.class, DefaultVersionRangeResolver.class);
         locator.addService(VersionResolver.class, DefaultVersionResolver.class);
+        //多个线程共用同一个会话并行解析，使用文件锁同步本地仓库的包与元数据读写，默认的同步上下文不加锁
+        locator.setServices(SyncContextFactory.class, new LockingSyncContextFactory(new DefaultFileManager()));
         locator.setErrorHandler(new DefaultServiceLocator.ErrorHandler() {
             @Override
             public void serviceCreationFailed(Class<?> type, Class<?> impl, Throwable exception) {
@@ -1837,7 +1841,7 @@ public final class Booter {
      * @param localRepositoryFile 本地仓库目录
      * @return
      */
-    private static RepositorySystemSession newSession(RepositorySystem system, File localRepositoryFile) {
+    static RepositorySystemSession newSession(RepositorySystem system, File localRepositoryFile) {
         DefaultRepositorySystemSession session = MavenRepositorySystemUtils.newSession();
         LocalRepository localRepo = new LocalRepository(localRepositoryFile);
         session.setConfigProperty(ConflictResolver.CONFIG_PROP_VERBOSE, true);
@@ -1874,7 +1878,7 @@ public final class Booter {
      * @param node
      * @param artifacts
      */
-    private static void dependencyNodeArtifactList(DependencyNode node, List<Artifact> artifacts) {
+    static void dependencyNodeArtifactList(DependencyNode node, List<Artifact> artifacts) {
         for (DependencyNode n : node.getChildren()) {
             if (!artifacts.contains(n.getArtifact())) {
                 //重新new DefaultArtifact解决快照版本带日期的包版本好问题
@@ -0,0 +1,243 @@
+package ghost.framework.maven;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.eclipse.aether.artifact.Artifact;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * package: ghost.framework.maven
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:已解析依赖图缓存
+ * 按包坐标把解析出的依赖包列表保存在本地仓库的 {@link #DIRECTORY} 目录下，每个包记录文件大小、修改时间与sha1校验码；
+ * 重启时本地仓库仍持有全部包且校验通过则直接使用缓存，跳过pom遍历解析。
+ * 文件大小与修改时间未变时不重新计算校验码，变化时按sha1判断包是否被替换。
+ * 快照版本的依赖图可能随发布变化，根包或任意依赖包为快照版本时不缓存。
+ * @Date: 2020/6/18:10:20
+ */
+public final class ResolvedGraphCache {
+    private static final Log log = LogFactory.getLog(ResolvedGraphCache.class);
+    /**
+     * 缓存目录，位于本地仓库目录下
+     */
+    public static final String DIRECTORY = ".ghost-resolved";
+    /**
+     * 缓存文件格式版本
+     */
+    private static final String HEADER = "#ghost-resolved-graph:1";
+    /**
+     * 本地仓库目录
+     */
+    private final File localRepositoryFile;
+    /**
+     * 缓存目录
+     */
+    private final File directory;
+
+    /**
+     * 初始化已解析依赖图缓存
+     *
+     * @param localRepositoryFile 本地仓库目录
+     */
+    public ResolvedGraphCache(File localRepositoryFile) {
+        this.localRepositoryFile = localRepositoryFile;
+        this.directory = new File(localRepositoryFile, DIRECTORY);
+    }
+
+    /**
+     * 判断包是否可以缓存
+     *
+     * @param artifact 包信息
+     * @return
+     */
+    public boolean isCacheable(Artifact artifact) {
+        return !artifact.isSnapshot();
+    }
+
+    /**
+     * 获取缓存的依赖包列表
+     *
+     * @param artifact 根包信息
+     * @return 返回包列表，第一个为根包；没有缓存、本地仓库缺少包或校验失败时返回null
+     */
+    public List<FileArtifact> get(Artifact artifact) {
+        if (!this.isCacheable(artifact)) {
+            return null;
+        }
+        File file = this.getFile(artifact);
+        if (!file.isFile()) {
+            return null;
+        }
+        List<FileArtifact> list = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(reader.readLine())) {
+                return null;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                //格式:groupId:artifactId:version,大小,修改时间,sha1
+                String[] parts = line.split(",");
+                String[] coordinate = parts[0].split(":");
+                if (parts.length != 4 || coordinate.length != 3) {
+                    return null;
+                }
+                //第一行为根包，保持与解析结果一致使用传入的包信息
+                FileArtifact fileArtifact = list.isEmpty() ? new FileArtifact(artifact) : new FileArtifact(coordinate[0], coordinate[1], coordinate[2]);
+                File jar = this.getJarFile(fileArtifact);
+                if (!this.verify(jar, Long.parseLong(parts[1]), Long.parseLong(parts[2]), parts[3])) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("依赖图缓存失效:" + artifact + " " + jar);
+                    }
+                    return null;
+                }
+                //旧版本缓存可能包含快照依赖
+                if (fileArtifact.isSnapshot()) {
+                    return null;
+                }
+                fileArtifact.setFile(jar);
+                list.add(fileArtifact);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("读取依赖图缓存错误:" + file, e);
+            return null;
+        }
+        return list.isEmpty() ? null : list;
+    }
+
+    /**
+     * 保存依赖包列表
+     *
+     * @param artifact  根包信息
+     * @param artifacts 包列表，第一个为根包
+     */
+    public void put(Artifact artifact, List<FileArtifact> artifacts) {
+        if (!this.isCacheable(artifact)) {
+            return;
+        }
+        File file = this.getFile(artifact);
+        try {
+            StringBuilder builder = new StringBuilder(HEADER).append('\n');
+            for (FileArtifact a : artifacts) {
+                //包含快照依赖的结果不缓存
+                if (a.isSnapshot()) {
+                    return;
+                }
+                File jar = a.getFile();
+                //缺少包文件的结果不缓存
+                if (jar == null || !jar.isFile()) {
+                    return;
+                }
+                builder.append(a.getGroupId()).append(':').append(a.getArtifactId()).append(':').append(a.getVersion())
+                        .append(',').append(jar.length())
+                        .append(',').append(jar.lastModified())
+                        .append(',').append(sha1(jar)).append('\n');
+            }
+            Files.createDirectories(file.getParentFile().toPath());
+            //先写临时文件再替换，避免并发读取到写入一半的缓存
+            File temp = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+            try (BufferedWriter writer = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+                writer.write(builder.toString());
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("保存依赖图缓存错误:" + file, e);
+        }
+    }
+
+    /**
+     * 删除包的缓存
+     *
+     * @param artifact 根包信息
+     */
+    public void remove(Artifact artifact) {
+        File file = this.getFile(artifact);
+        if (file.isFile() && !file.delete()) {
+            log.warn("删除依赖图缓存失败:" + file);
+        }
+    }
+
+    /**
+     * 验证包文件
+     *
+     * @param jar          包文件
+     * @param length       缓存的文件大小
+     * @param lastModified 缓存的修改时间
+     * @param sha1         缓存的校验码
+     * @return
+     * @throws IOException
+     */
+    private boolean verify(File jar, long length, long lastModified, String sha1) throws IOException {
+        if (!jar.isFile() || jar.length() != length) {
+            return false;
+        }
+        //修改时间未变时不重新计算校验码
+        return jar.lastModified() == lastModified || sha1.equals(sha1(jar));
+    }
+
+    /**
+     * 获取缓存文件
+     *
+     * @param artifact 根包信息
+     * @return
+     */
+    private File getFile(Artifact artifact) {
+        return new File(this.directory, artifact.getGroupId() + File.separator + artifact.getArtifactId() + "-" + artifact.getVersion() + ".graph");
+    }
+
+    /**
+     * 获取包在本地仓库的文件
+     *
+     * @param artifact 包信息
+     * @return
+     */
+    private File getJarFile(FileArtifact artifact) {
+        Params params = new Params(artifact);
+        params.setSavePath(this.localRepositoryFile);
+        return params.getJarPath();
+    }
+
+    /**
+     * 计算文件sha1校验码
+     *
+     * @param file 文件
+     * @return
+     * @throws IOException
+     */
+    static String sha1(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[32 * 1024];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        StringBuilder builder = new StringBuilder(40);
+        for (byte b : digest.digest()) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,135 @@
+package ghost.framework.maven;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * package: ghost.framework.maven
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link ArtifactResolver} 使用权与停用关闭测试
+ * @Date: 2020/6/28:15:30
+ */
+public class ArtifactResolverTests {
+    private Path dir;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        this.dir = Files.createTempDirectory("artifact-resolver");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> stream = Files.walk(this.dir)) {
+            stream.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void retireWaitsForUsers() {
+        ArtifactResolver resolver = this.newResolver();
+        assertThat(resolver.acquire()).isTrue();
+        assertThat(resolver.acquire()).isTrue();
+        resolver.retire();
+        //停用后不接受新的使用者，已有使用者释放前不关闭
+        assertThat(resolver.acquire()).isFalse();
+        assertThat(resolver.isClosed()).isFalse();
+        resolver.release();
+        assertThat(resolver.isClosed()).isFalse();
+        resolver.release();
+        assertThat(resolver.isClosed()).isTrue();
+    }
+
+    @Test
+    public void retireWithoutUsersCloses() {
+        ArtifactResolver resolver = this.newResolver();
+        resolver.retire();
+        assertThat(resolver.isClosed()).isTrue();
+        assertThat(resolver.acquire()).isFalse();
+    }
+
+    @Test
+    public void releaseWithoutAcquireFails() {
+        ArtifactResolver resolver = this.newResolver();
+        try {
+            assertThatThrownBy(resolver::release).isInstanceOf(IllegalStateException.class);
+        } finally {
+            resolver.close();
+        }
+    }
+
+    @Test
+    public void replacedResolverNotClosedWhileInUse() throws Exception {
+        AtomicReference<ArtifactResolver> current = new AtomicReference<>(this.newResolver());
+        List<ArtifactResolver> retired = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger closedInUse = new AtomicInteger();
+        AtomicInteger uses = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(4);
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> {
+                started.countDown();
+                while (running.get()) {
+                    //与MavenDependencyLoader相同，获取期间被替换时重新获取
+                    ArtifactResolver r = current.get();
+                    if (!r.acquire()) {
+                        continue;
+                    }
+                    try {
+                        uses.incrementAndGet();
+                        Thread.yield();
+                        if (r.isClosed()) {
+                            closedInUse.incrementAndGet();
+                        }
+                    } finally {
+                        r.release();
+                    }
+                }
+            });
+            thread.start();
+            workers.add(thread);
+        }
+        started.await();
+        for (int i = 0; i < 20; i++) {
+            ArtifactResolver old = current.getAndSet(this.newResolver());
+            old.retire();
+            retired.add(old);
+            Thread.sleep(5);
+        }
+        running.set(false);
+        for (Thread thread : workers) {
+            thread.join();
+        }
+        current.get().retire();
+        assertThat(closedInUse.get()).isEqualTo(0);
+        assertThat(uses.get()).isGreaterThan(0);
+        for (ArtifactResolver r : retired) {
+            assertThat(r.isClosed()).isTrue();
+        }
+        assertThat(current.get().isClosed()).isTrue();
+    }
+
+    private ArtifactResolver newResolver() {
+        return new ArtifactResolver(this.dir.toFile(), Collections.emptyList(), 2);
+    }
+}
@@ -0,0 +1,81 @@
+package ghost.framework.sqlHelper.bean;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 游标分页类
+ * 
+ * 按(排序字段, id)定位下一页, 不使用OFFSET, 翻页深度不影响查询速度
+ * 
+ */
+public class CursorPage {
+	Object lastValue;// 上一页最后一条记录的排序字段值, 第一页或该值本身为null时为null
+	String lastId;// 上一页最后一条记录的id, 第一页为null
+	Integer limit = 10;// 每页记录数
+	Boolean hasNext = false;// 是否有下一页
+	Long count = -1l;// 总记录数, 不统计时为-1
+	Page.CountMode countMode = Page.CountMode.NONE;// 总记录数统计方式
+
+	List records = Collections.emptyList();
+
+	public <T> List<T> getRecords(Class<T> clazz) {
+		return (List<T>) records;
+	}
+
+	public List getRecords() {
+		return records;
+	}
+
+	public void setRecords(List records) {
+		this.records = records;
+	}
+
+	public Object getLastValue() {
+		return lastValue;
+	}
+
+	public void setLastValue(Object lastValue) {
+		this.lastValue = lastValue;
+	}
+
+	public String getLastId() {
+		return lastId;
+	}
+
+	public void setLastId(String lastId) {
+		this.lastId = lastId;
+	}
+
+	public Integer getLimit() {
+		return limit;
+	}
+
+	public void setLimit(Integer limit) {
+		this.limit = limit;
+	}
+
+	public Boolean getHasNext() {
+		return hasNext;
+	}
+
+	public void setHasNext(Boolean hasNext) {
+		this.hasNext = hasNext;
+	}
+
+	public Long getCount() {
+		return count;
+	}
+
+	public void setCount(Long count) {
+		this.count = count;
+	}
+
+	public Page.CountMode getCountMode() {
+		return countMode;
+	}
+
+	public void setCountMode(Page.CountMode countMode) {
+		this.countMode = countMode;
+	}
+}
@@ -11,9 +11,28 @@ public class Page {
 	Long count = 0l;// 总记录数
 	Integer current = 1; // 起始页
 	Integer limit = 10;// 每页记录数
+	CountMode countMode = CountMode.EXACT;// 总记录数统计方式
 
 	List records = Collections.emptyList();
 
+	/**
+	 * 总记录数统计方式
+	 */
+	public static enum CountMode {
+		/**
+		 * 精确统计, 执行COUNT(*)
+		 */
+		EXACT,
+		/**
+		 * 近似统计, 无查询条件时读取数据库表统计信息, 有查询条件或数据库不支持时精确统计
+		 */
+		APPROXIMATE,
+		/**
+		 * 不统计, 总记录数为-1
+		 */
+		NONE;
+	}
+
 	public <T> List<T> getRecords(Class<T> clazz) {
 		return (List<T>) records;
 	}
@@ -51,4 +70,12 @@ public class Page {
 		this.limit = limit;
 	}
 
+
+	public CountMode getCountMode() {
+		return countMode;
+	}
+
+	public void setCountMode(CountMode countMode) {
+		this.countMode = countMode;
+	}
 }
@@ -1,13 +1,13 @@
 package ghost.framework.sqlHelper.utils;
 
-import cn.craccd.sqlHelper.bean.Page;
-import cn.craccd.sqlHelper.config.Table;
 import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.io.IoUtil;
 import cn.hutool.core.util.ClassUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.core.util.ZipUtil;
 import cn.hutool.json.JSONUtil;
+import ghost.framework.sqlHelper.bean.Page;
+import ghost.framework.sqlHelper.config.Table;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
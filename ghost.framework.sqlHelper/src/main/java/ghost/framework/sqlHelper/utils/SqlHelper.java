@@ -1,14 +1,15 @@
 package ghost.framework.sqlHelper.utils;
 
-import cn.craccd.sqlHelper.bean.Page;
-import cn.craccd.sqlHelper.bean.Sort;
-import cn.craccd.sqlHelper.config.CompositeIndex;
-import cn.craccd.sqlHelper.config.InitValue;
-import cn.craccd.sqlHelper.config.SingleIndex;
-import cn.craccd.sqlHelper.config.Table;
 import cn.hutool.core.util.ClassUtil;
 import cn.hutool.core.util.ReflectUtil;
 import cn.hutool.core.util.StrUtil;
+import ghost.framework.sqlHelper.bean.CursorPage;
+import ghost.framework.sqlHelper.bean.Page;
+import ghost.framework.sqlHelper.bean.Sort;
+import ghost.framework.sqlHelper.config.CompositeIndex;
+import ghost.framework.sqlHelper.config.InitValue;
+import ghost.framework.sqlHelper.config.SingleIndex;
+import ghost.framework.sqlHelper.config.Table;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,6 +20,7 @@ import org.springframework.stereotype.Service;
 import javax.annotation.PostConstruct;
 import java.lang.reflect.Field;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * mongodb操作器
@@ -32,6 +34,8 @@ public class SqlHelper {
 	String packageName;
 	@Value("${spring.database.print:false}")
 	Boolean print;
+	@Value("${spring.database.batchSize:1000}")
+	Integer batchSize;
 
 	@Autowired
 	JdbcTemplate jdbcTemplate;
@@ -41,6 +45,25 @@ public class SqlHelper {
 
 	String separator = System.getProperty("line.separator");
 
+	/**
+	 * IN查询每次最多参数数量, sqlite默认上限为999
+	 */
+	static final int IN_CHUNK_SIZE = 500;
+	/**
+	 * 表元数据缓存
+	 */
+	Map<Class<?>, TableInfo> tableInfoMap = new ConcurrentHashMap<Class<?>, TableInfo>();
+
+	/**
+	 * 获取表元数据
+	 * 
+	 * @param clazz 类
+	 * @return TableInfo 表元数据
+	 */
+	TableInfo getTableInfo(Class<?> clazz) {
+		return tableInfoMap.computeIfAbsent(clazz, c -> new TableInfo(c, this::formatSql));
+	}
+
 	@PostConstruct
 	private void scan() {
 		if (StrUtil.isEmpty(packageName)) {
@@ -89,7 +112,7 @@ public class SqlHelper {
 				List<Map<String, Object>> indexs = jdbcTemplate.queryForList(formatSql(sql));
 
 				// 建立字段
-				Field[] fields = ReflectUtil.getFields(clazz);
+				Field[] fields = getTableInfo(clazz).fields;
 				for (Field field : fields) {
 					// 创建字段
 					if (!field.getName().equals("id")) {
@@ -250,7 +273,7 @@ public class SqlHelper {
 				List<String> placeHolder = new ArrayList<String>();
 				List<Object> paramValues = new ArrayList<Object>();
 
-				Field[] fields = ReflectUtil.getFields(object.getClass());
+				Field[] fields = getTableInfo(object.getClass()).fields;
 				for (Field field : fields) {
 					fieldsPart.add("`" + StrUtil.toUnderlineCase(field.getName()) + "`");
 					placeHolder.add("?");
@@ -264,7 +287,7 @@ public class SqlHelper {
 
 			} else {
 				// 更新
-				Field[] fields = ReflectUtil.getFields(object.getClass());
+				Field[] fields = getTableInfo(object.getClass()).fields;
 
 				// 设置更新时间
 				if (ReflectUtil.getField(object.getClass(), "updateTime") != null) {
@@ -321,63 +344,81 @@ public class SqlHelper {
 	 * @param object 对象
 	 */
 	public <T> void insertAll(List<T> list) {
+		insertAll(list, batchSize);
+	}
+
+	/**
+	 * 批量插入
+	 * 
+	 * 已有id使用IN分段查询是否存在, 按batchSize分批提交
+	 * 
+	 * @param <T>
+	 * 
+	 * @param list      对象列表
+	 * @param batchSize 每批提交数量
+	 */
+	public <T> void insertAll(List<T> list, int batchSize) {
+		if (list == null || list.isEmpty()) {
+			return;
+		}
 		Long time = System.currentTimeMillis();
+		TableInfo tableInfo = getTableInfo(list.get(0).getClass());
 
-		Map<String, Object> idMap = new HashMap<String, Object>();
+		// 查询数据库里已有的id
+		Set<String> ids = new LinkedHashSet<String>();
 		for (Object object : list) {
-			if (ReflectUtil.getFieldValue(object, "id") != null) {
-				String id = (String) ReflectUtil.getFieldValue(object, "id");
-				Object objectOrg = StrUtil.isNotEmpty(id) ? findById(id, object.getClass()) : null;
-				idMap.put((String) ReflectUtil.getFieldValue(object, "id"), objectOrg);
+			String id = (String) ReflectUtil.getFieldValue(object, tableInfo.idField);
+			if (StrUtil.isNotEmpty(id)) {
+				ids.add(id);
 			}
 		}
+		Set<String> existIds = findExistIds(ids, tableInfo);
 
+		List<Object[]> paramValues = new ArrayList<Object[]>(list.size());
 		for (Object object : list) {
-			if (ReflectUtil.getFieldValue(object, "id") != null && idMap.get((String) ReflectUtil.getFieldValue(object, "id")) != null) {
-				// 数据库里已有相同id, 使用新id以便插入
-				ReflectUtil.setFieldValue(object, "id", snowFlake.nextId());
-			}
-
-			// 没有id生成id
-			if (ReflectUtil.getFieldValue(object, "id") == null) {
-				ReflectUtil.setFieldValue(object, "id", snowFlake.nextId());
+			String id = (String) ReflectUtil.getFieldValue(object, tableInfo.idField);
+			if (id == null || existIds.contains(id)) {
+				// 数据库里已有相同id或没有id, 生成新id以便插入
+				ReflectUtil.setFieldValue(object, tableInfo.idField, snowFlake.nextId());
 			}
 
 			// 设置插入时间
-			if (ReflectUtil.getField(object.getClass(), "createTime") != null) {
-				ReflectUtil.setFieldValue(object, "createTime", time);
+			if (tableInfo.createTimeField != null) {
+				ReflectUtil.setFieldValue(object, tableInfo.createTimeField, time);
 			}
-			if (ReflectUtil.getField(object.getClass(), "updateTime") != null) {
-				ReflectUtil.setFieldValue(object, "updateTime", time);
+			if (tableInfo.updateTimeField != null) {
+				ReflectUtil.setFieldValue(object, tableInfo.updateTimeField, time);
 			}
 			// 设置默认值
-			setDefaultVaule(object);
-		}
-
-		List<Object[]> paramValues = new ArrayList<Object[]>();
-		String sqls = null;
-		for (Object object : list) {
-			Field[] fields = ReflectUtil.getFields(object.getClass());
+			setDefaultVaule(object, tableInfo);
 
-			List<String> fieldsPart = new ArrayList<String>();
-			List<String> placeHolder = new ArrayList<String>();
-
-			List<Object> params = new ArrayList<Object>();
-			for (Field field : fields) {
-				fieldsPart.add("`" + StrUtil.toUnderlineCase(field.getName()) + "`");
-				placeHolder.add("?");
-				params.add(ReflectUtil.getFieldValue(object, field));
-			}
-
-			paramValues.add(params.toArray());
+			paramValues.add(tableInfo.getValues(object));
+		}
 
-			if (sqls == null) {
-				sqls = "INSERT INTO `" + StrUtil.toUnderlineCase(object.getClass().getSimpleName()) + "` (" + StrUtil.join(",", fieldsPart) + ") VALUES (" + StrUtil.join(",", placeHolder) + ")";
-			}
+		String sql = tableInfo.insertSql;
+		int size = batchSize > 0 ? batchSize : paramValues.size();
+		for (int i = 0; i < paramValues.size(); i += size) {
+			jdbcTemplate.batchUpdate(sql, paramValues.subList(i, Math.min(i + size, paramValues.size())));
 		}
+	}
 
-		//logQueryBatch(formatSql(sqls), paramValues);
-		jdbcTemplate.batchUpdate(formatSql(sqls), paramValues);
+	/**
+	 * 分段查询数据库里已有的id
+	 * 
+	 * @param ids       id集合
+	 * @param tableInfo 表元数据
+	 * @return Set 已有的id
+	 */
+	private Set<String> findExistIds(Collection<String> ids, TableInfo tableInfo) {
+		Set<String> existIds = new HashSet<String>();
+		List<String> list = new ArrayList<String>(ids);
+		for (int i = 0; i < list.size(); i += IN_CHUNK_SIZE) {
+			List<String> chunk = list.subList(i, Math.min(i + IN_CHUNK_SIZE, list.size()));
+			String sql = "SELECT id FROM `" + tableInfo.table + "` WHERE id IN (" + StrUtil.repeatAndJoin("?", chunk.size(), ",") + ")";
+			logQuery(formatSql(sql), chunk.toArray());
+			existIds.addAll(jdbcTemplate.queryForList(formatSql(sql), String.class, chunk.toArray()));
+		}
+		return existIds;
 	}
 
 	/**
@@ -414,7 +455,7 @@ public class SqlHelper {
 			return;
 		}
 
-		Field[] fields = ReflectUtil.getFields(object.getClass());
+		Field[] fields = getTableInfo(object.getClass()).fields;
 
 		List<String> fieldsPart = new ArrayList<String>();
 		List<Object> paramValues = new ArrayList<Object>();
@@ -494,38 +535,44 @@ public class SqlHelper {
 	 * @param object 对象
 	 */
 	private void setDefaultVaule(Object object) {
-		Field[] fields = ReflectUtil.getFields(object.getClass());
-		for (Field field : fields) {
-			// 获取注解
-			if (field.isAnnotationPresent(InitValue.class)) {
-				InitValue defaultValue = field.getAnnotation(InitValue.class);
+		setDefaultVaule(object, getTableInfo(object.getClass()));
+	}
 
-				String value = defaultValue.value();
+	/**
+	 * 设置默认值
+	 * 
+	 * @param object    对象
+	 * @param tableInfo 表元数据
+	 */
+	private void setDefaultVaule(Object object, TableInfo tableInfo) {
+		for (Field field : tableInfo.initValueFields) {
+			InitValue defaultValue = field.getAnnotation(InitValue.class);
 
-				if (ReflectUtil.getFieldValue(object, field) == null) {
-					// 获取字段类型
-					Class<?> type = field.getType();
-					if (type.equals(String.class)) {
-						ReflectUtil.setFieldValue(object, field, value);
-					}
-					if (type.equals(Short.class)) {
-						ReflectUtil.setFieldValue(object, field, Short.parseShort(value));
-					}
-					if (type.equals(Integer.class)) {
-						ReflectUtil.setFieldValue(object, field, Integer.parseInt(value));
-					}
-					if (type.equals(Long.class)) {
-						ReflectUtil.setFieldValue(object, field, Long.parseLong(value));
-					}
-					if (type.equals(Float.class)) {
-						ReflectUtil.setFieldValue(object, field, Float.parseFloat(value));
-					}
-					if (type.equals(Double.class)) {
-						ReflectUtil.setFieldValue(object, field, Double.parseDouble(value));
-					}
-					if (type.equals(Boolean.class)) {
-						ReflectUtil.setFieldValue(object, field, Boolean.parseBoolean(value));
-					}
+			String value = defaultValue.value();
+
+			if (ReflectUtil.getFieldValue(object, field) == null) {
+				// 获取字段类型
+				Class<?> type = field.getType();
+				if (type.equals(String.class)) {
+					ReflectUtil.setFieldValue(object, field, value);
+				}
+				if (type.equals(Short.class)) {
+					ReflectUtil.setFieldValue(object, field, Short.parseShort(value));
+				}
+				if (type.equals(Integer.class)) {
+					ReflectUtil.setFieldValue(object, field, Integer.parseInt(value));
+				}
+				if (type.equals(Long.class)) {
+					ReflectUtil.setFieldValue(object, field, Long.parseLong(value));
+				}
+				if (type.equals(Float.class)) {
+					ReflectUtil.setFieldValue(object, field, Float.parseFloat(value));
+				}
+				if (type.equals(Double.class)) {
+					ReflectUtil.setFieldValue(object, field, Double.parseDouble(value));
+				}
+				if (type.equals(Boolean.class)) {
+					ReflectUtil.setFieldValue(object, field, Boolean.parseBoolean(value));
 				}
 			}
 		}
@@ -542,7 +589,7 @@ public class SqlHelper {
 	public Page findPage(ConditionWrapper conditionWrapper, Sort sort, Page page, Class<?> clazz) {
 		List<Object> values = new ArrayList<Object>();
 		// 查询出一共的条数
-		Long count = findCountByQuery(conditionWrapper, clazz);
+		Long count = findCount(conditionWrapper, page.getCountMode(), clazz);
 
 		String sql = "SELECT * FROM `" + StrUtil.toUnderlineCase(clazz.getSimpleName()) + "`";
 		if (conditionWrapper != null && conditionWrapper.notEmpty()) {
@@ -562,11 +609,121 @@ public class SqlHelper {
 		page.setCount(count);
 
 		logQuery(formatSql(sql), values.toArray());
-		page.setRecords(buildObjects(jdbcTemplate.queryForList(formatSql(sql), values.toArray()), clazz));
+		page.setRecords(jdbcTemplate.query(formatSql(sql), values.toArray(), new TableRowMapper<Object>(getTableInfo(clazz))));
 
 		return page;
 	}
 
+	/**
+	 * 按游标获取下一页
+	 * 
+	 * 按(排序字段, id)定位, 不使用OFFSET, 排序字段值为null的记录排在最后
+	 * 
+	 * @param conditionWrapper 查询
+	 * @param sort             排序, 为null时按id倒序
+	 * @param page             游标分页, 返回时更新为本页最后一条记录的游标
+	 * @param clazz            类
+	 * @return CursorPage 游标分页
+	 */
+	public <T> CursorPage findCursorPage(ConditionWrapper conditionWrapper, Sort sort, CursorPage page, Class<T> clazz) {
+		List<Object> values = new ArrayList<Object>();
+		List<String> blocks = new ArrayList<String>();
+		if (conditionWrapper != null && conditionWrapper.notEmpty()) {
+			blocks.add("(" + conditionWrapper.build(values) + ")");
+		}
+
+		String direction = sort != null && sort.getDirection() == Sort.Direction.ASC ? "ASC" : "DESC";
+		String operation = direction.equals("ASC") ? ">" : "<";
+		String column = sort != null ? "`" + StrUtil.toUnderlineCase(sort.getColumn()) + "`" : null;
+		// 没有id时按第一页查询, 有id时lastValue为null表示上一页停在排序字段为null的记录
+		if (StrUtil.isNotEmpty(page.getLastId())) {
+			// 定位到上一页最后一条记录之后
+			if (sort == null) {
+				blocks.add("id " + operation + " ?");
+			} else if (page.getLastValue() == null) {
+				blocks.add("(" + column + " IS NULL AND id " + operation + " ?)");
+			} else {
+				blocks.add("(" + column + " " + operation + " ? OR (" + column + " = ? AND id " + operation + " ?) OR " + column + " IS NULL)");
+				values.add(page.getLastValue());
+				values.add(page.getLastValue());
+			}
+			values.add(Long.parseLong(page.getLastId()));
+		}
+
+		String sql = "SELECT * FROM `" + StrUtil.toUnderlineCase(clazz.getSimpleName()) + "`";
+		if (blocks.size() > 0) {
+			sql += " WHERE " + StrUtil.join(" AND ", blocks);
+		}
+		if (sort != null) {
+			// 各数据库null的默认排序不同, 统一排在最后与游标条件一致
+			sql += " ORDER BY " + column + " IS NULL, " + column + " " + direction + ", id " + direction;
+		} else {
+			sql += " ORDER BY id DESC";
+		}
+		// 多查询一条判断是否有下一页
+		sql += " LIMIT " + (page.getLimit() + 1);
+
+		logQuery(formatSql(sql), values.toArray());
+		List<T> list = jdbcTemplate.query(formatSql(sql), values.toArray(), new TableRowMapper<T>(getTableInfo(clazz)));
+
+		page.setHasNext(list.size() > page.getLimit());
+		if (page.getHasNext()) {
+			list = list.subList(0, page.getLimit());
+		}
+		if (list.size() > 0) {
+			T last = list.get(list.size() - 1);
+			page.setLastId((String) ReflectUtil.getFieldValue(last, "id"));
+			page.setLastValue(sort != null ? ReflectUtil.getFieldValue(last, sort.getColumn()) : null);
+		}
+		page.setRecords(list);
+		page.setCount(findCount(conditionWrapper, page.getCountMode(), clazz));
+
+		return page;
+	}
+
+	/**
+	 * 按统计方式查找数量
+	 * 
+	 * @param conditionWrapper 查询
+	 * @param countMode        统计方式
+	 * @param clazz            类
+	 * @return Long 数量, 不统计时为-1
+	 */
+	private Long findCount(ConditionWrapper conditionWrapper, Page.CountMode countMode, Class<?> clazz) {
+		if (countMode == Page.CountMode.NONE) {
+			return -1l;
+		}
+		if (countMode == Page.CountMode.APPROXIMATE && (conditionWrapper == null || !conditionWrapper.notEmpty())) {
+			Long count = findApproximateCount(clazz);
+			if (count != null) {
+				return count;
+			}
+		}
+		return findCountByQuery(conditionWrapper, clazz);
+	}
+
+	/**
+	 * 读取数据库表统计信息中的近似数量
+	 * 
+	 * @param clazz 类
+	 * @return Long 数量, 数据库不支持时返回null
+	 */
+	private Long findApproximateCount(Class<?> clazz) {
+		String sql;
+		if (database.equals("mysql")) {
+			sql = "SELECT TABLE_ROWS FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?";
+		} else if (database.equals("postgresql")) {
+			sql = "SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE relname = ?";
+		} else {
+			return null;
+		}
+		Object[] params = new Object[] { StrUtil.toUnderlineCase(clazz.getSimpleName()) };
+		logQuery(sql, params);
+		List<Long> list = jdbcTemplate.queryForList(sql, Long.class, params);
+		// postgresql未分析过的表为-1
+		return list.size() > 0 && list.get(0) != null && list.get(0) >= 0 ? list.get(0) : null;
+	}
+
 	/**
 	 * 按查询条件获取Page
 	 * 
@@ -615,7 +772,10 @@ public class SqlHelper {
 			return null;
 		}
 
-		return findOneByQuery(new ConditionAndWrapper().eq("id", id), clazz);
+		TableInfo tableInfo = getTableInfo(clazz);
+		logQuery(tableInfo.selectByIdSql, new Object[] { id });
+		List<T> list = jdbcTemplate.query(tableInfo.selectByIdSql, new TableRowMapper<T>(tableInfo), id);
+		return list.size() > 0 ? list.get(0) : null;
 
 	}
 
@@ -629,7 +789,8 @@ public class SqlHelper {
 	public <T> T findOneByQuery(ConditionWrapper conditionWrapper, Sort sort, Class<T> clazz) {
 		List<Object> values = new ArrayList<Object>();
 		List<T> list = new ArrayList<T>();
-		String sql = "SELECT * FROM `" + StrUtil.toUnderlineCase(clazz.getSimpleName()) + "`";
+		TableInfo tableInfo = getTableInfo(clazz);
+		String sql = tableInfo.selectPrefix;
 		if (conditionWrapper != null && conditionWrapper.notEmpty()) {
 			sql += " WHERE " + conditionWrapper.build(values);
 		}
@@ -641,7 +802,7 @@ public class SqlHelper {
 		sql += " limit 1";
 
 		logQuery(formatSql(sql), values.toArray());
-		list = buildObjects(jdbcTemplate.queryForList(formatSql(sql), values.toArray()), clazz);
+		list = jdbcTemplate.query(formatSql(sql), values.toArray(), new TableRowMapper<T>(tableInfo));
 		return list.size() > 0 ? list.get(0) : null;
 	}
 
@@ -679,8 +840,15 @@ public class SqlHelper {
 	 */
 	public <T> List<T> findListByQuery(ConditionWrapper conditionWrapper, Sort sort, Class<T> clazz) {
 		List<Object> values = new ArrayList<Object>();
+		TableInfo tableInfo = getTableInfo(clazz);
 
-		String sql = "SELECT * FROM `" + StrUtil.toUnderlineCase(clazz.getSimpleName()) + "`";
+		// 无条件无排序时使用固定语句
+		if ((conditionWrapper == null || !conditionWrapper.notEmpty()) && sort == null) {
+			logQuery(tableInfo.selectAllSql);
+			return jdbcTemplate.query(tableInfo.selectAllSql, new TableRowMapper<T>(tableInfo));
+		}
+
+		String sql = tableInfo.selectPrefix;
 		if (conditionWrapper != null && conditionWrapper.notEmpty()) {
 			sql += " WHERE " + conditionWrapper.build(values);
 		}
@@ -691,7 +859,7 @@ public class SqlHelper {
 		}
 
 		logQuery(formatSql(sql), values.toArray());
-		return buildObjects(jdbcTemplate.queryForList(formatSql(sql), values.toArray()), clazz);
+		return jdbcTemplate.query(formatSql(sql), values.toArray(), new TableRowMapper<T>(tableInfo));
 	}
 
 	/**
@@ -924,46 +1092,6 @@ public class SqlHelper {
 		return new ArrayList<T>(rs);
 	}
 
-	/**
-	 * Map转Bean
-	 * 
-	 * @param <T>
-	 * @param queryForList
-	 * @param clazz
-	 * @return
-	 */
-	private <T> List<T> buildObjects(List<Map<String, Object>> queryForList, Class<T> clazz) {
-		List<T> list = new ArrayList<T>();
-		try {
-
-			Field[] fields = ReflectUtil.getFields(clazz);
-
-			for (Map<String, Object> map : queryForList) {
-				Object obj = clazz.getDeclaredConstructor().newInstance();
-
-				for (Map.Entry<String, Object> entry : map.entrySet()) {
-					String mapKey = entry.getKey();
-					Object mapValue = entry.getValue();
-
-					for (Field field : fields) {
-						if (StrUtil.toUnderlineCase(field.getName()).equals(mapKey)) {
-							ReflectUtil.setFieldValue(obj, field.getName(), mapValue);
-							break;
-						}
-					}
-
-				}
-
-				list.add((T) obj);
-			}
-
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
-
-		return list;
-	}
-
 	private String formatSql(String sql) {
 		if (StrUtil.isEmpty(sql)) {
 			return "";
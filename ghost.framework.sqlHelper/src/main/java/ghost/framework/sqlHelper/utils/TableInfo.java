@@ -0,0 +1,241 @@
+package ghost.framework.sqlHelper.utils;
+
+import cn.hutool.core.convert.Convert;
+import cn.hutool.core.util.ClassUtil;
+import cn.hutool.core.util.ReflectUtil;
+import cn.hutool.core.util.StrUtil;
+import ghost.framework.sqlHelper.config.InitValue;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 表元数据
+ *
+ * 每个实体类只解析一次字段、列名、字段访问句柄与固定语句, 由SqlHelper缓存
+ */
+class TableInfo {
+	/**
+	 * 表名
+	 */
+	final String table;
+	/**
+	 * 全部字段, 与列名顺序一致
+	 */
+	final Field[] fields;
+	/**
+	 * 全部列名
+	 */
+	final String[] columns;
+	/**
+	 * 字段类型, 基本类型转为包装类型
+	 */
+	final Class<?>[] types;
+	/**
+	 * 字段读取句柄
+	 */
+	final MethodHandle[] getters;
+	/**
+	 * 字段写入句柄
+	 */
+	final MethodHandle[] setters;
+	/**
+	 * 无参构造句柄, 没有无参构造函数时为null
+	 */
+	final MethodHandle constructor;
+	/**
+	 * id字段
+	 */
+	final Field idField;
+	/**
+	 * 创建时间字段, 没有时为null
+	 */
+	final Field createTimeField;
+	/**
+	 * 更新时间字段, 没有时为null
+	 */
+	final Field updateTimeField;
+	/**
+	 * 带有默认值注解的字段
+	 */
+	final Field[] initValueFields;
+	/**
+	 * 查询语句前缀, 未格式化, 用于拼接查询条件
+	 */
+	final String selectPrefix;
+	/**
+	 * 插入语句
+	 */
+	final String insertSql;
+	/**
+	 * 按id查询语句
+	 */
+	final String selectByIdSql;
+	/**
+	 * 查询全部语句, 按id倒序
+	 */
+	final String selectAllSql;
+	/**
+	 * 列名(小写)对应字段位置
+	 */
+	final Map<String, Integer> columnIndexMap = new HashMap<String, Integer>();
+
+	/**
+	 * @param clazz     类
+	 * @param formatter 语句格式化, 固定语句建立时格式化一次
+	 */
+	TableInfo(Class<?> clazz, Function<String, String> formatter) {
+		this.table = StrUtil.toUnderlineCase(clazz.getSimpleName());
+		this.fields = getColumnFields(clazz);
+		this.columns = new String[fields.length];
+		this.types = new Class<?>[fields.length];
+		this.getters = new MethodHandle[fields.length];
+		this.setters = new MethodHandle[fields.length];
+
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		List<String> fieldsPart = new ArrayList<String>();
+		List<String> placeHolder = new ArrayList<String>();
+		List<Field> initValues = new ArrayList<Field>();
+		try {
+			for (int i = 0; i < fields.length; i++) {
+				fields[i].setAccessible(true);
+				columns[i] = StrUtil.toUnderlineCase(fields[i].getName());
+				types[i] = ClassUtil.wrap(fields[i].getType());
+				// 统一为(Object)Object与(Object,Object)void, 调用时不需要知道字段类型
+				getters[i] = lookup.unreflectGetter(fields[i]).asType(MethodType.methodType(Object.class, Object.class));
+				setters[i] = lookup.unreflectSetter(fields[i]).asType(MethodType.methodType(void.class, Object.class, Object.class));
+				columnIndexMap.put(columns[i].toLowerCase(), i);
+				fieldsPart.add("`" + columns[i] + "`");
+				placeHolder.add("?");
+				if (fields[i].isAnnotationPresent(InitValue.class)) {
+					initValues.add(fields[i]);
+				}
+			}
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(clazz.getName() + " field access error", e);
+		}
+		this.constructor = findConstructor(lookup, clazz);
+		this.initValueFields = initValues.toArray(new Field[0]);
+		this.idField = ReflectUtil.getField(clazz, "id");
+		this.createTimeField = ReflectUtil.getField(clazz, "createTime");
+		this.updateTimeField = ReflectUtil.getField(clazz, "updateTime");
+
+		this.selectPrefix = "SELECT * FROM `" + table + "`";
+		this.insertSql = formatter.apply("INSERT INTO `" + table + "` (" + StrUtil.join(",", fieldsPart) + ") VALUES (" + StrUtil.join(",", placeHolder) + ")");
+		this.selectByIdSql = formatter.apply(selectPrefix + " WHERE `id` = ?");
+		this.selectAllSql = formatter.apply(selectPrefix + " ORDER BY id DESC");
+	}
+
+	/**
+	 * 获取对应列的字段, 不包括静态字段(如serialVersionUID)与编译器生成的字段
+	 *
+	 * @param clazz 类
+	 * @return Field[] 字段
+	 */
+	private static Field[] getColumnFields(Class<?> clazz) {
+		List<Field> list = new ArrayList<Field>();
+		for (Field field : ReflectUtil.getFields(clazz)) {
+			if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+				continue;
+			}
+			list.add(field);
+		}
+		return list.toArray(new Field[0]);
+	}
+
+	private static MethodHandle findConstructor(MethodHandles.Lookup lookup, Class<?> clazz) {
+		try {
+			java.lang.reflect.Constructor<?> c = clazz.getDeclaredConstructor();
+			c.setAccessible(true);
+			return lookup.unreflectConstructor(c).asType(MethodType.methodType(Object.class));
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * 创建对象
+	 *
+	 * @return Object 对象
+	 */
+	Object newInstance() {
+		if (constructor == null) {
+			throw new IllegalStateException(table + " no default constructor");
+		}
+		try {
+			return constructor.invokeExact();
+		} catch (Throwable e) {
+			throw new IllegalStateException(table + " newInstance error", e);
+		}
+	}
+
+	/**
+	 * 获取字段值
+	 *
+	 * @param object 对象
+	 * @param index  字段位置
+	 * @return Object 字段值
+	 */
+	Object getValue(Object object, int index) {
+		try {
+			return (Object) getters[index].invokeExact(object);
+		} catch (Throwable e) {
+			throw new IllegalStateException(columns[index] + " get error", e);
+		}
+	}
+
+	/**
+	 * 设置字段值, 类型不同时转换为字段类型
+	 *
+	 * @param object 对象
+	 * @param index  字段位置
+	 * @param value  值
+	 */
+	void setValue(Object object, int index, Object value) {
+		if (value != null && !types[index].isInstance(value)) {
+			value = Convert.convert(types[index], value);
+		}
+		// 基本类型字段不能设置null
+		if (value == null && fields[index].getType().isPrimitive()) {
+			return;
+		}
+		try {
+			setters[index].invokeExact(object, value);
+		} catch (Throwable e) {
+			throw new IllegalStateException(columns[index] + " set error", e);
+		}
+	}
+
+	/**
+	 * 获取对象全部字段值, 与列名顺序一致
+	 *
+	 * @param object 对象
+	 * @return Object[] 字段值
+	 */
+	Object[] getValues(Object object) {
+		Object[] values = new Object[fields.length];
+		for (int i = 0; i < fields.length; i++) {
+			values[i] = getValue(object, i);
+		}
+		return values;
+	}
+
+	/**
+	 * 获取列名对应的字段位置
+	 *
+	 * @param column 列名
+	 * @return int 字段位置, 没有对应字段时返回-1
+	 */
+	int getColumnIndex(String column) {
+		Integer index = columnIndexMap.get(column.toLowerCase());
+		return index == null ? -1 : index;
+	}
+}
@@ -0,0 +1,44 @@
+package ghost.framework.sqlHelper.utils;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * 实体行映射器
+ *
+ * 结果集直接转为实体, 不经过Map, 列与字段的对应关系在读取第一行时确定
+ */
+class TableRowMapper<T> implements RowMapper<T> {
+	final TableInfo tableInfo;
+	/**
+	 * 结果集列对应的字段位置, 没有对应字段的列为-1
+	 */
+	int[] columnIndexes;
+
+	TableRowMapper(TableInfo tableInfo) {
+		this.tableInfo = tableInfo;
+	}
+
+	@Override
+	public T mapRow(ResultSet rs, int rowNum) throws SQLException {
+		if (columnIndexes == null) {
+			ResultSetMetaData metaData = rs.getMetaData();
+			columnIndexes = new int[metaData.getColumnCount()];
+			for (int i = 0; i < columnIndexes.length; i++) {
+				columnIndexes[i] = tableInfo.getColumnIndex(JdbcUtils.lookupColumnName(metaData, i + 1));
+			}
+		}
+
+		Object obj = tableInfo.newInstance();
+		for (int i = 0; i < columnIndexes.length; i++) {
+			if (columnIndexes[i] != -1) {
+				tableInfo.setValue(obj, columnIndexes[i], JdbcUtils.getResultSetValue(rs, i + 1));
+			}
+		}
+		return (T) obj;
+	}
+}
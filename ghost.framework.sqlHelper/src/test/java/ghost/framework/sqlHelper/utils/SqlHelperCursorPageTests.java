@@ -0,0 +1,121 @@
+package ghost.framework.sqlHelper.utils;
+
+import ghost.framework.sqlHelper.bean.BaseModel;
+import ghost.framework.sqlHelper.bean.CursorPage;
+import ghost.framework.sqlHelper.bean.Sort;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 游标分页定位条件测试
+ *
+ */
+public class SqlHelperCursorPageTests {
+	private final SqlHelper sqlHelper = new SqlHelper();
+	private final RecordJdbcTemplate jdbcTemplate = new RecordJdbcTemplate();
+
+	@BeforeEach
+	public void setUp() {
+		sqlHelper.database = "mysql";
+		sqlHelper.print = false;
+		sqlHelper.jdbcTemplate = jdbcTemplate;
+	}
+
+	@Test
+	public void firstPageHasNoSeek() {
+		CursorPage page = new CursorPage();
+		page.setLimit(2);
+		jdbcTemplate.rows = Arrays.asList(item("1", 5L), item("2", 6L), item("3", 7L));
+
+		sqlHelper.findCursorPage(null, new Sort("rank", Sort.Direction.ASC), page, Item.class);
+
+		assertThat(jdbcTemplate.sql).doesNotContain("WHERE");
+		assertThat(jdbcTemplate.sql).contains("ORDER BY `rank` IS NULL, `rank` ASC, id ASC");
+		assertThat(page.getHasNext()).isTrue();
+		assertThat(page.getLastId()).isEqualTo("2");
+		assertThat(page.getLastValue()).isEqualTo(6L);
+	}
+
+	@Test
+	public void seekBindsRawValue() {
+		CursorPage page = new CursorPage();
+		page.setLastId("2");
+		page.setLastValue(6L);
+
+		sqlHelper.findCursorPage(null, new Sort("rank", Sort.Direction.ASC), page, Item.class);
+
+		assertThat(jdbcTemplate.sql).contains("(`rank` > ? OR (`rank` = ?");
+		assertThat(jdbcTemplate.sql).contains("id > ?) OR `rank` IS NULL)");
+		assertThat(jdbcTemplate.args).containsExactly(6L, 6L, 2L);
+	}
+
+	@Test
+	public void nullValueCursorContinuesAmongNulls() {
+		CursorPage page = new CursorPage();
+		page.setLimit(2);
+		jdbcTemplate.rows = Arrays.asList(item("8", 9L), item("9", null), item("10", null));
+
+		sqlHelper.findCursorPage(null, new Sort("rank", Sort.Direction.DESC), page, Item.class);
+		assertThat(page.getLastId()).isEqualTo("9");
+		assertThat(page.getLastValue()).isNull();
+
+		// 上一页停在排序字段为null的记录, 继续按id定位而不是回到第一页
+		jdbcTemplate.rows = Collections.singletonList(item("10", null));
+		sqlHelper.findCursorPage(null, new Sort("rank", Sort.Direction.DESC), page, Item.class);
+
+		assertThat(jdbcTemplate.sql).contains("WHERE (`rank` IS NULL");
+		assertThat(jdbcTemplate.sql).contains("id < ?)");
+		assertThat(jdbcTemplate.args).containsExactly(9L);
+		assertThat(page.getHasNext()).isFalse();
+		assertThat(page.getLastId()).isEqualTo("10");
+	}
+
+	@Test
+	public void seekByIdWithoutSort() {
+		CursorPage page = new CursorPage();
+		page.setLastId("5");
+
+		sqlHelper.findCursorPage(null, null, page, Item.class);
+
+		assertThat(jdbcTemplate.sql).contains("WHERE id < ?");
+		assertThat(jdbcTemplate.sql).contains("ORDER BY id DESC");
+		assertThat(jdbcTemplate.args).containsExactly(5L);
+	}
+
+	private static Item item(String id, Long rank) {
+		Item item = new Item();
+		item.setId(id);
+		item.rank = rank;
+		return item;
+	}
+
+	public static class Item extends BaseModel {
+		Long rank;
+	}
+
+	/**
+	 * 记录查询语句与参数, 返回预设记录
+	 */
+	private static class RecordJdbcTemplate extends JdbcTemplate {
+		String sql;
+		List<Object> args;
+		List<?> rows = Collections.emptyList();
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> List<T> query(String sql, Object[] args, RowMapper<T> rowMapper) {
+			this.sql = sql.replaceAll("\\s+", " ");
+			this.args = Arrays.asList(args);
+			return new ArrayList<>((List<T>) rows);
+		}
+	}
+}
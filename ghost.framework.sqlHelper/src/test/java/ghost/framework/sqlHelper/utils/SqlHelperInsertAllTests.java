@@ -0,0 +1,137 @@
+package ghost.framework.sqlHelper.utils;
+
+import ghost.framework.sqlHelper.bean.BaseModel;
+import ghost.framework.sqlHelper.config.InitValue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 批量插入已有id查询与分批提交测试
+ *
+ */
+public class SqlHelperInsertAllTests {
+	private final SqlHelper sqlHelper = new SqlHelper();
+	private final RecordJdbcTemplate jdbcTemplate = new RecordJdbcTemplate();
+
+	@BeforeEach
+	public void setUp() {
+		sqlHelper.database = "mysql";
+		sqlHelper.print = false;
+		sqlHelper.jdbcTemplate = jdbcTemplate;
+	}
+
+	@Test
+	public void existingAndMissingIdsGetNewIds() {
+		jdbcTemplate.existIds.add("1");
+		Item exist = item("1");
+		Item missing = item(null);
+		Item fresh = item("2");
+		Item duplicate = item("2");
+
+		sqlHelper.insertAll(Arrays.asList(exist, missing, fresh, duplicate), 3);
+
+		// 重复id只查询一次, 全部id在一条语句中查询
+		assertThat(jdbcTemplate.queries).hasSize(1);
+		assertThat(jdbcTemplate.queries.get(0)).containsExactly("1", "2");
+		assertThat(jdbcTemplate.sql).contains("WHERE id IN (?,?)");
+
+		assertThat(exist.getId()).isNotNull();
+		assertThat(exist.getId()).isNotEqualTo("1");
+		assertThat(missing.getId()).isNotNull();
+		assertThat(fresh.getId()).isEqualTo("2");
+		assertThat(exist.getCreateTime()).isNotNull();
+		assertThat(exist.getUpdateTime()).isEqualTo(exist.getCreateTime());
+		assertThat(missing.level).isEqualTo(7);
+
+		// 按batchSize分批提交
+		assertThat(jdbcTemplate.batchSizes).containsExactly(3, 1);
+		assertThat(jdbcTemplate.batchSql).contains("INSERT INTO `item`");
+	}
+
+	@Test
+	public void existIdQueryChunked() {
+		List<Item> list = new ArrayList<>();
+		for (int i = 0; i < SqlHelper.IN_CHUNK_SIZE * 2 + 1; i++) {
+			list.add(item(String.valueOf(i)));
+		}
+
+		sqlHelper.insertAll(list, 0);
+
+		assertThat(jdbcTemplate.queries).hasSize(3);
+		assertThat(jdbcTemplate.queries.get(0)).hasSize(SqlHelper.IN_CHUNK_SIZE);
+		assertThat(jdbcTemplate.queries.get(1)).hasSize(SqlHelper.IN_CHUNK_SIZE);
+		assertThat(jdbcTemplate.queries.get(2)).containsExactly(String.valueOf(SqlHelper.IN_CHUNK_SIZE * 2));
+		// batchSize不大于0时一次提交
+		assertThat(jdbcTemplate.batchSizes).containsExactly(list.size());
+	}
+
+	@Test
+	public void withoutIdsNoExistQuery() {
+		sqlHelper.insertAll(Collections.singletonList(item(null)), 10);
+
+		assertThat(jdbcTemplate.queries).isEmpty();
+		assertThat(jdbcTemplate.batchSizes).containsExactly(1);
+	}
+
+	@Test
+	public void emptyListDoesNothing() {
+		sqlHelper.insertAll(Collections.<Item>emptyList(), 10);
+		sqlHelper.insertAll(null, 10);
+
+		assertThat(jdbcTemplate.queries).isEmpty();
+		assertThat(jdbcTemplate.batchSizes).isEmpty();
+	}
+
+	private static Item item(String id) {
+		Item item = new Item();
+		item.setId(id);
+		return item;
+	}
+
+	public static class Item extends BaseModel {
+		@InitValue("7")
+		Integer level;
+	}
+
+	/**
+	 * 记录已有id查询与批量提交, 已有id查询返回预设id
+	 */
+	private static class RecordJdbcTemplate extends JdbcTemplate {
+		final Set<String> existIds = new HashSet<>();
+		final List<List<Object>> queries = new ArrayList<>();
+		final List<Integer> batchSizes = new ArrayList<>();
+		String sql;
+		String batchSql;
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+			this.sql = sql.replaceAll("\\s+", " ");
+			queries.add(Arrays.asList(args));
+			List<T> list = new ArrayList<>();
+			for (Object arg : args) {
+				if (existIds.contains(arg)) {
+					list.add((T) arg);
+				}
+			}
+			return list;
+		}
+
+		@Override
+		public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+			this.batchSql = sql;
+			batchSizes.add(batchArgs.size());
+			return new int[batchArgs.size()];
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package ghost.framework.sqlHelper.utils;
+
+import ghost.framework.sqlHelper.bean.BaseModel;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 表元数据与实体行映射测试
+ *
+ */
+public class TableRowMapperTests {
+	private static final Function<String, String> FORMATTER = Function.identity();
+
+	private final int[] metaDataCalls = new int[1];
+
+	@Test
+	public void skipsStaticAndSyntheticFields() {
+		TableInfo tableInfo = new TableInfo(UserInfo.class, FORMATTER);
+
+		assertThat(Arrays.asList(tableInfo.columns)).containsExactlyInAnyOrder("user_name", "age", "score", "id", "create_time", "update_time");
+		assertThat(tableInfo.insertSql).doesNotContain("serial_version_u_i_d");
+		assertThat(tableInfo.insertSql).contains("VALUES (?,?,?,?,?,?)");
+		assertThat(tableInfo.getColumnIndex("USER_NAME")).isEqualTo(tableInfo.getColumnIndex("user_name"));
+		assertThat(tableInfo.getColumnIndex("unknown")).isEqualTo(-1);
+
+		// 非静态内部类的外部类引用字段由编译器生成, 不作为列
+		assertThat(Arrays.asList(new TableInfo(Inner.class, FORMATTER).columns)).containsExactly("name");
+	}
+
+	@Test
+	public void mapsRowsByColumnLabel() throws SQLException {
+		TableRowMapper<UserInfo> mapper = new TableRowMapper<>(new TableInfo(UserInfo.class, FORMATTER));
+		String[] labels = { "ID", "user_name", "unknown", "age", "score" };
+
+		UserInfo first = mapper.mapRow(resultSet(labels, "1", "alice", "x", 30, 5), 0);
+		UserInfo second = mapper.mapRow(resultSet(labels, "2", "bob", "y", null, 6L), 1);
+
+		assertThat(first.getId()).isEqualTo("1");
+		assertThat(first.userName).isEqualTo("alice");
+		assertThat(first.age).isEqualTo(30);
+		// 类型不同时转换为字段类型
+		assertThat(first.score).isEqualTo(5L);
+		assertThat(second.getId()).isEqualTo("2");
+		// 基本类型字段不设置null
+		assertThat(second.age).isEqualTo(0);
+		assertThat(second.score).isEqualTo(6L);
+		// 列与字段的对应关系只在第一行确定
+		assertThat(metaDataCalls[0]).isEqualTo(1);
+	}
+
+	@Test
+	public void valuesFollowColumnOrder() {
+		TableInfo tableInfo = new TableInfo(UserInfo.class, FORMATTER);
+		UserInfo user = new UserInfo();
+		user.setId("1");
+		user.userName = "alice";
+		user.age = 30;
+
+		Object[] values = tableInfo.getValues(user);
+
+		assertThat(values[tableInfo.getColumnIndex("id")]).isEqualTo("1");
+		assertThat(values[tableInfo.getColumnIndex("user_name")]).isEqualTo("alice");
+		assertThat(values[tableInfo.getColumnIndex("age")]).isEqualTo(30);
+		assertThat(values[tableInfo.getColumnIndex("score")]).isNull();
+	}
+
+	@Test
+	public void newInstanceWithoutDefaultConstructor() {
+		TableInfo tableInfo = new TableInfo(Inner.class, FORMATTER);
+
+		assertThatThrownBy(tableInfo::newInstance)
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("no default constructor");
+	}
+
+	/**
+	 * 创建单行结果集
+	 *
+	 * @param labels 列名
+	 * @param values 列值
+	 * @return ResultSet 结果集
+	 */
+	private ResultSet resultSet(String[] labels, Object... values) {
+		ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ResultSetMetaData.class }, (proxy, method, args) -> {
+			switch (method.getName()) {
+			case "getColumnCount":
+				metaDataCalls[0]++;
+				return labels.length;
+			case "getColumnLabel":
+			case "getColumnName":
+				return labels[(Integer) args[0] - 1];
+			default:
+				throw new UnsupportedOperationException(method.getName());
+			}
+		});
+		return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ResultSet.class }, (proxy, method, args) -> {
+			switch (method.getName()) {
+			case "getMetaData":
+				return metaData;
+			case "getObject":
+				return values[(Integer) args[0] - 1];
+			case "wasNull":
+				return false;
+			default:
+				throw new UnsupportedOperationException(method.getName());
+			}
+		});
+	}
+
+	public static class UserInfo extends BaseModel {
+		private static final long serialVersionUID = 1L;
+		String userName;
+		int age;
+		Long score;
+	}
+
+	public class Inner {
+		String name;
+	}
+}
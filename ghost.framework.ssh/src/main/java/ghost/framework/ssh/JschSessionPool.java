@@ -0,0 +1,523 @@
+package ghost.framework.ssh;
+
+import com.jcraft.jsch.ChannelExec;
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * package: ghost.framework.ssh
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:jsch会话池
+ * 按主机地址、端口与登录账号缓存已登录的会话，命令在会话上打开exec通道执行，一个会话同时复用多个通道，
+ * 避免每个命令重新建立tcp连接、密钥交换与登录。
+ * 空闲超过 {@link #idleTimeoutMillis} 的会话断开，其余空闲会话定时发送保活消息检查连接，失败的会话移除。
+ * {@link #execute(List, String, long, Consumer)} 在多个主机并行执行同一个命令，每个主机单独计算超时，按完成顺序回调结果。
+ * @Date: 2020/6/24:9:30
+ */
+public final class JschSessionPool implements AutoCloseable {
+    private static final Log log = LogFactory.getLog(JschSessionPool.class);
+
+    /**
+     * 默认会话池
+     */
+    private static final class Holder {
+        private static final JschSessionPool instance = new JschSessionPool(4, 8, TimeUnit.MINUTES.toMillis(5), 30000, Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+    }
+
+    /**
+     * 获取默认会话池
+     *
+     * @return
+     */
+    public static JschSessionPool getDefault() {
+        return Holder.instance;
+    }
+
+    /**
+     * 主机会话列表
+     */
+    private final Map<SshHost, HostPool> pools = new ConcurrentHashMap<>();
+    /**
+     * 每个主机最大会话数量
+     */
+    private final int maxSessionsPerHost;
+    /**
+     * 每个会话最大同时通道数量，需要小于服务器 MaxSessions 设置
+     */
+    private final int maxChannelsPerSession;
+    /**
+     * 会话空闲超时毫秒
+     */
+    private final long idleTimeoutMillis;
+    /**
+     * 连接超时毫秒
+     */
+    private final int connectTimeoutMillis;
+    /**
+     * 多主机执行线程池
+     */
+    private final ThreadPoolExecutor executor;
+    /**
+     * 超时与空闲检查线程池
+     */
+    private final ScheduledThreadPoolExecutor scheduler;
+    /**
+     * 是否已经关闭
+     */
+    private volatile boolean closed;
+
+    /**
+     * 初始化jsch会话池
+     *
+     * @param maxSessionsPerHost    每个主机最大会话数量
+     * @param maxChannelsPerSession 每个会话最大同时通道数量
+     * @param idleTimeoutMillis     会话空闲超时毫秒
+     * @param connectTimeoutMillis  连接超时毫秒
+     * @param threads               多主机执行线程数量
+     */
+    public JschSessionPool(int maxSessionsPerHost, int maxChannelsPerSession, long idleTimeoutMillis, int connectTimeoutMillis, int threads) {
+        if (maxSessionsPerHost <= 0 || maxChannelsPerSession <= 0 || idleTimeoutMillis <= 0 || threads <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.maxSessionsPerHost = maxSessionsPerHost;
+        this.maxChannelsPerSession = maxChannelsPerSession;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        AtomicInteger index = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "jsch-pool-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "jsch-pool-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.setRemoveOnCancelPolicy(true);
+        long period = Math.max(1000, Math.min(idleTimeoutMillis / 2, 60000));
+        this.scheduler.scheduleWithFixedDelay(this::evict, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 测试连接，使用池中会话或建立新会话
+     *
+     * @param host 主机
+     * @return 返回是否连接完成
+     */
+    public boolean testConnection(SshHost host) {
+        PooledSession session = null;
+        try {
+            session = this.getPool(host).acquire(host, this.deadline(this.connectTimeoutMillis));
+            return true;
+        } catch (Exception e) {
+            if (log.isDebugEnabled()) {
+                log.debug(host + ":" + e.getMessage(), e);
+            }
+            return false;
+        } finally {
+            if (session != null) {
+                this.getPool(host).release(session, false);
+            }
+        }
+    }
+
+    /**
+     * 执行命令
+     *
+     * @param host          主机
+     * @param command       命令
+     * @param timeoutMillis 超时毫秒，包括等待会话、连接与执行，小于等于0不超时
+     * @return 返回执行结果，连接与执行错误记录在结果中
+     */
+    public SshCommandResult execute(SshHost host, String command, long timeoutMillis) {
+        if (this.closed) {
+            throw new SshException("jsch session pool closed");
+        }
+        long start = System.nanoTime();
+        long deadline = this.deadline(timeoutMillis);
+        HostPool pool = this.getPool(host);
+        PooledSession session = null;
+        ChannelExec channel = null;
+        ScheduledFuture<?> timer = null;
+        AtomicBoolean timeout = new AtomicBoolean();
+        boolean broken = false;
+        ChannelErrorStream error = new ChannelErrorStream();
+        try {
+            session = pool.acquire(host, deadline);
+            try {
+                channel = (ChannelExec) session.session.openChannel("exec");
+            } catch (JSchException e) {
+                //会话已经失效
+                broken = true;
+                throw e;
+            }
+            channel.setCommand(command);
+            //通道关闭时由jsch关闭错误输出流，作为通道关闭信号
+            channel.setErrStream(error, false);
+            InputStream in = channel.getInputStream();
+            if (deadline > 0) {
+                ChannelExec c = channel;
+                timer = this.scheduler.schedule(() -> {
+                    timeout.set(true);
+                    //断开通道结束读取
+                    c.disconnect();
+                }, this.remaining(deadline), TimeUnit.MILLISECONDS);
+            }
+            channel.connect(deadline > 0 ? (int) Math.max(1, this.remaining(deadline)) : this.connectTimeoutMillis);
+            String output = IOUtils.toString(in, StandardCharsets.UTF_8);
+            //输出结束后等待通道关闭获取退出状态，超时由定时任务断开通道
+            if (!channel.isClosed()) {
+                if (deadline > 0) {
+                    error.closed.await(this.remaining(deadline), TimeUnit.MILLISECONDS);
+                } else {
+                    error.closed.await();
+                }
+            }
+            return new SshCommandResult(host, channel.getExitStatus(), output, error.toString("UTF-8"), timeout.get(), null, this.elapsed(start));
+        } catch (JSchException | IOException | RuntimeException e) {
+            return new SshCommandResult(host, -1, null, this.toString(error), timeout.get(), timeout.get() ? null : e, this.elapsed(start));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new SshCommandResult(host, -1, null, this.toString(error), timeout.get(), e, this.elapsed(start));
+        } finally {
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            if (channel != null) {
+                channel.disconnect();
+            }
+            if (session != null) {
+                pool.release(session, broken);
+            }
+        }
+    }
+
+    /**
+     * 在多个主机并行执行命令
+     *
+     * @param hosts         主机列表
+     * @param command       命令
+     * @param timeoutMillis 每个主机的超时毫秒，小于等于0不超时
+     * @param consumer      按完成顺序在调用线程回调每个主机的结果，可以为null
+     * @return 返回按主机列表顺序排列的结果
+     */
+    public List<SshCommandResult> execute(List<SshHost> hosts, String command, long timeoutMillis, Consumer<SshCommandResult> consumer) {
+        CompletionService<SshCommandResult> completionService = new ExecutorCompletionService<>(this.executor);
+        Map<Future<SshCommandResult>, Integer> futures = new IdentityHashMap<>();
+        for (int i = 0; i < hosts.size(); i++) {
+            SshHost host = hosts.get(i);
+            futures.put(completionService.submit(() -> this.execute(host, command, timeoutMillis)), i);
+        }
+        SshCommandResult[] results = new SshCommandResult[hosts.size()];
+        try {
+            for (int i = 0; i < results.length; i++) {
+                Future<SshCommandResult> future = completionService.take();
+                SshCommandResult result = future.get();
+                results[futures.get(future)] = result;
+                if (consumer != null) {
+                    consumer.accept(result);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.keySet().forEach(f -> f.cancel(true));
+            throw new SshException(e.getMessage(), e);
+        } catch (ExecutionException e) {
+            //连接与执行错误记录在结果中，这里只有意外错误
+            futures.keySet().forEach(f -> f.cancel(true));
+            throw new SshException(e.getMessage(), e.getCause());
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * 获取全部会话数量
+     *
+     * @return
+     */
+    public int getSessionCount() {
+        int count = 0;
+        for (HostPool pool : this.pools.values()) {
+            count += pool.size();
+        }
+        return count;
+    }
+
+    /**
+     * 断开全部会话并关闭线程池
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        this.scheduler.shutdownNow();
+        this.executor.shutdownNow();
+        for (HostPool pool : this.pools.values()) {
+            pool.close();
+        }
+        this.pools.clear();
+    }
+
+    /**
+     * 断开空闲超时的会话并检查其它空闲会话
+     */
+    private void evict() {
+        long now = System.currentTimeMillis();
+        for (HostPool pool : this.pools.values()) {
+            try {
+                pool.evict(now);
+            } catch (RuntimeException e) {
+                log.warn("jsch会话检查错误", e);
+            }
+        }
+    }
+
+    private HostPool getPool(SshHost host) {
+        return this.pools.computeIfAbsent(host, k -> new HostPool());
+    }
+
+    private long deadline(long timeoutMillis) {
+        return timeoutMillis > 0 ? System.currentTimeMillis() + timeoutMillis : 0;
+    }
+
+    private long remaining(long deadline) {
+        return Math.max(0, deadline - System.currentTimeMillis());
+    }
+
+    private long elapsed(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private String toString(ByteArrayOutputStream out) {
+        try {
+            return out.toString("UTF-8");
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 通道错误输出流
+     * jsch在通道关闭或断开时关闭错误输出流，关闭时通知等待退出状态的线程
+     */
+    private static final class ChannelErrorStream extends ByteArrayOutputStream {
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        @Override
+        public void close() {
+            this.closed.countDown();
+        }
+    }
+
+    /**
+     * 池中会话
+     */
+    private static final class PooledSession {
+        private final Session session;
+        /**
+         * 登录密码，密码变化后空闲会话不再使用
+         */
+        private final String password;
+        /**
+         * 使用中的通道数量
+         */
+        private int channels;
+        /**
+         * 最后使用时间
+         */
+        private long lastUsed = System.currentTimeMillis();
+
+        PooledSession(Session session, String password) {
+            this.session = session;
+            this.password = password;
+        }
+
+        boolean matches(SshHost host) {
+            return this.password == null ? host.getPassword() == null : this.password.equals(host.getPassword());
+        }
+    }
+
+    /**
+     * 单个主机的会话列表
+     */
+    private final class HostPool {
+        private final List<PooledSession> sessions = new ArrayList<>();
+        /**
+         * 正在连接的会话数量
+         */
+        private int connecting;
+
+        /**
+         * 获取有空闲通道的会话，没有时建立新会话，会话数量达到上限时等待
+         *
+         * @param host     主机
+         * @param deadline 截止时间，为0不超时
+         * @return
+         * @throws JSchException
+         * @throws InterruptedException
+         */
+        PooledSession acquire(SshHost host, long deadline) throws JSchException, InterruptedException {
+            synchronized (this) {
+                while (true) {
+                    if (closed) {
+                        throw new SshException("jsch session pool closed");
+                    }
+                    PooledSession found = null;
+                    Iterator<PooledSession> iterator = this.sessions.iterator();
+                    while (iterator.hasNext()) {
+                        PooledSession s = iterator.next();
+                        if (!s.session.isConnected() || (s.channels == 0 && !s.matches(host))) {
+                            iterator.remove();
+                            s.session.disconnect();
+                            continue;
+                        }
+                        if (found == null && s.channels < maxChannelsPerSession && s.matches(host)) {
+                            found = s;
+                        }
+                    }
+                    if (found != null) {
+                        found.channels++;
+                        return found;
+                    }
+                    if (this.sessions.size() + this.connecting < maxSessionsPerHost) {
+                        this.connecting++;
+                        break;
+                    }
+                    if (deadline <= 0) {
+                        this.wait();
+                    } else {
+                        long remaining = deadline - System.currentTimeMillis();
+                        if (remaining <= 0) {
+                            throw new JSchException("wait session timeout:" + host);
+                        }
+                        this.wait(remaining);
+                    }
+                }
+            }
+            //在锁外建立连接
+            Session session = null;
+            try {
+                session = new JSch().getSession(host.getUser(), host.getHost(), host.getPort());
+                session.setConfig("StrictHostKeyChecking", "no");
+                session.setPassword(host.getPassword());
+                int timeout = connectTimeoutMillis;
+                if (deadline > 0) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        throw new JSchException("connect timeout:" + host);
+                    }
+                    timeout = timeout <= 0 ? (int) remaining : (int) Math.min(timeout, remaining);
+                }
+                session.connect(timeout);
+                if (log.isDebugEnabled()) {
+                    log.debug("jsch会话连接:" + host);
+                }
+            } catch (JSchException | RuntimeException e) {
+                if (session != null) {
+                    session.disconnect();
+                }
+                synchronized (this) {
+                    this.connecting--;
+                    this.notifyAll();
+                }
+                throw e;
+            }
+            PooledSession pooled = new PooledSession(session, host.getPassword());
+            pooled.channels = 1;
+            synchronized (this) {
+                this.connecting--;
+                this.sessions.add(pooled);
+            }
+            return pooled;
+        }
+
+        /**
+         * 归还会话通道
+         *
+         * @param session 会话
+         * @param broken  会话是否已经失效
+         */
+        synchronized void release(PooledSession session, boolean broken) {
+            session.channels--;
+            session.lastUsed = System.currentTimeMillis();
+            if ((broken || closed || !session.session.isConnected()) && this.sessions.remove(session)) {
+                session.session.disconnect();
+            }
+            this.notifyAll();
+        }
+
+        /**
+         * 断开空闲超时的会话，其它空闲会话发送保活消息
+         *
+         * @param now 当前时间
+         */
+        synchronized void evict(long now) {
+            Iterator<PooledSession> iterator = this.sessions.iterator();
+            while (iterator.hasNext()) {
+                PooledSession s = iterator.next();
+                if (s.channels > 0) {
+                    continue;
+                }
+                boolean remove = !s.session.isConnected() || now - s.lastUsed > idleTimeoutMillis;
+                if (!remove) {
+                    try {
+                        s.session.sendKeepAliveMsg();
+                    } catch (Exception e) {
+                        if (log.isDebugEnabled()) {
+                            log.debug("jsch会话保活失败:" + s.session.getHost(), e);
+                        }
+                        remove = true;
+                    }
+                }
+                if (remove) {
+                    iterator.remove();
+                    s.session.disconnect();
+                }
+            }
+        }
+
+        synchronized int size() {
+            return this.sessions.size();
+        }
+
+        synchronized void close() {
+            for (PooledSession s : this.sessions) {
+                s.session.disconnect();
+            }
+            this.sessions.clear();
+            this.notifyAll();
+        }
+    }
+}
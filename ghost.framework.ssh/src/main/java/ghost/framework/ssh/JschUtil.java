@@ -1,21 +1,18 @@
 package ghost.framework.ssh;
 
-import com.jcraft.jsch.ChannelExec;
-import com.jcraft.jsch.JSch;
 import com.jcraft.jsch.JSchException;
-import com.jcraft.jsch.Session;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import java.io.IOException;
-import java.io.InputStream;
+import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * package: ghost.framework.ssh.jsch
  *
  * @Author: 郭树灿{gsc-e590}
  * @link: 手机:13715848993, QQ 27048384
- * @Description:
+ * @Description:jsch工具类，命令与测试连接使用 {@link JschSessionPool#getDefault()} 会话池
  * @Date: 2020/5/25:20:22
  */
 public class JschUtil {
@@ -36,28 +33,51 @@ public class JschUtil {
         System.out.println(res);
     }
 
+    /**
+     * 执行命令，使用默认会话池中的会话
+     *
+     * @param host     主键地址
+     * @param port     主机端口
+     * @param user     登录账号
+     * @param password 登录密码
+     * @param command  命令
+     * @return 返回命令标准输出
+     * @throws JSchException
+     * @throws IOException
+     */
     public static String exeCommand(String host, int port, String user, String password, String command) throws JSchException, IOException {
-        JSch jsch = new JSch();
-        Session session = jsch.getSession(user, host, port);
-        session.setConfig("StrictHostKeyChecking", "no");
-        //    java.util.Properties config = new java.util.Properties();
-        //   config.put("StrictHostKeyChecking", "no");
-        session.setPassword(password);
-        session.connect();
+        SshCommandResult result = JschSessionPool.getDefault().execute(new SshHost(host, port, user, password), command, 0);
+        if (result.getError() != null && !result.getError().isEmpty()) {
+            log.warn("命令错误输出:" + host + ":" + port + "\n" + result.getError());
+        }
+        Throwable e = result.getException();
+        if (e instanceof JSchException) {
+            throw (JSchException) e;
+        }
+        if (e instanceof IOException) {
+            throw (IOException) e;
+        }
+        if (e != null) {
+            throw new SshException(e.getMessage(), e);
+        }
+        return result.getOutput();
+    }
 
-        ChannelExec channelExec = (ChannelExec) session.openChannel("exec");
-        InputStream in = channelExec.getInputStream();
-        channelExec.setCommand(command);
-        channelExec.setErrStream(System.err);
-        channelExec.connect();
-        String out = IOUtils.toString(in, "UTF-8");
-        channelExec.disconnect();
-        session.disconnect();
-        return out;
+    /**
+     * 在多个主机并行执行命令，使用默认会话池中的会话
+     *
+     * @param hosts         主机列表
+     * @param command       命令
+     * @param timeoutMillis 每个主机的超时毫秒，小于等于0不超时
+     * @param consumer      按完成顺序回调每个主机的结果，可以为null
+     * @return 返回按主机列表顺序排列的结果
+     */
+    public static List<SshCommandResult> exeCommand(List<SshHost> hosts, String command, long timeoutMillis, Consumer<SshCommandResult> consumer) {
+        return JschSessionPool.getDefault().execute(hosts, command, timeoutMillis, consumer);
     }
 
     /**
-     * 测试连接
+     * 测试连接，使用默认会话池中的会话
      *
      * @param host     主键地址
      * @param port     主机端口
@@ -66,28 +86,6 @@ public class JschUtil {
      * @return 返回是否连接完成
      */
     public static boolean testConnection(String host, int port, String user, String password) {
-        JSch jsch = new JSch();
-        Session session = null;
-        try {
-            session = jsch.getSession(user, host, port);
-            session.setConfig("StrictHostKeyChecking", "no");
-            session.setPassword(password);
-            session.connect();
-        } catch (Exception e) {
-            if (log.isDebugEnabled()) {
-                e.printStackTrace();
-                log.error(e.getMessage(), e);
-            }
-        } finally {
-            try {
-                session.disconnect();
-            } catch (Exception ex) {
-                if (log.isDebugEnabled()) {
-                    ex.printStackTrace();
-                    log.error(ex.getMessage(), ex);
-                }
-            }
-        }
-        return false;
+        return JschSessionPool.getDefault().testConnection(new SshHost(host, port, user, password));
     }
 }
@@ -0,0 +1,98 @@
+package ghost.framework.ssh;
+
+/**
+ * package: ghost.framework.ssh
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:ssh命令执行结果
+ * @Date: 2020/6/24:9:20
+ */
+public final class SshCommandResult {
+    /**
+     * 执行主机
+     */
+    private final SshHost host;
+    /**
+     * 退出状态，没有获取到时为-1
+     */
+    private final int exitStatus;
+    /**
+     * 标准输出
+     */
+    private final String output;
+    /**
+     * 错误输出
+     */
+    private final String error;
+    /**
+     * 是否超时
+     */
+    private final boolean timeout;
+    /**
+     * 连接或执行错误
+     */
+    private final Throwable exception;
+    /**
+     * 执行耗时毫秒
+     */
+    private final long elapsedMillis;
+
+    SshCommandResult(SshHost host, int exitStatus, String output, String error, boolean timeout, Throwable exception, long elapsedMillis) {
+        this.host = host;
+        this.exitStatus = exitStatus;
+        this.output = output;
+        this.error = error;
+        this.timeout = timeout;
+        this.exception = exception;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public SshHost getHost() {
+        return host;
+    }
+
+    public int getExitStatus() {
+        return exitStatus;
+    }
+
+    public String getOutput() {
+        return output;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isTimeout() {
+        return timeout;
+    }
+
+    public Throwable getException() {
+        return exception;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * 获取是否执行成功，没有错误、没有超时并且退出状态为0
+     *
+     * @return
+     */
+    public boolean isSuccess() {
+        return exception == null && !timeout && exitStatus == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "SshCommandResult{" +
+                "host=" + host +
+                ", exitStatus=" + exitStatus +
+                ", timeout=" + timeout +
+                ", exception=" + exception +
+                ", elapsedMillis=" + elapsedMillis +
+                '}';
+    }
+}
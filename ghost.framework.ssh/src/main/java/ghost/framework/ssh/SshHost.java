@@ -0,0 +1,85 @@
+package ghost.framework.ssh;
+
+import java.util.Objects;
+
+/**
+ * package: ghost.framework.ssh
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:ssh主机
+ * 主机地址、端口与登录账号相同的主机共用连接池，密码不参与比较。
+ * @Date: 2020/6/24:9:10
+ */
+public final class SshHost {
+    /**
+     * 主机地址
+     */
+    private final String host;
+    /**
+     * 主机端口
+     */
+    private final int port;
+    /**
+     * 登录账号
+     */
+    private final String user;
+    /**
+     * 登录密码
+     */
+    private final String password;
+
+    /**
+     * 初始化ssh主机
+     *
+     * @param host     主机地址
+     * @param port     主机端口
+     * @param user     登录账号
+     * @param password 登录密码
+     */
+    public SshHost(String host, int port, String user, String password) {
+        if (host == null || user == null) {
+            throw new IllegalArgumentException("host:" + host + " user:" + user);
+        }
+        this.host = host;
+        this.port = port;
+        this.user = user;
+        this.password = password;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SshHost sshHost = (SshHost) o;
+        return port == sshHost.port &&
+                host.equals(sshHost.host) &&
+                user.equals(sshHost.user);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(host, port, user);
+    }
+
+    @Override
+    public String toString() {
+        return user + "@" + host + ":" + port;
+    }
+}
@@ -0,0 +1,161 @@
+package ghost.framework.ssh;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * package: ghost.framework.ssh
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link JschSessionPool} 连接错误、超时与多主机并行执行测试
+ * 使用拒绝连接的端口与只接受连接不响应的本地服务端，不需要真实的ssh服务器。
+ * @Date: 2020/6/26:19:20
+ */
+public class JschSessionPoolTests {
+    private JschSessionPool pool;
+    /**
+     * 只接受连接不发送ssh版本信息的服务端
+     */
+    private ServerSocket silent;
+    /**
+     * 服务端接受的连接
+     */
+    private final List<Socket> accepted = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        this.pool = new JschSessionPool(1, 2, 60000, 5000, 4);
+        this.silent = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread thread = new Thread(() -> {
+            while (!this.silent.isClosed()) {
+                try {
+                    this.accepted.add(this.silent.accept());
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }, "silent-ssh-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        this.pool.close();
+        this.silent.close();
+        for (Socket socket : this.accepted) {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void hostKeyIgnoresPassword() {
+        SshHost host = new SshHost("127.0.0.1", 22, "root", "a");
+        assertThat(host).isEqualTo(new SshHost("127.0.0.1", 22, "root", "b"));
+        assertThat(host.hashCode()).isEqualTo(new SshHost("127.0.0.1", 22, "root", null).hashCode());
+        assertThat(host).isNotEqualTo(new SshHost("127.0.0.1", 2222, "root", "a"));
+        assertThat(host).isNotEqualTo(new SshHost("127.0.0.1", 22, "admin", "a"));
+        //密码不出现在文本中
+        assertThat(host.toString()).isEqualTo("root@127.0.0.1:22");
+        assertThatThrownBy(() -> new SshHost(null, 22, "root", "a")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SshHost("127.0.0.1", 22, null, "a")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void resultSuccess() {
+        SshHost host = new SshHost("127.0.0.1", 22, "root", null);
+        assertThat(new SshCommandResult(host, 0, "ok", "", false, null, 1).isSuccess()).isTrue();
+        assertThat(new SshCommandResult(host, 1, "", "error", false, null, 1).isSuccess()).isFalse();
+        assertThat(new SshCommandResult(host, 0, "", "", true, null, 1).isSuccess()).isFalse();
+        assertThat(new SshCommandResult(host, -1, null, null, false, new IOException(), 1).isSuccess()).isFalse();
+    }
+
+    @Test
+    public void refusedConnectionRecordedInResult() throws IOException {
+        SshHost host = this.refusedHost();
+        SshCommandResult result = this.pool.execute(host, "echo ok", 5000);
+        assertThat(result.getHost()).isSameAs(host);
+        assertThat(result.getException()).isNotNull();
+        assertThat(result.getExitStatus()).isEqualTo(-1);
+        assertThat(result.isTimeout()).isFalse();
+        assertThat(result.isSuccess()).isFalse();
+        assertThat(this.pool.testConnection(host)).isFalse();
+        //失败的连接不放入池中
+        assertThat(this.pool.getSessionCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void silentServerTimesOut() {
+        SshCommandResult result = this.pool.execute(this.silentHost(), "echo ok", 300);
+        assertThat(result.getException()).isNotNull();
+        assertThat(result.isSuccess()).isFalse();
+        //超时包括建立连接，不等待连接超时
+        assertThat(result.getElapsedMillis()).isLessThan(4000);
+        assertThat(this.accepted).hasSize(1);
+        assertThat(this.pool.getSessionCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void fanOutReportsInCompletionOrder() throws IOException {
+        SshHost slow = this.silentHost();
+        SshHost fast = this.refusedHost();
+        List<SshHost> completed = Collections.synchronizedList(new ArrayList<>());
+        long start = System.nanoTime();
+        List<SshCommandResult> results = this.pool.execute(Arrays.asList(slow, fast), "echo ok", 500, r -> completed.add(r.getHost()));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        //结果按主机列表顺序，回调按完成顺序
+        assertThat(results).hasSize(2);
+        assertThat(results.get(0).getHost()).isSameAs(slow);
+        assertThat(results.get(1).getHost()).isSameAs(fast);
+        assertThat(completed).containsExactly(fast, slow);
+        //每个主机单独计算超时，并行执行
+        assertThat(results.get(1).getElapsedMillis()).isLessThan(results.get(0).getElapsedMillis());
+        assertThat(elapsed).isLessThan(4000);
+        for (SshCommandResult result : results) {
+            assertThat(result.isSuccess()).isFalse();
+        }
+    }
+
+    @Test
+    public void closedPoolRejectsCommands() {
+        this.pool.close();
+        assertThatThrownBy(() -> this.pool.execute(this.silentHost(), "echo ok", 1000)).isInstanceOf(SshException.class);
+        assertThat(this.pool.testConnection(this.silentHost())).isFalse();
+        assertThatThrownBy(() -> new JschSessionPool(0, 1, 1000, 1000, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new JschSessionPool(1, 1, 0, 1000, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private SshHost silentHost() {
+        return new SshHost("127.0.0.1", this.silent.getLocalPort(), "root", "password");
+    }
+
+    /**
+     * 获取已经关闭的本地端口作为拒绝连接的主机
+     *
+     * @return
+     * @throws IOException
+     */
+    private SshHost refusedHost() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            port = socket.getLocalPort();
+        }
+        return new SshHost("127.0.0.1", port, "root", "password");
+    }
+}
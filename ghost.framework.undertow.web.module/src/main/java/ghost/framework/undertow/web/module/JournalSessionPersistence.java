@@ -0,0 +1,487 @@
+package ghost.framework.undertow.web.module;
+
+import ghost.framework.context.io.ConfigurableObjectInputStream;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.session.Session;
+import io.undertow.server.session.SessionListener;
+import io.undertow.server.session.SessionManager;
+import io.undertow.servlet.UndertowServletLogger;
+import io.undertow.servlet.api.SessionPersistenceManager;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * package: ghost.framework.undertow.web.module
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:增量会话持久化
+ * 作为会话监听注册到部署的会话管理，会话属性变更只标记会话，按刷新间隔把变更的会话追加到 {@link SessionJournal}，
+ * 崩溃时最多丢失一个刷新间隔内的变更；
+ * 刷新时按会话id从会话管理读取最后访问时间，只有访问没有属性变更的会话追加过期时间记录，
+ * 日志中的过期时间跟随访问更新，压缩与启动读取时不会丢弃仍在使用的会话；
+ * 停止时上次写入数据后没有访问的会话只追加过期时间记录，访问过的会话按停止时的属性重新写入；
+ * 启动时只读取日志索引，返回的会话属性在 undertow 按请求会话id恢复会话时才反序列化。
+ * 属性值由监听事件保存引用，刷新线程只读取会话的最后访问时间与超时，不读取属性，避免延长会话超时。
+ * {@link FileSessionPersistence}
+ * @Date: 2020/6/16:11:40
+ */
+class JournalSessionPersistence implements SessionPersistenceManager, SessionListener {
+    private Log log = LogFactory.getLog(JournalSessionPersistence.class);
+    /**
+     * 默认刷新间隔，毫秒
+     */
+    static final long DEFAULT_FLUSH_INTERVAL = 1000;
+    /**
+     * 会话目录
+     */
+    private final File dir;
+    /**
+     * 刷新间隔，毫秒
+     */
+    private final long flushInterval;
+    /**
+     * 部署日志，键为部署名称
+     */
+    private final Map<String, SessionJournal> journalMap = new ConcurrentHashMap<>();
+    /**
+     * 会话属性，键为会话id，由监听事件维护
+     */
+    private final Map<String, SessionState> stateMap = new ConcurrentHashMap<>();
+    /**
+     * 待写入的会话id，值为部署名称
+     */
+    private final Map<String, String> dirtyMap = new ConcurrentHashMap<>();
+    /**
+     * 待删除的会话id，值为部署名称
+     */
+    private final Map<String, String> removedMap = new ConcurrentHashMap<>();
+    /**
+     * 刷新锁，刷新线程与停止写入不交叉执行
+     */
+    private final Object flushLock = new Object();
+    /**
+     * 刷新线程
+     */
+    private ScheduledExecutorService executor;
+
+    /**
+     * 初始化增量会话持久化
+     *
+     * @param dir           会话目录
+     * @param flushInterval 刷新间隔，毫秒
+     */
+    JournalSessionPersistence(File dir, long flushInterval) {
+        this.dir = dir;
+        this.flushInterval = flushInterval;
+    }
+
+    /**
+     * 获取部署日志，未打开时打开并启动刷新线程
+     *
+     * @param deploymentName 部署名称
+     * @return
+     */
+    private SessionJournal getJournal(String deploymentName) {
+        return this.journalMap.computeIfAbsent(deploymentName, k -> {
+            try {
+                SessionJournal journal = SessionJournal.open(new File(this.dir, deploymentName + ".journal"), SessionJournal.DEFAULT_SEGMENT_SIZE);
+                this.start();
+                return journal;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private synchronized void start() {
+        if (this.executor != null) {
+            return;
+        }
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "session-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.scheduleWithFixedDelay(this::flush, this.flushInterval, this.flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void stop() {
+        if (this.executor != null) {
+            this.executor.shutdown();
+            this.executor = null;
+        }
+    }
+
+    /**
+     * 把标记的会话变更与访问写入日志，写回磁盘后按需压缩
+     * 只写入已打开的部署日志，部署停止后不再重新打开；
+     * 单个会话写入失败时重新标记，下次刷新重试，不影响其它会话
+     */
+    void flush() {
+        synchronized (this.flushLock) {
+            Map<String, String> failed = new HashMap<>();
+            for (Iterator<Map.Entry<String, String>> iterator = this.removedMap.entrySet().iterator(); iterator.hasNext(); ) {
+                Map.Entry<String, String> entry = iterator.next();
+                iterator.remove();
+                SessionJournal journal = this.journalMap.get(entry.getValue());
+                if (journal == null) {
+                    continue;
+                }
+                try {
+                    journal.remove(entry.getKey());
+                } catch (IOException | RuntimeException e) {
+                    failed.put(entry.getKey(), entry.getValue());
+                    this.log.warn("session " + entry.getKey() + " remove failed", e);
+                }
+            }
+            failed.forEach(this.removedMap::putIfAbsent);
+            failed.clear();
+            for (Iterator<Map.Entry<String, String>> iterator = this.dirtyMap.entrySet().iterator(); iterator.hasNext(); ) {
+                Map.Entry<String, String> entry = iterator.next();
+                iterator.remove();
+                SessionState state = this.stateMap.get(entry.getKey());
+                SessionJournal journal = this.journalMap.get(entry.getValue());
+                if (state == null || journal == null) {
+                    continue;
+                }
+                try {
+                    this.put(journal, entry.getKey(), state, state.getExpiration(), state.attributes);
+                } catch (IOException | RuntimeException e) {
+                    //属性值在请求线程中修改时序列化可能抛出并发修改异常
+                    failed.put(entry.getKey(), entry.getValue());
+                    this.log.warn("session " + entry.getKey() + " persist failed", e);
+                }
+            }
+            failed.forEach(this.dirtyMap::putIfAbsent);
+            this.touchAccessed();
+            long now = System.currentTimeMillis();
+            for (SessionJournal journal : this.journalMap.values()) {
+                try {
+                    journal.force();
+                    journal.compactIfNecessary(now);
+                } catch (Exception e) {
+                    UndertowServletLogger.ROOT_LOGGER.failedToPersistSessions(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 为上次写入后访问过的会话追加过期时间记录
+     * 有未写入变更的会话由下次数据记录更新过期时间
+     */
+    private void touchAccessed() {
+        for (Map.Entry<String, SessionState> entry : this.stateMap.entrySet()) {
+            String id = entry.getKey();
+            SessionState state = entry.getValue();
+            if (this.dirtyMap.containsKey(id) || !state.refresh(id)) {
+                continue;
+            }
+            long expiration = state.getExpiration();
+            if (expiration == state.journalExpiration) {
+                continue;
+            }
+            SessionJournal journal = this.journalMap.get(state.deploymentName);
+            try {
+                if (journal != null && journal.contains(id)) {
+                    journal.touch(id, expiration);
+                    state.journalExpiration = expiration;
+                }
+            } catch (IOException | RuntimeException e) {
+                this.log.warn("session " + id + " touch failed", e);
+            }
+        }
+    }
+
+    /**
+     * 写入会话数据记录
+     * 属性不能序列化时跳过该会话
+     *
+     * @param journal    部署日志
+     * @param id         会话id
+     * @param state      会话状态，为null时不记录写入的过期时间
+     * @param expiration 过期时间
+     * @param attributes 会话属性
+     * @throws IOException
+     */
+    private void put(SessionJournal journal, String id, SessionState state, long expiration, Map<String, Object> attributes) throws IOException {
+        byte[] data = this.serialize(id, attributes);
+        if (data == null) {
+            return;
+        }
+        journal.put(id, expiration, data);
+        if (state != null) {
+            state.putExpiration = expiration;
+            state.journalExpiration = expiration;
+        }
+    }
+
+    /**
+     * 停止时写入
+     * 数据已在日志中、没有未写入变更且上次写入数据后没有访问的会话只追加过期时间记录，
+     * 其它会话按停止时的属性写入，请求中直接修改属性对象内容的变更也不会丢失
+     *
+     * @param deploymentName 部署名称
+     * @param sessionData    全部活动会话
+     */
+    @Override
+    public void persistSessions(String deploymentName, Map<String, PersistentSession> sessionData) {
+        synchronized (this.flushLock) {
+            try {
+                SessionJournal journal = this.getJournal(deploymentName);
+                for (Map.Entry<String, PersistentSession> entry : sessionData.entrySet()) {
+                    String id = entry.getKey();
+                    long expiration = entry.getValue().getExpiration().getTime();
+                    SessionState state = this.stateMap.get(id);
+                    try {
+                        if (state != null && expiration <= state.putExpiration && !this.dirtyMap.containsKey(id) && journal.contains(id)) {
+                            journal.touch(id, expiration);
+                            state.journalExpiration = expiration;
+                        } else {
+                            this.dirtyMap.remove(id);
+                            this.put(journal, id, state, expiration, entry.getValue().getSessionData());
+                        }
+                    } catch (RuntimeException e) {
+                        this.log.warn("session " + id + " persist failed", e);
+                    }
+                }
+                this.flush();
+            } catch (Exception ex) {
+                UndertowServletLogger.ROOT_LOGGER.failedToPersistSessions(ex);
+            } finally {
+                this.close(deploymentName);
+            }
+        }
+    }
+
+    /**
+     * 启动时读取日志索引
+     * 返回的会话属性在首次访问时才从日志读取与反序列化
+     *
+     * @param deploymentName 部署名称
+     * @param classLoader    会话属性类加载器
+     * @return
+     */
+    @Override
+    public Map<String, PersistentSession> loadSessionAttributes(String deploymentName, final ClassLoader classLoader) {
+        try {
+            SessionJournal journal = this.getJournal(deploymentName);
+            Map<String, Long> expirations = journal.getExpirations(System.currentTimeMillis());
+            Map<String, PersistentSession> result = new HashMap<>(expirations.size());
+            expirations.forEach((id, expiration) ->
+                    result.put(id, new PersistentSession(new Date(expiration), new LazySessionData(journal, id, classLoader))));
+            if (this.log.isDebugEnabled()) {
+                this.log.debug("session journal " + deploymentName + " sessions:" + result.size());
+            }
+            return result;
+        } catch (Exception ex) {
+            UndertowServletLogger.ROOT_LOGGER.failedtoLoadPersistentSessions(ex);
+        }
+        return null;
+    }
+
+    @Override
+    public void clear(String deploymentName) {
+        try {
+            this.getJournal(deploymentName).clear();
+        } catch (Exception e) {
+            UndertowServletLogger.ROOT_LOGGER.failedToPersistSessions(e);
+        }
+    }
+
+    /**
+     * 关闭部署日志，没有打开的日志时停止刷新线程
+     *
+     * @param deploymentName 部署名称
+     */
+    private void close(String deploymentName) {
+        SessionJournal journal = this.journalMap.remove(deploymentName);
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                UndertowServletLogger.ROOT_LOGGER.failedToPersistSessions(e);
+            }
+        }
+        if (this.journalMap.isEmpty()) {
+            this.stop();
+        }
+    }
+
+    /**
+     * 序列化会话属性
+     * 属性不能序列化时返回null
+     *
+     * @param id         会话id
+     * @param attributes 会话属性
+     * @return
+     */
+    private byte[] serialize(String id, Map<String, Object> attributes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream stream = new ObjectOutputStream(out)) {
+            stream.writeObject(new LinkedHashMap<>(attributes));
+        } catch (IOException e) {
+            this.log.warn("session " + id + " not serializable:" + e.getMessage());
+            return null;
+        }
+        return out.toByteArray();
+    }
+
+    private void changed(Session session) {
+        SessionState state = this.stateMap.computeIfAbsent(session.getId(), k -> new SessionState());
+        state.update(session);
+        this.dirtyMap.put(session.getId(), state.deploymentName);
+    }
+
+    @Override
+    public void sessionCreated(Session session, HttpServerExchange exchange) {
+        this.changed(session);
+    }
+
+    @Override
+    public void sessionDestroyed(Session session, HttpServerExchange exchange, SessionDestroyedReason reason) {
+        this.stateMap.remove(session.getId());
+        this.dirtyMap.remove(session.getId());
+        //服务停止时的销毁不删除，由persistSessions写入
+        if (reason != SessionDestroyedReason.UNDEPLOY) {
+            this.removedMap.put(session.getId(), session.getSessionManager().getDeploymentName());
+        }
+    }
+
+    @Override
+    public void attributeAdded(Session session, String name, Object value) {
+        SessionState state = this.stateMap.computeIfAbsent(session.getId(), k -> new SessionState());
+        state.attributes.put(name, value);
+        this.changed(session);
+    }
+
+    @Override
+    public void attributeUpdated(Session session, String name, Object newValue, Object oldValue) {
+        this.attributeAdded(session, name, newValue);
+    }
+
+    @Override
+    public void attributeRemoved(Session session, String name, Object oldValue) {
+        SessionState state = this.stateMap.get(session.getId());
+        if (state != null) {
+            state.attributes.remove(name);
+        }
+        this.changed(session);
+    }
+
+    @Override
+    public void sessionIdChanged(Session session, String oldSessionId) {
+        SessionState state = this.stateMap.remove(oldSessionId);
+        if (state != null) {
+            this.stateMap.put(session.getId(), state);
+        }
+        this.dirtyMap.remove(oldSessionId);
+        this.removedMap.put(oldSessionId, session.getSessionManager().getDeploymentName());
+        this.changed(session);
+    }
+
+    /**
+     * 会话属性与过期时间
+     */
+    private static final class SessionState {
+        private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+        private volatile SessionManager sessionManager;
+        private volatile String deploymentName;
+        private volatile long lastAccessedTime;
+        private volatile int maxInactiveInterval;
+        /**
+         * 最后写入数据记录的过期时间
+         */
+        private volatile long putExpiration;
+        /**
+         * 日志中的过期时间
+         */
+        private volatile long journalExpiration;
+
+        /**
+         * 更新过期时间，读取这两个值不会延长会话超时
+         *
+         * @param session 会话
+         */
+        void update(Session session) {
+            this.sessionManager = session.getSessionManager();
+            this.deploymentName = this.sessionManager.getDeploymentName();
+            this.lastAccessedTime = session.getLastAccessedTime();
+            this.maxInactiveInterval = session.getMaxInactiveInterval();
+        }
+
+        /**
+         * 从会话管理读取会话的访问时间
+         * 按id获取会话不会开始请求，不延长会话超时
+         *
+         * @param id 会话id
+         * @return 会话已不存在或已失效时返回false
+         */
+        boolean refresh(String id) {
+            SessionManager sessionManager = this.sessionManager;
+            Session session = sessionManager == null ? null : sessionManager.getSession(id);
+            if (session == null) {
+                return false;
+            }
+            try {
+                this.lastAccessedTime = session.getLastAccessedTime();
+                this.maxInactiveInterval = session.getMaxInactiveInterval();
+            } catch (IllegalStateException e) {
+                return false;
+            }
+            return true;
+        }
+
+        long getExpiration() {
+            return this.maxInactiveInterval <= 0 ? Long.MAX_VALUE : this.lastAccessedTime + this.maxInactiveInterval * 1000L;
+        }
+    }
+
+    /**
+     * 延迟读取的会话属性
+     * undertow 恢复会话时遍历属性，首次访问时从日志读取并反序列化
+     */
+    private static final class LazySessionData extends AbstractMap<String, Object> {
+        private final SessionJournal journal;
+        private final String id;
+        private final ClassLoader classLoader;
+        private Map<String, Object> data;
+
+        LazySessionData(SessionJournal journal, String id, ClassLoader classLoader) {
+            this.journal = journal;
+            this.id = id;
+            this.classLoader = classLoader;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Map<String, Object> load() {
+            if (this.data == null) {
+                byte[] bytes = this.journal.read(this.id);
+                if (bytes == null) {
+                    this.data = Collections.emptyMap();
+                } else {
+                    try (ObjectInputStream stream = new ConfigurableObjectInputStream(new ByteArrayInputStream(bytes), this.classLoader)) {
+                        this.data = (Map<String, Object>) stream.readObject();
+                    } catch (IOException | ClassNotFoundException e) {
+                        UndertowServletLogger.ROOT_LOGGER.failedtoLoadPersistentSessions(e);
+                        this.data = Collections.emptyMap();
+                    }
+                }
+            }
+            return this.data;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return this.load().entrySet();
+        }
+    }
+}
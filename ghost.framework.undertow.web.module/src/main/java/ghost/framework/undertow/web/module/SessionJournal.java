@@ -0,0 +1,597 @@
+package ghost.framework.undertow.web.module;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * package: ghost.framework.undertow.web.module
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:会话追加日志
+ * 一个部署一个目录，目录下按序号分段的内存映射文件，会话变更只追加记录，不改写旧数据；
+ * 记录格式：长度(int) crc32(int) 类型(byte) id长度(short) id 过期时间(long) 数据长度(int) 数据；
+ * 打开时只扫描记录头建立 id 到数据位置的索引，会话数据在读取时才取出；
+ * 无效记录（被覆盖、删除、过期）超过比例时压缩，把有效记录复制到新分段后删除旧分段。
+ * 进程崩溃时已写入映射内存的记录由系统写回，{@link #force()} 之后的记录在断电时也不会丢失。
+ * {@link JournalSessionPersistence}
+ * @Date: 2020/6/16:10:20
+ */
+final class SessionJournal implements Closeable {
+    /**
+     * 写入会话数据
+     */
+    static final byte PUT = 1;
+    /**
+     * 只更新过期时间
+     */
+    static final byte TOUCH = 2;
+    /**
+     * 删除会话
+     */
+    static final byte REMOVE = 3;
+    /**
+     * 默认分段大小，64M
+     */
+    static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    /**
+     * 分段文件扩展名
+     */
+    private static final String SEGMENT_SUFFIX = ".log";
+    /**
+     * 记录头长度，长度与crc32
+     */
+    private static final int HEADER_SIZE = 8;
+    /**
+     * 记录体固定长度，类型、id长度、过期时间、数据长度
+     */
+    private static final int BODY_FIXED_SIZE = 1 + 2 + 8 + 4;
+    /**
+     * 默认压缩前无效记录的最小字节数，16M
+     */
+    static final long DEFAULT_COMPACT_MIN_GARBAGE = 16L * 1024 * 1024;
+    /**
+     * 日志目录
+     */
+    private final File dir;
+    /**
+     * 分段大小
+     */
+    private final int segmentSize;
+    /**
+     * 压缩前无效记录的最小字节数
+     */
+    private final long compactMinGarbage;
+    /**
+     * 全部分段，按序号排列
+     */
+    private final List<Segment> segments = new ArrayList<>();
+    /**
+     * 会话索引，键为会话id
+     */
+    private final Map<String, Location> index = new HashMap<>();
+    /**
+     * 读取共享，追加与压缩独占
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    /**
+     * 当前写入分段
+     */
+    private Segment active;
+    /**
+     * 全部记录字节数
+     */
+    private long totalBytes;
+    /**
+     * 有效记录字节数
+     */
+    private long liveBytes;
+    /**
+     * 是否已关闭
+     */
+    private boolean closed;
+
+    private SessionJournal(File dir, int segmentSize, long compactMinGarbage) {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.compactMinGarbage = compactMinGarbage;
+    }
+
+    /**
+     * 打开会话日志
+     * 扫描已有分段建立索引，日志尾部不完整的记录丢弃
+     *
+     * @param dir         日志目录
+     * @param segmentSize 分段大小
+     * @return
+     * @throws IOException
+     */
+    static SessionJournal open(File dir, int segmentSize) throws IOException {
+        return open(dir, segmentSize, DEFAULT_COMPACT_MIN_GARBAGE);
+    }
+
+    /**
+     * 打开会话日志
+     *
+     * @param dir               日志目录
+     * @param segmentSize       分段大小
+     * @param compactMinGarbage 压缩前无效记录的最小字节数
+     * @return
+     * @throws IOException
+     */
+    static SessionJournal open(File dir, int segmentSize, long compactMinGarbage) throws IOException {
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Unable to create session journal directory " + dir);
+        }
+        SessionJournal journal = new SessionJournal(dir, segmentSize, compactMinGarbage);
+        File[] files = dir.listFiles((d, name) -> name.endsWith(SEGMENT_SUFFIX));
+        if (files != null) {
+            Arrays.sort(files);
+            for (File file : files) {
+                Segment segment = new Segment(sequenceOf(file), file, (int) file.length());
+                journal.segments.add(segment);
+                journal.replay(segment);
+            }
+        }
+        if (journal.segments.isEmpty()) {
+            journal.roll(segmentSize);
+        } else {
+            journal.active = journal.segments.get(journal.segments.size() - 1);
+        }
+        return journal;
+    }
+
+    /**
+     * 扫描分段记录更新索引
+     *
+     * @param segment 分段
+     */
+    private void replay(Segment segment) {
+        ByteBuffer buffer = segment.buffer.duplicate();
+        CRC32 crc = new CRC32();
+        int position = 0;
+        while (position + HEADER_SIZE + BODY_FIXED_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length < BODY_FIXED_SIZE || position + HEADER_SIZE + length > buffer.capacity()) {
+                break;
+            }
+            ByteBuffer body = buffer.duplicate();
+            body.position(position + HEADER_SIZE).limit(position + HEADER_SIZE + length);
+            crc.reset();
+            crc.update(body.slice());
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                break;
+            }
+            int offset = position + HEADER_SIZE;
+            byte type = buffer.get(offset);
+            int idLength = buffer.getShort(offset + 1) & 0xFFFF;
+            byte[] id = new byte[idLength];
+            ByteBuffer idBuffer = buffer.duplicate();
+            idBuffer.position(offset + 3);
+            idBuffer.get(id);
+            long expiration = buffer.getLong(offset + 3 + idLength);
+            int dataLength = buffer.getInt(offset + 3 + idLength + 8);
+            int dataOffset = offset + 3 + idLength + 12;
+            this.apply(type, new String(id, StandardCharsets.UTF_8), expiration,
+                    new Location(segment, dataOffset, dataLength, expiration, HEADER_SIZE + length));
+            position += HEADER_SIZE + length;
+        }
+        segment.position = position;
+    }
+
+    /**
+     * 更新索引与字节统计
+     *
+     * @param type       记录类型
+     * @param id         会话id
+     * @param expiration 过期时间
+     * @param location   记录位置
+     */
+    private void apply(byte type, String id, long expiration, Location location) {
+        this.totalBytes += location.recordSize;
+        switch (type) {
+            case PUT: {
+                Location old = this.index.put(id, location);
+                if (old != null) {
+                    this.liveBytes -= old.recordSize;
+                }
+                this.liveBytes += location.recordSize;
+                break;
+            }
+            case TOUCH: {
+                Location old = this.index.get(id);
+                if (old != null) {
+                    old.expiration = expiration;
+                }
+                break;
+            }
+            case REMOVE: {
+                Location old = this.index.remove(id);
+                if (old != null) {
+                    this.liveBytes -= old.recordSize;
+                }
+                break;
+            }
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 写入会话数据
+     *
+     * @param id         会话id
+     * @param expiration 过期时间
+     * @param data       会话数据
+     * @throws IOException
+     */
+    void put(String id, long expiration, byte[] data) throws IOException {
+        this.append(PUT, id, expiration, data);
+    }
+
+    /**
+     * 更新会话过期时间，会话没有数据记录时忽略
+     *
+     * @param id         会话id
+     * @param expiration 过期时间
+     * @throws IOException
+     */
+    void touch(String id, long expiration) throws IOException {
+        this.append(TOUCH, id, expiration, null);
+    }
+
+    /**
+     * 删除会话
+     *
+     * @param id 会话id
+     * @throws IOException
+     */
+    void remove(String id) throws IOException {
+        this.append(REMOVE, id, 0, null);
+    }
+
+    private void append(byte type, String id, long expiration, byte[] data) throws IOException {
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        int dataLength = data == null ? 0 : data.length;
+        int length = BODY_FIXED_SIZE + idBytes.length + dataLength;
+        ByteBuffer body = ByteBuffer.allocate(length);
+        body.put(type).putShort((short) idBytes.length).put(idBytes).putLong(expiration).putInt(dataLength);
+        if (data != null) {
+            body.put(data);
+        }
+        body.flip();
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+        this.lock.writeLock().lock();
+        try {
+            if (this.closed) {
+                throw new IOException("Session journal closed " + this.dir);
+            }
+            this.write(type, id, expiration, body, (int) crc.getValue(), BODY_FIXED_SIZE + idBytes.length);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 写入记录，调用方持有写锁
+     *
+     * @param type       记录类型
+     * @param id         会话id
+     * @param expiration 过期时间
+     * @param body       记录体
+     * @param crc        记录体crc32
+     * @param dataStart  数据在记录体中的位置
+     * @throws IOException
+     */
+    private void write(byte type, String id, long expiration, ByteBuffer body, int crc, int dataStart) throws IOException {
+        int length = body.remaining();
+        if (this.active.position + HEADER_SIZE + length > this.active.buffer.capacity()) {
+            this.roll(Math.max(this.segmentSize, HEADER_SIZE + length));
+        }
+        Segment segment = this.active;
+        int position = segment.position;
+        ByteBuffer buffer = segment.buffer.duplicate();
+        buffer.position(position);
+        buffer.putInt(length).putInt(crc).put(body);
+        segment.position = buffer.position();
+        this.apply(type, id, expiration, new Location(segment, position + HEADER_SIZE + dataStart,
+                length - dataStart, expiration, HEADER_SIZE + length));
+    }
+
+    /**
+     * 新建写入分段，上一个分段先写回磁盘
+     *
+     * @param size 分段大小
+     * @throws IOException
+     */
+    private void roll(int size) throws IOException {
+        if (this.active != null) {
+            this.active.buffer.force();
+        }
+        long sequence = this.segments.isEmpty() ? 1 : this.segments.get(this.segments.size() - 1).sequence + 1;
+        Segment segment = new Segment(sequence, new File(this.dir, String.format("%016d", sequence) + SEGMENT_SUFFIX), size);
+        this.segments.add(segment);
+        this.active = segment;
+    }
+
+    /**
+     * 读取会话数据
+     *
+     * @param id 会话id
+     * @return 没有会话时返回null
+     */
+    byte[] read(String id) {
+        this.lock.readLock().lock();
+        try {
+            Location location = this.index.get(id);
+            if (location == null) {
+                return null;
+            }
+            byte[] data = new byte[location.dataLength];
+            ByteBuffer buffer = location.segment.buffer.duplicate();
+            buffer.position(location.dataOffset);
+            buffer.get(data);
+            return data;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取会话过期时间
+     *
+     * @param id 会话id
+     * @return 没有会话时返回-1
+     */
+    long getExpiration(String id) {
+        this.lock.readLock().lock();
+        try {
+            Location location = this.index.get(id);
+            return location == null ? -1 : location.expiration;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取未过期会话id与过期时间
+     *
+     * @param now 当前时间
+     * @return
+     */
+    Map<String, Long> getExpirations(long now) {
+        this.lock.readLock().lock();
+        try {
+            Map<String, Long> map = new HashMap<>(this.index.size());
+            for (Map.Entry<String, Location> entry : this.index.entrySet()) {
+                if (entry.getValue().expiration > now) {
+                    map.put(entry.getKey(), entry.getValue().expiration);
+                }
+            }
+            return map;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 判断是否包含会话数据
+     *
+     * @param id 会话id
+     * @return
+     */
+    boolean contains(String id) {
+        this.lock.readLock().lock();
+        try {
+            return this.index.containsKey(id);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 写回当前分段
+     */
+    void force() {
+        this.lock.readLock().lock();
+        try {
+            if (this.closed) {
+                return;
+            }
+            this.active.buffer.force();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 无效记录超过一半且不少于压缩最小字节数时压缩
+     *
+     * @param now 当前时间，已过期会话在压缩时删除
+     * @return 返回是否已压缩
+     * @throws IOException
+     */
+    boolean compactIfNecessary(long now) throws IOException {
+        this.lock.writeLock().lock();
+        try {
+            long garbage = this.totalBytes - this.liveBytes;
+            if (this.closed || garbage < this.compactMinGarbage || garbage < this.liveBytes) {
+                return false;
+            }
+            this.compact(now);
+            return true;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 复制有效记录到新分段后删除旧分段
+     * 新分段序号大于旧分段，压缩中途崩溃时按序号重放仍得到相同结果
+     *
+     * @param now 当前时间
+     * @throws IOException
+     */
+    private void compact(long now) throws IOException {
+        List<Segment> old = new ArrayList<>(this.segments);
+        Map<String, Location> live = new HashMap<>(this.index);
+        this.index.clear();
+        this.totalBytes = 0;
+        this.liveBytes = 0;
+        this.roll(this.segmentSize);
+        CRC32 crc = new CRC32();
+        for (Map.Entry<String, Location> entry : live.entrySet()) {
+            Location location = entry.getValue();
+            if (location.expiration <= now) {
+                continue;
+            }
+            //直接复制原记录的数据，不反序列化
+            byte[] idBytes = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            ByteBuffer body = ByteBuffer.allocate(BODY_FIXED_SIZE + idBytes.length + location.dataLength);
+            body.put(PUT).putShort((short) idBytes.length).put(idBytes).putLong(location.expiration).putInt(location.dataLength);
+            ByteBuffer data = location.segment.buffer.duplicate();
+            data.position(location.dataOffset).limit(location.dataOffset + location.dataLength);
+            body.put(data);
+            body.flip();
+            crc.reset();
+            crc.update(body.duplicate());
+            this.write(PUT, entry.getKey(), location.expiration, body, (int) crc.getValue(), BODY_FIXED_SIZE + idBytes.length);
+        }
+        this.active.buffer.force();
+        for (Segment segment : old) {
+            this.segments.remove(segment);
+            segment.delete();
+        }
+    }
+
+    /**
+     * 删除全部分段
+     *
+     * @throws IOException
+     */
+    void clear() throws IOException {
+        this.lock.writeLock().lock();
+        try {
+            if (this.closed) {
+                throw new IOException("Session journal closed " + this.dir);
+            }
+            this.segments.forEach(Segment::delete);
+            this.segments.clear();
+            this.index.clear();
+            this.totalBytes = 0;
+            this.liveBytes = 0;
+            this.active = null;
+            this.roll(this.segmentSize);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 获取会话数量
+     *
+     * @return
+     */
+    int size() {
+        this.lock.readLock().lock();
+        try {
+            return this.index.size();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 写回全部分段，关闭后不再写入
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        this.lock.writeLock().lock();
+        try {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            for (Segment segment : this.segments) {
+                segment.buffer.force();
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    private static long sequenceOf(File file) {
+        String name = file.getName();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 日志分段
+     */
+    private static final class Segment {
+        private final long sequence;
+        private final File file;
+        private final MappedByteBuffer buffer;
+        /**
+         * 写入位置
+         */
+        private int position;
+
+        Segment(long sequence, File file, int size) throws IOException {
+            this.sequence = sequence;
+            this.file = file;
+            //映射在文件关闭后仍然有效
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                this.buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+        }
+
+        /**
+         * 删除分段文件，映射内存由gc释放
+         */
+        void delete() {
+            if (!this.file.delete()) {
+                this.file.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * 会话数据位置
+     */
+    private static final class Location {
+        private final Segment segment;
+        private final int dataOffset;
+        private final int dataLength;
+        private final int recordSize;
+        private long expiration;
+
+        Location(Segment segment, int dataOffset, int dataLength, long expiration, int recordSize) {
+            this.segment = segment;
+            this.dataOffset = dataOffset;
+            this.dataLength = dataLength;
+            this.expiration = expiration;
+            this.recordSize = recordSize;
+        }
+    }
+}
@@ -441,11 +441,13 @@ public class UndertowServletWebServerFactory extends AbstractServletWebServerFac
 			configureAccessLog(deployment);
 		}
 		//判断是否使用会话
+		JournalSessionPersistence sessionPersistence = null;
 		if (getSession().isPersistent()) {
 			//获取会话目录
 			File dir = getValidSessionStoreDir();
-			//设置会话文件与权限
-			deployment.setSessionPersistenceManager(new FileSessionPersistence(dir));
+			//设置增量会话持久化
+			sessionPersistence = new JournalSessionPersistence(dir, JournalSessionPersistence.DEFAULT_FLUSH_INTERVAL);
+			deployment.setSessionPersistenceManager(sessionPersistence);
 		}
 		//添加区域信息
 		addLocaleMappings(deployment);
@@ -465,6 +467,10 @@ public class UndertowServletWebServerFactory extends AbstractServletWebServerFac
 		int sessionTimeout = (isZeroOrLess(timeoutDuration) ? -1 : (int) timeoutDuration.getSeconds());
 		//设置会话超时
 		sessionManager.setDefaultSessionTimeout(sessionTimeout);
+		//监听会话变更写入会话日志
+		if (sessionPersistence != null) {
+			sessionManager.registerSessionListener(sessionPersistence);
+		}
 		//返回部署管理
 		return manager;
 	}
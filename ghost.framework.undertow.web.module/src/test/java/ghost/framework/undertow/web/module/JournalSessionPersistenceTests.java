@@ -0,0 +1,202 @@
+package ghost.framework.undertow.web.module;
+
+import io.undertow.server.session.Session;
+import io.undertow.server.session.SessionManager;
+import io.undertow.servlet.api.SessionPersistenceManager.PersistentSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * package: ghost.framework.undertow.web.module
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link JournalSessionPersistence} 刷新与停止写入测试
+ * @Date: 2020/6/26:11:10
+ */
+public class JournalSessionPersistenceTests {
+    private static final String DEPLOYMENT = "app";
+    /**
+     * 启动时读取日志只返回未过期的会话
+     */
+    private final long now = System.currentTimeMillis();
+    /**
+     * 会话管理中的会话，键为会话id
+     */
+    private final Map<String, FakeSession> sessions = new HashMap<>();
+    private final SessionManager sessionManager = (SessionManager) Proxy.newProxyInstance(this.getClass().getClassLoader(), new Class<?>[]{SessionManager.class}, (proxy, method, args) -> {
+        switch (method.getName()) {
+            case "getDeploymentName":
+                return DEPLOYMENT;
+            case "getSession":
+                FakeSession session = this.sessions.get((String) args[0]);
+                return session == null ? null : session.session;
+            default:
+                throw new UnsupportedOperationException(method.getName());
+        }
+    });
+    private File dir;
+    private JournalSessionPersistence persistence;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        this.dir = Files.createTempDirectory("session-persistence").toFile();
+        //测试中手动刷新
+        this.persistence = new JournalSessionPersistence(this.dir, 60 * 60 * 1000);
+        this.persistence.loadSessionAttributes(DEPLOYMENT, this.getClass().getClassLoader());
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        this.persistence.persistSessions(DEPLOYMENT, Collections.emptyMap());
+        try (Stream<Path> stream = Files.walk(this.dir.toPath())) {
+            stream.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void accessedSessionTouched() {
+        FakeSession session = this.session("s1", this.now);
+        this.persistence.attributeAdded(session.session, "user", "u1");
+        this.persistence.flush();
+        assertThat(this.expiration("s1")).isEqualTo(this.now + 60000);
+        //只有访问没有属性变更
+        session.lastAccessedTime = this.now + 4000;
+        this.persistence.flush();
+        assertThat(this.expiration("s1")).isEqualTo(this.now + 64000);
+    }
+
+    @Test
+    public void failedSessionRetried() {
+        FakeSession s1 = this.session("s1", this.now);
+        FakeSession s2 = this.session("s2", this.now);
+        this.persistence.attributeAdded(s1.session, "value", new FlakyValue());
+        this.persistence.attributeAdded(s2.session, "value", "v2");
+        this.persistence.flush();
+        //失败的会话不影响其它会话
+        assertThat(this.expiration("s1")).isNull();
+        assertThat(this.expiration("s2")).isEqualTo(this.now + 60000);
+        this.persistence.flush();
+        assertThat(this.expiration("s1")).isEqualTo(this.now + 60000);
+    }
+
+    @Test
+    public void shutdownRewritesAccessedSessions() throws Exception {
+        FakeSession s1 = this.session("s1", this.now);
+        FakeSession s2 = this.session("s2", this.now);
+        ArrayList<String> list = new ArrayList<>();
+        list.add("a");
+        this.persistence.attributeAdded(s1.session, "list", list);
+        this.persistence.attributeAdded(s2.session, "value", "v2");
+        this.persistence.flush();
+        //请求中直接修改属性对象，没有监听事件
+        list.add("b");
+        s1.lastAccessedTime = this.now + 4000;
+        Map<String, PersistentSession> sessionData = new HashMap<>();
+        sessionData.put("s1", new PersistentSession(new Date(this.now + 64000), Collections.singletonMap("list", list)));
+        sessionData.put("s2", new PersistentSession(new Date(this.now + 60000), Collections.singletonMap("value", "changed")));
+        this.persistence.persistSessions(DEPLOYMENT, sessionData);
+        try (SessionJournal journal = SessionJournal.open(new File(this.dir, DEPLOYMENT + ".journal"), SessionJournal.DEFAULT_SEGMENT_SIZE)) {
+            assertThat(journal.getExpiration("s1")).isEqualTo(this.now + 64000);
+            assertThat(read(journal, "s1").get("list")).isEqualTo(Arrays.asList("a", "b"));
+            //没有访问的会话只更新过期时间
+            assertThat(journal.getExpiration("s2")).isEqualTo(this.now + 60000);
+            assertThat(read(journal, "s2").get("value")).isEqualTo("v2");
+        }
+    }
+
+    @Test
+    public void flushAfterStopDoesNotReopen() {
+        this.persistence.persistSessions(DEPLOYMENT, Collections.emptyMap());
+        File journalDir = new File(this.dir, DEPLOYMENT + ".journal");
+        for (File file : journalDir.listFiles()) {
+            file.delete();
+        }
+        journalDir.delete();
+        this.persistence.attributeAdded(this.session("s1", this.now).session, "user", "u1");
+        this.persistence.flush();
+        assertThat(journalDir.exists()).isFalse();
+    }
+
+    /**
+     * 读取日志中的会话过期时间
+     *
+     * @param id 会话id
+     * @return 没有会话时返回null
+     */
+    private Long expiration(String id) {
+        PersistentSession session = this.persistence.loadSessionAttributes(DEPLOYMENT, this.getClass().getClassLoader()).get(id);
+        return session == null ? null : session.getExpiration().getTime();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> read(SessionJournal journal, String id) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream stream = new ObjectInputStream(new ByteArrayInputStream(journal.read(id)))) {
+            return (Map<String, Object>) stream.readObject();
+        }
+    }
+
+    /**
+     * 创建会话管理中的会话，超时60秒
+     *
+     * @param id               会话id
+     * @param lastAccessedTime 最后访问时间
+     * @return
+     */
+    private FakeSession session(String id, long lastAccessedTime) {
+        FakeSession session = new FakeSession(id, lastAccessedTime);
+        this.sessions.put(id, session);
+        return session;
+    }
+
+    private final class FakeSession {
+        private final String id;
+        private volatile long lastAccessedTime;
+        private final Session session;
+
+        FakeSession(String id, long lastAccessedTime) {
+            this.id = id;
+            this.lastAccessedTime = lastAccessedTime;
+            this.session = (Session) Proxy.newProxyInstance(this.getClass().getClassLoader(), new Class<?>[]{Session.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getId":
+                        return this.id;
+                    case "getLastAccessedTime":
+                        return this.lastAccessedTime;
+                    case "getMaxInactiveInterval":
+                        return 60;
+                    case "getSessionManager":
+                        return sessionManager;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+        }
+    }
+
+    /**
+     * 第一次序列化时抛出并发修改异常
+     */
+    private static final class FlakyValue implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private transient boolean failed;
+
+        private void writeObject(ObjectOutputStream stream) throws IOException {
+            if (!this.failed) {
+                this.failed = true;
+                throw new ConcurrentModificationException();
+            }
+            stream.defaultWriteObject();
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package ghost.framework.undertow.web.module;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * package: ghost.framework.undertow.web.module
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link SessionJournal} 重放、压缩与崩溃恢复测试
+ * @Date: 2020/6/26:10:20
+ */
+public class SessionJournalTests {
+    /**
+     * 测试分段大小
+     */
+    private static final int SEGMENT_SIZE = 4096;
+    private File dir;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        this.dir = Files.createTempDirectory("session-journal").toFile();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> stream = Files.walk(this.dir.toPath())) {
+            stream.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void replay() throws IOException {
+        try (SessionJournal journal = this.open()) {
+            journal.put("a", 1000, bytes("a1"));
+            journal.put("b", 1000, bytes("b1"));
+            journal.put("a", 2000, bytes("a2"));
+            journal.touch("a", 3000);
+            journal.remove("b");
+            //没有数据记录的会话忽略过期时间记录
+            journal.touch("c", 3000);
+        }
+        try (SessionJournal journal = this.open()) {
+            assertThat(journal.size()).isEqualTo(1);
+            assertThat(journal.read("a")).isEqualTo(bytes("a2"));
+            assertThat(journal.getExpiration("a")).isEqualTo(3000L);
+            assertThat(journal.contains("b")).isFalse();
+            assertThat(journal.contains("c")).isFalse();
+            assertThat(journal.getExpirations(2500)).hasSize(1);
+            assertThat(journal.getExpirations(3000)).isEmpty();
+        }
+    }
+
+    @Test
+    public void replayAcrossSegments() throws IOException {
+        byte[] data = new byte[1000];
+        try (SessionJournal journal = this.open()) {
+            for (int i = 0; i < 10; i++) {
+                Arrays.fill(data, (byte) i);
+                journal.put("s" + i, 1000, data);
+            }
+        }
+        assertThat(this.segments().length).isGreaterThan(1);
+        try (SessionJournal journal = this.open()) {
+            assertThat(journal.size()).isEqualTo(10);
+            Arrays.fill(data, (byte) 9);
+            assertThat(journal.read("s9")).isEqualTo(data);
+        }
+    }
+
+    @Test
+    public void compaction() throws IOException {
+        try (SessionJournal journal = SessionJournal.open(this.dir, SEGMENT_SIZE, 1)) {
+            for (int i = 0; i < 20; i++) {
+                journal.put("a", 5000, bytes("a" + i));
+            }
+            journal.put("expired", 1000, bytes("expired"));
+            journal.put("removed", 5000, bytes("removed"));
+            journal.remove("removed");
+            journal.touch("a", 6000);
+            File[] before = this.segments();
+            assertThat(journal.compactIfNecessary(2000)).isTrue();
+            //旧分段已删除，有效记录在序号更大的分段中
+            for (File file : before) {
+                assertThat(file.exists()).isFalse();
+            }
+            assertThat(journal.size()).isEqualTo(1);
+            assertThat(journal.read("a")).isEqualTo(bytes("a19"));
+            assertThat(journal.getExpiration("a")).isEqualTo(6000L);
+            //压缩后无效记录不足，不再压缩
+            assertThat(journal.compactIfNecessary(2000)).isFalse();
+        }
+        try (SessionJournal journal = this.open()) {
+            assertThat(journal.size()).isEqualTo(1);
+            assertThat(journal.read("a")).isEqualTo(bytes("a19"));
+            assertThat(journal.getExpiration("a")).isEqualTo(6000L);
+        }
+    }
+
+    @Test
+    public void compactionKeepsTouchedSessions() throws IOException {
+        try (SessionJournal journal = SessionJournal.open(this.dir, SEGMENT_SIZE, 1)) {
+            journal.put("live", 1000, bytes("live"));
+            journal.put("idle", 1000, bytes("idle"));
+            for (int i = 0; i < 5; i++) {
+                journal.put("garbage", 1000, bytes("garbage" + i));
+            }
+            //访问后的过期时间晚于压缩时间
+            journal.touch("live", 5000);
+            assertThat(journal.compactIfNecessary(2000)).isTrue();
+            assertThat(journal.contains("live")).isTrue();
+            assertThat(journal.contains("idle")).isFalse();
+            assertThat(journal.getExpirations(2000)).hasSize(1);
+        }
+    }
+
+    @Test
+    public void corruptTail() throws IOException {
+        try (SessionJournal journal = this.open()) {
+            journal.put("a", 1000, bytes("first"));
+            journal.put("b", 1000, bytes("second"));
+        }
+        //损坏最后一条记录的数据
+        File segment = this.segments()[0];
+        byte[] content = Files.readAllBytes(segment.toPath());
+        int offset = indexOf(content, bytes("second"));
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+            raf.seek(offset);
+            raf.write('S');
+        }
+        try (SessionJournal journal = this.open()) {
+            assertThat(journal.size()).isEqualTo(1);
+            assertThat(journal.read("a")).isEqualTo(bytes("first"));
+            assertThat(journal.contains("b")).isFalse();
+            //新记录覆盖损坏的尾部
+            journal.put("c", 1000, bytes("third"));
+        }
+        try (SessionJournal journal = this.open()) {
+            assertThat(journal.size()).isEqualTo(2);
+            assertThat(journal.read("c")).isEqualTo(bytes("third"));
+        }
+    }
+
+    @Test
+    public void crashRecovery() throws IOException {
+        //未关闭的日志，已写入映射内存的记录重新打开时可以读取
+        SessionJournal crashed = this.open();
+        crashed.put("a", 1000, bytes("a1"));
+        crashed.put("b", 1000, bytes("b1"));
+        crashed.remove("b");
+        try (SessionJournal journal = this.open()) {
+            assertThat(journal.size()).isEqualTo(1);
+            assertThat(journal.read("a")).isEqualTo(bytes("a1"));
+        }
+    }
+
+    @Test
+    public void crashDuringCompaction() throws IOException {
+        File backup = Files.createTempDirectory(this.dir.toPath(), "backup").toFile();
+        try (SessionJournal journal = SessionJournal.open(this.dir, SEGMENT_SIZE, 1)) {
+            for (int i = 0; i < 5; i++) {
+                journal.put("a", 5000, bytes("a" + i));
+            }
+            journal.put("b", 5000, bytes("b1"));
+            journal.touch("b", 6000);
+            journal.force();
+            for (File file : this.segments()) {
+                Files.copy(file.toPath(), new File(backup, file.getName()).toPath());
+            }
+            assertThat(journal.compactIfNecessary(0)).isTrue();
+        }
+        //旧分段删除前崩溃，新旧分段同时存在
+        for (File file : backup.listFiles()) {
+            Files.move(file.toPath(), new File(this.dir, file.getName()).toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        try (SessionJournal journal = this.open()) {
+            assertThat(journal.size()).isEqualTo(2);
+            assertThat(journal.read("a")).isEqualTo(bytes("a4"));
+            assertThat(journal.getExpiration("b")).isEqualTo(6000L);
+        }
+    }
+
+    @Test
+    public void closedJournalRejectsWrites() throws IOException {
+        SessionJournal journal = this.open();
+        journal.close();
+        assertThatThrownBy(() -> journal.put("a", 1000, bytes("a")))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("closed");
+        assertThat(journal.compactIfNecessary(0)).isFalse();
+    }
+
+    private SessionJournal open() throws IOException {
+        return SessionJournal.open(this.dir, SEGMENT_SIZE);
+    }
+
+    private File[] segments() {
+        File[] files = this.dir.listFiles((d, name) -> name.endsWith(".log"));
+        Arrays.sort(files);
+        return files;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int indexOf(byte[] content, byte[] value) {
+        for (int i = 0; i <= content.length - value.length; i++) {
+            if (Arrays.equals(Arrays.copyOfRange(content, i, i + value.length), value)) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("not found");
+    }
+}
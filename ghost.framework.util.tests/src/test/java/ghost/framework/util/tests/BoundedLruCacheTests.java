@@ -0,0 +1,116 @@
+package ghost.framework.util.tests;
+
+import ghost.framework.util.BoundedLruCache;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * package: ghost.framework.util.tests
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link BoundedLruCache} 测试
+ * @Date: 2020/6/15:10:40
+ */
+public class BoundedLruCacheTests {
+    @Test
+    public void evictLeastRecentlyUsed() {
+        BoundedLruCache<Integer, String> cache = new BoundedLruCache<>(3);
+        //同一分段内按访问顺序淘汰
+        cache.put(0, "a");
+        cache.put(16, "b");
+        cache.put(32, "c");
+        assertThat(cache.get(0)).isEqualTo("a");
+        cache.put(48, "d");
+        assertThat(cache.get(16)).isNull();
+        assertThat(cache.get(0)).isEqualTo("a");
+        assertThat(cache.get(32)).isEqualTo("c");
+        assertThat(cache.get(48)).isEqualTo("d");
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.getEvictionCount()).isEqualTo(1L);
+    }
+
+    @Test
+    public void evictAcrossSegmentsButNotNewValue() {
+        BoundedLruCache<Integer, String> cache = new BoundedLruCache<>(2);
+        cache.put(1, "a");
+        cache.put(2, "b");
+        //新值所在分段没有其它值时淘汰其它分段的值
+        cache.put(3, "c");
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get(3)).isEqualTo("c");
+    }
+
+    @Test
+    public void weightedValues() {
+        BoundedLruCache<String, byte[]> cache = new BoundedLruCache<>(10, value -> value.length);
+        cache.put("a", new byte[4]);
+        cache.put("b", new byte[4]);
+        assertThat(cache.getWeight()).isEqualTo(8L);
+        //替换值只计算权重差
+        cache.put("a", new byte[2]);
+        assertThat(cache.getWeight()).isEqualTo(6L);
+        cache.put("c", new byte[6]);
+        assertThat(cache.getWeight()).isLessThanOrEqualTo(10L);
+        assertThat(cache.get("c")).isNotNull();
+        cache.setMaxWeight(5);
+        assertThat(cache.getWeight()).isLessThanOrEqualTo(5L);
+        cache.clear();
+        assertThat(cache.getWeight()).isEqualTo(0L);
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void removeOnlyMatchingValue() {
+        BoundedLruCache<String, Object> cache = new BoundedLruCache<>(10);
+        Object a = new Object();
+        cache.put("k", a);
+        assertThat(cache.remove("k", new Object())).isFalse();
+        assertThat(cache.remove("k", a)).isTrue();
+        assertThat(cache.getWeight()).isEqualTo(0L);
+    }
+
+    @Test
+    public void concurrentPutsStayBounded() throws InterruptedException {
+        BoundedLruCache<Integer, byte[]> cache = new BoundedLruCache<>(1000, value -> value.length);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int base = t * 10000;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 5000; i++) {
+                    cache.put(base + i % 500, new byte[1 + i % 20]);
+                    cache.get(base + (i * 7) % 500);
+                    if (i % 11 == 0) {
+                        cache.remove(base + i % 500);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(cache.getWeight()).isLessThanOrEqualTo(1000L);
+        //总权重与剩余值一致
+        AtomicLong weight = new AtomicLong();
+        cache.removeIf((key, value) -> {
+            weight.addAndGet(value.length);
+            return false;
+        });
+        assertThat(cache.getWeight()).isEqualTo(weight.get());
+    }
+}
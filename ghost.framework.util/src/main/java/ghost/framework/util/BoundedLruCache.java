@@ -0,0 +1,298 @@
+package ghost.framework.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * package: ghost.framework.util
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:有容量限制的分段最近最少使用缓存
+ * 键按哈希分配到固定数量的分段，每个分段是按访问顺序排列的 {@link LinkedHashMap}，读写只锁定所在分段，
+ * 访问时由分段调整顺序，不使用全局访问时钟。
+ * 按值权重（默认每个值为1）限制总容量，超出容量时从写入所在分段开始轮流淘汰各分段最久未访问的值，
+ * 每次淘汰只删除一个值，不复制或排序缓存内容。
+ * @Date: 2020/6/15:10:20
+ */
+public final class BoundedLruCache<K, V> {
+    /**
+     * 分段数量，必须为2的幂
+     */
+    private static final int SEGMENTS = 16;
+    /**
+     * 分段列表
+     */
+    private final Segment<K, V>[] segments;
+    /**
+     * 值权重函数
+     */
+    private final ToLongFunction<? super V> weigher;
+    /**
+     * 当前总权重
+     */
+    private final AtomicLong weight = new AtomicLong();
+    /**
+     * 淘汰计数
+     */
+    private final LongAdder evictionCount = new LongAdder();
+    /**
+     * 缓存容量
+     */
+    private volatile long maxWeight;
+
+    /**
+     * 初始化按值数量限制容量的缓存
+     *
+     * @param maxSize 最大值数量
+     */
+    public BoundedLruCache(long maxSize) {
+        this(maxSize, value -> 1L);
+    }
+
+    /**
+     * 初始化按值权重限制容量的缓存
+     *
+     * @param maxWeight 缓存容量
+     * @param weigher   值权重函数，同一个值每次返回的权重必须相同
+     */
+    @SuppressWarnings("unchecked")
+    public BoundedLruCache(long maxWeight, ToLongFunction<? super V> weigher) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("BoundedLruCache is maxWeight must be positive");
+        }
+        Assert.notNull(weigher, "BoundedLruCache is weigher null error");
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            this.segments[i] = new Segment<>(i);
+        }
+    }
+
+    /**
+     * 获取值并标记为最近访问
+     *
+     * @param key 键
+     * @return 没有时返回null
+     */
+    public V get(K key) {
+        Segment<K, V> segment = this.segment(key);
+        synchronized (segment) {
+            return segment.map.get(key);
+        }
+    }
+
+    /**
+     * 添加值，超出容量时淘汰最久未访问的其它值
+     *
+     * @param key   键
+     * @param value 值
+     * @return 返回替换的旧值，没有时返回null
+     */
+    public V put(K key, V value) {
+        Segment<K, V> segment = this.segment(key);
+        V old;
+        synchronized (segment) {
+            old = segment.map.put(key, value);
+            this.weight.addAndGet(old == null ? this.weigher.applyAsLong(value) : this.weigher.applyAsLong(value) - this.weigher.applyAsLong(old));
+        }
+        this.evict(segment.index, key);
+        return old;
+    }
+
+    /**
+     * 删除值
+     *
+     * @param key 键
+     * @return 返回删除的值，没有时返回null
+     */
+    public V remove(K key) {
+        Segment<K, V> segment = this.segment(key);
+        synchronized (segment) {
+            V old = segment.map.remove(key);
+            if (old != null) {
+                this.weight.addAndGet(-this.weigher.applyAsLong(old));
+            }
+            return old;
+        }
+    }
+
+    /**
+     * 键对应的值与指定值相等时删除
+     *
+     * @param key   键
+     * @param value 值
+     * @return 返回是否已删除
+     */
+    public boolean remove(K key, V value) {
+        Segment<K, V> segment = this.segment(key);
+        synchronized (segment) {
+            if (segment.map.remove(key, value)) {
+                this.weight.addAndGet(-this.weigher.applyAsLong(value));
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 删除符合条件的值
+     *
+     * @param filter 删除条件
+     */
+    public void removeIf(BiPredicate<? super K, ? super V> filter) {
+        for (Segment<K, V> segment : this.segments) {
+            synchronized (segment) {
+                Iterator<Map.Entry<K, V>> iterator = segment.map.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<K, V> entry = iterator.next();
+                    if (filter.test(entry.getKey(), entry.getValue())) {
+                        iterator.remove();
+                        this.weight.addAndGet(-this.weigher.applyAsLong(entry.getValue()));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 清除全部值
+     */
+    public void clear() {
+        this.removeIf((key, value) -> true);
+    }
+
+    /**
+     * 从指定分段开始轮流淘汰各分段最久未访问的值，直到总权重不超过容量
+     * 所有分段都没有可淘汰的值时停止
+     *
+     * @param index   开始淘汰的分段位置
+     * @param exclude 不淘汰的键，为null时全部可淘汰
+     */
+    private void evict(int index, K exclude) {
+        int idle = 0;
+        while (this.weight.get() > this.maxWeight && idle < SEGMENTS) {
+            if (this.evictEldest(this.segments[index], exclude)) {
+                idle = 0;
+            } else {
+                idle++;
+            }
+            index = (index + 1) & (SEGMENTS - 1);
+        }
+    }
+
+    /**
+     * 淘汰分段最久未访问的值
+     *
+     * @param segment 分段
+     * @param exclude 不淘汰的键
+     * @return 返回是否已淘汰
+     */
+    private boolean evictEldest(Segment<K, V> segment, K exclude) {
+        synchronized (segment) {
+            Iterator<Map.Entry<K, V>> iterator = segment.map.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<K, V> entry = iterator.next();
+                if (exclude != null && exclude.equals(entry.getKey())) {
+                    continue;
+                }
+                iterator.remove();
+                this.weight.addAndGet(-this.weigher.applyAsLong(entry.getValue()));
+                this.evictionCount.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 获取键所在分段
+     *
+     * @param key 键
+     * @return
+     */
+    private Segment<K, V> segment(K key) {
+        int h = key.hashCode();
+        return this.segments[(h ^ (h >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    /**
+     * 获取缓存容量
+     *
+     * @return
+     */
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * 设置缓存容量
+     * 缩小容量时立即淘汰超出部分
+     *
+     * @param maxWeight 缓存容量
+     */
+    public void setMaxWeight(long maxWeight) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("BoundedLruCache is maxWeight must be positive");
+        }
+        this.maxWeight = maxWeight;
+        this.evict(0, null);
+    }
+
+    /**
+     * 获取当前总权重
+     *
+     * @return
+     */
+    public long getWeight() {
+        return weight.get();
+    }
+
+    /**
+     * 获取值数量
+     *
+     * @return
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : this.segments) {
+            synchronized (segment) {
+                size += segment.map.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 获取淘汰计数
+     *
+     * @return
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * 缓存分段
+     */
+    private static final class Segment<K, V> {
+        /**
+         * 分段位置
+         */
+        private final int index;
+        /**
+         * 按访问顺序排列的值，最久未访问的排在最前
+         */
+        private final LinkedHashMap<K, V> map = new LinkedHashMap<>(16, 0.75f, true);
+
+        Segment(int index) {
+            this.index = index;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.jcraft.jsch.Channel;
 import com.jcraft.jsch.JSch;
 
 import javax.websocket.Session;
+import java.io.OutputStream;
 
 /**
  * package: ghost.framework.web.angular1x.ssh.plugin.ws
@@ -11,6 +12,7 @@ import javax.websocket.Session;
  * @Author: 郭树灿{gsc-e590}
  * @link: 手机:13715848993, QQ 27048384
  * @Description:ssh客户端连接信息
+ * 连接线程设置连接对象，websocket线程读取发送命令或断开连接，连接对象字段使用volatile保证可见
  * @Date: 2020/8/31:21:00
  */
 final class SshClientConnectionInfo {
@@ -24,8 +26,8 @@ final class SshClientConnectionInfo {
         return session;
     }
 
-    private JSch jSch;
-    private Channel channel;
+    private volatile JSch jSch;
+    private volatile Channel channel;
 
     public void setChannel(Channel channel) {
         this.channel = channel;
@@ -48,4 +50,61 @@ final class SshClientConnectionInfo {
     public SshSocket getSocket() {
         return socket;
     }
+
+    /**
+     * ssh会话
+     */
+    private volatile com.jcraft.jsch.Session jschSession;
+
+    public com.jcraft.jsch.Session getJschSession() {
+        return jschSession;
+    }
+
+    public void setJschSession(com.jcraft.jsch.Session jschSession) {
+        this.jschSession = jschSession;
+    }
+
+    /**
+     * 终端输出
+     */
+    private volatile SshRelay.Terminal terminal;
+
+    public SshRelay.Terminal getTerminal() {
+        return terminal;
+    }
+
+    public void setTerminal(SshRelay.Terminal terminal) {
+        this.terminal = terminal;
+    }
+
+    /**
+     * 通道输入流，发送命令共用
+     */
+    private volatile OutputStream outputStream;
+
+    public OutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    public void setOutputStream(OutputStream outputStream) {
+        this.outputStream = outputStream;
+    }
+
+    /**
+     * 断开ssh连接
+     */
+    public void disconnect() {
+        SshRelay.Terminal terminal = this.terminal;
+        if (terminal != null) {
+            terminal.shutdown();
+        }
+        Channel channel = this.channel;
+        if (channel != null) {
+            channel.disconnect();
+        }
+        com.jcraft.jsch.Session jschSession = this.jschSession;
+        if (jschSession != null) {
+            jschSession.disconnect();
+        }
+    }
 }
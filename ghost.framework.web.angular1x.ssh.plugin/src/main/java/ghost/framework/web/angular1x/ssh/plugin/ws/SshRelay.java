@@ -0,0 +1,359 @@
+package ghost.framework.web.angular1x.ssh.plugin.ws;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.websocket.Session;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * package: ghost.framework.web.angular1x.ssh.plugin.ws
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:ssh终端转发引擎
+ * 全部终端共用一个有界线程池处理发送，终端输出由jsch会话线程写入 {@link Terminal}，不再为每个终端阻塞一个读取线程；
+ * 阻塞的ssh会话与通道连接在单独的连接线程池执行，连接慢的服务器不会占用发送线程。
+ * 输出按 {@link #maxFrameBytes} 与 {@link #lingerMillis} 合并为一个websocket消息异步发送，同一终端同时只有一个发送中的消息；
+ * 浏览器接收跟不上时缓存达到 {@link #highWaterBytes} 阻塞jsch会话线程，由ssh连接反压服务器。
+ * @Date: 2020/6/23:10:20
+ */
+final class SshRelay {
+    private static final Logger log = LoggerFactory.getLogger(SshRelay.class);
+    /**
+     * 共用转发引擎
+     */
+    private static final SshRelay instance = new SshRelay(Math.min(16, Runtime.getRuntime().availableProcessors() * 2), 32 * 1024, 20, 1024 * 1024);
+
+    /**
+     * 获取共用转发引擎
+     *
+     * @return
+     */
+    static SshRelay getInstance() {
+        return instance;
+    }
+
+    /**
+     * 发送线程池
+     */
+    private final ScheduledThreadPoolExecutor executor;
+    /**
+     * 连接线程池，空闲线程自动退出
+     */
+    private final ThreadPoolExecutor connectExecutor;
+    /**
+     * 在线终端数量
+     */
+    private final AtomicInteger onlineCount = new AtomicInteger();
+    /**
+     * 单个消息最大字节数
+     */
+    private final int maxFrameBytes;
+    /**
+     * 输出合并等待毫秒数
+     */
+    private final long lingerMillis;
+    /**
+     * 终端缓存反压字节数
+     */
+    private final int highWaterBytes;
+
+    /**
+     * 初始化ssh终端转发引擎
+     *
+     * @param threads        发送与连接线程数量
+     * @param maxFrameBytes  单个消息最大字节数
+     * @param lingerMillis   输出合并等待毫秒数
+     * @param highWaterBytes 终端缓存反压字节数
+     */
+    SshRelay(int threads, int maxFrameBytes, long lingerMillis, int highWaterBytes) {
+        AtomicInteger index = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(threads, r -> {
+            Thread thread = new Thread(r, "ssh-relay-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.setRemoveOnCancelPolicy(true);
+        AtomicInteger connectIndex = new AtomicInteger();
+        this.connectExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "ssh-connect-" + connectIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.connectExecutor.allowCoreThreadTimeOut(true);
+        this.maxFrameBytes = maxFrameBytes;
+        this.lingerMillis = lingerMillis;
+        this.highWaterBytes = highWaterBytes;
+    }
+
+    /**
+     * 在线数加1
+     *
+     * @return 返回当前在线数
+     */
+    int online() {
+        return this.onlineCount.incrementAndGet();
+    }
+
+    /**
+     * 在线数减1
+     *
+     * @return 返回当前在线数
+     */
+    int offline() {
+        return this.onlineCount.decrementAndGet();
+    }
+
+    /**
+     * 获取在线数
+     *
+     * @return
+     */
+    int getOnlineCount() {
+        return this.onlineCount.get();
+    }
+
+    /**
+     * 在连接线程池执行阻塞的连接任务
+     *
+     * @param command 连接任务
+     */
+    void connect(Runnable command) {
+        this.connectExecutor.execute(command);
+    }
+
+    /**
+     * 创建终端输出
+     *
+     * @param session websocket会话
+     * @param onEof   ssh通道输出结束时调用
+     * @return
+     */
+    Terminal newTerminal(Session session, Runnable onEof) {
+        return new Terminal(session, onEof);
+    }
+
+    /**
+     * 终端输出，作为jsch通道输出流使用
+     */
+    final class Terminal extends OutputStream {
+        /**
+         * websocket会话
+         */
+        private final Session session;
+        /**
+         * ssh通道输出结束时调用
+         */
+        private final Runnable onEof;
+        /**
+         * 未发送的输出
+         */
+        private final ArrayDeque<byte[]> pending = new ArrayDeque<>();
+        /**
+         * 第一个未发送输出已发送的位置
+         */
+        private int headOffset;
+        /**
+         * 未发送字节数
+         */
+        private int size;
+        /**
+         * 是否已经安排合并发送
+         */
+        private boolean scheduled;
+        /**
+         * 是否有发送中的消息
+         */
+        private boolean sending;
+        /**
+         * ssh通道输出是否结束
+         */
+        private boolean eof;
+        /**
+         * 终端是否已经关闭
+         */
+        private boolean closed;
+        /**
+         * utf-8解码器，保留跨消息截断的字符字节
+         */
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        /**
+         * 上个消息末尾未完成解码的字节
+         */
+        private byte[] carry = new byte[0];
+
+        private Terminal(Session session, Runnable onEof) {
+            this.session = session;
+            this.onEof = onEof;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            //浏览器接收跟不上时阻塞jsch会话线程
+            while (!this.closed && this.size >= highWaterBytes) {
+                try {
+                    this.wait(1000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+            if (this.closed) {
+                throw new IOException("terminal closed:" + this.session.getId());
+            }
+            this.pending.add(Arrays.copyOfRange(b, off, off + len));
+            this.size += len;
+            if (this.sending) {
+                //发送完成后继续发送
+                return;
+            }
+            if (this.size >= maxFrameBytes) {
+                executor.execute(this::send);
+            } else if (!this.scheduled) {
+                this.scheduled = true;
+                executor.schedule(this::send, lingerMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        /**
+         * ssh通道输出结束，发送剩余输出
+         */
+        @Override
+        public void close() {
+            synchronized (this) {
+                if (this.eof) {
+                    return;
+                }
+                this.eof = true;
+            }
+            executor.execute(this::send);
+            //断开ssh连接可能阻塞，在连接线程池执行
+            connectExecutor.execute(this.onEof);
+        }
+
+        /**
+         * websocket关闭，丢弃未发送输出并释放阻塞的jsch会话线程
+         */
+        synchronized void shutdown() {
+            this.closed = true;
+            this.pending.clear();
+            this.size = 0;
+            this.notifyAll();
+        }
+
+        /**
+         * 发送一个合并消息
+         */
+        private void send() {
+            String text;
+            synchronized (this) {
+                this.scheduled = false;
+                if (this.sending || this.size == 0 || this.closed) {
+                    return;
+                }
+                if (!this.session.isOpen()) {
+                    this.shutdown();
+                    return;
+                }
+                text = this.decode(this.take());
+                this.notifyAll();
+                if (text.isEmpty()) {
+                    //只有未完成的字符字节，等待后续输出
+                    return;
+                }
+                this.sending = true;
+            }
+            try {
+                this.session.getAsyncRemote().sendText(text, result -> {
+                    if (!result.isOK()) {
+                        log.error("发送数据错误，" + this.session.getId(), result.getException());
+                        this.shutdown();
+                    }
+                    synchronized (this) {
+                        this.sending = false;
+                        if (this.size > 0) {
+                            executor.execute(this::send);
+                        }
+                    }
+                });
+            } catch (RuntimeException e) {
+                log.error("发送数据错误，" + this.session.getId(), e);
+                synchronized (this) {
+                    this.sending = false;
+                }
+                this.shutdown();
+            }
+        }
+
+        /**
+         * 取出不超过单个消息最大字节数的输出
+         *
+         * @return
+         */
+        private byte[] take() {
+            byte[] frame = new byte[Math.min(this.size, maxFrameBytes)];
+            int n = 0;
+            while (n < frame.length) {
+                byte[] head = this.pending.peek();
+                int count = Math.min(head.length - this.headOffset, frame.length - n);
+                System.arraycopy(head, this.headOffset, frame, n, count);
+                n += count;
+                this.headOffset += count;
+                if (this.headOffset == head.length) {
+                    this.pending.poll();
+                    this.headOffset = 0;
+                }
+            }
+            this.size -= n;
+            return frame;
+        }
+
+        /**
+         * 解码输出，末尾未完成的字符字节留到下个消息
+         *
+         * @param frame 输出字节
+         * @return
+         */
+        private String decode(byte[] frame) {
+            ByteBuffer in;
+            if (this.carry.length == 0) {
+                in = ByteBuffer.wrap(frame);
+            } else {
+                in = ByteBuffer.allocate(this.carry.length + frame.length);
+                in.put(this.carry).put(frame);
+                in.flip();
+            }
+            CharBuffer out = CharBuffer.allocate(in.remaining());
+            this.decoder.decode(in, out, this.eof && this.size == 0);
+            this.carry = new byte[in.remaining()];
+            in.get(this.carry);
+            out.flip();
+            return out.toString();
+        }
+    }
+}
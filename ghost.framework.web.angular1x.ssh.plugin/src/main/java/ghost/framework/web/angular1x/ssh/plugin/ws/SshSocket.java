@@ -1,6 +1,5 @@
 package ghost.framework.web.angular1x.ssh.plugin.ws;
 
-import com.jcraft.jsch.Channel;
 import com.jcraft.jsch.JSch;
 import com.jcraft.jsch.JSchException;
 import ghost.framework.beans.annotation.application.Application;
@@ -18,22 +17,20 @@ import org.slf4j.LoggerFactory;
 import javax.websocket.*;
 import javax.websocket.server.ServerEndpoint;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
-import java.util.Arrays;
 import java.util.Map;
 import java.util.Properties;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * package: ghost.framework.web.angular1x.ssh.plugin
  *
  * @Author: 郭树灿{gsc-e590}
  * @link: 手机:13715848993, QQ 27048384
- * @Description:
+ * @Description:web ssh终端
+ * 连接与输出转发由 {@link SshRelay} 共用的连接线程池与发送线程池处理
  * @Date: 2020/8/30:19:02
  */
 @ServerEndpoint(
@@ -54,8 +51,10 @@ public class SshSocket {
     @Autowired
     private IModule module;
     private static final Logger log = LoggerFactory.getLogger(SshSocket.class);
-    // 静态变量，用来记录当前在线连接数。应该把它设计成线程安全的。
-    private static int onlineCount = 0;
+    /**
+     * 共用ssh终端转发引擎，记录在线连接数
+     */
+    private static final SshRelay relay = SshRelay.getInstance();
     /**
      * 发送指令：连接
      */
@@ -64,8 +63,10 @@ public class SshSocket {
      * 发送指令：命令
      */
     private static final String OPERATE_COMMAND = "command";
-    //线程池
-    private ExecutorService executorService = Executors.newCachedThreadPool();
+    /**
+     * 是否已经关闭，避免重复关闭时在线数重复减1
+     */
+    private final AtomicBoolean closed = new AtomicBoolean();
     //存放ssh连接信息
     private SshClientConnectionInfo connectionInfo;
     /**
@@ -78,10 +79,7 @@ public class SshSocket {
         }
         see.setMaxIdleTimeout(Integer.MAX_VALUE);
         this.connectionInfo = new SshClientConnectionInfo(this, see);
-        onlineCount++; // 在线数加1
-        if (log.isDebugEnabled()) {
-            log.debug("有新连接加入:" + see.getId() + "->当前在线人数为:" + onlineCount);
-        }
+        int onlineCount = relay.online(); // 在线数加1
         if (log.isInfoEnabled()) {
             log.info("有新连接加入:" + see.getId() + "->当前在线人数为:" + onlineCount);
         }
@@ -93,7 +91,16 @@ public class SshSocket {
     @OnClose
     public void onClose(Session see) {
 //        sshMap.remove(see.getId()); // 从set中删除
-        onlineCount--; // 在线数减1
+        if (!this.closed.compareAndSet(false, true)) {
+            return;
+        }
+        int onlineCount = relay.offline(); // 在线数减1
+        if (this.connectionInfo != null) {
+            this.connectionInfo.disconnect();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("连接关闭:" + see.getId() + "->当前在线人数为:" + onlineCount);
+        }
     }
     /**
      * 收到客户端消息后调用的方法
@@ -102,7 +109,6 @@ public class SshSocket {
      */
     @OnMessage
     public void onMessage(String message, Session see) throws IOException, SQLException {
-        System.out.println(message);
         SshClientData clientData = toObjectConverter.toObject(message, SshClientData.class);
         //连接
         if (clientData.getOperate().equals(OPERATE_CONNECT)) {
@@ -125,7 +131,7 @@ public class SshSocket {
             clientData.setType(map.get("typeName"));
             clientData.setVersion(map.get("version"));
             //
-            executorService.execute(new Runnable() {
+            relay.connect(new Runnable() {
                 @Override
                 public void run() {
                     try {
@@ -141,7 +147,7 @@ public class SshSocket {
             String command = clientData.getCommand();
             if (connectionInfo != null) {
                 try {
-                    transToSSH(connectionInfo.getChannel(), command);
+                    transToSSH(connectionInfo.getOutputStream(), command);
                 } catch (IOException e) {
                     log.error("webssh连接异常");
                     log.error("异常信息:{}", e.getMessage());
@@ -153,7 +159,7 @@ public class SshSocket {
             onClose(see);
         }
         if (log.isDebugEnabled()) {
-            log.debug("接收消息:" + see.getId() + "->内容:" + onlineCount);
+            log.debug("接收消息:" + see.getId() + "->内容:" + message);
         }
     }
 
@@ -167,47 +173,37 @@ public class SshSocket {
         jschSession.setConfig(config);
         //设置密码
         jschSession.setPassword(clientData.getPassword());
+        connectionInfo.setJschSession(jschSession);
         //连接超时时间30s
         jschSession.connect(clientData.getTimeout());
         //开启shell通道
-        connectionInfo.setChannel(jschSession.openChannel("shell"));
-        //通道连接 超时时间3s
-        connectionInfo.getChannel().connect(clientData.getChannelTimeout());
-        //转发消息
-//        connectionInfo.getSession().getBasicRemote().sendText("\r" + clientData.getType() + ":" + clientData.getVersion() + "\r");
-//        transToSSH(connectionInfo.getChannel(), "\r");
-        //读取终端返回的信息流
-        InputStream inputStream = connectionInfo.getChannel().getInputStream();
-        try {
-            //循环读取
-            byte[] buffer = new byte[1024];
-            int i;
-            //如果没有数据来，线程会一直阻塞在这个地方等待数据。
-            while ((i = inputStream.read(buffer)) != -1) {
-                sendMessage(connectionInfo.getSession(), Arrays.copyOfRange(buffer, 0, i));
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-        } finally {
-            //断开连接后关闭会话
+        com.jcraft.jsch.Channel channel = jschSession.openChannel("shell");
+        connectionInfo.setChannel(channel);
+        //终端输出由jsch会话线程直接写入转发引擎，输出结束后断开连接
+        SshRelay.Terminal terminal = relay.newTerminal(connectionInfo.getSession(), () -> {
+            channel.disconnect();
             jschSession.disconnect();
-            connectionInfo.getChannel().disconnect();
-            if (inputStream != null) {
-                inputStream.close();
-            }
+        });
+        connectionInfo.setTerminal(terminal);
+        channel.setOutputStream(terminal);
+        //通道连接 超时时间3s
+        channel.connect(clientData.getChannelTimeout());
+        connectionInfo.setOutputStream(channel.getOutputStream());
+        //连接过程中websocket已经关闭
+        if (this.closed.get()) {
+            connectionInfo.disconnect();
         }
     }
 
     /**
      * @Description: 将消息转发到终端
-     * @Param: [channel, data]
+     * @Param: [outputStream, command]
      * @return: void
      * @Author: NoCortY
      * @Date: 2020/3/7
      */
-    private void transToSSH(Channel channel, String command) throws IOException {
-        if (channel != null) {
-            OutputStream outputStream = channel.getOutputStream();
+    private void transToSSH(OutputStream outputStream, String command) throws IOException {
+        if (outputStream != null) {
             outputStream.write(command.getBytes(StandardCharsets.UTF_8));
             outputStream.flush();
         }
@@ -221,19 +217,4 @@ public class SshSocket {
         log.error("发生错误！：" + error.getMessage());
         error.printStackTrace();
     }
-
-    /**
-     * 给当前客户端发送消息
-     *
-     * @param message 字符串消息
-     * @throws IOException
-     */
-    private void sendMessage(Session sess, byte[] message) {
-        try {
-            sess.getBasicRemote().sendText(new String(message, StandardCharsets.UTF_8));
-        } catch (IOException e) {
-            e.printStackTrace();
-            log.error("发送数据错误，" + sess.getId() + ",msg：" + message);
-        }
-    }
 }
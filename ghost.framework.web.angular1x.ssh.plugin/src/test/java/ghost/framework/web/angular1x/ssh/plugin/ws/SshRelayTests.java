@@ -0,0 +1,221 @@
+package ghost.framework.web.angular1x.ssh.plugin.ws;
+
+import org.junit.jupiter.api.Test;
+
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * package: ghost.framework.web.angular1x.ssh.plugin.ws
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link SshRelay} 终端输出合并发送与反压测试
+ * @Date: 2020/6/26:18:40
+ */
+public class SshRelayTests {
+    /**
+     * 已发送的消息
+     */
+    private final BlockingQueue<String> texts = new LinkedBlockingQueue<>();
+    /**
+     * 未完成的发送回调
+     */
+    private final BlockingQueue<SendHandler> handlers = new LinkedBlockingQueue<>();
+    /**
+     * 发送后是否立即完成
+     */
+    private volatile boolean autoComplete = true;
+    private volatile boolean open = true;
+
+    @Test
+    public void coalesceSmallWrites() throws Exception {
+        SshRelay.Terminal terminal = new SshRelay(2, 1024, 50, 1024 * 1024).newTerminal(this.session(), () -> {
+        });
+        terminal.write(this.bytes("a"));
+        terminal.write(this.bytes("b"));
+        terminal.write(this.bytes("c"));
+        //合并等待时间内的输出作为一个消息发送
+        assertThat(this.texts.poll(5, TimeUnit.SECONDS)).isEqualTo("abc");
+        assertThat(this.texts.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    public void splitFrameKeepsUtf8Characters() throws Exception {
+        SshRelay.Terminal terminal = new SshRelay(2, 4, 10_000, 1024 * 1024).newTerminal(this.session(), () -> {
+        });
+        //6个字节超过单个消息最大字节数，立即发送且第二个字符被截断
+        terminal.write(this.bytes("中文"));
+        assertThat(this.texts.poll(5, TimeUnit.SECONDS)).isEqualTo("中");
+        assertThat(this.texts.poll(5, TimeUnit.SECONDS)).isEqualTo("文");
+        assertThat(this.texts.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    public void oneMessageInFlight() throws Exception {
+        this.autoComplete = false;
+        SshRelay.Terminal terminal = new SshRelay(2, 1024, 10, 1024 * 1024).newTerminal(this.session(), () -> {
+        });
+        terminal.write(this.bytes("a"));
+        assertThat(this.texts.poll(5, TimeUnit.SECONDS)).isEqualTo("a");
+        terminal.write(this.bytes("b"));
+        terminal.write(this.bytes("c"));
+        //上个消息未完成前不发送
+        assertThat(this.texts.poll(200, TimeUnit.MILLISECONDS)).isNull();
+        this.handlers.take().onResult(new SendResult());
+        assertThat(this.texts.poll(5, TimeUnit.SECONDS)).isEqualTo("bc");
+    }
+
+    @Test
+    public void blockWriterAtHighWater() throws Exception {
+        this.autoComplete = false;
+        SshRelay.Terminal terminal = new SshRelay(2, 2, 10, 4).newTerminal(this.session(), () -> {
+        });
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> future = this.fill(writer, terminal);
+            //发送中的消息未完成，缓存达到反压字节数
+            assertThatThrownBy(() -> future.get(300, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+            //完成发送后取出下个消息，释放阻塞的写入线程
+            this.handlers.take().onResult(new SendResult());
+            future.get(5, TimeUnit.SECONDS);
+            assertThat(this.texts.poll(5, TimeUnit.SECONDS)).isEqualTo("cd");
+            this.handlers.take().onResult(new SendResult());
+            assertThat(this.texts.poll(5, TimeUnit.SECONDS)).isEqualTo("ef");
+        } finally {
+            writer.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shutdownReleasesBlockedWriter() throws Exception {
+        this.autoComplete = false;
+        SshRelay.Terminal terminal = new SshRelay(2, 2, 10, 4).newTerminal(this.session(), () -> {
+        });
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> future = this.fill(writer, terminal);
+            assertThatThrownBy(() -> future.get(300, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+            terminal.shutdown();
+            assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(IOException.class);
+        } finally {
+            writer.shutdownNow();
+        }
+        assertThatThrownBy(() -> terminal.write(this.bytes("x"))).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void closeFlushesAndRunsOnEof() throws Exception {
+        CountDownLatch eof = new CountDownLatch(1);
+        SshRelay.Terminal terminal = new SshRelay(2, 1024, 10_000, 1024 * 1024).newTerminal(this.session(), eof::countDown);
+        terminal.write(this.bytes("exit"));
+        //结束时不等待合并时间
+        terminal.close();
+        assertThat(this.texts.poll(5, TimeUnit.SECONDS)).isEqualTo("exit");
+        assertThat(eof.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void closedSessionShutdownTerminal() throws Exception {
+        this.open = false;
+        SshRelay.Terminal terminal = new SshRelay(2, 1, 10, 1024 * 1024).newTerminal(this.session(), () -> {
+        });
+        terminal.write(this.bytes("a"));
+        assertThat(this.texts.poll(300, TimeUnit.MILLISECONDS)).isNull();
+        //发送线程发现会话关闭后终端关闭
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                terminal.write(this.bytes("b"));
+            } catch (IOException e) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("terminal not closed");
+    }
+
+    @Test
+    public void failedSendShutdownTerminal() throws Exception {
+        this.autoComplete = false;
+        SshRelay.Terminal terminal = new SshRelay(2, 1, 10, 1024 * 1024).newTerminal(this.session(), () -> {
+        });
+        terminal.write(this.bytes("a"));
+        this.handlers.take().onResult(new SendResult(new IOException("broken pipe")));
+        assertThatThrownBy(() -> terminal.write(this.bytes("b"))).isInstanceOf(IOException.class);
+    }
+
+    /**
+     * 在写入线程写入7个字节，最后1个字节在缓存达到反压字节数时阻塞
+     *
+     * @param writer   写入线程
+     * @param terminal 终端输出
+     * @return
+     */
+    private Future<?> fill(ExecutorService writer, SshRelay.Terminal terminal) {
+        return writer.submit(() -> {
+            //4个字节，立即发送前2个字节
+            terminal.write(this.bytes("abcd"));
+            assertThat(this.texts.poll(5, TimeUnit.SECONDS)).isEqualTo("ab");
+            //发送中继续缓存，达到反压字节数
+            terminal.write(this.bytes("ef"));
+            terminal.write(this.bytes("g"));
+            return null;
+        });
+    }
+
+    private byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 创建记录发送消息的websocket会话
+     *
+     * @return
+     */
+    private Session session() {
+        RemoteEndpoint.Async remote = (RemoteEndpoint.Async) Proxy.newProxyInstance(this.getClass().getClassLoader(), new Class<?>[]{RemoteEndpoint.Async.class}, (proxy, method, args) -> {
+            if (!method.getName().equals("sendText")) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            this.texts.add((String) args[0]);
+            if (this.autoComplete) {
+                ((SendHandler) args[1]).onResult(new SendResult());
+            } else {
+                this.handlers.add((SendHandler) args[1]);
+            }
+            return null;
+        });
+        return (Session) Proxy.newProxyInstance(this.getClass().getClassLoader(), new Class<?>[]{Session.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getId":
+                    return "test";
+                case "isOpen":
+                    return this.open;
+                case "getAsyncRemote":
+                    return remote;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+}
@@ -1,6 +1,7 @@
 package ghost.framework.web.context.http.request;
 
 import ghost.framework.context.module.IModule;
+import ghost.framework.context.proxy.IMethodAdvice;
 import ghost.framework.context.proxy.IMethodInvocationHandler;
 import ghost.framework.web.context.controller.IControllerExceptionHandlerContainer;
 import ghost.framework.web.context.http.request.method.returnValue.IRequestMethodReturnValueResolverContainer;
@@ -18,9 +19,10 @@ import java.lang.reflect.Method;
  * @Author: 郭树灿{guo-w541}
  * @link: 手机:13715848993, QQ 27048384
  * @Description:web控制器Cglib代理回调类
+ * 作为函数通知由cglib编译调用拦截器调用，同步上下文保存在调用栈中，多个请求线程同时调用同一控制器时互不影响。
  * @Date: 2020/2/28:15:39
  */
-public final class HttpRequestMethodProxy<T> implements IMethodInvocationHandler<T> {
+public final class HttpRequestMethodProxy<T> implements IMethodInvocationHandler<T>, IMethodAdvice<HttpServletContext> {
     /**
      * 初始化web控制器Cglib代理回调类
      *
@@ -68,14 +70,10 @@ public final class HttpRequestMethodProxy<T> implements IMethodInvocationHandler
      * 日志
      */
     private static Logger logger = Logger.getLogger(HttpRequestMethodProxy.class);
-    /**
-     * 同步上下文
-     */
-    private HttpServletContext context;
-
     /**
      * 代理调用
      * 代理调用 {@link HttpRequestMethod#invoke(Object[])} 函数
+     * cglib代理使用 {@link ghost.framework.context.proxy.cglib.CglibMethodInterceptor} 编译调用，此函数作为其它代理方式的反射调用
      * @param o       代理对象忽略
      * @param method
      * @param objects
@@ -86,20 +84,20 @@ public final class HttpRequestMethodProxy<T> implements IMethodInvocationHandler
     public Object invoke(Object o, Method method, Object[] objects) throws Throwable {
         Object r = null;
         Throwable throwable = null;
+        //同步上下文，保存在调用栈中
+        HttpServletContext context = null;
         try {
-            //获取同步上下文
-            this.context = ServletContextHeader.HttpServletContextHolder.get();
             //调用函数前
-            this.before(method, objects);
+            context = this.before(this.target, method, objects);
             //调用函数
             r = method.invoke(this.target, objects);
             //调用函数后
-            this.after(method, objects);
+            this.after(context, this.target, method, objects, r);
         } catch (InvocationTargetException e) {
             //获取错误源
             throwable = e.getTargetException();
             //调用错误函数
-            if (!this.throwing(method, objects, throwable)) {
+            if (!this.throwing(context, this.target, method, objects, throwable)) {
                 //没有处理错误，继续传播
                 throw throwable;
             }
@@ -107,7 +105,7 @@ public final class HttpRequestMethodProxy<T> implements IMethodInvocationHandler
             //获取错误源
             throwable = e.getCause();
             //调用错误函数
-            if (!this.throwing(method, objects, throwable)) {
+            if (!this.throwing(context, this.target, method, objects, throwable)) {
                 //没有处理错误，继续传播
                 throw throwable;
             }
@@ -115,65 +113,95 @@ public final class HttpRequestMethodProxy<T> implements IMethodInvocationHandler
             //获取错误源
             throwable = e.getCause();
             //调用错误函数
-            if (!this.throwing(method, objects, throwable)) {
+            if (!this.throwing(context, this.target, method, objects, throwable)) {
                 //没有处理错误，继续传播
                 throw throwable;
             }
         } finally {
             //调用后
-            this.afterProcessing(method, objects, throwable);
+            this.afterProcessing(context, this.target, method, objects, throwable);
         }
         return r;
     }
 
+    /**
+     * 只通知控制器声明的函数，不通知 {@link Object} 的函数
+     *
+     * @param method 代理函数
+     * @return
+     */
+    @Override
+    public boolean matches(Method method) {
+        return method.getDeclaringClass() != Object.class;
+    }
+
     /**
      * 函数调用前处理
      *
+     * @param target
      * @param method
      * @param objects
+     * @return 返回同步上下文
      */
-    private void before(Method method, Object[] objects) {
+    @Override
+    public HttpServletContext before(Object target, Method method, Object[] objects) {
         if (logger.isDebugEnabled()) {
-            logger.debug("before:" + this.target.toString() + ">method:" + method.getName() + ">objects:" + (objects == null ? "" : objects.length));
+            logger.debug("before:" + target.toString() + ">method:" + method.getName() + ">objects:" + (objects == null ? "" : objects.length));
         }
+        //获取同步上下文
+        return ServletContextHeader.HttpServletContextHolder.get();
     }
+
     /**
      * 函数调用后处理
      *
+     * @param context 同步上下文
+     * @param target
      * @param method
      * @param objects
+     * @param result
      */
-    private void after(Method method, Object[] objects) {
+    @Override
+    public void after(HttpServletContext context, Object target, Method method, Object[] objects, Object result) {
         if (logger.isDebugEnabled()) {
-            logger.debug("after:" + this.target.toString() + ">method:" + method.getName() + ">objects:" + (objects == null ? "" : objects.length));
+            logger.debug("after:" + target.toString() + ">method:" + method.getName() + ">objects:" + (objects == null ? "" : objects.length));
         }
     }
+
     /**
      * 函数调用后处理
      *
+     * @param context   同步上下文
+     * @param target
      * @param method
      * @param objects
      * @param throwable 是否调用过程有出现错误，如果未出现错误为null
      */
-    private void afterProcessing(Method method, Object[] objects, Throwable throwable) {
+    @Override
+    public void afterProcessing(HttpServletContext context, Object target, Method method, Object[] objects, Throwable throwable) {
         if (logger.isDebugEnabled()) {
-            logger.debug("afterProcessing:" + this.target.toString() + ">method:" + method.getName() + ">objects:" + (objects == null ? "" : objects.length) + ">throwable:" + (throwable == null ? "" : throwable.toString()));
+            logger.debug("afterProcessing:" + target.toString() + ">method:" + method.getName() + ">objects:" + (objects == null ? "" : objects.length) + ">throwable:" + (throwable == null ? "" : throwable.toString()));
         }
     }
 
     /**
      * 调用函数错误
      *
+     * @param context   同步上下文
+     * @param target
      * @param method
      * @param objects
      * @param throwable 错误对象
      */
-    private boolean throwing(Method method, Object[] objects, Throwable throwable) {
+    @Override
+    public boolean throwing(HttpServletContext context, Object target, Method method, Object[] objects, Throwable throwable) {
         if (logger.isDebugEnabled()) {
-            logger.debug("throwing:" + this.target.toString() + ">method:" + method.getName() + ">objects:" + (objects == null ? "" : objects.length) + ">throwable:" + (throwable == null ? "" : throwable.toString()));
+            logger.debug("throwing:" + target.toString() + ">method:" + method.getName() + ">objects:" + (objects == null ? "" : objects.length) + ">throwable:" + (throwable == null ? "" : throwable.toString()));
         }
         //解析返回值
-        this.context.getRequest().setAttribute(WebUtils.PROXY_ERROR_EXCEPTION_ATTRIBUTE, throwable);
+        if (context != null) {
+            context.getRequest().setAttribute(WebUtils.PROXY_ERROR_EXCEPTION_ATTRIBUTE, throwable);
+        }
 //        ExceptionHandlerMethod handlerMethod = this.exceptionHandlerContainer.get(throwable.getClass());
 //        if (handlerMethod != null) {
 //            this.methodReturnValueResolverContainer.resolveReturnValue(handlerMethod, this.exceptionHandlerContainer.exception(handlerMethod, throwable));
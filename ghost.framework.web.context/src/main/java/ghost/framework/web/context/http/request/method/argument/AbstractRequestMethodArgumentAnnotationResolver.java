@@ -12,4 +12,14 @@ package ghost.framework.web.context.http.request.method.argument;
 public abstract class AbstractRequestMethodArgumentAnnotationResolver
         extends AbstractRequestMethodArgumentResolver
         implements IRequestMethodArgumentAnnotationResolver {
+    /**
+     * 注释解析器只按参数注释判断，解析器选择结果可以缓存
+     * 子类重写 {@link #isResolver} 并依赖请求内容判断时需要重写此函数返回false
+     *
+     * @return
+     */
+    @Override
+    public boolean isCacheResolver() {
+        return true;
+    }
 }
\ No newline at end of file
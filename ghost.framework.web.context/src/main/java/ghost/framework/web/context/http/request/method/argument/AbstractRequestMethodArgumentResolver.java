@@ -51,4 +51,14 @@ public abstract class AbstractRequestMethodArgumentResolver
                               @NotNull IHttpRequestMethod requestMethod, @NotNull NameParameter parameter) throws ResolverException {
         return this.isMethod(request, response, requestMethod) && this.isConsume(request, response, requestMethod);
     }
+
+    /**
+     * 默认判断依赖请求模式与内容类型，解析器选择结果不能缓存
+     *
+     * @return
+     */
+    @Override
+    public boolean isCacheResolver() {
+        return false;
+    }
 }
\ No newline at end of file
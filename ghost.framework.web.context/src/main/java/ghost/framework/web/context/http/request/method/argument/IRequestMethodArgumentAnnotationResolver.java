@@ -50,6 +50,16 @@ public interface IRequestMethodArgumentAnnotationResolver
         return this.isAnnotation(request, response, requestMethod, parameter) || this.isResolverType(request, response, requestMethod, parameter);
     }
 
+    /**
+     * 默认只判断参数注释与参数类型，解析器选择结果可以缓存
+     *
+     * @return
+     */
+    @Override
+    default boolean isCacheResolver() {
+        return true;
+    }
+
     /**
      * 获取解析器的注释类型
      *
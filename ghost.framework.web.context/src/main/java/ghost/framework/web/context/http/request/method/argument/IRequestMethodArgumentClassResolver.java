@@ -53,6 +53,16 @@ public interface IRequestMethodArgumentClassResolver
         return this.isResolverType(request, response, requestMethod, parameter);
     }
 
+    /**
+     * 默认只判断参数类型，解析器选择结果可以缓存
+     *
+     * @return
+     */
+    @Override
+    default boolean isCacheResolver() {
+        return true;
+    }
+
     /**
      * 获取解析器的类型
      *
@@ -138,6 +138,15 @@ public interface IRequestMethodArgumentResolver extends IGetApplication {
 	 */
 	boolean isResolver(@NotNull HttpServletRequest request, @NotNull HttpServletResponse response,
 					   @NotNull IHttpRequestMethod requestMethod, @NotNull NameParameter parameter) throws ResolverException;
+	/**
+	 * 判断 {@link #isResolver(HttpServletRequest, HttpServletResponse, IHttpRequestMethod, NameParameter)} 是否只依赖请求函数与参数
+	 * 返回true时解析器的选择结果将缓存在请求函数的执行计划中，之后的请求不再重新判断
+	 * 判断结果依赖请求内容（请求模式、内容类型、请求属性等）的解析器必须返回false
+	 * @return
+	 */
+	default boolean isCacheResolver() {
+		return false;
+	}
 	/**
 	 * 判断自定义请求解析类型
 	 * @param requestMethod
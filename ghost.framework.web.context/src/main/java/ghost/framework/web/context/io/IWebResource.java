@@ -15,6 +15,14 @@ import java.util.Date;
  * @Date: 2020/3/14:15:07
  */
 public interface IWebResource extends IResource {
+    /**
+     * gzip内容编码
+     */
+    String ENCODING_GZIP = "gzip";
+    /**
+     * deflate内容编码
+     */
+    String ENCODING_DEFLATE = "deflate";
     /**
      * 获取资源所在域
      * @return
@@ -24,6 +32,16 @@ public interface IWebResource extends IResource {
     default ETag getETag(){
         return null;
     }
+    /**
+     * 获取指定内容编码的预压缩数据
+     *
+     * @param encoding 内容编码，如gzip、deflate
+     * @return 没有该编码数据时返回null，由调用方返回原始数据
+     */
+    default byte[] getEncodedBytes(String encoding) {
+        return null;
+    }
+
     /**
      * 获取过期时间
      * @return
@@ -3,12 +3,15 @@ package ghost.framework.web.context.io;
 import ghost.framework.context.io.IResourceDomain;
 import ghost.framework.util.Assert;
 import ghost.framework.util.FileUtil;
+import ghost.framework.web.context.utils.DateUtils;
 import ghost.framework.web.context.utils.ETag;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Map;
 
 /**
  * package: ghost.framework.web.context.io
@@ -20,15 +23,33 @@ import java.util.Date;
  */
 public class WebResource implements IWebResource {
     public WebResource(String path, long lastModified, byte[] bytes, IResourceDomain domain) {
+        this(path, lastModified, bytes, domain, Collections.emptyMap());
+    }
+
+    /**
+     * 初始化web资源
+     *
+     * @param path         资源路径
+     * @param lastModified 修改时间
+     * @param bytes        原始数据
+     * @param domain       资源域
+     * @param encodedMap   预压缩数据地图，键为内容编码
+     */
+    public WebResource(String path, long lastModified, byte[] bytes, IResourceDomain domain, Map<String, byte[]> encodedMap) {
         Assert.notNullOrEmpty(path, "WebResource in path null error");
         Assert.notNull(bytes, "WebResource in bytes null error");
         Assert.notNull(domain, "WebResource in domain null error");
+        Assert.notNull(encodedMap, "WebResource in encodedMap null error");
         this.path = path;
         //初始化文件扩展名
         this.extensionName = FileUtil.getExtensionName(this.path);
         this.lastModified = lastModified;
         this.bytes = bytes;
         this.domain = domain;
+        this.encodedMap = encodedMap;
+        //资源内容不变，创建时计算etag与修改时间字符串，响应时不再重复计算
+        this.etag = new ETag(false, Long.toHexString(lastModified) + "-" + Integer.toHexString(bytes.length));
+        this.lastModifiedString = DateUtils.toDateString(new Date(lastModified));
         //初始化资源过期时间
         this.expiredDate = new Date();
     }
@@ -85,9 +106,11 @@ public class WebResource implements IWebResource {
 
     private final String extensionName;
 
+    private final String lastModifiedString;
+
     @Override
     public String getLastModifiedString() {
-        return null;
+        return lastModifiedString;
     }
 
     private final byte[] bytes;
@@ -114,8 +137,20 @@ public class WebResource implements IWebResource {
         return domain;
     }
 
+    private final ETag etag;
+
     @Override
     public ETag getETag() {
-        return null;
+        return etag;
+    }
+
+    /**
+     * 预压缩数据地图
+     */
+    private final Map<String, byte[]> encodedMap;
+
+    @Override
+    public byte[] getEncodedBytes(String encoding) {
+        return encodedMap.get(encoding);
     }
 }
\ No newline at end of file
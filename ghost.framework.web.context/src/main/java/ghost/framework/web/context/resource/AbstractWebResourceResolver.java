@@ -14,10 +14,10 @@ import org.apache.commons.logging.LogFactory;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Date;
+import java.util.regex.Pattern;
 
 /**
  * package: ghost.framework.web.module.http.response
@@ -28,14 +28,29 @@ import java.util.Date;
  * @Date: 2020/3/14:23:48
  */
 public abstract class AbstractWebResourceResolver implements IWebResourceResolver {
+    /**
+     * 单个字节分段格式，bytes=a-b、bytes=a-、bytes=-n
+     */
+    private static final Pattern SINGLE_RANGE = Pattern.compile("bytes=\\s*(\\d+\\s*-\\s*\\d*|-\\s*\\d+)\\s*");
     protected final Log logger = LogFactory.getLog(getClass());
 
     @Override
     public void resolver(String path, HttpServletRequest request, HttpServletResponse response, final IWebResource resource) throws IOException {
-        //获取资源的etag对象
-        final ETag etag = resource.getETag();
+        //获取请求分段
+        final String range = this.getRange(request, resource);
+        //选择内容编码，分段请求按原始数据计算位置，不使用压缩数据
+        final String encoding = range == null ? this.getEncoding(request.getHeader(HttpHeaders.ACCEPT_ENCODING), resource) : null;
+        //获取资源的etag对象，压缩数据使用独立的etag
+        final ETag etag = encoding == null || resource.getETag() == null ? resource.getETag() : new ETag(false, resource.getETag().getTag() + "-" + encoding);
         //获取资源文件修改时间
         final Date lastModified = new Date(resource.lastModified());
+        //有压缩数据的资源响应内容随请求编码变化，304响应同样需要
+        if (resource.getEncodedBytes(IWebResource.ENCODING_GZIP) != null || resource.getEncodedBytes(IWebResource.ENCODING_DEFLATE) != null) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (etag != null) {
+            response.setHeader(HttpHeaders.ETAG, etag.toString());
+        }
         //处理文件缓存
         if (!ETagUtils.handleIfMatch(request.getHeader(HttpHeaders.IF_MATCH), etag, false) ||
                 !DateUtils.handleIfUnmodifiedSince(request.getHeader(HttpHeaders.IF_UNMODIFIED_SINCE), lastModified)) {
@@ -65,86 +80,137 @@ public abstract class AbstractWebResourceResolver implements IWebResourceResolve
                 }
             }
         }
-        //判断资源是否有修改时间
-        if (lastModified != null) {
-            //设置文件修改时间
+        //设置文件修改时间
+        if (resource.getLastModifiedString() != null) {
             response.setHeader(HttpHeaders.LAST_MODIFIED, resource.getLastModifiedString());
         }
-        if (etag != null) {
-            response.setHeader(HttpHeaders.ETAG, etag.toString());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        //响应数据，直接写入缓存的数组，不复制
+        final byte[] bytes = encoding == null ? resource.getBytes() : resource.getEncodedBytes(encoding);
+        int offset = 0;
+        int length = bytes.length;
+        if (encoding != null) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, encoding);
         }
-
-        //资源文件大小
-        long downloadSize = resource.contentLength();
-        Long fromPos = new Long(0);
-        Long toPos = new Long(0);
-        if (request.getHeader("Range") == null) {
-            //一次性读取长度
-            response.setHeader("Content-Length", downloadSize + "");
-            response.getOutputStream().write(resource.getBytes());
-            response.flushBuffer();
-            return;
-        } else {
+        if (range != null) {
             //处理断点续传支持
-            // set headers for the response
-            String headerKey = "Content-Disposition";
-            String headerValue = String.format("attachment; filename=\"%s\"", resource.getFilename());
-            response.setHeader(headerKey, headerValue);
-            // 解析断点续传相关信息
-            response.setHeader("Accept-Ranges", "bytes");
+            long[] positions = this.parseRange(range, bytes.length);
+            if (positions == null) {
+                //分段不能满足
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + bytes.length);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            offset = (int) positions[0];
+            length = (int) (positions[1] - positions[0] + 1);
             // 若客户端传来Range，说明之前下载了一部分，设置206状态(SC_PARTIAL_CONTENT)
             response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
-            String range = request.getHeader("Range");
-            String bytes = range.replaceAll("bytes=", "");
-            String[] ary = bytes.split("-");
-            //读取断点开始位置
-            fromPos = Long.parseLong(ary[0]);
-            if (ary.length == 2) {
-                //读取断点结束位置
-                toPos = Long.parseLong(ary[1]);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + positions[0] + "-" + positions[1] + "/" + bytes.length);
+        }
+        response.setHeader(HttpHeaders.CONTENT_LENGTH, Integer.toString(length));
+        //HEAD请求只返回头
+        if (request.getMethod().equals(HttpMethod.HEAD.name())) {
+            return;
+        }
+        try {
+            OutputStream out = response.getOutputStream();
+            out.write(bytes, offset, length);
+            response.flushBuffer();
+        } catch (IOException e) {
+            logger.info("数据被暂停或中断。");
+            throw e;
+        }
+    }
+
+    /**
+     * 获取有效的请求分段
+     * 只支持单个字节分段，多段请求、格式错误或带有If-Range且资源已经变化时按完整资源响应
+     *
+     * @param request  请求对象
+     * @param resource 资源
+     * @return 没有分段或分段无效时返回null
+     */
+    private String getRange(HttpServletRequest request, IWebResource resource) {
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range == null || !SINGLE_RANGE.matcher(range).matches()) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null) {
+            ETag etag = resource.getETag();
+            if (!(etag != null && ifRange.equals(etag.toString())) && !ifRange.equals(resource.getLastModifiedString())) {
+                return null;
             }
-            //读取的段大小
-            int size;
-            //判断读取段大小
-            if (toPos > fromPos) {
-                size = (int) (toPos - fromPos);
+        }
+        return range;
+    }
+
+    /**
+     * 解析单个字节分段
+     * 支持 bytes=a-b、bytes=a-、bytes=-n 格式，格式已由 {@link #SINGLE_RANGE} 验证
+     *
+     * @param range  分段请求头
+     * @param length 数据长度
+     * @return 返回 [开始位置, 结束位置]（包含结束位置），分段不能满足时返回null
+     */
+    private long[] parseRange(String range, int length) {
+        String value = range.substring(6).trim();
+        int index = value.indexOf('-');
+        long from;
+        long to;
+        try {
+            if (index == 0) {
+                //读取末尾n个字节
+                long suffix = Long.parseLong(value.substring(1).trim());
+                from = Math.max(0, length - suffix);
+                to = length - 1;
             } else {
-                size = (int) (downloadSize - fromPos);
+                from = Long.parseLong(value.substring(0, index).trim());
+                to = index == value.length() - 1 ? length - 1 : Math.min(Long.parseLong(value.substring(index + 1).trim()), length - 1);
+            }
+        } catch (NumberFormatException e) {
+            //超出long范围
+            return null;
+        }
+        if (from >= length || from > to) {
+            return null;
+        }
+        return new long[]{from, to};
+    }
+
+    /**
+     * 选择响应内容编码
+     * 优先使用gzip，忽略q=0的编码
+     *
+     * @param acceptEncoding 请求接受编码头
+     * @param resource       资源
+     * @return 没有可用的压缩数据时返回null
+     */
+    private String getEncoding(String acceptEncoding, IWebResource resource) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        boolean gzip = false;
+        boolean deflate = false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] values = part.split(";");
+            String name = values[0].trim().toLowerCase();
+            if (values.length > 1 && values[1].trim().replace(" ", "").matches("q=0(\\.0*)?")) {
+                continue;
             }
-            //分段读取长度
-            response.setHeader("Content-Length", size + "");
-            //重置分段大小
-            downloadSize = size;
-        }
-        //分块读取
-        OutputStream out;
-        try (ByteArrayInputStream stream = new ByteArrayInputStream(resource.getBytes())) {
-            // 缓冲区大小
-            byte[] buffer = new byte[Long.valueOf(downloadSize < 2048 ? downloadSize : 2048).intValue()];
-            //读取数量
-            int num = 0;
-            //计数器
-            int count = 0;
-            out = response.getOutputStream();
-            //设置流读取位置，这个主要为分段读取定位流位置，如果不为分段下载为0位置
-            if (fromPos > 0) {
-                stream.skip(fromPos.intValue());
+            if (name.equals(IWebResource.ENCODING_GZIP) || name.equals("*")) {
+                gzip = true;
             }
-            //循环读取流
-            while ((num = stream.read(buffer, 0, buffer.length)) != -1) {
-                //写入流
-                out.write(buffer, 0, num);
-                //累加读取计数
-                count += num;
-                //处理最后一段，计算不满缓冲区的大小
-                if (count >= downloadSize) {
-                    break;
-                }
+            if (name.equals(IWebResource.ENCODING_DEFLATE) || name.equals("*")) {
+                deflate = true;
             }
-            response.flushBuffer();
-        } catch (IOException e) {
-            logger.info("数据被暂停或中断。");
-            throw e;
         }
+        if (gzip && resource.getEncodedBytes(IWebResource.ENCODING_GZIP) != null) {
+            return IWebResource.ENCODING_GZIP;
+        }
+        if (deflate && resource.getEncodedBytes(IWebResource.ENCODING_DEFLATE) != null) {
+            return IWebResource.ENCODING_DEFLATE;
+        }
+        return null;
     }
-}
\ No newline at end of file
+}
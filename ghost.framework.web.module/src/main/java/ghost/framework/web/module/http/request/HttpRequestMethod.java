@@ -16,6 +16,7 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 /**
  * @Author: 郭树灿{guoshucan-pc}
  * @link: 手机:13715848993, QQ 27048384
@@ -57,8 +58,9 @@ public final class HttpRequestMethod extends MethodTarget implements IHttpReques
 
     /**
      * 函数扩展属性地图
+     * 请求线程会写入执行计划等属性，使用并发地图
      */
-    private Map<String, Object> attributes = new HashMap<>();
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
 
     /**
      * 设置函数扩展属性
@@ -308,8 +310,15 @@ public final class HttpRequestMethod extends MethodTarget implements IHttpReques
         } else {
             throw new IllegalArgumentException(requestMapping.toString());
         }
+        //注册时生成调用句柄，请求时不再反射调用
+        this.invoker = new HttpRequestMethodInvoker(target, method);
     }
 
+    /**
+     * 函数调用句柄
+     */
+    private final HttpRequestMethodInvoker invoker;
+
     /**
      * 获取数组http请求模型枚举
      * {@link RequestMapping#method()}
@@ -469,6 +478,6 @@ public final class HttpRequestMethod extends MethodTarget implements IHttpReques
     @Override
     public Object invoke(Object[] parameters) throws IllegalAccessException, IllegalArgumentException,
             InvocationTargetException {
-        return this.method.invoke(this.target, parameters);
+        return this.invoker.invoke(parameters);
     }
 }
\ No newline at end of file
@@ -5,10 +5,7 @@ import ghost.framework.beans.annotation.stereotype.Component;
 import ghost.framework.context.utils.AntPathMatcher;
 import ghost.framework.util.Assert;
 import ghost.framework.util.CollectionUtils;
-import ghost.framework.util.ReflectUtil;
 import ghost.framework.util.StringUtils;
-import ghost.framework.web.context.bind.annotation.RequestMapping;
-import ghost.framework.web.context.bind.annotation.RequestMethod;
 import ghost.framework.web.context.bind.annotation.RestController;
 import ghost.framework.web.context.controller.IControllerExceptionHandlerContainer;
 import ghost.framework.web.context.http.request.HttpRequestMethodPath;
@@ -28,9 +25,9 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.net.URLDecoder;
 import java.util.*;
+import java.util.function.Predicate;
 /**
  * package: ghost.framework.web.module.http
  *
@@ -48,8 +45,56 @@ public final class HttpRequestMethodContainer extends AbstractMap<HttpRequestMet
      private Log log = LogFactory.getLog(HttpRequestMethodContainer.class);
     /**
      * 请求函数列表
+     * 变更时使路由索引失效，变更需锁定此地图同步
      */
-    private Map<HttpRequestMethodPath, IHttpRequestMethod> sortedMap = new LinkedHashMap<>();
+    private final Map<HttpRequestMethodPath, IHttpRequestMethod> sortedMap = new LinkedHashMap<HttpRequestMethodPath, IHttpRequestMethod>() {
+        @Override
+        public synchronized IHttpRequestMethod put(HttpRequestMethodPath key, IHttpRequestMethod value) {
+            routeIndex = null;
+            return super.put(key, value);
+        }
+
+        @Override
+        public synchronized void putAll(Map<? extends HttpRequestMethodPath, ? extends IHttpRequestMethod> m) {
+            routeIndex = null;
+            super.putAll(m);
+        }
+
+        @Override
+        public synchronized IHttpRequestMethod remove(Object key) {
+            routeIndex = null;
+            return super.remove(key);
+        }
+
+        @Override
+        public synchronized void clear() {
+            routeIndex = null;
+            super.clear();
+        }
+    };
+    /**
+     * 路由索引快照
+     * 为null时在下一次请求时从请求函数列表重新编译
+     */
+    private volatile HttpRequestMethodRouteIndex routeIndex;
+
+    /**
+     * 获取路由索引快照
+     *
+     * @return
+     */
+    private HttpRequestMethodRouteIndex getRouteIndex() {
+        HttpRequestMethodRouteIndex index = this.routeIndex;
+        if (index != null) {
+            return index;
+        }
+        synchronized (this.sortedMap) {
+            if (this.routeIndex == null) {
+                this.routeIndex = new HttpRequestMethodRouteIndex(this.pathMatcher, this.sortedMap.entrySet());
+            }
+            return this.routeIndex;
+        }
+    }
 
     /**
      * 获取请求函数列表
@@ -72,7 +117,7 @@ public final class HttpRequestMethodContainer extends AbstractMap<HttpRequestMet
     public IHttpRequestMethod put(HttpRequestMethodPath key, IHttpRequestMethod value) {
         Assert.notNullOrEmpty(key, "add is key null error");
         Assert.notNull(value, "add is value null error");
-        sortedMap.put(key, value);
+        this.sortedMap.put(key, value);
         this.log.info("put path " + key + " method " + value.getMethod().getName());
         return value;
     }
@@ -89,25 +134,45 @@ public final class HttpRequestMethodContainer extends AbstractMap<HttpRequestMet
     @Override
     public IHttpRequestMethod remove(Object key) {
         Assert.notNullOrEmpty(key, "remove is key null error");
+        //判断删除键为请求路径键处理
+        if (key instanceof HttpRequestMethodPath) {
+            return this.sortedMap.remove(key);
+        }
         //判断删除键为请求对象处理
         if (key instanceof IHttpRequestMethod) {
-            return super.remove(((IHttpRequestMethod) key).getPath());
+            return this.removeAll(key::equals);
         }
-        //判断不为字符串类型处理
-        if (!(key instanceof String)) {
-            Class<?> c = key.getClass();
-            Assert.notAnnotation(key, RestController.class, "remove is key not RestController Annotation error");
-            //获取指定注释的全部注释函数
-            List<Method> list = ReflectUtil.getAllAnnotationMethods(c, RequestMapping.class);
-            //删除控制对象下全部请求函数
-            synchronized (this.sortedMap) {
-                for (Method method : list) {
-                    this.sortedMap.remove(method.getAnnotation(RequestMapping.class).value());
+        //判断删除键为路径字符串处理
+        if (key instanceof String) {
+            return this.removeAll(requestMethod -> key.equals(requestMethod.getPath()));
+        }
+        //删除控制对象下全部请求函数
+        Assert.notAnnotation(key, RestController.class, "remove is key not RestController Annotation error");
+        this.removeAll(requestMethod -> requestMethod.getTarget() == key);
+        return null;
+    }
+
+    /**
+     * 删除符合条件的全部请求函数
+     * 通过请求函数列表删除，保证路由索引失效
+     *
+     * @param predicate 删除条件
+     * @return 返回最后删除的请求函数，未删除时返回null
+     */
+    private IHttpRequestMethod removeAll(Predicate<IHttpRequestMethod> predicate) {
+        IHttpRequestMethod removed = null;
+        synchronized (this.sortedMap) {
+            List<HttpRequestMethodPath> keys = new ArrayList<>();
+            for (Map.Entry<HttpRequestMethodPath, IHttpRequestMethod> entry : this.sortedMap.entrySet()) {
+                if (predicate.test(entry.getValue())) {
+                    keys.add(entry.getKey());
                 }
-                return null;
+            }
+            for (HttpRequestMethodPath key : keys) {
+                removed = this.sortedMap.remove(key);
             }
         }
-        return super.remove(key);
+        return removed;
     }
 
     /**
@@ -128,7 +193,7 @@ public final class HttpRequestMethodContainer extends AbstractMap<HttpRequestMet
     /**
      * 路径匹配器
      */
-    private AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
     /**
      * 执行http请求函数处理
      *
@@ -149,60 +214,30 @@ public final class HttpRequestMethodContainer extends AbstractMap<HttpRequestMet
         if(path.equals("/")){
             return false;
         }
+        //使用路由索引快照匹配路径与请求模式，同时提取路径变量
+        HttpRequestMethodRouteIndex.Match match = this.getRouteIndex().match(path, request.getMethod());
+        //判断没有请求函数执行下一个过滤器
+        if (match == null) {
+            return false;
+        }
         //获取请求函数
-        IHttpRequestMethod requestMethod = null;
-        Map<String, String> stringMap = new HashMap<>();
-        System.out.println(pathMatcher.match("/i18n/{language}.json", path));
-        //遍历路径匹配
-        for (Map.Entry<HttpRequestMethodPath, IHttpRequestMethod> entry : this.sortedMap.entrySet()) {
-            //匹配路径
-            if (this.pathMatcher.match(entry.getKey().getPath(), path) ||
-                    this.pathMatcher.matchStart(entry.getKey().getPath(), path)) {
-                //找到匹配路径，获取路径请求函数对象
-                requestMethod = entry.getValue();
-                //判断请求模式
-                if (!CollectionUtils.isEmpty(requestMethod.getRequestMethods())) {
-                    //遍历比对函数注释的请求模式列表
-                    boolean isMethod = false;
-                    for (RequestMethod method : requestMethod.getRequestMethods()) {
-                        //判断函数支持的请求模式
-                        if (request.getMethod().equalsIgnoreCase(method.name())) {
-                            //找到有效的请求模式注释
-                            isMethod = true;
-                            break;
-                        }
-                    }
-                    //判断是否找到有效的请求模式注释
-                    if (!isMethod) {
-                        //未找到有效的注释请求模式，清理请求函数从新遍历往下继续寻找支持当前请求模式的请求函数
-                        requestMethod = null;
-                        continue;
-                    }
-                }
-                //判断请求类型
-                if (!CollectionUtils.isEmpty(requestMethod.getConsumes())) {
-                    boolean is = false;
-                    for (String consume : requestMethod.getConsumes()) {
-                        if (consume.equals(request.getContentType())) {
-                            is = true;
-                            break;
-                        }
-                    }
-                    //判断内容类型是否正确
-                    if (!is) {
-                        return false;
-                    }
+        IHttpRequestMethod requestMethod = match.getRequestMethod();
+        //判断请求类型
+        if (!CollectionUtils.isEmpty(requestMethod.getConsumes())) {
+            boolean is = false;
+            for (String consume : requestMethod.getConsumes()) {
+                if (consume.equals(request.getContentType())) {
+                    is = true;
+                    break;
                 }
-                //解析地址参数值列表，为 PathVariable 注释先解析参数
-                stringMap = this.pathMatcher.extractUriTemplateVariables(entry.getKey().getPath(), path);
-                break;
+            }
+            //判断内容类型是否正确
+            if (!is) {
+                return false;
             }
         }
-        //判断没有请求函数执行下一个过滤器
-        if (requestMethod == null) {
-            return false;
-        }
-        //解析地址参数值列表，为 PathVariable 注释先解析参数
+        //地址参数值列表，为 PathVariable 注释先解析参数
+        Map<String, String> stringMap = match.getVariables();
         //对地址参数进行编码
         for (Map.Entry<String, String> entry : stringMap.entrySet()) {
             entry.setValue(URLDecoder.decode(entry.getValue(), request.getCharacterEncoding()));
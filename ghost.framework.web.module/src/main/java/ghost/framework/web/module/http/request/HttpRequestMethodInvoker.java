@@ -0,0 +1,96 @@
+package ghost.framework.web.module.http.request;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * package: ghost.framework.web.module.http.request
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:http请求函数调用句柄
+ * 注册时生成 (Object[])Object 类型的调用句柄，请求时不再反射调用，无返回值函数返回null。
+ * 目标函数抛出的错误在句柄内包装为 {@link InvocationTargetException}，
+ * 参数数量、类型错误在调用目标函数前抛出，转换为 {@link IllegalArgumentException}，与 {@link Method#invoke(Object, Object...)} 一致。
+ * @Date: 2020/6/5:11:20
+ */
+final class HttpRequestMethodInvoker {
+    /**
+     * 包装目标函数错误句柄
+     */
+    private static final MethodHandle TARGET_EXCEPTION;
+
+    static {
+        try {
+            TARGET_EXCEPTION = MethodHandles.lookup().findStatic(HttpRequestMethodInvoker.class, "targetException",
+                    MethodType.methodType(Object.class, Throwable.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * 函数调用句柄
+     */
+    private final MethodHandle handle;
+
+    /**
+     * 生成函数调用句柄
+     *
+     * @param target 函数拥有者，静态函数时忽略
+     * @param method 函数对象
+     */
+    HttpRequestMethodInvoker(Object target, Method method) {
+        //控制器函数或控制器类型可能不是公共的
+        method.setAccessible(true);
+        try {
+            MethodHandle handle = MethodHandles.lookup().unreflect(method);
+            if (!Modifier.isStatic(method.getModifiers())) {
+                handle = handle.bindTo(target);
+            }
+            handle = handle.asType(handle.type().changeReturnType(Object.class));
+            //只包装目标函数抛出的错误，参数展开与类型转换在捕获范围外
+            handle = MethodHandles.catchException(handle, Throwable.class,
+                    MethodHandles.dropArguments(TARGET_EXCEPTION, 1, handle.type().parameterList()));
+            this.handle = handle
+                    .asSpreader(Object[].class, method.getParameterCount())
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException(method.toString(), e);
+        }
+    }
+
+    /**
+     * 调用函数
+     *
+     * @param parameters 函数参数
+     * @return 返回函数返回值，无返回值函数返回null
+     * @throws IllegalArgumentException  参数数量或类型错误
+     * @throws InvocationTargetException 目标函数抛出错误
+     */
+    Object invoke(Object[] parameters) throws IllegalArgumentException, InvocationTargetException {
+        try {
+            return (Object) this.handle.invokeExact(parameters);
+        } catch (InvocationTargetException | IllegalArgumentException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            //参数为null的基础类型拆箱、参数类型转换错误
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 包装目标函数错误
+     *
+     * @param e 目标函数抛出的错误
+     * @return
+     * @throws InvocationTargetException
+     */
+    private static Object targetException(Throwable e) throws InvocationTargetException {
+        throw new InvocationTargetException(e);
+    }
+}
@@ -0,0 +1,367 @@
+package ghost.framework.web.module.http.request;
+
+import ghost.framework.context.utils.AntPathMatcher;
+import ghost.framework.util.StringUtils;
+import ghost.framework.web.context.bind.annotation.RequestMethod;
+import ghost.framework.web.context.http.request.HttpRequestMethodPath;
+import ghost.framework.web.context.http.request.IHttpRequestMethod;
+
+import java.util.*;
+
+/**
+ * package: ghost.framework.web.module.http.request
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:http请求函数路由索引
+ * 由 {@link HttpRequestMethodContainer} 在请求函数变更后编译，编译后不可变，
+ * 请求线程持有快照引用，插件加载或卸载时替换快照不影响正在执行的请求。
+ * 路径按段编译为前缀树：文本段使用哈希查找，{var}、*、? 段使用 {@link AntPathMatcher#matchSegment(String, String, Map)} 匹配，
+ * 遍历时不提取路径变量，只对最终匹配的路由提取一次；
+ * 每个节点按请求模式预先计算注册顺序最靠前的请求函数；
+ * 与 {@link AntPathMatcher#match(String, String)} 一致，以 * 段结尾的路由匹配以 / 结尾且少一段的请求路径（/a/* 匹配 /a/）；
+ * 含有 ** 或不以 / 开头的路径保留为顺序匹配列表，与前缀树结果按注册顺序合并。
+ * @Date: 2020/6/4:10:26
+ */
+final class HttpRequestMethodRouteIndex {
+    /**
+     * 路径分隔符
+     */
+    private static final String SEPARATOR = AntPathMatcher.DEFAULT_PATH_SEPARATOR;
+    /**
+     * 请求模式数量，最后一个位置用于不在 {@link RequestMethod} 中的请求模式
+     */
+    private static final int METHOD_SLOTS = RequestMethod.values().length + 1;
+    /**
+     * 路径匹配器
+     */
+    private final AntPathMatcher pathMatcher;
+    /**
+     * 前缀树根节点
+     */
+    private final Node root;
+    /**
+     * 顺序匹配路由列表，按注册顺序排列
+     */
+    private final Route[] wildcards;
+
+    /**
+     * 编译路由索引
+     *
+     * @param pathMatcher 路径匹配器
+     * @param entries     按注册顺序排列的请求函数
+     */
+    HttpRequestMethodRouteIndex(AntPathMatcher pathMatcher, Collection<Map.Entry<HttpRequestMethodPath, IHttpRequestMethod>> entries) {
+        this.pathMatcher = pathMatcher;
+        this.root = new Node(null);
+        List<Route> wildcardList = new ArrayList<>();
+        int order = 0;
+        for (Map.Entry<HttpRequestMethodPath, IHttpRequestMethod> entry : entries) {
+            Route route = new Route(order++, entry.getKey().getPath(), entry.getValue());
+            if (!route.pattern.startsWith(SEPARATOR) || route.pattern.contains("**")) {
+                wildcardList.add(route);
+                continue;
+            }
+            //按段添加入前缀树
+            Node node = this.root;
+            for (String segment : StringUtils.tokenizeToStringArray(route.pattern, SEPARATOR, false, true)) {
+                node = node.child(segment);
+            }
+            node.add(route);
+        }
+        this.root.seal();
+        this.wildcards = wildcardList.toArray(new Route[0]);
+    }
+
+    /**
+     * 匹配请求函数
+     *
+     * @param path   请求路径
+     * @param method 请求模式
+     * @return 返回匹配结果，未匹配时返回null
+     */
+    Match match(String path, String method) {
+        int slot = slot(method);
+        int slash = path.endsWith(SEPARATOR) ? 1 : 0;
+        String[] segments = StringUtils.tokenizeToStringArray(path, SEPARATOR, false, true);
+        Match match = new Match();
+        if (path.startsWith(SEPARATOR)) {
+            this.walk(this.root, segments, 0, slash, slot, match);
+        }
+        //顺序匹配列表只需要检查比前缀树结果更早注册的路由
+        for (Route route : this.wildcards) {
+            if (match.route != null && route.order > match.route.order) {
+                break;
+            }
+            if (route.accept(slot) && this.pathMatcher.match(route.pattern, path)) {
+                match.route = route;
+                match.variables = this.pathMatcher.extractUriTemplateVariables(route.pattern, path);
+                break;
+            }
+        }
+        if (match.route == null) {
+            return null;
+        }
+        if (match.variables == null) {
+            //只对最终匹配的前缀树路由提取路径变量
+            match.variables = match.route.pattern.indexOf('{') == -1 ? new LinkedHashMap<>() : this.pathMatcher.extractUriTemplateVariables(match.route.pattern, path);
+        }
+        return match;
+    }
+
+    /**
+     * 遍历前缀树
+     *
+     * @param node     当前节点
+     * @param segments 请求路径段
+     * @param index    当前路径段位置
+     * @param slash    请求路径是否以 / 结尾
+     * @param slot     请求模式位置
+     * @param match    匹配结果
+     */
+    private void walk(Node node, String[] segments, int index, int slash, int slot, Match match) {
+        if (index == segments.length) {
+            match.offer(node.routes[slash][slot]);
+            //请求路径以 / 结尾时，以 * 段结尾的路由匹配少一段的路径，与 AntPathMatcher 一致，路由是否以 / 结尾不影响
+            if (slash == 1 && node.star != null) {
+                match.offer(node.star.routes[0][slot]);
+                match.offer(node.star.routes[1][slot]);
+            }
+            return;
+        }
+        String segment = segments[index];
+        //文本段
+        Node literal = node.literals.get(segment);
+        if (literal != null && literal.before(match)) {
+            this.walk(literal, segments, index + 1, slash, slot, match);
+        }
+        //模式段，只判断是否匹配，不提取路径变量
+        for (Node pattern : node.patterns) {
+            if (pattern.before(match) && this.pathMatcher.matchSegment(pattern.segment, segment, null)) {
+                this.walk(pattern, segments, index + 1, slash, slot, match);
+            }
+        }
+    }
+
+    /**
+     * 获取请求模式位置
+     *
+     * @param method 请求模式
+     * @return
+     */
+    private static int slot(String method) {
+        for (RequestMethod requestMethod : RequestMethod.values()) {
+            if (requestMethod.name().equalsIgnoreCase(method)) {
+                return requestMethod.ordinal();
+            }
+        }
+        return METHOD_SLOTS - 1;
+    }
+
+    /**
+     * 匹配结果
+     */
+    static final class Match {
+        /**
+         * 匹配路由
+         */
+        private Route route;
+        /**
+         * 路径变量
+         */
+        private Map<String, String> variables;
+
+        /**
+         * 设置注册顺序更靠前的路由
+         *
+         * @param route 候选路由
+         */
+        private void offer(Route route) {
+            if (route != null && (this.route == null || route.order < this.route.order)) {
+                this.route = route;
+            }
+        }
+
+        /**
+         * 获取匹配的请求函数
+         *
+         * @return
+         */
+        IHttpRequestMethod getRequestMethod() {
+            return route.requestMethod;
+        }
+
+        /**
+         * 获取匹配的路径规则
+         *
+         * @return
+         */
+        String getPattern() {
+            return route.pattern;
+        }
+
+        /**
+         * 获取路径变量
+         *
+         * @return
+         */
+        Map<String, String> getVariables() {
+            return variables;
+        }
+    }
+
+    /**
+     * 路由
+     */
+    private static final class Route {
+        /**
+         * 注册顺序
+         */
+        private final int order;
+        /**
+         * 路径规则
+         */
+        private final String pattern;
+        /**
+         * 请求函数
+         */
+        private final IHttpRequestMethod requestMethod;
+        /**
+         * 支持的请求模式位置，未指定请求模式时支持全部
+         */
+        private final boolean[] slots = new boolean[METHOD_SLOTS];
+
+        Route(int order, String pattern, IHttpRequestMethod requestMethod) {
+            this.order = order;
+            this.pattern = pattern;
+            this.requestMethod = requestMethod;
+            RequestMethod[] methods = requestMethod.getRequestMethods();
+            if (methods == null || methods.length == 0) {
+                Arrays.fill(this.slots, true);
+            } else {
+                for (RequestMethod method : methods) {
+                    this.slots[method.ordinal()] = true;
+                }
+            }
+        }
+
+        boolean accept(int slot) {
+            return this.slots[slot];
+        }
+    }
+
+    /**
+     * 前缀树节点
+     */
+    private static final class Node {
+        /**
+         * 节点路径段，根节点为null
+         */
+        private final String segment;
+        /**
+         * 文本段子节点
+         */
+        private final Map<String, Node> literals = new HashMap<>();
+        /**
+         * 模式段子节点
+         */
+        private Node[] patterns = new Node[0];
+        /**
+         * * 段子节点，没有时为null
+         */
+        private Node star;
+        /**
+         * 在此节点结束的路由，按 [是否以 / 结尾][请求模式位置] 保存注册顺序最靠前的路由
+         */
+        private final Route[][] routes = new Route[2][METHOD_SLOTS];
+        /**
+         * 此节点及子节点中最早注册的路由顺序，用于剪枝
+         */
+        private int minOrder = Integer.MAX_VALUE;
+
+        Node(String segment) {
+            this.segment = segment;
+        }
+
+        /**
+         * 获取或创建子节点
+         *
+         * @param segment 路径段
+         * @return
+         */
+        Node child(String segment) {
+            if (!isPattern(segment)) {
+                return this.literals.computeIfAbsent(segment, Node::new);
+            }
+            for (Node node : this.patterns) {
+                if (node.segment.equals(segment)) {
+                    return node;
+                }
+            }
+            Node node = new Node(segment);
+            if ("*".equals(segment)) {
+                this.star = node;
+            }
+            this.patterns = Arrays.copyOf(this.patterns, this.patterns.length + 1);
+            this.patterns[this.patterns.length - 1] = node;
+            return node;
+        }
+
+        /**
+         * 添加在此节点结束的路由
+         *
+         * @param route
+         */
+        void add(Route route) {
+            int slash = route.pattern.endsWith(SEPARATOR) ? 1 : 0;
+            for (int slot = 0; slot < METHOD_SLOTS; slot++) {
+                //只保留注册顺序最靠前的路由，与原遍历匹配顺序一致
+                if (route.accept(slot) && this.routes[slash][slot] == null) {
+                    this.routes[slash][slot] = route;
+                }
+            }
+        }
+
+        /**
+         * 判断此节点是否可能产生比当前结果更早注册的路由
+         *
+         * @param match
+         * @return
+         */
+        boolean before(Match match) {
+            return match.route == null || this.minOrder < match.route.order;
+        }
+
+        /**
+         * 编译完成后计算剪枝顺序
+         *
+         * @return
+         */
+        int seal() {
+            for (Route[] slots : this.routes) {
+                for (Route route : slots) {
+                    if (route != null && route.order < this.minOrder) {
+                        this.minOrder = route.order;
+                    }
+                }
+            }
+            for (Node node : this.literals.values()) {
+                this.minOrder = Math.min(this.minOrder, node.seal());
+            }
+            for (Node node : this.patterns) {
+                this.minOrder = Math.min(this.minOrder, node.seal());
+            }
+            return this.minOrder;
+        }
+
+        /**
+         * 判断路径段是否为模式段
+         *
+         * @param segment
+         * @return
+         */
+        private static boolean isPattern(String segment) {
+            return segment.indexOf('*') != -1 || segment.indexOf('?') != -1 || segment.indexOf('{') != -1;
+        }
+    }
+}
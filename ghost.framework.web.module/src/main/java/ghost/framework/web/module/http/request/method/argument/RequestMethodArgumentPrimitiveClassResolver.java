@@ -70,6 +70,16 @@ public class RequestMethodArgumentPrimitiveClassResolver
         return super.isResolverType(request, response, requestMethod, parameter);
     }
 
+    /**
+     * 只判断参数类型，解析器选择结果可以缓存
+     *
+     * @return
+     */
+    @Override
+    public boolean isCacheResolver() {
+        return true;
+    }
+
     @Nullable
     @Override
     public Object resolveArgument(@NotNull HttpServletRequest request, @NotNull HttpServletResponse response,
@@ -1,6 +1,7 @@
 package ghost.framework.web.module.http.request.method.argument;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import ghost.framework.beans.annotation.application.Application;
 import ghost.framework.beans.annotation.constraints.NotNull;
 import ghost.framework.beans.annotation.injection.Autowired;
@@ -16,9 +17,16 @@ import org.apache.log4j.Logger;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * package: ghost.framework.web.context.http.request.method
@@ -26,6 +34,8 @@ import java.lang.annotation.Annotation;
  * @Author: 郭树灿{guo-w541}
  * @link: 手机:13715848993, QQ 27048384
  * @Description:解析 {@link RequestBody} 注释参数
+ * 请求流直接交给json反序列化，不再先读取为字符串；每个参数类型的 {@link ObjectReader} 缓存复用。
+ * 可以设置请求内容最大字节数，超过时解析错误。
  * @Date: 2020/2/29:0:19
  */
 @FirstOrder
@@ -105,25 +115,107 @@ public class RequestMethodArgumentRequestBodyAnnotationResolver
 //                throw new ResolverException(e.getMessage(), e);
 //            }
 //        }
-        //读取表单流字符内容
-        try (InputStreamReader inputStreamReader = new InputStreamReader(request.getInputStream(), request.getCharacterEncoding())) {
-            try (BufferedReader streamReader = new BufferedReader(inputStreamReader)) {
-                StringBuilder responseStrBuilder = new StringBuilder();
-                String inputStr;
-                while ((inputStr = streamReader.readLine()) != null) {
-                    responseStrBuilder.append(inputStr);
-                }
-                //将字符内容转换对象
-                String param = responseStrBuilder.toString();
-                if (logger.isDebugEnabled()) {
-                    logger.debug(param);
-                }
-                return this.mapper.readValue(param, parameter.getType());
+        //请求内容长度超过限制
+        long length = request.getContentLengthLong();
+        if (this.maxBodySize >= 0 && length > this.maxBodySize) {
+            throw new ResolverException("request body " + length + " > " + this.maxBodySize + ":" + parameter.getParameter().toString());
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug(parameter.getParameterizedType() + " length:" + length);
+        }
+        //获取参数类型缓存的反序列化
+        ObjectReader reader = this.readerMap.computeIfAbsent(parameter.getParameterizedType(), t -> this.mapper.readerFor(this.mapper.getTypeFactory().constructType(t)));
+        try (InputStream in = this.maxBodySize < 0 ? request.getInputStream() : new LimitedInputStream(request.getInputStream(), this.maxBodySize)) {
+            String encoding = request.getCharacterEncoding();
+            //没有指定编码或为utf-8时由json自动识别编码直接读取字节流
+            if (encoding == null || Charset.forName(encoding).equals(StandardCharsets.UTF_8)) {
+                return reader.readValue(in);
             }
+            return reader.readValue(new InputStreamReader(in, encoding));
         } catch (Exception e) {
             throw new ResolverException(e.getMessage(), e);
         }
     }
+
+    /**
+     * 参数类型与反序列化缓存
+     */
+    private final Map<Type, ObjectReader> readerMap = new ConcurrentHashMap<>();
+    /**
+     * 请求内容最大字节数，小于0不限制
+     */
+    private long maxBodySize = -1;
+
+    /**
+     * 获取请求内容最大字节数
+     *
+     * @return 小于0不限制
+     */
+    public long getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    /**
+     * 设置请求内容最大字节数
+     *
+     * @param maxBodySize 小于0不限制
+     */
+    public void setMaxBodySize(long maxBodySize) {
+        this.maxBodySize = maxBodySize;
+    }
+
+    /**
+     * 限制读取字节数的输入流，用于没有内容长度的分块请求
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+        /**
+         * 剩余可读字节数
+         */
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                this.count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                this.count(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            this.count(skipped);
+            return skipped;
+        }
+
+        /**
+         * 扣减剩余字节数
+         *
+         * @param n 读取字节数
+         * @throws IOException 超过限制
+         */
+        private void count(long n) throws IOException {
+            this.remaining -= n;
+            if (this.remaining < 0) {
+                throw new IOException("request body too large");
+            }
+        }
+    }
     /**
      * 日志
      */
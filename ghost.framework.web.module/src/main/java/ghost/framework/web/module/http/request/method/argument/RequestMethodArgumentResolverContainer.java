@@ -3,7 +3,6 @@ package ghost.framework.web.module.http.request.method.argument;
 import ghost.framework.beans.annotation.constraints.NotNull;
 import ghost.framework.beans.annotation.injection.Autowired;
 import ghost.framework.beans.annotation.stereotype.Component;
-import ghost.framework.context.parameter.NameParameter;
 import ghost.framework.context.resolver.ResolverException;
 import ghost.framework.context.valid.IAnnotationValidFactoryContainer;
 import ghost.framework.util.Assert;
@@ -15,6 +14,7 @@ import ghost.framework.web.context.http.request.method.argument.IRequestMethodAr
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -38,6 +38,31 @@ public final class RequestMethodArgumentResolverContainer<V extends IRequestMeth
      * 参数注释解析器列表
      */
     private List<IRequestMethodArgumentAnnotationResolver> annotationList = new ArrayList<>();
+    /**
+     * 按判断顺序排列的解析器快照，注释解析器在前，类型解析器在后
+     * 解析器变更时替换
+     */
+    private volatile List<IRequestMethodArgumentResolver> resolvers = Collections.emptyList();
+    /**
+     * 解析器容器版本
+     * 解析器变更时增加，使已经建立的请求函数执行计划失效
+     */
+    private volatile int version;
+
+    /**
+     * 更新解析器快照
+     */
+    private synchronized void refresh() {
+        List<IRequestMethodArgumentResolver> resolvers = new ArrayList<>();
+        synchronized (annotationList) {
+            resolvers.addAll(annotationList);
+        }
+        synchronized (list) {
+            resolvers.addAll(list);
+        }
+        this.resolvers = Collections.unmodifiableList(resolvers);
+        this.version++;
+    }
     /**
      * 添加参数解析器
      *
@@ -47,16 +72,20 @@ public final class RequestMethodArgumentResolverContainer<V extends IRequestMeth
     @Override
     public boolean add(V argumentResolver) {
         Assert.notNull(argumentResolver, "add is argumentResolver null error");
-        //判断是否为注释解析器
-        if(argumentResolver instanceof IRequestMethodArgumentAnnotationResolver){
-            //添加注释解析器
-            synchronized (annotationList) {
-                return annotationList.add((IRequestMethodArgumentAnnotationResolver)argumentResolver);
+        try {
+            //判断是否为注释解析器
+            if (argumentResolver instanceof IRequestMethodArgumentAnnotationResolver) {
+                //添加注释解析器
+                synchronized (annotationList) {
+                    return annotationList.add((IRequestMethodArgumentAnnotationResolver) argumentResolver);
+                }
             }
-        }
-        //添加类型解析器
-        synchronized (list) {
-            return list.add(argumentResolver);
+            //添加类型解析器
+            synchronized (list) {
+                return list.add(argumentResolver);
+            }
+        } finally {
+            this.refresh();
         }
     }
 
@@ -69,16 +98,20 @@ public final class RequestMethodArgumentResolverContainer<V extends IRequestMeth
     @Override
     public boolean remove(V argumentResolver) {
         Assert.notNull(argumentResolver, "remove is argumentResolver null error");
-        //判断是否为注释解析器
-        if(argumentResolver instanceof IRequestMethodArgumentAnnotationResolver){
-            //删除注释解析器
-            synchronized (annotationList) {
-                return annotationList.remove(argumentResolver);
+        try {
+            //判断是否为注释解析器
+            if (argumentResolver instanceof IRequestMethodArgumentAnnotationResolver) {
+                //删除注释解析器
+                synchronized (annotationList) {
+                    return annotationList.remove(argumentResolver);
+                }
             }
-        }
-        //删除类型解析器
-        synchronized (list) {
-            return list.remove(argumentResolver);
+            //删除类型解析器
+            synchronized (list) {
+                return list.remove(argumentResolver);
+            }
+        } finally {
+            this.refresh();
         }
     }
 
@@ -112,41 +145,38 @@ public final class RequestMethodArgumentResolverContainer<V extends IRequestMeth
             //没有函数参数
             return null;
         }
-        //声明函数数组参数
-        Object[] parameters = new Object[requestMethod.getMethod().getParameterCount()];
-        int i = 0;
-        //参数是否已经处理
-        boolean is = false;
-        for (NameParameter parameter : requestMethod.getParameters()) {
-            //重置未解析状态
-            is = false;
-            //遍历注释解析器
-            for (IRequestMethodArgumentAnnotationResolver annotationResolver : this.annotationList) {
-                //判断是否有对应解析器
-                if (annotationResolver.isResolver(request, response, requestMethod, parameter)) {
-                    //解析参数
-                    parameters[i] = annotationResolver.resolveArgument(request, response, requestMethod, parameter);
-                    i++;
-                    //退出解析器循环，执行下一个函数参数
-                    is = true;
-                    break;
-                }
-            }
-            if (is) {
-                continue;
-            }
-            //遍历类型解析器
-            for (IRequestMethodArgumentResolver argumentResolver : this.list) {
-                //判断是否有对应解析器
-                if (argumentResolver.isResolver(request, response, requestMethod, parameter)) {
-                    //解析参数
-                    parameters[i] = argumentResolver.resolveArgument(request, response, requestMethod, parameter);
-                    i++;
-                    //退出解析器循环，执行下一个函数参数
-                    break;
-                }
-            }
+        //获取请求函数执行计划
+        RequestMethodArgumentResolverPlan plan = this.getPlan(request, response, requestMethod);
+        //按计划解析参数
+        return plan.resolve(request, response, requestMethod);
+    }
+
+    /**
+     * 获取请求函数执行计划
+     * 计划保存在请求函数 {@link IHttpRequestMethod#EXECUTION_ARGUMENT_RESOLVER_ATTRIBUTE} 扩展属性中，
+     * 解析器变更后重新建立，不支持扩展属性的请求函数每次请求建立计划
+     *
+     * @param request       请求对象
+     * @param response      响应对象
+     * @param requestMethod 请求函数
+     * @return
+     * @throws ResolverException
+     */
+    private RequestMethodArgumentResolverPlan getPlan(@NotNull HttpServletRequest request, @NotNull HttpServletResponse response,
+                                                      @NotNull IHttpRequestMethod requestMethod) throws ResolverException {
+        int version = this.version;
+        Object o = null;
+        try {
+            o = requestMethod.getAttribute(IHttpRequestMethod.EXECUTION_ARGUMENT_RESOLVER_ATTRIBUTE);
+        } catch (UnsupportedOperationException e) {
+            //不支持扩展属性
+            return new RequestMethodArgumentResolverPlan(version, this.resolvers, request, response, requestMethod);
+        }
+        if (o instanceof RequestMethodArgumentResolverPlan && ((RequestMethodArgumentResolverPlan) o).getVersion() == version) {
+            return (RequestMethodArgumentResolverPlan) o;
         }
-        return parameters;
+        RequestMethodArgumentResolverPlan plan = new RequestMethodArgumentResolverPlan(version, this.resolvers, request, response, requestMethod);
+        requestMethod.setAttribute(IHttpRequestMethod.EXECUTION_ARGUMENT_RESOLVER_ATTRIBUTE, plan);
+        return plan;
     }
 }
\ No newline at end of file
@@ -0,0 +1,132 @@
+package ghost.framework.web.module.http.request.method.argument;
+
+import ghost.framework.beans.annotation.constraints.NotNull;
+import ghost.framework.context.parameter.NameParameter;
+import ghost.framework.context.resolver.ResolverException;
+import ghost.framework.web.context.http.request.IHttpRequestMethod;
+import ghost.framework.web.context.http.request.method.argument.IRequestMethodArgumentResolver;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * package: ghost.framework.web.module.http.request.method.argument
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:请求函数参数解析执行计划
+ * 记录每个函数参数使用的解析器，保存在 {@link IHttpRequestMethod#EXECUTION_ARGUMENT_RESOLVER_ATTRIBUTE} 扩展属性中，
+ * {@link IRequestMethodArgumentResolver#isCacheResolver()} 返回true的解析器只在建立计划时判断一次，
+ * 排在其前面且不能缓存的解析器保留为每次请求的判断列表，保证解析器选择顺序与逐个判断时一致。
+ * @Date: 2020/6/5:9:40
+ */
+final class RequestMethodArgumentResolverPlan {
+    /**
+     * 建立计划时的解析器容器版本
+     */
+    private final int version;
+    /**
+     * 每个函数参数的解析步骤
+     */
+    private final Step[] steps;
+
+    /**
+     * 建立执行计划
+     *
+     * @param version       解析器容器版本
+     * @param resolvers     按判断顺序排列的解析器列表
+     * @param request       请求对象
+     * @param response      响应对象
+     * @param requestMethod 请求函数
+     * @throws ResolverException
+     */
+    RequestMethodArgumentResolverPlan(int version, List<IRequestMethodArgumentResolver> resolvers,
+                                      HttpServletRequest request, HttpServletResponse response,
+                                      IHttpRequestMethod requestMethod) throws ResolverException {
+        this.version = version;
+        NameParameter[] parameters = requestMethod.getParameters();
+        this.steps = new Step[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            List<IRequestMethodArgumentResolver> probes = new ArrayList<>();
+            IRequestMethodArgumentResolver resolver = null;
+            for (IRequestMethodArgumentResolver argumentResolver : resolvers) {
+                //不能缓存的解析器每次请求都需要判断
+                if (!argumentResolver.isCacheResolver()) {
+                    probes.add(argumentResolver);
+                    continue;
+                }
+                //找到第一个可以缓存的解析器后不再继续判断
+                if (argumentResolver.isResolver(request, response, requestMethod, parameters[i])) {
+                    resolver = argumentResolver;
+                    break;
+                }
+            }
+            this.steps[i] = new Step(parameters[i], probes.toArray(new IRequestMethodArgumentResolver[0]), resolver);
+        }
+    }
+
+    /**
+     * 获取建立计划时的解析器容器版本
+     *
+     * @return
+     */
+    int getVersion() {
+        return version;
+    }
+
+    /**
+     * 按计划解析函数参数
+     *
+     * @param request       请求对象
+     * @param response      响应对象
+     * @param requestMethod 请求函数
+     * @return 返回调用函数的数组参数
+     * @throws ResolverException
+     */
+    Object[] resolve(@NotNull HttpServletRequest request, @NotNull HttpServletResponse response,
+                     @NotNull IHttpRequestMethod requestMethod) throws ResolverException {
+        Object[] parameters = new Object[this.steps.length];
+        for (int i = 0; i < this.steps.length; i++) {
+            Step step = this.steps[i];
+            IRequestMethodArgumentResolver resolver = step.resolver;
+            //判断排在缓存解析器前面的解析器
+            for (IRequestMethodArgumentResolver probe : step.probes) {
+                if (probe.isResolver(request, response, requestMethod, step.parameter)) {
+                    resolver = probe;
+                    break;
+                }
+            }
+            //没有解析器的参数保持为null
+            if (resolver != null) {
+                parameters[i] = resolver.resolveArgument(request, response, requestMethod, step.parameter);
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * 函数参数解析步骤
+     */
+    private static final class Step {
+        /**
+         * 函数参数
+         */
+        private final NameParameter parameter;
+        /**
+         * 每次请求需要判断的解析器
+         */
+        private final IRequestMethodArgumentResolver[] probes;
+        /**
+         * 缓存的解析器，没有时为null
+         */
+        private final IRequestMethodArgumentResolver resolver;
+
+        Step(NameParameter parameter, IRequestMethodArgumentResolver[] probes, IRequestMethodArgumentResolver resolver) {
+            this.parameter = parameter;
+            this.probes = probes;
+            this.resolver = resolver;
+        }
+    }
+}
@@ -37,6 +37,16 @@ public class RequestMethodArgumentServletClassResolver extends AbstractRequestMe
         return super.isResolverType(request, response, requestMethod, parameter);
     }
 
+    /**
+     * 只判断参数类型，解析器选择结果可以缓存
+     *
+     * @return
+     */
+    @Override
+    public boolean isCacheResolver() {
+        return true;
+    }
+
     /**
      * 解析控制器函数参数
      * @param requestMethod    请求函数
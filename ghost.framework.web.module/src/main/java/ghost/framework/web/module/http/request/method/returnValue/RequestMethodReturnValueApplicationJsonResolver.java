@@ -1,7 +1,14 @@
 package ghost.framework.web.module.http.request.method.returnValue;
 
+import com.fasterxml.jackson.annotation.JsonView;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
 import ghost.framework.beans.annotation.application.Application;
 import ghost.framework.beans.annotation.constraints.NotNull;
 import ghost.framework.beans.annotation.injection.Autowired;
@@ -12,10 +19,27 @@ import ghost.framework.web.context.http.MediaType;
 import ghost.framework.web.context.http.request.IHttpRequestMethod;
 import ghost.framework.web.context.http.request.method.returnValue.AbstractRequestMethodReturnValueResolver;
 import ghost.framework.web.context.utils.WebUtils;
+import ghost.framework.web.module.http.converter.json.MappingJacksonValue;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * package: ghost.framework.web.module.http.request.method.returnValue
@@ -23,11 +47,17 @@ import java.io.IOException;
  * @Author: 郭树灿{gsc-e590}
  * @link: 手机:13715848993, QQ 27048384
  * @Description:默认请求函数返回值json解析器，  {@link MediaType#APPLICATION_JSON_VALUE}格式解析器
+ * 返回值按函数声明的返回值类型、{@link JsonView} 或 {@link MappingJacksonValue} 指定的视图与过滤序列化，
+ * 每个类型与视图的 {@link ObjectWriter} 缓存复用；返回值按响应编码直接序列化到响应缓冲区，
+ * 缓冲区内容达到 {@link #getBufferSize()} 字节前不提交响应，序列化错误时响应未提交，超过后提交响应并直接写入响应流。
+ * 列表元素数量达到 {@link #getChunkThreshold()} 时逐个元素写出，第一块 {@link #getChunkSize()} 个元素序列化完成后提交响应，
+ * 之后每块刷新一次响应流，以分块方式输出；提交后序列化错误记录日志并继续抛出错误，不写入结束符，由容器中断连接。
  * @Date: 2020/3/3:11:01
  */
 @HandlerMethodReturnValueResolver
 public class RequestMethodReturnValueApplicationJsonResolver
         extends AbstractRequestMethodReturnValueResolver {
+    private static final Log log = LogFactory.getLog(RequestMethodReturnValueApplicationJsonResolver.class);
     /**
      * 获取是否为默认解析器
      * @return
@@ -84,12 +114,35 @@ public class RequestMethodReturnValueApplicationJsonResolver
         response.setCharacterEncoding(response.getCharacterEncoding());
         //设置默认返回值解析格式
         response.setContentType(MediaType.APPLICATION_JSON_VALUE + WebUtils.CONTENT_TYPE_CHARSET_PREFIX + response.getCharacterEncoding());
+        //设置状态码，需要在写入内容提交响应前设置
+        if (response.getStatus() <= 0) {
+            response.setStatus(HttpServletResponse.SC_OK);
+        }
+        Object value = returnValue;
+        Class<?> view;
+        FilterProvider filters = null;
+        if (value instanceof MappingJacksonValue) {
+            MappingJacksonValue container = (MappingJacksonValue) value;
+            value = container.getValue();
+            view = container.getSerializationView();
+            filters = container.getFilters();
+        } else {
+            view = getJsonView(requestMethod.getMethod());
+        }
         try {
-            response.getOutputStream().write(this.objectMapper.writeValueAsString(returnValue).getBytes(response.getCharacterEncoding()));
-            //设置状态码
-            if (response.getStatus() <= 0) {
-                response.setStatus(HttpServletResponse.SC_OK);
+            Charset charset = Charset.forName(response.getCharacterEncoding());
+            JavaType type = this.getJavaType(requestMethod.getMethod(), value);
+            //大列表分块输出
+            if (this.chunkThreshold >= 0 && value instanceof List && ((List<?>) value).size() >= this.chunkThreshold) {
+                //按声明的元素类型逐个写出
+                JavaType elementType = type.isCollectionLikeType() ? type.getContentType() : this.objectMapper.constructType(Object.class);
+                List<?> list = (List<?>) value;
+                this.write(response, charset, this.getWriter(this.objectMapper.getTypeFactory().constructCollectionType(List.class, elementType), view, filters),
+                        generator -> new ChunkedList<>(list, generator, this.chunkSize), true);
+                return;
             }
+            Object body = value;
+            this.write(response, charset, this.getWriter(type, view, filters), generator -> body, false);
         } catch (JsonProcessingException jpe) {
             //处理json转换错误
             throw new ReturnValueResolverException(jpe.getMessage(), jpe);
@@ -99,10 +152,355 @@ public class RequestMethodReturnValueApplicationJsonResolver
         }
     }
 
+    /**
+     * 序列化写出返回值
+     * 缓冲区内容达到 {@link #bufferSize} 字节前不提交响应，提交后出错时不结束json输出，继续抛出错误由容器中断连接
+     *
+     * @param response 响应对象
+     * @param charset  响应编码
+     * @param writer   返回值序列化
+     * @param value    按json输出创建写出的值
+     * @param chunked  是否分块输出，分块输出时刷新json输出提交响应
+     * @throws IOException
+     */
+    private void write(HttpServletResponse response, Charset charset, ObjectWriter writer, Function<JsonGenerator, Object> value, boolean chunked) throws IOException {
+        DeferredOutputStream out = new DeferredOutputStream(response, this.bufferSize, chunked);
+        JsonFactory factory = this.objectMapper.getFactory();
+        //非utf-8编码直接编码写入缓冲区，不生成中间字符串
+        JsonGenerator generator = charset.equals(StandardCharsets.UTF_8) ?
+                factory.createGenerator(out, JsonEncoding.UTF8) : factory.createGenerator(new OutputStreamWriter(out, charset));
+        //响应流由容器关闭
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try {
+            writer.writeValue(generator, value.apply(generator));
+            generator.close();
+            out.finish();
+        } catch (IOException | RuntimeException e) {
+            if (out.isCommitted()) {
+                log.error("json响应已提交，输出中断，响应内容不完整，中断连接:" + response.getContentType(), e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 获取返回值序列化类型
+     * 函数声明的容器类型可以保存元素类型，返回值为声明类型时使用声明类型，否则使用返回值类型
+     *
+     * @param method 请求函数
+     * @param value  返回值
+     * @return
+     */
+    private JavaType getJavaType(Method method, Object value) {
+        JavaType type = this.typeMap.computeIfAbsent(method, m -> this.objectMapper.constructType(m.getGenericReturnType()));
+        if (type.isContainerType() && type.getRawClass().isInstance(value)) {
+            return type;
+        }
+        return this.objectMapper.constructType(value.getClass());
+    }
+
+    /**
+     * 获取请求函数注释的序列化视图
+     *
+     * @param method 请求函数
+     * @return 没有注释返回null
+     */
+    private static Class<?> getJsonView(Method method) {
+        JsonView jsonView = method.getAnnotation(JsonView.class);
+        if (jsonView == null) {
+            return null;
+        }
+        Class<?>[] classes = jsonView.value();
+        if (classes.length != 1) {
+            throw new IllegalArgumentException("@JsonView only supported for response body with exactly 1 class argument: " + method);
+        }
+        return classes[0];
+    }
+
+    /**
+     * 获取类型与视图的序列化
+     *
+     * @param type    序列化类型
+     * @param view    序列化视图，没有视图为null
+     * @param filters 序列化过滤，有过滤时不缓存
+     * @return
+     */
+    private ObjectWriter getWriter(JavaType type, Class<?> view, FilterProvider filters) {
+        if (filters != null) {
+            return this.createWriter(type, view).with(filters);
+        }
+        return this.writerMap.computeIfAbsent(new WriterKey(type, view), k -> this.createWriter(type, view));
+    }
+
+    /**
+     * 创建类型与视图的序列化
+     *
+     * @param type 序列化类型
+     * @param view 序列化视图，没有视图为null
+     * @return
+     */
+    private ObjectWriter createWriter(JavaType type, Class<?> view) {
+        ObjectWriter writer = view == null ? this.objectMapper.writer() : this.objectMapper.writerWithView(view);
+        //响应流由容器关闭
+        return writer.forType(type).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * 请求函数与声明的返回值类型
+     */
+    private final Map<Method, JavaType> typeMap = new ConcurrentHashMap<>();
+    /**
+     * 序列化类型、视图与序列化缓存
+     */
+    private final Map<WriterKey, ObjectWriter> writerMap = new ConcurrentHashMap<>();
+    /**
+     * 响应缓冲区字节数，超过时提交响应
+     */
+    private int bufferSize = 64 * 1024;
+
+    /**
+     * 获取响应缓冲区字节数
+     *
+     * @return
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * 设置响应缓冲区字节数
+     *
+     * @param bufferSize 必须大于0
+     */
+    public void setBufferSize(int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize:" + bufferSize);
+        }
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * 列表分块输出元素数量阈值，小于0不分块
+     */
+    private int chunkThreshold = 1000;
+
+    /**
+     * 获取列表分块输出元素数量阈值
+     *
+     * @return 小于0不分块
+     */
+    public int getChunkThreshold() {
+        return chunkThreshold;
+    }
+
+    /**
+     * 设置列表分块输出元素数量阈值
+     *
+     * @param chunkThreshold 小于0不分块
+     */
+    public void setChunkThreshold(int chunkThreshold) {
+        this.chunkThreshold = chunkThreshold;
+    }
+
+    /**
+     * 分块输出每次刷新的元素数量
+     */
+    private int chunkSize = 200;
+
+    /**
+     * 获取分块输出每次刷新的元素数量
+     *
+     * @return
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * 设置分块输出每次刷新的元素数量
+     *
+     * @param chunkSize 必须大于0
+     */
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize:" + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
     /**
      * 注入应用序列化
      */
     @Application
     @Autowired
     private ObjectMapper objectMapper;
-}
\ No newline at end of file
+
+    /**
+     * 序列化缓存键
+     */
+    private static final class WriterKey {
+        private final JavaType type;
+        private final Class<?> view;
+
+        WriterKey(JavaType type, Class<?> view) {
+            this.type = type;
+            this.view = view;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof WriterKey)) {
+                return false;
+            }
+            WriterKey key = (WriterKey) o;
+            return this.type.equals(key.type) && this.view == key.view;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.type.hashCode() + Objects.hashCode(this.view);
+        }
+    }
+
+    /**
+     * 分块输出列表
+     * 序列化遍历元素时每 {@link #chunkSize} 个元素刷新一次json输出
+     */
+    private static final class ChunkedList<E> extends AbstractList<E> {
+        private final List<E> list;
+        private final JsonGenerator generator;
+        private final int chunkSize;
+
+        ChunkedList(List<E> list, JsonGenerator generator, int chunkSize) {
+            this.list = list;
+            this.generator = generator;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public E get(int index) {
+            return this.list.get(index);
+        }
+
+        @Override
+        public int size() {
+            return this.list.size();
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            Iterator<E> iterator = this.list.iterator();
+            return new Iterator<E>() {
+                private int count;
+
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public E next() {
+                    if (this.count > 0 && this.count % chunkSize == 0) {
+                        try {
+                            generator.flush();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                    this.count++;
+                    return iterator.next();
+                }
+            };
+        }
+    }
+
+    /**
+     * 延迟提交响应流
+     * 提交前的内容保存在缓冲区，缓冲区达到限制字节数、分块输出第一次刷新或写出完成时提交响应并写入缓冲区内容，之后直接写入响应流
+     */
+    private static final class DeferredOutputStream extends OutputStream {
+        private final HttpServletResponse response;
+        private final int limit;
+        private final boolean flushCommits;
+        private ByteArrayOutputStream buffer;
+        private OutputStream out;
+
+        /**
+         * 初始化延迟提交响应流
+         *
+         * @param response     响应对象
+         * @param limit        缓冲区限制字节数
+         * @param flushCommits 刷新时是否提交响应，不提交时提交前的刷新被忽略，由容器在完成时按内容长度输出
+         */
+        DeferredOutputStream(HttpServletResponse response, int limit, boolean flushCommits) {
+            this.response = response;
+            this.limit = limit;
+            this.flushCommits = flushCommits;
+            this.buffer = new ByteArrayOutputStream(Math.min(limit, 8192));
+        }
+
+        /**
+         * 获取是否已经提交响应
+         *
+         * @return
+         */
+        boolean isCommitted() {
+            return this.out != null;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (this.out == null) {
+                this.buffer.write(b);
+                if (this.buffer.size() >= this.limit) {
+                    this.commit();
+                }
+            } else {
+                this.out.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (this.out == null) {
+                this.buffer.write(b, off, len);
+                if (this.buffer.size() >= this.limit) {
+                    this.commit();
+                }
+            } else {
+                this.out.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (this.out == null) {
+                if (!this.flushCommits) {
+                    return;
+                }
+                this.commit();
+            }
+            this.out.flush();
+        }
+
+        /**
+         * 写出完成，写入未提交的缓冲区内容
+         *
+         * @throws IOException
+         */
+        void finish() throws IOException {
+            if (this.out == null) {
+                this.commit();
+            }
+        }
+
+        private void commit() throws IOException {
+            this.out = this.response.getOutputStream();
+            this.buffer.writeTo(this.out);
+            this.buffer = null;
+        }
+    }
+}
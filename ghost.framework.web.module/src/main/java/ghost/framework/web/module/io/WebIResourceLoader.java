@@ -4,11 +4,19 @@ import ghost.framework.context.io.IResourceClassLoader;
 import ghost.framework.context.io.IResourceDomain;
 import ghost.framework.context.io.ResourceBytes;
 import ghost.framework.context.utils.AssemblyUtil;
+import ghost.framework.context.utils.PathUtil;
+import ghost.framework.util.FileUtil;
 import ghost.framework.web.context.io.IWebResource;
 import ghost.framework.web.context.io.WebResource;
 import org.apache.commons.lang3.StringUtils;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
 /**
  * package: ghost.framework.web.module.io
  *
@@ -38,14 +46,46 @@ import java.util.*;
 public class WebIResourceLoader<V extends IResourceDomain>
         implements ghost.framework.web.context.io.WebIResourceLoader<V>, AutoCloseable {
     /**
-     * 这里缓存的键是http请求的资源路径
-     * 资源缓存地图
+     * 未找到资源路径缓存最大数量
      */
-    private Map<String, IWebResource> cacheMap = new HashMap<>(100);
+    private static final int MISS_CACHE_SIZE = 1024;
+    /**
+     * 预压缩最小资源大小，小于此大小的资源压缩收益不足
+     */
+    private static final int ENCODE_MIN_SIZE = 256;
+    /**
+     * 预压缩的资源扩展名，图片、字体等已压缩格式不再压缩
+     */
+    private static final Set<String> ENCODE_EXTENSIONS = new HashSet<>(Arrays.asList(
+            "html", "htm", "css", "js", "mjs", "json", "map", "xml", "svg", "txt", "csv", "ttf", "eot", "otf"));
+    /**
+     * 资源缓存
+     */
+    private final WebResourceCache cache = new WebResourceCache();
+    /**
+     * 未找到资源路径缓存
+     * 避免不存在的路径每次请求都遍历全部资源域，资源域添加或删除时清除
+     */
+    private final Map<String, Boolean> missMap = Collections.synchronizedMap(new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MISS_CACHE_SIZE;
+        }
+    });
+    /**
+     * jar资源域条目索引地图
+     * 目录资源域（开发环境target/classes）没有索引，继续使用 {@link AssemblyUtil#getResourceBytes(java.net.URL, String, String)} 读取
+     */
+    private final Map<IResourceDomain, WebResourceIndex> indexMap = new ConcurrentHashMap<>();
     /**
      * 资源域地图
      */
-    private IResourceDomain[] list = new IResourceDomain[0];
+    private volatile IResourceDomain[] list = new IResourceDomain[0];
+    /**
+     * 资源域版本，资源域添加或删除时增加
+     * 查找前读取版本，版本未变化时才缓存查找结果，避免查找过程中删除的资源域被缓存或新资源域的资源被记为未找到
+     */
+    private final AtomicLong generation = new AtomicLong();
 
     /**
      * 添加资源域
@@ -54,14 +94,20 @@ public class WebIResourceLoader<V extends IResourceDomain>
      * @return 返回是否有效添加资源域
      */
     @Override
-    public boolean add(V v) {
+    public synchronized boolean add(V v) {
         boolean is;
         List<IResourceDomain> l = new ArrayList<>(Arrays.asList(list));
         is = l.add(v);
         if (is) {
-            synchronized (list) {
-                list = l.toArray(new IResourceDomain[l.size()]);
+            //建立jar条目索引
+            WebResourceIndex index = WebResourceIndex.create(v);
+            if (index != null) {
+                indexMap.put(v, index);
             }
+            list = l.toArray(new IResourceDomain[l.size()]);
+            generation.incrementAndGet();
+            //新资源域可能包含之前未找到的资源
+            missMap.clear();
         }
         return is;
     }
@@ -73,13 +119,23 @@ public class WebIResourceLoader<V extends IResourceDomain>
      * @return 返回是否有效删除资源域
      */
     @Override
-    public boolean remove(V v) {
+    public synchronized boolean remove(V v) {
         boolean is;
         List<IResourceDomain> l = new ArrayList<>(Arrays.asList(list));
         is = l.remove(v);
         if (is) {
-            synchronized (list) {
-                list = l.toArray(new IResourceDomain[l.size()]);
+            list = l.toArray(new IResourceDomain[l.size()]);
+            generation.incrementAndGet();
+            //删除资源域缓存的资源
+            cache.removeIf(resource -> resource.getDomain() == v);
+            missMap.clear();
+            //释放jar条目索引
+            WebResourceIndex index = indexMap.remove(v);
+            if (index != null) {
+                try {
+                    index.close();
+                } catch (Exception e) {
+                }
             }
         }
         return is;
@@ -94,10 +150,16 @@ public class WebIResourceLoader<V extends IResourceDomain>
     @Override
     public IWebResource getResource(String path) {
         //判断缓存是否有资源文件
-        IWebResource r = cacheMap.get(path);
+        IWebResource r = cache.get(path);
         if (r != null) {
             return r;
         }
+        //判断是否为已知不存在的资源路径
+        if (missMap.containsKey(path)) {
+            return null;
+        }
+        //查找前的资源域版本
+        long generation = this.generation.get();
         //缓存没有资源文件，遍历包获取资源文件
         for (IResourceDomain domain : list) {
             //声明资源接口
@@ -109,10 +171,14 @@ public class WebIResourceLoader<V extends IResourceDomain>
                         continue;
                     }
                 }
+                WebResourceIndex index = indexMap.get(domain);
                 //遍历包本地路径
                 for (String s : domain.getClassPaths()) {
-                    //验证包本地路径
-                    if (StringUtils.isEmpty(s)) {
+                    if (index != null) {
+                        //使用jar条目索引读取，条目名称与 AssemblyUtil.getResourceBytes 保持一致，资源域已删除、索引已释放时作为未找到
+                        resource = index.getResourceBytes(StringUtils.isEmpty(s) ? path : PathUtil.urlConnection(s, path));
+                    } else if (StringUtils.isEmpty(s)) {
+                        //验证包本地路径
                         resource = AssemblyUtil.getResourceBytes(domain.getURL(), null, path);
                     } else {
                         resource = AssemblyUtil.getResourceBytes(domain.getURL(), s, path);
@@ -120,10 +186,19 @@ public class WebIResourceLoader<V extends IResourceDomain>
                     //判断是否有效资源
                     if (resource != null) {
                         //创建资源，并添加缓存
-                        IWebResource webResource = new WebResource(path, resource.lastModified(), resource.getBytes(), domain);
-                        cacheMap.put(path, webResource);
-                        //添加资源域缓存路径
-                        domain.getCacheList().add(path);
+                        byte[] bytes = resource.getBytes();
+                        Map<String, byte[]> encodedMap = this.encode(path, bytes);
+                        IWebResource webResource = new WebResource(path, resource.lastModified(), bytes, domain, encodedMap);
+                        long weight = bytes.length;
+                        for (byte[] encoded : encodedMap.values()) {
+                            weight += encoded.length;
+                        }
+                        //查找过程中资源域有变化时不缓存
+                        if (this.generation.get() == generation) {
+                            cache.put(path, webResource, weight);
+                            //添加资源域缓存路径
+                            domain.getCacheList().add(path);
+                        }
                         return webResource;
                     }
                 }
@@ -131,9 +206,54 @@ public class WebIResourceLoader<V extends IResourceDomain>
                 throw new RuntimeException(e.getMessage(), e);
             }
         }
+        //记录未找到的资源路径，查找过程中资源域有变化时不记录
+        if (this.generation.get() == generation) {
+            missMap.put(path, Boolean.TRUE);
+        }
         return null;
     }
 
+    /**
+     * 预压缩资源数据
+     * 只在资源加载时压缩一次，压缩后不小于原始数据的编码不保留
+     *
+     * @param path  资源路径
+     * @param bytes 原始数据
+     * @return 返回预压缩数据地图，键为内容编码
+     * @throws IOException
+     */
+    private Map<String, byte[]> encode(String path, byte[] bytes) throws IOException {
+        if (bytes.length < ENCODE_MIN_SIZE || !ENCODE_EXTENSIONS.contains(FileUtil.getExtensionName(path).toLowerCase())) {
+            return Collections.emptyMap();
+        }
+        Map<String, byte[]> map = new HashMap<>(2);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2);
+        try (GZIPOutputStream stream = new GZIPOutputStream(out)) {
+            stream.write(bytes);
+        }
+        if (out.size() < bytes.length) {
+            map.put(IWebResource.ENCODING_GZIP, out.toByteArray());
+        }
+        out = new ByteArrayOutputStream(bytes.length / 2);
+        try (DeflaterOutputStream stream = new DeflaterOutputStream(out)) {
+            stream.write(bytes);
+        }
+        if (out.size() < bytes.length) {
+            map.put(IWebResource.ENCODING_DEFLATE, out.toByteArray());
+        }
+        return map;
+    }
+
+    /**
+     * 获取资源缓存
+     * 可以读取缓存命中、未命中、淘汰计数或调整缓存容量
+     *
+     * @return
+     */
+    public WebResourceCache getCache() {
+        return cache;
+    }
+
     /**
      * 释放资源
      *
@@ -141,7 +261,12 @@ public class WebIResourceLoader<V extends IResourceDomain>
      */
     @Override
     public void close() throws Exception {
-
+        cache.clear();
+        //释放全部jar条目索引
+        for (WebResourceIndex index : indexMap.values()) {
+            index.close();
+        }
+        indexMap.clear();
     }
 
     @Override
@@ -0,0 +1,170 @@
+package ghost.framework.web.module.io;
+
+import ghost.framework.util.BoundedLruCache;
+import ghost.framework.web.context.io.IWebResource;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * package: ghost.framework.web.module.io
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:web资源缓存
+ * 按资源数据总字节数（原始数据与预压缩数据之和）限制容量，超出容量时淘汰最久未访问的资源，
+ * 访问顺序与淘汰由 {@link BoundedLruCache} 分段维护，读取只锁定资源路径所在分段。
+ * 提供命中、未命中、淘汰计数供监控使用。
+ * {@link WebIResourceLoader#getCache()}
+ * @Date: 2020/6/7:10:20
+ */
+public final class WebResourceCache {
+    /**
+     * 默认缓存容量，64M
+     */
+    public static final long DEFAULT_MAX_WEIGHT = 64L * 1024 * 1024;
+    /**
+     * 缓存，键为http请求的资源路径，按资源数据总字节数限制容量
+     */
+    private final BoundedLruCache<String, Node> cache = new BoundedLruCache<>(DEFAULT_MAX_WEIGHT, node -> node.weight);
+    /**
+     * 命中计数
+     */
+    private final LongAdder hitCount = new LongAdder();
+    /**
+     * 未命中计数
+     */
+    private final LongAdder missCount = new LongAdder();
+
+    /**
+     * 获取缓存资源
+     *
+     * @param path 资源路径
+     * @return 未缓存时返回null
+     */
+    public IWebResource get(String path) {
+        Node node = this.cache.get(path);
+        if (node == null) {
+            this.missCount.increment();
+            return null;
+        }
+        this.hitCount.increment();
+        return node.resource;
+    }
+
+    /**
+     * 添加缓存资源
+     * 单个资源超过缓存容量时不缓存
+     *
+     * @param path     资源路径
+     * @param resource 资源
+     * @param weight   资源数据总字节数
+     * @return 返回是否已缓存
+     */
+    boolean put(String path, IWebResource resource, long weight) {
+        if (weight > this.cache.getMaxWeight()) {
+            return false;
+        }
+        this.cache.put(path, new Node(resource, weight));
+        return true;
+    }
+
+    /**
+     * 删除符合条件的缓存资源
+     *
+     * @param filter 删除条件
+     */
+    void removeIf(Predicate<IWebResource> filter) {
+        this.cache.removeIf((path, node) -> filter.test(node.resource));
+    }
+
+    /**
+     * 清除全部缓存资源
+     */
+    public void clear() {
+        this.removeIf(resource -> true);
+    }
+
+    /**
+     * 获取缓存容量
+     *
+     * @return
+     */
+    public long getMaxWeight() {
+        return cache.getMaxWeight();
+    }
+
+    /**
+     * 设置缓存容量
+     * 缩小容量时立即淘汰超出部分
+     *
+     * @param maxWeight 缓存容量，字节数
+     */
+    public void setMaxWeight(long maxWeight) {
+        this.cache.setMaxWeight(maxWeight);
+    }
+
+    /**
+     * 获取当前缓存总字节数
+     *
+     * @return
+     */
+    public long getWeight() {
+        return cache.getWeight();
+    }
+
+    /**
+     * 获取缓存资源数量
+     *
+     * @return
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * 获取命中计数
+     *
+     * @return
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * 获取未命中计数
+     *
+     * @return
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * 获取淘汰计数
+     *
+     * @return
+     */
+    public long getEvictionCount() {
+        return cache.getEvictionCount();
+    }
+
+    /**
+     * 缓存节点
+     */
+    private static final class Node {
+        /**
+         * 资源
+         */
+        private final IWebResource resource;
+        /**
+         * 资源数据总字节数
+         */
+        private final long weight;
+
+        Node(IWebResource resource, long weight) {
+            this.resource = resource;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package ghost.framework.web.module.io;
+
+import ghost.framework.context.io.AbstractResourceBytes;
+import ghost.framework.context.io.IResourceDomain;
+import ghost.framework.context.io.ResourceBytes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import static ghost.framework.util.ReflectUtil.DotJAR;
+
+/**
+ * package: ghost.framework.web.module.io
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:jar资源域条目索引
+ * 资源域添加时建立一次，保存条目名称到条目（大小、修改时间）的地图，jar文件保持打开直到资源域删除，
+ * 读取资源时不再重复打开jar文件
+ * {@link WebIResourceLoader#add(IResourceDomain)}
+ * {@link WebIResourceLoader#remove(IResourceDomain)}
+ * @Date: 2020/6/6:11:05
+ */
+final class WebResourceIndex implements AutoCloseable {
+    /**
+     * 打开的jar文件
+     */
+    private final JarFile jarFile;
+    /**
+     * 条目地图，键为jar条目名称
+     */
+    private final Map<String, JarEntry> entries;
+    /**
+     * 是否已释放
+     */
+    private volatile boolean closed;
+
+    /**
+     * 初始化jar资源域条目索引
+     *
+     * @param jarFile jar文件
+     */
+    private WebResourceIndex(JarFile jarFile) {
+        this.jarFile = jarFile;
+        Map<String, JarEntry> map = new HashMap<>();
+        Enumeration<JarEntry> enumeration = jarFile.entries();
+        while (enumeration.hasMoreElements()) {
+            JarEntry entry = enumeration.nextElement();
+            //目录条目不作为资源
+            if (!entry.isDirectory()) {
+                map.put(entry.getName(), entry);
+            }
+        }
+        this.entries = map;
+    }
+
+    /**
+     * 建立资源域索引
+     *
+     * @param domain 资源域
+     * @return 资源域不是jar包或jar包无法打开时返回null，由调用方使用原有方式读取
+     */
+    static WebResourceIndex create(IResourceDomain domain) {
+        if (domain.getURL() == null) {
+            return null;
+        }
+        String path = domain.getURL().getPath();
+        if (!path.endsWith(DotJAR)) {
+            return null;
+        }
+        try {
+            return new WebResourceIndex(new JarFile(new File(path)));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 判断是否包含条目
+     *
+     * @param name 条目名称
+     * @return
+     */
+    boolean contains(String name) {
+        return this.entries.containsKey(name);
+    }
+
+    /**
+     * 读取条目资源
+     *
+     * @param name 条目名称
+     * @return 没有条目或索引已释放时返回null
+     * @throws IOException
+     */
+    ResourceBytes getResourceBytes(String name) throws IOException {
+        JarEntry entry = this.entries.get(name);
+        if (entry == null || this.closed) {
+            return null;
+        }
+        try (InputStream stream = this.jarFile.getInputStream(entry)) {
+            return new AbstractResourceBytes(read(stream, entry.getSize()), entry.getTime());
+        } catch (IOException | IllegalStateException e) {
+            //读取过程中资源域删除，jar文件已关闭
+            if (this.closed) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 读取条目数据
+     * 已知条目大小时直接读取到指定长度数组，避免扩容复制
+     *
+     * @param stream 条目流
+     * @param size   条目大小，未知时为-1
+     * @return
+     * @throws IOException
+     */
+    private static byte[] read(InputStream stream, long size) throws IOException {
+        if (size >= 0 && size <= Integer.MAX_VALUE) {
+            byte[] bytes = new byte[(int) size];
+            int offset = 0;
+            while (offset < bytes.length) {
+                int n = stream.read(bytes, offset, bytes.length - offset);
+                if (n < 0) {
+                    throw new EOFException();
+                }
+                offset += n;
+            }
+            return bytes;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = stream.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 释放jar文件
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        this.closed = true;
+        this.jarFile.close();
+    }
+}
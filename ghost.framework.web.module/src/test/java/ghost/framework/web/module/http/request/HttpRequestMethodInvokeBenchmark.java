@@ -0,0 +1,226 @@
+package ghost.framework.web.module.http.request;
+
+import ghost.framework.context.parameter.NameParameter;
+import ghost.framework.context.resolver.ResolverException;
+import ghost.framework.web.context.http.request.IHttpRequestMethod;
+import ghost.framework.web.context.http.request.method.argument.IRequestMethodArgumentResolver;
+import ghost.framework.web.module.http.request.method.argument.RequestMethodArgumentResolverContainer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * package: ghost.framework.web.module.http.request
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:请求函数参数解析与调用基准测试
+ * 对比每次请求逐个判断全部参数解析器后 {@link Method#invoke(Object, Object...)} 调用，
+ * 与 {@link RequestMethodArgumentResolverContainer} 按执行计划解析参数后 {@link HttpRequestMethodInvoker} 句柄调用，
+ * {@link #resolvers} 为排在匹配解析器前面的不匹配注释解析器数量
+ * @Date: 2020/6/27:14:30
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HttpRequestMethodInvokeBenchmark {
+    /**
+     * 不匹配的解析器数量
+     */
+    @Param({"2", "16"})
+    public int resolvers;
+    private final Controller controller = new Controller();
+    private final RequestMethodArgumentResolverContainer<IRequestMethodArgumentResolver> container = new RequestMethodArgumentResolverContainer<>();
+    /**
+     * 与容器判断顺序相同的解析器列表
+     */
+    private final List<IRequestMethodArgumentResolver> list = new ArrayList<>();
+    private Method method;
+    private IHttpRequestMethod requestMethod;
+    private HttpRequestMethodInvoker invoker;
+    private Object[] parameters;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException, ResolverException {
+        this.method = Controller.class.getDeclaredMethod("handle", String.class, int.class, Object.class);
+        this.method.setAccessible(true);
+        Parameter[] parameters = this.method.getParameters();
+        NameParameter[] nameParameters = new NameParameter[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            nameParameters[i] = new NameParameter("p" + i, parameters[i]);
+        }
+        Map<String, Object> attributes = new ConcurrentHashMap<>();
+        this.requestMethod = (IHttpRequestMethod) Proxy.newProxyInstance(this.getClass().getClassLoader(), new Class<?>[]{IHttpRequestMethod.class}, (proxy, m, args) -> {
+            switch (m.getName()) {
+                case "getMethod":
+                    return this.method;
+                case "getParameters":
+                    return nameParameters;
+                case "getAttribute":
+                    return attributes.get(args[0]);
+                case "setAttribute":
+                    attributes.put((String) args[0], args[1]);
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(m.getName());
+            }
+        });
+        for (int i = 0; i < this.resolvers; i++) {
+            this.add(new AnnotationResolver());
+        }
+        this.add(new TypeResolver(String.class, "name"));
+        this.add(new TypeResolver(int.class, 1));
+        this.add(new TypeResolver(Object.class, this));
+        this.invoker = new HttpRequestMethodInvoker(this.controller, this.method);
+        this.parameters = this.container.resolveMethod(null, null, this.requestMethod);
+    }
+
+    private void add(IRequestMethodArgumentResolver resolver) {
+        this.container.add(resolver);
+        this.list.add(resolver);
+    }
+
+    /**
+     * 逐个判断解析器后反射调用
+     *
+     * @return
+     * @throws ResolverException
+     * @throws ReflectiveOperationException
+     */
+    @Benchmark
+    public Object probeAndReflect() throws ResolverException, ReflectiveOperationException {
+        NameParameter[] parameters = this.requestMethod.getParameters();
+        Object[] args = new Object[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            for (IRequestMethodArgumentResolver resolver : this.list) {
+                if (resolver.isResolver(null, null, this.requestMethod, parameters[i])) {
+                    args[i] = resolver.resolveArgument(null, null, this.requestMethod, parameters[i]);
+                    break;
+                }
+            }
+        }
+        return this.method.invoke(this.controller, args);
+    }
+
+    /**
+     * 按执行计划解析参数后句柄调用
+     *
+     * @return
+     * @throws ResolverException
+     * @throws InvocationTargetException
+     */
+    @Benchmark
+    public Object planAndHandle() throws ResolverException, InvocationTargetException {
+        return this.invoker.invoke(this.container.resolveMethod(null, null, this.requestMethod));
+    }
+
+    /**
+     * 只比较调用，反射调用
+     *
+     * @return
+     * @throws ReflectiveOperationException
+     */
+    @Benchmark
+    public Object reflectInvoke() throws ReflectiveOperationException {
+        return this.method.invoke(this.controller, this.parameters);
+    }
+
+    /**
+     * 只比较调用，句柄调用
+     *
+     * @return
+     * @throws InvocationTargetException
+     */
+    @Benchmark
+    public Object handleInvoke() throws InvocationTargetException {
+        return this.invoker.invoke(this.parameters);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HttpRequestMethodInvokeBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    /**
+     * 测试控制器
+     */
+    static final class Controller {
+        String handle(String name, int id, Object body) {
+            return name;
+        }
+    }
+
+    /**
+     * 测试控制器参数没有的注释
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Missing {
+    }
+
+    /**
+     * 按参数注释判断的解析器，与测试控制器参数都不匹配
+     */
+    static final class AnnotationResolver implements IRequestMethodArgumentResolver {
+        @Override
+        public boolean isCacheResolver() {
+            return true;
+        }
+
+        @Override
+        public Object resolveArgument(HttpServletRequest request, HttpServletResponse response, IHttpRequestMethod requestMethod, NameParameter parameter) {
+            return null;
+        }
+
+        @Override
+        public boolean isResolver(HttpServletRequest request, HttpServletResponse response, IHttpRequestMethod requestMethod, NameParameter parameter) {
+            return parameter.isAnnotationPresent(Missing.class);
+        }
+    }
+
+    /**
+     * 按参数类型判断的解析器
+     */
+    static final class TypeResolver implements IRequestMethodArgumentResolver {
+        private final Class<?> type;
+        private final Object value;
+
+        TypeResolver(Class<?> type, Object value) {
+            this.type = type;
+            this.value = value;
+        }
+
+        @Override
+        public boolean isCacheResolver() {
+            return true;
+        }
+
+        @Override
+        public Object resolveArgument(HttpServletRequest request, HttpServletResponse response, IHttpRequestMethod requestMethod, NameParameter parameter) {
+            return this.value;
+        }
+
+        @Override
+        public boolean isResolver(HttpServletRequest request, HttpServletResponse response, IHttpRequestMethod requestMethod, NameParameter parameter) {
+            return this.type == parameter.getType();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package ghost.framework.web.module.http.request;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * package: ghost.framework.web.module.http.request
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link HttpRequestMethodInvoker} 测试
+ * @Date: 2020/6/5:11:40
+ */
+class HttpRequestMethodInvokerTests {
+    private final Controller controller = new Controller();
+
+    @Test
+    void invokeNonPublicController() throws Exception {
+        assertThat(invoker("add").invoke(new Object[]{1, 2})).isEqualTo(3);
+        assertThat(invoker("echo").invoke(new Object[]{"a"})).isEqualTo("a");
+        assertThat(invoker("none").invoke(new Object[0])).isNull();
+        assertThat(controller.called).isTrue();
+        assertThat(invoker("twice").invoke(new Object[]{2L})).isEqualTo(4L);
+    }
+
+    @Test
+    void argumentErrorsAreIllegalArgument() throws Exception {
+        HttpRequestMethodInvoker add = invoker("add");
+        //参数类型错误
+        assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() -> add.invoke(new Object[]{"1", 2}));
+        //基础类型参数为null
+        assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() -> add.invoke(new Object[]{null, 2}));
+        //参数数量错误
+        assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() -> add.invoke(new Object[]{1}));
+        assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() -> invoker("echo").invoke(new Object[]{1}));
+    }
+
+    @Test
+    void targetErrorsAreInvocationTarget() throws Exception {
+        //目标函数抛出的参数类型错误也属于调用目标错误
+        assertThatExceptionOfType(InvocationTargetException.class).isThrownBy(() -> invoker("cast").invoke(new Object[]{1}))
+                .hasCauseInstanceOf(ClassCastException.class);
+        assertThatExceptionOfType(InvocationTargetException.class).isThrownBy(() -> invoker("fail").invoke(new Object[]{"x"}))
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThatExceptionOfType(InvocationTargetException.class).isThrownBy(() -> invoker("checked").invoke(new Object[0]))
+                .hasCauseInstanceOf(Exception.class);
+    }
+
+    private HttpRequestMethodInvoker invoker(String name) {
+        for (Method method : Controller.class.getDeclaredMethods()) {
+            if (method.getName().equals(name)) {
+                return new HttpRequestMethodInvoker(controller, method);
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    private static class Controller {
+        private boolean called;
+
+        private int add(int a, int b) {
+            return a + b;
+        }
+
+        String echo(String s) {
+            return s;
+        }
+
+        void none() {
+            called = true;
+        }
+
+        static long twice(long a) {
+            return a * 2;
+        }
+
+        String cast(Object o) {
+            return (String) o;
+        }
+
+        void fail(String s) {
+            throw new IllegalArgumentException(s);
+        }
+
+        void checked() throws Exception {
+            throw new Exception();
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ghost.framework.web.module.http.request;
+
+import ghost.framework.context.utils.AntPathMatcher;
+import ghost.framework.web.context.http.request.HttpRequestMethodPath;
+import ghost.framework.web.context.http.request.IHttpRequestMethod;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Parity tests for {@link HttpRequestMethodRouteIndex} against {@link AntPathMatcher}.
+ */
+class HttpRequestMethodRouteIndexTests {
+
+	/**
+	 * Pattern and path pairs from {@code AntPathMatcherTests#match()}, plus trailing separator cases.
+	 */
+	private static final String[][] CORPUS = {
+			{"test", "test"},
+			{"/test", "/test"},
+			{"https://example.org", "https://example.org"},
+			{"/test.jpg", "test.jpg"},
+			{"test", "/test"},
+			{"/test", "test"},
+			{"t?st", "test"},
+			{"??st", "test"},
+			{"tes?", "test"},
+			{"te??", "test"},
+			{"?es?", "test"},
+			{"tes?", "tes"},
+			{"tes?", "testt"},
+			{"tes?", "tsst"},
+			{"*", "test"},
+			{"test*", "test"},
+			{"test*", "testTest"},
+			{"test/*", "test/Test"},
+			{"test/*", "test/t"},
+			{"test/*", "test/"},
+			{"*test*", "AnothertestTest"},
+			{"*test", "Anothertest"},
+			{"*.*", "test."},
+			{"*.*", "test.test"},
+			{"*.*", "test.test.test"},
+			{"test*aaa", "testblaaaa"},
+			{"test*", "tst"},
+			{"test*", "tsttest"},
+			{"test*", "test/"},
+			{"test*", "test/t"},
+			{"test/*", "test"},
+			{"*test*", "tsttst"},
+			{"*test", "tsttst"},
+			{"*.*", "tsttst"},
+			{"test*aaa", "test"},
+			{"test*aaa", "testblaaab"},
+			{"/?", "/a"},
+			{"/?/a", "/a/a"},
+			{"/a/?", "/a/b"},
+			{"/??/a", "/aa/a"},
+			{"/a/??", "/a/bb"},
+			{"/**", "/testing/testing"},
+			{"/*/**", "/testing/testing"},
+			{"/**/*", "/testing/testing"},
+			{"/bla/**/bla", "/bla/testing/testing/bla"},
+			{"/bla/**/bla", "/bla/testing/testing/bla/bla"},
+			{"/**/test", "/bla/bla/test"},
+			{"/bla/**/**/bla", "/bla/bla/bla/bla/bla/bla"},
+			{"/bla*bla/test", "/blaXXXbla/test"},
+			{"/*bla/test", "/XXXbla/test"},
+			{"/bla*bla/test", "/blaXXXbl/test"},
+			{"/*bla/test", "XXXblab/test"},
+			{"/*bla/test", "XXXbl/test"},
+			{"/????", "/bala/bla"},
+			{"/**/*bla", "/bla/bla/bla/bbb"},
+			{"/*bla*/**/bla/**", "/XXXblaXXXX/testing/testing/bla/testing/testing/"},
+			{"/*bla*/**/bla/*", "/XXXblaXXXX/testing/testing/bla/testing"},
+			{"/*bla*/**/bla/**", "/XXXblaXXXX/testing/testing/bla/testing/testing"},
+			{"/*bla*/**/bla/**", "/XXXblaXXXX/testing/testing/bla/testing/testing.jpg"},
+			{"*bla*/**/bla/**", "XXXblaXXXX/testing/testing/bla/testing/testing/"},
+			{"*bla*/**/bla/*", "XXXblaXXXX/testing/testing/bla/testing"},
+			{"*bla*/**/bla/**", "XXXblaXXXX/testing/testing/bla/testing/testing"},
+			{"*bla*/**/bla/*", "XXXblaXXXX/testing/testing/bla/testing/testing"},
+			{"/x/x/**/bla", "/x/x/x/"},
+			{"/foo/bar/**", "/foo/bar"},
+			{"", ""},
+			{"/{bla}.*", "/testing.html"},
+			{"/a/*", "/a/"},
+			{"/a/*/", "/a/"},
+			{"/a/*", "/a"},
+			{"/a/*", "/a/b/"},
+			{"/a/{id}", "/a/"},
+			{"/a/b", "/a/b/"},
+			{"/a/b/", "/a/b"},
+			{"/{a}/{b}", "/x/y"},
+			{"/{a}/*", "/x/"},
+	};
+
+	private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+
+	@Test
+	void matchSameAsAntPathMatcher() {
+		for (String[] pair : CORPUS) {
+			HttpRequestMethodRouteIndex.Match match = index(pair[0]).match(pair[1], "GET");
+			assertThat(match != null).as("%s -> %s", pair[0], pair[1]).isEqualTo(pathMatcher.match(pair[0], pair[1]));
+		}
+	}
+
+	@Test
+	void matchTrailingSeparatorWithStarSegment() {
+		assertThat(index("/a/*").match("/a/", "GET")).isNotNull();
+		assertThat(index("/a/*/").match("/a/", "GET")).isNotNull();
+		assertThat(index("/a/*").match("/a", "GET")).isNull();
+		assertThat(index("/a/{id}").match("/a/", "GET")).isNull();
+	}
+
+	@Test
+	void matchFirstRegisteredPattern() {
+		String[] patterns = Arrays.stream(CORPUS).map(pair -> pair[0]).distinct().toArray(String[]::new);
+		HttpRequestMethodRouteIndex index = index(patterns);
+		for (String[] pair : CORPUS) {
+			String expected = null;
+			for (String pattern : patterns) {
+				if (pathMatcher.match(pattern, pair[1])) {
+					expected = pattern;
+					break;
+				}
+			}
+			HttpRequestMethodRouteIndex.Match match = index.match(pair[1], "GET");
+			assertThat(match == null ? null : match.getPattern()).as(pair[1]).isEqualTo(expected);
+		}
+	}
+
+	@Test
+	void extractVariablesOfMatchedRouteOnly() {
+		HttpRequestMethodRouteIndex index = index("/hotels/{hotel}/bookings/{booking}", "/hotels/{hotel}/*/{id}", "/{page}.html");
+		HttpRequestMethodRouteIndex.Match match = index.match("/hotels/1/bookings/2", "GET");
+		assertThat(match.getPattern()).isEqualTo("/hotels/{hotel}/bookings/{booking}");
+		assertThat(match.getVariables()).isEqualTo(pathMatcher.extractUriTemplateVariables(match.getPattern(), "/hotels/1/bookings/2"));
+		match = index.match("/hotels/1/rooms/2", "GET");
+		assertThat(match.getPattern()).isEqualTo("/hotels/{hotel}/*/{id}");
+		assertThat(match.getVariables()).isEqualTo(pathMatcher.extractUriTemplateVariables(match.getPattern(), "/hotels/1/rooms/2"));
+		match = index.match("/index.html", "GET");
+		assertThat(match.getVariables().get("page")).isEqualTo("index");
+		assertThat(index("/a/b").match("/a/b", "GET").getVariables().isEmpty()).isTrue();
+	}
+
+	private HttpRequestMethodRouteIndex index(String... patterns) {
+		List<Map.Entry<HttpRequestMethodPath, IHttpRequestMethod>> entries = new ArrayList<>();
+		for (String pattern : patterns) {
+			IHttpRequestMethod requestMethod = requestMethod();
+			entries.add(new AbstractMap.SimpleEntry<>(new HttpRequestMethodPath(pattern, requestMethod), requestMethod));
+		}
+		return new HttpRequestMethodRouteIndex(pathMatcher, entries);
+	}
+
+	/**
+	 * Request method accepting all request methods.
+	 */
+	private static IHttpRequestMethod requestMethod() {
+		return (IHttpRequestMethod) Proxy.newProxyInstance(IHttpRequestMethod.class.getClassLoader(), new Class<?>[]{IHttpRequestMethod.class},
+				(proxy, method, args) -> {
+					switch (method.getName()) {
+						case "equals":
+							return proxy == args[0];
+						case "hashCode":
+							return System.identityHashCode(proxy);
+						case "toString":
+							return "requestMethod";
+						default:
+							return null;
+					}
+				});
+	}
+
+}
@@ -0,0 +1,116 @@
+package ghost.framework.web.module.http.request.method.argument;
+
+import ghost.framework.context.parameter.NameParameter;
+import ghost.framework.web.context.http.request.IHttpRequestMethod;
+import ghost.framework.web.context.http.request.method.argument.IRequestMethodArgumentResolver;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * package: ghost.framework.web.module.http.request.method.argument
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link RequestMethodArgumentResolverPlan} 测试
+ * @Date: 2020/6/5:11:50
+ */
+class RequestMethodArgumentResolverPlanTests {
+    @Test
+    void cacheResolverProbedOnlyWhenPlanIsBuilt() throws Exception {
+        TestResolver strings = new TestResolver(true, String.class, "s");
+        TestResolver ints = new TestResolver(true, int.class, 1);
+        IHttpRequestMethod requestMethod = requestMethod("handle");
+        RequestMethodArgumentResolverPlan plan = new RequestMethodArgumentResolverPlan(3, Arrays.asList(strings, ints), null, null, requestMethod);
+        int probes = strings.probes + ints.probes;
+        assertThat(plan.getVersion()).isEqualTo(3);
+        for (int i = 0; i < 3; i++) {
+            assertThat(plan.resolve(null, null, requestMethod)).containsExactly("s", 1, null);
+        }
+        //请求时不再判断缓存解析器
+        assertThat(strings.probes + ints.probes).isEqualTo(probes);
+        assertThat(strings.resolves).isEqualTo(3);
+        assertThat(ints.resolves).isEqualTo(3);
+    }
+
+    @Test
+    void requestResolverBeforeCacheResolverProbedOnEachRequest() throws Exception {
+        TestResolver request = new TestResolver(false, String.class, "request");
+        TestResolver strings = new TestResolver(true, String.class, "s");
+        IHttpRequestMethod requestMethod = requestMethod("handle");
+        RequestMethodArgumentResolverPlan plan = new RequestMethodArgumentResolverPlan(0, Arrays.asList(request, strings), null, null, requestMethod);
+        assertThat(plan.resolve(null, null, requestMethod)).containsExactly("request", null, "request");
+        //请求相关解析器不匹配时使用缓存解析器，顺序与逐个判断一致
+        request.enabled = false;
+        assertThat(plan.resolve(null, null, requestMethod)).containsExactly("s", null, null);
+        assertThat(request.probes).isEqualTo(6);
+    }
+
+    @Test
+    void requestResolverAfterCacheResolverNotProbed() throws Exception {
+        TestResolver strings = new TestResolver(true, String.class, "s");
+        TestResolver request = new TestResolver(false, String.class, "request");
+        IHttpRequestMethod requestMethod = requestMethod("handle");
+        RequestMethodArgumentResolverPlan plan = new RequestMethodArgumentResolverPlan(0, Arrays.asList(strings, request), null, null, requestMethod);
+        assertThat(plan.resolve(null, null, requestMethod)).containsExactly("s", null, "request");
+        //String参数由缓存解析器确定，只有其余参数判断请求相关解析器
+        assertThat(request.probes).isEqualTo(2);
+    }
+
+    @SuppressWarnings("unused")
+    private static void handle(String s, int i, Object o) {
+    }
+
+    private static IHttpRequestMethod requestMethod(String name) throws NoSuchMethodException {
+        Method method = RequestMethodArgumentResolverPlanTests.class.getDeclaredMethod(name, String.class, int.class, Object.class);
+        Parameter[] parameters = method.getParameters();
+        NameParameter[] nameParameters = new NameParameter[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            nameParameters[i] = new NameParameter("p" + i, parameters[i]);
+        }
+        return (IHttpRequestMethod) Proxy.newProxyInstance(IHttpRequestMethod.class.getClassLoader(), new Class<?>[]{IHttpRequestMethod.class},
+                (proxy, m, args) -> m.getName().equals("getParameters") ? nameParameters : null);
+    }
+
+    /**
+     * 按参数类型解析的测试解析器
+     */
+    private static final class TestResolver implements IRequestMethodArgumentResolver {
+        private final boolean cache;
+        private final Class<?> type;
+        private final Object value;
+        private boolean enabled = true;
+        private int probes;
+        private int resolves;
+
+        TestResolver(boolean cache, Class<?> type, Object value) {
+            this.cache = cache;
+            this.type = type;
+            this.value = value;
+        }
+
+        @Override
+        public boolean isCacheResolver() {
+            return cache;
+        }
+
+        @Override
+        public Object resolveArgument(HttpServletRequest request, HttpServletResponse response, IHttpRequestMethod requestMethod, NameParameter parameter) {
+            resolves++;
+            return value;
+        }
+
+        @Override
+        public boolean isResolver(HttpServletRequest request, HttpServletResponse response, IHttpRequestMethod requestMethod, NameParameter parameter) {
+            probes++;
+            return enabled && (type == parameter.getType() || (!cache && parameter.getType() == Object.class));
+        }
+    }
+}
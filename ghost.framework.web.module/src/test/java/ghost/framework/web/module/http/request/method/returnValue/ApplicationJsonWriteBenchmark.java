@@ -0,0 +1,128 @@
+package ghost.framework.web.module.http.request.method.returnValue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ghost.framework.web.context.http.request.IHttpRequestMethod;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * package: ghost.framework.web.module.http.request.method.returnValue
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:json返回值写出基准测试
+ * 对比完整序列化为字节数组或字符串后写入响应流，与 {@link RequestMethodReturnValueApplicationJsonResolver} 直接序列化到延迟提交响应流
+ * @Date: 2020/6/27:11:20
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ApplicationJsonWriteBenchmark {
+    /**
+     * 返回值属性数量
+     */
+    @Param({"10", "10000"})
+    public int size;
+    @Param({"UTF-8", "GBK"})
+    public String charset;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final RequestMethodReturnValueApplicationJsonResolver resolver = new RequestMethodReturnValueApplicationJsonResolver();
+    private Map<String, Object> value;
+    private HttpServletResponse response;
+    private IHttpRequestMethod requestMethod;
+    private Blackhole blackhole;
+
+    @Setup
+    public void setup(Blackhole blackhole) throws ReflectiveOperationException {
+        this.blackhole = blackhole;
+        Field field = RequestMethodReturnValueApplicationJsonResolver.class.getDeclaredField("objectMapper");
+        field.setAccessible(true);
+        field.set(this.resolver, this.objectMapper);
+        this.value = new LinkedHashMap<>();
+        for (int i = 0; i < this.size; i++) {
+            this.value.put("key" + i, "名称" + i);
+        }
+        ServletOutputStream out = new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+                ApplicationJsonWriteBenchmark.this.blackhole.consume(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                ApplicationJsonWriteBenchmark.this.blackhole.consume(b);
+            }
+        };
+        this.response = (HttpServletResponse) Proxy.newProxyInstance(this.getClass().getClassLoader(), new Class<?>[]{HttpServletResponse.class}, (proxy, m, args) -> {
+            switch (m.getName()) {
+                case "getCharacterEncoding":
+                    return this.charset;
+                case "getStatus":
+                    return HttpServletResponse.SC_OK;
+                case "getOutputStream":
+                    return out;
+                default:
+                    return null;
+            }
+        });
+        Method method = this.getClass().getMethod("value");
+        this.requestMethod = (IHttpRequestMethod) Proxy.newProxyInstance(this.getClass().getClassLoader(), new Class<?>[]{IHttpRequestMethod.class}, (proxy, m, args) -> method);
+    }
+
+    public Map<String, Object> value() {
+        return this.value;
+    }
+
+    /**
+     * 完整序列化后写入响应流
+     *
+     * @throws IOException
+     */
+    @Benchmark
+    public void materialized() throws IOException {
+        Charset charset = Charset.forName(this.charset);
+        byte[] bytes = charset.name().equals("UTF-8") ? this.objectMapper.writeValueAsBytes(this.value) : this.objectMapper.writeValueAsString(this.value).getBytes(charset);
+        this.response.getOutputStream().write(bytes);
+    }
+
+    /**
+     * 直接序列化到延迟提交响应流
+     */
+    @Benchmark
+    public void streamed() {
+        this.resolver.handleReturnValue(null, this.response, this.requestMethod, this.value);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ApplicationJsonWriteBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,209 @@
+package ghost.framework.web.module.http.request.method.returnValue;
+
+import com.fasterxml.jackson.annotation.JsonView;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ghost.framework.context.resolver.ReturnValueResolverException;
+import ghost.framework.web.context.http.request.IHttpRequestMethod;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * package: ghost.framework.web.module.http.request.method.returnValue
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link RequestMethodReturnValueApplicationJsonResolver} 延迟提交与分块输出测试
+ * @Date: 2020/6/27:10:30
+ */
+public class RequestMethodReturnValueApplicationJsonResolverTests {
+    private final ObjectMapper objectMapper = new ObjectMapper().disable(MapperFeature.DEFAULT_VIEW_INCLUSION);
+    private final RequestMethodReturnValueApplicationJsonResolver resolver = new RequestMethodReturnValueApplicationJsonResolver();
+    /**
+     * 响应流写入的内容
+     */
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    /**
+     * 响应流刷新次数
+     */
+    private int flushes;
+
+    public RequestMethodReturnValueApplicationJsonResolverTests() throws ReflectiveOperationException {
+        Field field = RequestMethodReturnValueApplicationJsonResolver.class.getDeclaredField("objectMapper");
+        field.setAccessible(true);
+        field.set(this.resolver, this.objectMapper);
+    }
+
+    @Test
+    public void smallValueWrittenOnCompletion() throws Exception {
+        Item item = new Item(1, "name");
+        this.resolver.handleReturnValue(null, this.response("UTF-8"), this.method("item"), item);
+        assertThat(this.body.toString("UTF-8")).isEqualTo(this.objectMapper.writeValueAsString(item));
+        //未刷新响应流，由容器按内容长度输出
+        assertThat(this.flushes).isEqualTo(0);
+    }
+
+    @Test
+    public void failureBeforeBufferSizeWritesNothing() {
+        assertThatThrownBy(() -> this.resolver.handleReturnValue(null, this.response("UTF-8"), this.method("item"), new Bad()))
+                .isInstanceOf(ReturnValueResolverException.class);
+        assertThat(this.body.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void largeValueCommitsAtBufferSize() {
+        this.resolver.setBufferSize(1024);
+        Bad bad = new Bad();
+        //超过json输出自身的缓冲区
+        char[] name = new char[32 * 1024];
+        Arrays.fill(name, 'x');
+        bad.name = new String(name);
+        assertThatThrownBy(() -> this.resolver.handleReturnValue(null, this.response("UTF-8"), this.method("item"), bad))
+                .isInstanceOf(ReturnValueResolverException.class);
+        //超过缓冲区后已提交，输出中断
+        assertThat(this.body.size()).isGreaterThan(0);
+        assertThat(this.body.toString().endsWith("}")).isFalse();
+    }
+
+    @Test
+    public void nonUtf8CharsetEncodedDirectly() throws Exception {
+        this.resolver.setBufferSize(8);
+        Item item = new Item(1, "中文名称");
+        this.resolver.handleReturnValue(null, this.response("GBK"), this.method("item"), item);
+        assertThat(this.body.toByteArray()).isEqualTo(this.objectMapper.writeValueAsString(item).getBytes(Charset.forName("GBK")));
+    }
+
+    @Test
+    public void chunkedListMatchesFullSerialization() throws Exception {
+        this.resolver.setChunkThreshold(3);
+        this.resolver.setChunkSize(2);
+        List<Item> list = items(5);
+        this.resolver.handleReturnValue(null, this.response("UTF-8"), this.method("items"), list);
+        assertThat(this.body.toString("UTF-8")).isEqualTo(this.objectMapper.writerWithView(Public.class).writeValueAsString(list));
+        assertThat(this.flushes).isGreaterThan(0);
+    }
+
+    @Test
+    public void chunkedFailureInFirstChunkWritesNothing() {
+        this.resolver.setChunkThreshold(3);
+        this.resolver.setChunkSize(2);
+        List<Item> list = items(5);
+        list.add(1, new Bad());
+        assertThatThrownBy(() -> this.resolver.handleReturnValue(null, this.response("UTF-8"), this.method("items"), list))
+                .isInstanceOf(ReturnValueResolverException.class);
+        assertThat(this.body.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void declaredViewApplied() throws Exception {
+        List<Item> list = items(2);
+        this.resolver.handleReturnValue(null, this.response("UTF-8"), this.method("items"), list);
+        assertThat(this.body.toString("UTF-8")).isEqualTo("[{\"id\":0},{\"id\":1}]");
+    }
+
+    private static List<Item> items(int size) {
+        List<Item> list = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            list.add(new Item(i, "name" + i));
+        }
+        return list;
+    }
+
+    public Item item() {
+        return null;
+    }
+
+    @JsonView(Public.class)
+    public List<Item> items() {
+        return null;
+    }
+
+    private IHttpRequestMethod method(String name) throws NoSuchMethodException {
+        Method method = this.getClass().getMethod(name);
+        return (IHttpRequestMethod) Proxy.newProxyInstance(this.getClass().getClassLoader(), new Class<?>[]{IHttpRequestMethod.class}, (proxy, m, args) -> {
+            if (m.getName().equals("getMethod")) {
+                return method;
+            }
+            throw new UnsupportedOperationException(m.getName());
+        });
+    }
+
+    private HttpServletResponse response(String charset) {
+        ServletOutputStream out = new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+                body.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                body.write(b, off, len);
+            }
+
+            @Override
+            public void flush() {
+                flushes++;
+            }
+        };
+        return (HttpServletResponse) Proxy.newProxyInstance(this.getClass().getClassLoader(), new Class<?>[]{HttpServletResponse.class}, (proxy, m, args) -> {
+            switch (m.getName()) {
+                case "getCharacterEncoding":
+                    return charset;
+                case "getStatus":
+                    return HttpServletResponse.SC_OK;
+                case "getOutputStream":
+                    return out;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    public interface Public {
+    }
+
+    public static class Item {
+        @JsonView(Public.class)
+        public int id;
+        public String name;
+
+        Item(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    public static class Bad extends Item {
+        Bad() {
+            super(-1, null);
+        }
+
+        @JsonView(Public.class)
+        public String getBoom() {
+            throw new IllegalStateException("boom");
+        }
+    }
+}
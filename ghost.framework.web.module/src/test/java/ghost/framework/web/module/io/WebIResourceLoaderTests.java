@@ -0,0 +1,183 @@
+package ghost.framework.web.module.io;
+
+import ghost.framework.context.io.IResourceDomain;
+import ghost.framework.web.context.io.IWebResource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * package: ghost.framework.web.module.io
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link WebIResourceLoader} jar条目索引与查找缓存测试
+ * @Date: 2020/6/27:14:10
+ */
+public class WebIResourceLoaderTests {
+    private final WebIResourceLoader<IResourceDomain> loader = new WebIResourceLoader<>();
+    private File dir;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        this.dir = Files.createTempDirectory("web-resource").toFile();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        this.loader.close();
+        for (File file : this.dir.listFiles()) {
+            file.delete();
+        }
+        this.dir.delete();
+    }
+
+    @Test
+    public void readsFromJarIndex() throws IOException {
+        this.loader.add(this.domain("a.jar", "static/", "app.js", "var a;"));
+        IWebResource resource = this.loader.getResource("app.js");
+        assertThat(resource).isNotNull();
+        assertThat(new String(resource.getBytes(), StandardCharsets.UTF_8)).isEqualTo("var a;");
+        assertThat(this.loader.getResource("app.js")).isSameAs(resource);
+        assertThat(this.loader.getCache().getHitCount()).isEqualTo(1L);
+    }
+
+    @Test
+    public void missClearedWhenDomainAdded() throws IOException {
+        this.loader.add(this.domain("a.jar", "static/", "app.js", "var a;"));
+        assertThat(this.loader.getResource("other.js")).isNull();
+        this.loader.add(this.domain("b.jar", "static/", "other.js", "var b;"));
+        assertThat(this.loader.getResource("other.js")).isNotNull();
+    }
+
+    @Test
+    public void removedDomainResourcesEvicted() throws IOException {
+        TestDomain domain = this.domain("a.jar", "static/", "app.js", "var a;");
+        this.loader.add(domain);
+        assertThat(this.loader.getResource("app.js")).isNotNull();
+        this.loader.remove(domain);
+        assertThat(this.loader.getCache().size()).isEqualTo(0);
+        assertThat(this.loader.getResource("app.js")).isNull();
+    }
+
+    @Test
+    public void hitDuringDomainChangeNotCached() throws IOException {
+        TestDomain domain = this.domain("a.jar", "static/", "app.js", "var a;");
+        TestDomain other = this.domain("b.jar", "static/", "other.js", "var b;");
+        //查找过程中添加资源域
+        domain.onLookup = () -> this.loader.add(other);
+        this.loader.add(domain);
+        assertThat(this.loader.getResource("app.js")).isNotNull();
+        assertThat(this.loader.getCache().size()).isEqualTo(0);
+        domain.onLookup = null;
+        assertThat(this.loader.getResource("app.js")).isNotNull();
+        assertThat(this.loader.getCache().size()).isEqualTo(1);
+    }
+
+    @Test
+    public void missDuringDomainAddNotRecorded() throws IOException {
+        TestDomain domain = this.domain("a.jar", "static/", "other.js", "var a;");
+        TestDomain added = this.domain("b.jar", "static/", "app.js", "var b;");
+        //查找过程中添加包含资源的资源域，本次查找不包含新资源域
+        domain.onLookup = () -> this.loader.add(added);
+        this.loader.add(domain);
+        assertThat(this.loader.getResource("app.js")).isNull();
+        assertThat(new String(this.loader.getResource("app.js").getBytes(), StandardCharsets.UTF_8)).isEqualTo("var b;");
+    }
+
+    @Test
+    public void closedIndexDuringLookupIsMiss() throws IOException {
+        TestDomain domain = this.domain("a.jar", "static/", "app.js", "var a;");
+        //查找过程中删除资源域，索引已释放
+        domain.onLookup = () -> this.loader.remove(domain);
+        this.loader.add(domain);
+        assertThat(this.loader.getResource("app.js")).isNull();
+        assertThat(this.loader.getCache().size()).isEqualTo(0);
+    }
+
+    @Test
+    public void closedIndexReturnsNull() throws IOException {
+        WebResourceIndex index = WebResourceIndex.create(this.domain("a.jar", "static/", "app.js", "var a;"));
+        assertThat(index.getResourceBytes("static/app.js")).isNotNull();
+        index.close();
+        assertThat(index.getResourceBytes("static/app.js")).isNull();
+    }
+
+    /**
+     * 创建只有一个条目的jar资源域
+     *
+     * @param name      jar文件名称
+     * @param classPath 包本地路径
+     * @param path      资源路径
+     * @param content   资源内容
+     * @return
+     * @throws IOException
+     */
+    private TestDomain domain(String name, String classPath, String path, String content) throws IOException {
+        File file = new File(this.dir, name);
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(file))) {
+            out.putNextEntry(new JarEntry(classPath + path));
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+        return new TestDomain(file, classPath);
+    }
+
+    private static final class TestDomain implements IResourceDomain {
+        private final File file;
+        private final String classPath;
+        private final List<String> cacheList = new ArrayList<>();
+        /**
+         * 读取包本地路径时执行，模拟查找过程中的资源域变化
+         */
+        private Runnable onLookup;
+
+        TestDomain(File file, String classPath) {
+            this.file = file;
+            this.classPath = classPath;
+        }
+
+        @Override
+        public URL getURL() {
+            try {
+                return this.file.toURI().toURL();
+            } catch (MalformedURLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public String getVirtualPath() {
+            return null;
+        }
+
+        @Override
+        public String[] getClassPaths() {
+            Runnable runnable = this.onLookup;
+            if (runnable != null) {
+                this.onLookup = null;
+                runnable.run();
+            }
+            return new String[]{this.classPath};
+        }
+
+        @Override
+        public List<String> getCacheList() {
+            return this.cacheList;
+        }
+    }
+}
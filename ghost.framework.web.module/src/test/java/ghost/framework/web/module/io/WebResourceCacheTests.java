@@ -0,0 +1,64 @@
+package ghost.framework.web.module.io;
+
+import ghost.framework.web.context.io.IWebResource;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * package: ghost.framework.web.module.io
+ *
+ * @Author: 郭树灿{gsc-e590}
+ * @link: 手机:13715848993, QQ 27048384
+ * @Description:{@link WebResourceCache} 测试
+ * @Date: 2020/6/7:11:20
+ */
+class WebResourceCacheTests {
+    @Test
+    void evictLeastRecentlyAccessedByWeight() {
+        WebResourceCache cache = new WebResourceCache();
+        cache.setMaxWeight(100);
+        IWebResource a = resource();
+        IWebResource b = resource();
+        IWebResource c = resource();
+        assertThat(cache.put("/a", a, 40)).isTrue();
+        assertThat(cache.put("/b", b, 40)).isTrue();
+        assertThat(cache.get("/a")).isSameAs(a);
+        assertThat(cache.put("/c", c, 40)).isTrue();
+        assertThat(cache.getWeight()).isLessThanOrEqualTo(100L);
+        assertThat(cache.get("/c")).isSameAs(c);
+        assertThat(cache.getEvictionCount()).isEqualTo(1L);
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectResourceLargerThanCache() {
+        WebResourceCache cache = new WebResourceCache();
+        cache.setMaxWeight(10);
+        assertThat(cache.put("/a", resource(), 11)).isFalse();
+        assertThat(cache.get("/a")).isNull();
+        assertThat(cache.getMissCount()).isEqualTo(1L);
+    }
+
+    @Test
+    void removeIfAdjustsWeight() {
+        WebResourceCache cache = new WebResourceCache();
+        IWebResource a = resource();
+        cache.put("/a", a, 10);
+        cache.put("/b", resource(), 20);
+        cache.removeIf(resource -> resource == a);
+        assertThat(cache.getWeight()).isEqualTo(20L);
+        assertThat(cache.get("/b")).isNotNull();
+        assertThat(cache.getHitCount()).isEqualTo(1L);
+        cache.clear();
+        assertThat(cache.getWeight()).isEqualTo(0L);
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    private static IWebResource resource() {
+        return (IWebResource) Proxy.newProxyInstance(IWebResource.class.getClassLoader(), new Class<?>[]{IWebResource.class},
+                (proxy, method, args) -> method.getName().equals("equals") ? proxy == args[0] : method.getName().equals("hashCode") ? System.identityHashCode(proxy) : null);
+    }
+}
@@ -0,0 +1,594 @@
+/*
+ * Copyright 2014-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ghost.framework.web.session.core;
+
+import ghost.framework.beans.application.event.AbstractApplicationEvent;
+import ghost.framework.context.application.event.ApplicationEventPublisher;
+import ghost.framework.web.session.core.events.SessionDeletedEvent;
+import ghost.framework.web.session.core.events.SessionExpiredEvent;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A single node {@link SessionRepository} that keeps sessions in memory and removes idle
+ * sessions without waiting for them to be looked up.
+ *
+ * <p>
+ * Expiry is tracked with a hashed timing wheel: every stored session sits in the bucket
+ * of the tick it expires at, moving a session between buckets on save is O(1), and
+ * advancing the wheel only visits the buckets whose tick has passed. The wheel advances
+ * on every repository access and on {@link #cleanUpExpiredSessions()}; a
+ * {@link SessionExpiredEvent} is published for each expired session.
+ * </p>
+ *
+ * <p>
+ * Stored sessions are immutable snapshots. {@link #findById(String)} hands out an
+ * {@link InMemorySession} that shares the stored attribute map and only copies it on
+ * the first attribute change, so read-only requests allocate no attribute copies.
+ * </p>
+ *
+ * <p>
+ * When {@link #setMaxSessions(int) the session cap} is reached, saving a new session
+ * first removes the sessions closest to expiry and publishes a
+ * {@link SessionDeletedEvent} for each.
+ * </p>
+ *
+ * @author 郭树灿{gsc-e590}
+ * @since 2.2.0
+ * @see MapSessionRepository
+ */
+public class InMemorySessionRepository implements SessionRepository<InMemorySessionRepository.InMemorySession> {
+
+	private static final Log logger = LogFactory.getLog(InMemorySessionRepository.class);
+
+	/**
+	 * The default wheel tick in milliseconds.
+	 */
+	public static final long DEFAULT_TICK_MILLIS = 1000;
+
+	/**
+	 * The default number of wheel buckets, a little over an hour at the default tick so
+	 * that the default 30 minute sessions never wrap around the wheel.
+	 */
+	public static final int DEFAULT_WHEEL_SIZE = 4096;
+
+	private final Map<String, Entry> sessions = new ConcurrentHashMap<>();
+
+	private final Set<String>[] wheel;
+
+	private final long tickMillis;
+
+	private final ReentrantLock advanceLock = new ReentrantLock();
+
+	/**
+	 * Held while a new session is added to a capped repository, so that the cap check
+	 * and the insert cannot interleave with another new session.
+	 */
+	private final ReentrantLock insertLock = new ReentrantLock();
+
+	/**
+	 * The last tick whose bucket has been processed.
+	 */
+	private volatile long currentTick;
+
+	private final LongAdder expiredCount = new LongAdder();
+
+	private final LongAdder evictedCount = new LongAdder();
+
+	/**
+	 * If non-null, this value is used to override
+	 * {@link Session#setMaxInactiveInterval(Duration)}.
+	 */
+	private Integer defaultMaxInactiveInterval;
+
+	private int maxSessions = Integer.MAX_VALUE;
+
+	private ApplicationEventPublisher eventPublisher = (event) -> {
+	};
+
+	private boolean def;
+
+	/**
+	 * Creates a new instance with {@link #DEFAULT_TICK_MILLIS} and
+	 * {@link #DEFAULT_WHEEL_SIZE}.
+	 */
+	public InMemorySessionRepository() {
+		this(DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE);
+	}
+
+	/**
+	 * Creates a new instance.
+	 * @param tickMillis the expiry resolution in milliseconds
+	 * @param wheelSize the number of wheel buckets; sessions expiring further than
+	 * {@code tickMillis * wheelSize} ahead are revisited once per wheel revolution
+	 */
+	@SuppressWarnings("unchecked")
+	public InMemorySessionRepository(long tickMillis, int wheelSize) {
+		if (tickMillis <= 0 || wheelSize <= 0) {
+			throw new IllegalArgumentException("tickMillis and wheelSize must be positive");
+		}
+		this.tickMillis = tickMillis;
+		this.wheel = new Set[wheelSize];
+		for (int i = 0; i < wheelSize; i++) {
+			this.wheel[i] = ConcurrentHashMap.newKeySet();
+		}
+		this.currentTick = System.currentTimeMillis() / tickMillis;
+	}
+
+	/**
+	 * If non-null, this value is used to override
+	 * {@link Session#setMaxInactiveInterval(Duration)}.
+	 * @param defaultMaxInactiveInterval the number of seconds that the {@link Session}
+	 * should be kept alive between client requests.
+	 */
+	public void setDefaultMaxInactiveInterval(int defaultMaxInactiveInterval) {
+		this.defaultMaxInactiveInterval = defaultMaxInactiveInterval;
+	}
+
+	/**
+	 * Sets the maximum number of stored sessions. The default is unbounded.
+	 * @param maxSessions the maximum number of stored sessions
+	 */
+	public void setMaxSessions(int maxSessions) {
+		if (maxSessions <= 0) {
+			throw new IllegalArgumentException("maxSessions must be positive");
+		}
+		this.maxSessions = maxSessions;
+	}
+
+	/**
+	 * Sets the {@link ApplicationEventPublisher} used to publish
+	 * {@link SessionExpiredEvent} and {@link SessionDeletedEvent}. The default is to not
+	 * publish events.
+	 * @param eventPublisher the publisher, cannot be null
+	 */
+	public void setApplicationEventPublisher(ApplicationEventPublisher eventPublisher) {
+		if (eventPublisher == null) {
+			throw new IllegalArgumentException("eventPublisher cannot be null");
+		}
+		this.eventPublisher = eventPublisher;
+	}
+
+	@Override
+	public InMemorySession createSession() {
+		advance();
+		InMemorySession result = new InMemorySession();
+		if (this.defaultMaxInactiveInterval != null) {
+			result.setMaxInactiveInterval(Duration.ofSeconds(this.defaultMaxInactiveInterval));
+		}
+		return result;
+	}
+
+	@Override
+	public void save(InMemorySession session) {
+		advance();
+		if (!session.id.equals(session.originalId)) {
+			remove(session.originalId);
+			session.originalId = session.id;
+		}
+		// from here on the stored snapshot shares the attribute map, so the next change
+		// made through this session copies it again
+		session.copied = false;
+		Entry entry = new Entry(session.id, session.creationTime, session.lastAccessedTime,
+				session.maxInactiveInterval, session.attributes);
+		entry.bucket = bucketOf(entry);
+		if (this.sessions.computeIfPresent(entry.id, (id, old) -> move(old, entry)) != null) {
+			return;
+		}
+		if (this.maxSessions == Integer.MAX_VALUE) {
+			this.sessions.compute(entry.id, (id, old) -> move(old, entry));
+			return;
+		}
+		this.insertLock.lock();
+		try {
+			if (!this.sessions.containsKey(entry.id) && this.sessions.size() >= this.maxSessions) {
+				evict(this.sessions.size() - this.maxSessions + 1);
+			}
+			this.sessions.compute(entry.id, (id, old) -> move(old, entry));
+		}
+		finally {
+			this.insertLock.unlock();
+		}
+	}
+
+	/**
+	 * Moves the bucket membership from the replaced entry to the new one. Called inside
+	 * the map's compute, so a concurrent removal cannot leave a stale bucket member.
+	 * @param old the replaced entry, may be null
+	 * @param entry the new entry
+	 * @return the new entry
+	 */
+	private Entry move(Entry old, Entry entry) {
+		if (old != null) {
+			this.wheel[old.bucket].remove(old.id);
+		}
+		this.wheel[entry.bucket].add(entry.id);
+		return entry;
+	}
+
+	@Override
+	public InMemorySession findById(String id) {
+		advance();
+		Entry entry = this.sessions.get(id);
+		if (entry == null) {
+			return null;
+		}
+		if (entry.isExpired(System.currentTimeMillis())) {
+			expire(entry);
+			return null;
+		}
+		return new InMemorySession(entry);
+	}
+
+	@Override
+	public void deleteById(String id) {
+		advance();
+		remove(id);
+	}
+
+	/**
+	 * Advances the timing wheel to the current time.
+	 */
+	@Override
+	public void cleanUpExpiredSessions() {
+		advance();
+	}
+
+	/**
+	 * Processes every bucket whose tick has passed. Only one thread advances the wheel;
+	 * others skip it rather than wait.
+	 */
+	private void advance() {
+		long now = System.currentTimeMillis();
+		long tick = now / this.tickMillis;
+		if (tick <= this.currentTick || !this.advanceLock.tryLock()) {
+			return;
+		}
+		try {
+			long from = this.currentTick + 1;
+			// after a long pause one revolution visits every bucket
+			long to = Math.min(tick, this.currentTick + this.wheel.length);
+			for (long t = from; t <= to; t++) {
+				expireBucket(this.wheel[(int) (t % this.wheel.length)], now);
+			}
+			this.currentTick = tick;
+		}
+		finally {
+			this.advanceLock.unlock();
+		}
+	}
+
+	private void expireBucket(Set<String> bucket, long now) {
+		for (String id : bucket) {
+			Entry entry = this.sessions.get(id);
+			if (entry == null || this.wheel[entry.bucket] != bucket) {
+				// recheck under the map lock, a concurrent save may have just moved the
+				// session into this bucket
+				this.sessions.compute(id, (key, current) -> {
+					if (current == null || this.wheel[current.bucket] != bucket) {
+						bucket.remove(key);
+					}
+					return current;
+				});
+			}
+			else if (entry.isExpired(now)) {
+				expire(entry);
+			}
+		}
+	}
+
+	private int bucketOf(Entry entry) {
+		if (entry.maxInactiveMillis < 0) {
+			// never expires, parked on the bucket for the current tick and revisited once
+			// per revolution
+			return (int) (this.currentTick % this.wheel.length);
+		}
+		long tick = Math.max(entry.expiryMillis() / this.tickMillis, this.currentTick + 1);
+		return (int) (tick % this.wheel.length);
+	}
+
+	private void expire(Entry entry) {
+		if (removeEntry(entry.id, entry) != null) {
+			this.expiredCount.increment();
+			publishEvent(new SessionExpiredEvent(this, new InMemorySession(entry)));
+		}
+	}
+
+	private void remove(String id) {
+		removeEntry(id, null);
+	}
+
+	/**
+	 * Removes a stored session together with its bucket membership, atomically with
+	 * respect to {@link #save(InMemorySession)}.
+	 * @param id the session id
+	 * @param expected the entry to remove, or null to remove whatever is stored
+	 * @return the removed entry, or null if nothing was removed
+	 */
+	private Entry removeEntry(String id, Entry expected) {
+		Entry[] removed = new Entry[1];
+		this.sessions.computeIfPresent(id, (key, current) -> {
+			if (expected != null && current != expected) {
+				return current;
+			}
+			this.wheel[current.bucket].remove(key);
+			removed[0] = current;
+			return null;
+		});
+		return removed[0];
+	}
+
+	/**
+	 * Removes the sessions closest to expiry, walking the wheel forward from the current
+	 * tick.
+	 * @param count the number of sessions to remove
+	 */
+	private void evict(int count) {
+		long tick = this.currentTick;
+		for (int i = 0; i < this.wheel.length && count > 0; i++) {
+			for (String id : this.wheel[(int) ((tick + i) % this.wheel.length)]) {
+				Entry entry = removeEntry(id, null);
+				if (entry == null) {
+					continue;
+				}
+				this.evictedCount.increment();
+				publishEvent(new SessionDeletedEvent(this, new InMemorySession(entry)));
+				if (--count == 0) {
+					break;
+				}
+			}
+		}
+	}
+
+	private void publishEvent(AbstractApplicationEvent event) {
+		try {
+			this.eventPublisher.publishEvent(event);
+		}
+		catch (Throwable ex) {
+			logger.error("Error publishing " + event + ".", ex);
+		}
+	}
+
+	/**
+	 * Returns the number of stored sessions.
+	 * @return the number of stored sessions
+	 */
+	public int getLiveCount() {
+		return this.sessions.size();
+	}
+
+	/**
+	 * Returns the number of sessions removed because they expired.
+	 * @return the number of expired sessions
+	 */
+	public long getExpiredCount() {
+		return this.expiredCount.sum();
+	}
+
+	/**
+	 * Returns the number of sessions removed because the session cap was reached.
+	 * @return the number of evicted sessions
+	 */
+	public long getEvictedCount() {
+		return this.evictedCount.sum();
+	}
+
+	@Override
+	public boolean isDefault() {
+		return this.def;
+	}
+
+	@Override
+	public void setDefault(boolean def) {
+		this.def = def;
+	}
+
+	@Override
+	public String toString() {
+		return "InMemorySessionRepository{" +
+				"isDefault=" + this.def +
+				", live=" + this.sessions.size() +
+				'}';
+	}
+
+	/**
+	 * An immutable stored session.
+	 */
+	private static final class Entry {
+
+		private final String id;
+
+		private final Instant creationTime;
+
+		private final Instant lastAccessedTime;
+
+		private final Duration maxInactiveInterval;
+
+		private final long maxInactiveMillis;
+
+		private final Map<String, Object> attributes;
+
+		/**
+		 * The wheel bucket holding this entry.
+		 */
+		private volatile int bucket;
+
+		Entry(String id, Instant creationTime, Instant lastAccessedTime, Duration maxInactiveInterval,
+				Map<String, Object> attributes) {
+			this.id = id;
+			this.creationTime = creationTime;
+			this.lastAccessedTime = lastAccessedTime;
+			this.maxInactiveInterval = maxInactiveInterval;
+			this.maxInactiveMillis = maxInactiveInterval.toMillis();
+			this.attributes = attributes;
+		}
+
+		long expiryMillis() {
+			return this.lastAccessedTime.toEpochMilli() + this.maxInactiveMillis;
+		}
+
+		boolean isExpired(long now) {
+			return this.maxInactiveMillis >= 0 && now >= expiryMillis();
+		}
+
+	}
+
+	/**
+	 * A {@link Session} handed out by {@link InMemorySessionRepository}. Its attribute map
+	 * is shared with the stored snapshot until the first change.
+	 */
+	public static final class InMemorySession implements Session {
+
+		private String id;
+
+		private String originalId;
+
+		private Instant creationTime;
+
+		private Instant lastAccessedTime;
+
+		private Duration maxInactiveInterval;
+
+		private Map<String, Object> attributes;
+
+		/**
+		 * Whether {@link #attributes} is a private copy that may be changed in place.
+		 */
+		private boolean copied;
+
+		InMemorySession() {
+			this.id = UUID.randomUUID().toString();
+			this.originalId = this.id;
+			this.creationTime = Instant.now();
+			this.lastAccessedTime = this.creationTime;
+			this.maxInactiveInterval = Duration.ofSeconds(MapSession.DEFAULT_MAX_INACTIVE_INTERVAL_SECONDS);
+			this.attributes = new HashMap<>();
+			this.copied = true;
+		}
+
+		InMemorySession(Entry entry) {
+			this.id = entry.id;
+			this.originalId = entry.id;
+			this.creationTime = entry.creationTime;
+			this.lastAccessedTime = entry.lastAccessedTime;
+			this.maxInactiveInterval = entry.maxInactiveInterval;
+			this.attributes = entry.attributes;
+		}
+
+		@Override
+		public String getId() {
+			return this.id;
+		}
+
+		@Override
+		public String changeSessionId() {
+			this.id = UUID.randomUUID().toString();
+			return this.id;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> T getAttribute(String attributeName) {
+			return (T) this.attributes.get(attributeName);
+		}
+
+		@Override
+		public Set<String> getAttributeNames() {
+			return Collections.unmodifiableSet(this.attributes.keySet());
+		}
+
+		@Override
+		public void setAttribute(String attributeName, Object attributeValue) {
+			if (attributeValue == null) {
+				removeAttribute(attributeName);
+				return;
+			}
+			writableAttributes().put(attributeName, attributeValue);
+		}
+
+		@Override
+		public void removeAttribute(String attributeName) {
+			if (this.attributes.containsKey(attributeName)) {
+				writableAttributes().remove(attributeName);
+			}
+		}
+
+		private Map<String, Object> writableAttributes() {
+			if (!this.copied) {
+				this.attributes = new HashMap<>(this.attributes);
+				this.copied = true;
+			}
+			return this.attributes;
+		}
+
+		@Override
+		public Instant getCreationTime() {
+			return this.creationTime;
+		}
+
+		@Override
+		public void setLastAccessedTime(Instant lastAccessedTime) {
+			this.lastAccessedTime = lastAccessedTime;
+		}
+
+		@Override
+		public Instant getLastAccessedTime() {
+			return this.lastAccessedTime;
+		}
+
+		@Override
+		public void setMaxInactiveInterval(Duration interval) {
+			this.maxInactiveInterval = interval;
+		}
+
+		@Override
+		public Duration getMaxInactiveInterval() {
+			return this.maxInactiveInterval;
+		}
+
+		@Override
+		public boolean isExpired() {
+			if (this.maxInactiveInterval.isNegative()) {
+				return false;
+			}
+			return Instant.now().minus(this.maxInactiveInterval).compareTo(this.lastAccessedTime) >= 0;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Session && this.id.equals(((Session) obj).getId());
+		}
+
+		@Override
+		public int hashCode() {
+			return this.id.hashCode();
+		}
+
+	}
+
+}
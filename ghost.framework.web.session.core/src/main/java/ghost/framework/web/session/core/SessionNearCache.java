@@ -0,0 +1,194 @@
+/*
+ * Copyright 2014-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ghost.framework.web.session.core;
+
+import ghost.framework.util.BoundedLruCache;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An in-process near cache placed in front of a remote {@link SessionRepository}.
+ * It keeps {@link MapSession} snapshots of recently saved or loaded sessions so that a
+ * node serving sticky traffic can resolve a session without a remote round trip.
+ *
+ * <p>
+ * Every {@link #get(String)} returns a private copy, so changes made while handling a
+ * request are only visible to other requests once the repository saves them and calls
+ * {@link #put(Session)}. Attribute values themselves are shared, not cloned.
+ * </p>
+ *
+ * <p>
+ * The owning repository is responsible for calling {@link #invalidate(String)} when
+ * another node changes a session; {@link #getNodeId()} identifies this node in such
+ * invalidation messages so a node can ignore its own writes.
+ * </p>
+ *
+ * <p>
+ * Every invalidation advances a generation counter. Sessions loaded from the remote
+ * repository are only kept if no invalidation happened while they were being loaded,
+ * see {@link #putIfCurrent(Session, long)}.
+ * </p>
+ *
+ * @author 郭树灿{gsc-e590}
+ * @since 2.2.0
+ */
+public final class SessionNearCache {
+
+	/**
+	 * The default maximum number of cached sessions.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 10000;
+
+	private final BoundedLruCache<String, Entry> sessions;
+
+	private final String nodeId = UUID.randomUUID().toString();
+
+	private final AtomicLong generation = new AtomicLong();
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	private final LongAdder invalidationCount = new LongAdder();
+
+	/**
+	 * Creates a new instance holding at most {@link #DEFAULT_MAX_SIZE} sessions.
+	 */
+	public SessionNearCache() {
+		this(DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * Creates a new instance.
+	 * @param maxSize the maximum number of cached sessions, must be positive
+	 */
+	public SessionNearCache(int maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize must be positive");
+		}
+		this.sessions = new BoundedLruCache<>(maxSize);
+	}
+
+	/**
+	 * Returns a copy of the cached session.
+	 * @param id the session id
+	 * @return a copy of the session, or {@code null} if it is not cached or has expired
+	 */
+	public MapSession get(String id) {
+		Entry entry = this.sessions.get(id);
+		if (entry == null) {
+			this.missCount.increment();
+			return null;
+		}
+		if (entry.session.isExpired()) {
+			this.sessions.remove(id, entry);
+			this.missCount.increment();
+			return null;
+		}
+		this.hitCount.increment();
+		return new MapSession(entry.session);
+	}
+
+	/**
+	 * Returns the generation to pass to {@link #putIfCurrent(Session, long)} for a
+	 * session about to be loaded from the remote repository.
+	 * @return the current generation
+	 */
+	public long generation() {
+		return this.generation.get();
+	}
+
+	/**
+	 * Stores a snapshot of the session as it was just saved to the remote repository.
+	 * @param session the session
+	 */
+	public void put(Session session) {
+		this.sessions.put(session.getId(), new Entry(new MapSession(session)));
+	}
+
+	/**
+	 * Stores a snapshot of a session loaded from the remote repository unless an
+	 * invalidation happened since {@code generation} was obtained. The check runs after
+	 * the put so an invalidation racing with it either removes the entry or is seen by
+	 * the check.
+	 * @param session the session
+	 * @param generation obtained through {@link #generation()} before the load
+	 */
+	public void putIfCurrent(Session session, long generation) {
+		Entry entry = new Entry(new MapSession(session));
+		this.sessions.put(session.getId(), entry);
+		if (this.generation.get() != generation) {
+			this.sessions.remove(session.getId(), entry);
+		}
+	}
+
+	/**
+	 * Removes the session, typically because another node changed or deleted it.
+	 * @param id the session id
+	 */
+	public void invalidate(String id) {
+		this.generation.incrementAndGet();
+		if (this.sessions.remove(id) != null) {
+			this.invalidationCount.increment();
+		}
+	}
+
+	/**
+	 * Removes all sessions.
+	 */
+	public void clear() {
+		this.generation.incrementAndGet();
+		this.sessions.clear();
+	}
+
+	/**
+	 * Returns the id identifying this node in invalidation messages.
+	 * @return the node id
+	 */
+	public String getNodeId() {
+		return this.nodeId;
+	}
+
+	public int size() {
+		return this.sessions.size();
+	}
+
+	public long getHitCount() {
+		return this.hitCount.sum();
+	}
+
+	public long getMissCount() {
+		return this.missCount.sum();
+	}
+
+	public long getInvalidationCount() {
+		return this.invalidationCount.sum();
+	}
+
+	private static final class Entry {
+
+		private final MapSession session;
+
+		Entry(MapSession session) {
+			this.session = session;
+		}
+
+	}
+
+}
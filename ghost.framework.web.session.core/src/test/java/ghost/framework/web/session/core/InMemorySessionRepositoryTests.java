@@ -0,0 +1,198 @@
+/*
+ * Copyright 2014-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ghost.framework.web.session.core;
+
+import ghost.framework.beans.application.event.AbstractApplicationEvent;
+import ghost.framework.web.session.core.InMemorySessionRepository.InMemorySession;
+import ghost.framework.web.session.core.events.AbstractSessionEvent;
+import ghost.framework.web.session.core.events.SessionDeletedEvent;
+import ghost.framework.web.session.core.events.SessionExpiredEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link InMemorySessionRepository}.
+ *
+ * @author 郭树灿{gsc-e590}
+ */
+class InMemorySessionRepositoryTests {
+
+	private final List<AbstractApplicationEvent> events = Collections.synchronizedList(new ArrayList<>());
+
+	private final InMemorySessionRepository repository = new InMemorySessionRepository(10, 64);
+
+	InMemorySessionRepositoryTests() {
+		this.repository.setApplicationEventPublisher(this.events::add);
+	}
+
+	@Test
+	void expiredSessionRemovedByWheel() throws InterruptedException {
+		InMemorySession session = this.repository.createSession();
+		session.setMaxInactiveInterval(Duration.ofSeconds(1));
+		session.setLastAccessedTime(Instant.now().minusSeconds(10));
+		this.repository.save(session);
+		assertThat(this.repository.getLiveCount()).isEqualTo(1);
+		Thread.sleep(30);
+		this.repository.cleanUpExpiredSessions();
+		assertThat(this.repository.getLiveCount()).isEqualTo(0);
+		assertThat(this.repository.getExpiredCount()).isEqualTo(1L);
+		assertThat(this.events).hasSize(1);
+		assertThat(this.events.get(0)).isInstanceOf(SessionExpiredEvent.class);
+		assertThat(((AbstractSessionEvent) this.events.get(0)).getSessionId()).isEqualTo(session.getId());
+	}
+
+	@Test
+	void expiredSessionNotFound() {
+		InMemorySession session = this.repository.createSession();
+		session.setMaxInactiveInterval(Duration.ofSeconds(1));
+		session.setLastAccessedTime(Instant.now().minusSeconds(10));
+		this.repository.save(session);
+		assertThat(this.repository.findById(session.getId())).isNull();
+		assertThat(this.repository.getExpiredCount()).isEqualTo(1L);
+	}
+
+	@Test
+	void sessionWithoutTimeoutNeverExpires() throws InterruptedException {
+		InMemorySession session = this.repository.createSession();
+		session.setMaxInactiveInterval(Duration.ofSeconds(-1));
+		session.setLastAccessedTime(Instant.now().minusSeconds(10));
+		this.repository.save(session);
+		Thread.sleep(30);
+		this.repository.cleanUpExpiredSessions();
+		assertThat(this.repository.findById(session.getId())).isNotNull();
+	}
+
+	@Test
+	void evictsSessionsClosestToExpiry() {
+		InMemorySessionRepository repository = new InMemorySessionRepository();
+		repository.setApplicationEventPublisher(this.events::add);
+		repository.setMaxSessions(2);
+		InMemorySession longLived = save(repository, Duration.ofSeconds(100));
+		InMemorySession shortLived = save(repository, Duration.ofSeconds(10));
+		InMemorySession newest = save(repository, Duration.ofSeconds(50));
+		assertThat(repository.getLiveCount()).isEqualTo(2);
+		assertThat(repository.getEvictedCount()).isEqualTo(1L);
+		assertThat(repository.findById(shortLived.getId())).isNull();
+		assertThat(repository.findById(longLived.getId())).isNotNull();
+		assertThat(repository.findById(newest.getId())).isNotNull();
+		assertThat(this.events).hasSize(1);
+		assertThat(this.events.get(0)).isInstanceOf(SessionDeletedEvent.class);
+		assertThat(((AbstractSessionEvent) this.events.get(0)).getSessionId()).isEqualTo(shortLived.getId());
+	}
+
+	@Test
+	void savingExistingSessionDoesNotEvict() {
+		InMemorySessionRepository repository = new InMemorySessionRepository();
+		repository.setMaxSessions(1);
+		InMemorySession session = save(repository, Duration.ofSeconds(10));
+		session.setAttribute("name", "value");
+		repository.save(session);
+		assertThat(repository.getEvictedCount()).isEqualTo(0L);
+		assertThat(repository.findById(session.getId()).<String>getAttribute("name")).isEqualTo("value");
+	}
+
+	@Test
+	void concurrentNewSessionsRespectCap() throws Exception {
+		InMemorySessionRepository repository = new InMemorySessionRepository();
+		repository.setMaxSessions(10);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		try {
+			for (int t = 0; t < 8; t++) {
+				futures.add(executor.submit(() -> {
+					start.await();
+					for (int i = 0; i < 500; i++) {
+						repository.save(repository.createSession());
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get(30, TimeUnit.SECONDS);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		assertThat(repository.getLiveCount()).isEqualTo(10);
+		assertThat(repository.getEvictedCount()).isEqualTo(8 * 500 - 10L);
+	}
+
+	@Test
+	void changeSessionIdRemovesOriginal() {
+		InMemorySession session = this.repository.createSession();
+		this.repository.save(session);
+		String originalId = session.getId();
+		String newId = session.changeSessionId();
+		this.repository.save(session);
+		assertThat(this.repository.findById(originalId)).isNull();
+		assertThat(this.repository.findById(newId)).isNotNull();
+		assertThat(this.repository.getLiveCount()).isEqualTo(1);
+	}
+
+	@Test
+	void attributesCopiedOnWrite() {
+		InMemorySession session = this.repository.createSession();
+		session.setAttribute("name", "value");
+		this.repository.save(session);
+		InMemorySession first = this.repository.findById(session.getId());
+		InMemorySession second = this.repository.findById(session.getId());
+		first.setAttribute("name", "changed");
+		first.setAttribute("other", "added");
+		assertThat(second.<String>getAttribute("name")).isEqualTo("value");
+		assertThat(second.getAttributeNames()).containsExactly("name");
+		assertThat(this.repository.findById(session.getId()).<String>getAttribute("name")).isEqualTo("value");
+		this.repository.save(first);
+		assertThat(this.repository.findById(session.getId()).<String>getAttribute("name")).isEqualTo("changed");
+		assertThat(second.<String>getAttribute("name")).isEqualTo("value");
+		// the saved session shares the stored map again and copies on its next change
+		first.removeAttribute("other");
+		assertThat(this.repository.findById(session.getId()).<String>getAttribute("other")).isEqualTo("added");
+	}
+
+	@Test
+	void deletedSessionNotFound() {
+		InMemorySession session = this.repository.createSession();
+		this.repository.save(session);
+		this.repository.deleteById(session.getId());
+		assertThat(this.repository.findById(session.getId())).isNull();
+		assertThat(this.repository.getLiveCount()).isEqualTo(0);
+		assertThat(this.events).isEmpty();
+	}
+
+	private static InMemorySession save(InMemorySessionRepository repository, Duration maxInactiveInterval) {
+		InMemorySession session = repository.createSession();
+		session.setMaxInactiveInterval(maxInactiveInterval);
+		repository.save(session);
+		return session;
+	}
+
+}
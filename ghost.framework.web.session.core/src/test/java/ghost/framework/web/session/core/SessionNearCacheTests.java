@@ -0,0 +1,85 @@
+/*
+ * Copyright 2014-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ghost.framework.web.session.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link SessionNearCache}.
+ *
+ * @author 郭树灿{gsc-e590}
+ */
+class SessionNearCacheTests {
+
+	private final SessionNearCache cache = new SessionNearCache(2);
+
+	@Test
+	void getReturnsCopy() {
+		MapSession session = new MapSession("a");
+		session.setAttribute("name", "value");
+		this.cache.put(session);
+		MapSession copy = this.cache.get("a");
+		copy.setAttribute("name", "changed");
+		assertThat(this.cache.get("a").<String>getAttribute("name")).isEqualTo("value");
+		assertThat(this.cache.getHitCount()).isEqualTo(2L);
+	}
+
+	@Test
+	void loadRacingWithInvalidationIsDiscarded() {
+		long generation = this.cache.generation();
+		// another node changes the session while this node is loading it
+		this.cache.invalidate("a");
+		this.cache.putIfCurrent(new MapSession("a"), generation);
+		assertThat(this.cache.get("a")).isNull();
+		this.cache.putIfCurrent(new MapSession("a"), this.cache.generation());
+		assertThat(this.cache.get("a")).isNotNull();
+	}
+
+	@Test
+	void loadRacingWithClearIsDiscarded() {
+		long generation = this.cache.generation();
+		this.cache.clear();
+		this.cache.putIfCurrent(new MapSession("a"), generation);
+		assertThat(this.cache.size()).isEqualTo(0);
+	}
+
+	@Test
+	void expiredSessionIsRemoved() {
+		MapSession session = new MapSession("a");
+		session.setMaxInactiveInterval(Duration.ofSeconds(1));
+		session.setLastAccessedTime(Instant.now().minusSeconds(10));
+		this.cache.put(session);
+		assertThat(this.cache.get("a")).isNull();
+		assertThat(this.cache.size()).isEqualTo(0);
+		assertThat(this.cache.getMissCount()).isEqualTo(1L);
+	}
+
+	@Test
+	void boundedToMaxSize() {
+		this.cache.put(new MapSession("a"));
+		this.cache.put(new MapSession("b"));
+		this.cache.put(new MapSession("c"));
+		assertThat(this.cache.size()).isEqualTo(2);
+		assertThat(this.cache.get("c")).isNotNull();
+	}
+
+}
@@ -17,6 +17,8 @@
 package ghost.framework.web.session.data.redis.plugin;
 
 import ghost.framework.data.dao.NonTransientDataAccessException;
+import ghost.framework.data.redis.core.RedisOperations;
+import ghost.framework.data.redis.core.SessionCallback;
 import ghost.framework.util.Assert;
 import ghost.framework.util.NestedExceptionUtils;
 import ghost.framework.web.session.core.*;
@@ -45,8 +47,10 @@ import org.apache.commons.logging.LogFactory;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -275,6 +279,8 @@ public class RedisIndexedSessionRepository
 
 	private String sessionExpiredChannel;
 
+	private String sessionChangedChannel;
+
 	private final RedisOperations<Object, Object> sessionRedisOperations;
 
 	private final RedisSessionExpirationPolicy expirationPolicy;
@@ -296,6 +302,11 @@ public class RedisIndexedSessionRepository
 
 	private SaveMode saveMode = SaveMode.ON_SET_ATTRIBUTE;
 
+	/**
+	 * If non-null, sessions are looked up in this node-local cache before Redis.
+	 */
+	private SessionNearCache nearCache;
+
 	/**
 	 * Creates a new instance. For an example, refer to the class level javadoc.
 	 * @param sessionRedisOperations the {@link RedisOperations} to use for managing the
@@ -378,8 +389,28 @@ public class RedisIndexedSessionRepository
 		configureSessionChannels();
 	}
 
+	/**
+	 * Sets the {@link SessionNearCache} used to serve sessions from this node without a
+	 * Redis round trip. When set, every save is pipelined together with a message on
+	 * {@link #getSessionChangedChannel()} so that other nodes drop their copy. The
+	 * default is {@code null}, which disables the near cache.
+	 * @param nearCache the near cache, or {@code null} to disable it
+	 */
+	public void setNearCache(SessionNearCache nearCache) {
+		this.nearCache = nearCache;
+	}
+
+	/**
+	 * Returns the near cache in use.
+	 * @return the near cache, or {@code null} if it is disabled
+	 */
+	public SessionNearCache getNearCache() {
+		return this.nearCache;
+	}
+
 	private void configureSessionChannels() {
 		this.sessionCreatedChannelPrefix = this.namespace + "event:" + this.database + ":created:";
+		this.sessionChangedChannel = this.namespace + "event:" + this.database + ":changed";
 		this.sessionDeletedChannel = "__keyevent@" + this.database + "__:del";
 		this.sessionExpiredChannel = "__keyevent@" + this.database + "__:expired";
 	}
@@ -400,6 +431,14 @@ public class RedisIndexedSessionRepository
 			this.sessionRedisOperations.convertAndSend(sessionCreatedKey, session.delta);
 			session.isNew = false;
 		}
+		if (this.nearCache != null) {
+			if (session.getMaxInactiveInterval().isZero()) {
+				this.nearCache.invalidate(session.getId());
+			}
+			else {
+				this.nearCache.put(session);
+			}
+		}
 	}
 
 	public void cleanupExpiredSessions() {
@@ -436,13 +475,21 @@ public class RedisIndexedSessionRepository
 	 * @return the Redis session
 	 */
 	private RedisSession getSession(String id, boolean allowExpired) {
-		Map<Object, Object> entries = getSessionBoundHashOperations(id).entries();
-		if (entries.isEmpty()) {
-			return null;
-		}
-		MapSession loaded = loadSession(id, entries);
-		if (!allowExpired && loaded.isExpired()) {
-			return null;
+		MapSession loaded = (this.nearCache != null && !allowExpired) ? this.nearCache.get(id) : null;
+		if (loaded == null) {
+			// capture the generation first so an invalidation racing with the load is not overwritten
+			long generation = (this.nearCache != null) ? this.nearCache.generation() : 0;
+			Map<Object, Object> entries = getSessionBoundHashOperations(id).entries();
+			if (entries.isEmpty()) {
+				return null;
+			}
+			loaded = loadSession(id, entries);
+			if (!allowExpired && loaded.isExpired()) {
+				return null;
+			}
+			if (this.nearCache != null && !loaded.isExpired()) {
+				this.nearCache.putIfCurrent(loaded, generation);
+			}
 		}
 		RedisSession result = new RedisSession(loaded, false);
 		result.originalLastAccessTime = loaded.getLastAccessedTime();
@@ -476,6 +523,9 @@ public class RedisIndexedSessionRepository
 			return;
 		}
 
+		if (this.nearCache != null) {
+			this.nearCache.invalidate(sessionId);
+		}
 		cleanupPrincipalIndex(session);
 		this.expirationPolicy.onDelete(session);
 
@@ -512,6 +562,11 @@ public class RedisIndexedSessionRepository
 			return;
 		}
 
+		if (channel.equals(this.sessionChangedChannel)) {
+			handleChanged((String) this.defaultSerializer.deserialize(messageBody));
+			return;
+		}
+
 		String body = new String(messageBody);
 		if (!body.startsWith(getExpiredKeyPrefix())) {
 			return;
@@ -523,6 +578,10 @@ public class RedisIndexedSessionRepository
 			int endIndex = body.length();
 			String sessionId = body.substring(beginIndex, endIndex);
 
+			if (this.nearCache != null) {
+				this.nearCache.invalidate(sessionId);
+			}
+
 			RedisSession session = getSession(sessionId, true);
 
 			if (session == null) {
@@ -560,6 +619,21 @@ public class RedisIndexedSessionRepository
 		publishEvent(new SessionCreatedEvent(this, session));
 	}
 
+	/**
+	 * Drops the near cache copy of a session written by another node.
+	 * @param body the message body, {@code nodeId:sessionId}
+	 */
+	private void handleChanged(String body) {
+		if (this.nearCache == null || body == null) {
+			return;
+		}
+		int index = body.indexOf(':');
+		if (index < 0 || body.substring(0, index).equals(this.nearCache.getNodeId())) {
+			return;
+		}
+		this.nearCache.invalidate(body.substring(index + 1));
+	}
+
 	private void handleDeleted(RedisSession session) {
 		publishEvent(new SessionDeletedEvent(this, session));
 	}
@@ -639,6 +713,16 @@ public class RedisIndexedSessionRepository
 		return this.sessionExpiredChannel;
 	}
 
+	/**
+	 * Gets the name of the channel that near cache invalidations are published to. The
+	 * message body is {@code nodeId:sessionId} of the node that saved the session.
+	 * @return the name of the channel that near cache invalidations are published to
+	 * @see #setNearCache(SessionNearCache)
+	 */
+	public String getSessionChangedChannel() {
+		return this.sessionChangedChannel;
+	}
+
 	/**
 	 * Gets the {@link BoundHashOperations} to operate on a {@link Session}.
 	 * @param sessionId the id of the {@link Session} to work with
@@ -778,8 +862,35 @@ public class RedisIndexedSessionRepository
 		}
 
 		private void save() {
+			String originalSessionId = this.originalSessionId;
 			saveChangeSessionId();
-			saveDelta();
+			if (RedisIndexedSessionRepository.this.nearCache == null) {
+				saveDelta();
+				return;
+			}
+			if (this.delta.isEmpty() && originalSessionId.equals(getId())) {
+				return;
+			}
+			String nodeId = RedisIndexedSessionRepository.this.nearCache.getNodeId();
+			List<String> changed = new ArrayList<>(2);
+			changed.add(nodeId + ":" + getId());
+			if (!originalSessionId.equals(getId())) {
+				RedisIndexedSessionRepository.this.nearCache.invalidate(originalSessionId);
+				changed.add(nodeId + ":" + originalSessionId);
+			}
+			// the delta, the expiration bookkeeping and the invalidation share one round
+			// trip
+			RedisIndexedSessionRepository.this.sessionRedisOperations.executePipelined(new SessionCallback<Object>() {
+				@Override
+				public <K, V> Object execute(RedisOperations<K, V> operations) {
+					saveDelta();
+					for (String message : changed) {
+						RedisIndexedSessionRepository.this.sessionRedisOperations
+								.convertAndSend(RedisIndexedSessionRepository.this.sessionChangedChannel, message);
+					}
+					return null;
+				}
+			});
 		}
 
 		/**
@@ -102,6 +102,8 @@ public class RedisHttpSessionConfiguration extends SpringHttpSessionConfiguratio
 
 	private String cleanupCron = DEFAULT_CLEANUP_CRON;
 
+	private Integer nearCacheMaxSize;
+
 	private ConfigureRedisAction configureRedisAction = new ConfigureNotifyKeyspaceEventsAction();
 
 	private RedisConnectionFactory redisConnectionFactory;
@@ -141,6 +143,9 @@ public class RedisHttpSessionConfiguration extends SpringHttpSessionConfiguratio
 		sessionRepository.setSaveMode(this.saveMode);
 		int database = resolveDatabase();
 		sessionRepository.setDatabase(database);
+		if (this.nearCacheMaxSize != null) {
+			sessionRepository.setNearCache(new SessionNearCache(this.nearCacheMaxSize));
+		}
 		this.sessionRepositoryCustomizers
 				.forEach((sessionRepositoryCustomizer) -> sessionRepositoryCustomizer.customize(sessionRepository));
 		return sessionRepository;
@@ -159,7 +164,8 @@ public class RedisHttpSessionConfiguration extends SpringHttpSessionConfiguratio
 		}
 		container.addMessageListener(sessionRepository,
 				Arrays.asList(new ChannelTopic(sessionRepository.getSessionDeletedChannel()),
-						new ChannelTopic(sessionRepository.getSessionExpiredChannel())));
+						new ChannelTopic(sessionRepository.getSessionExpiredChannel()),
+						new ChannelTopic(sessionRepository.getSessionChangedChannel())));
 		container.addMessageListener(sessionRepository,
 				Collections.singletonList(new PatternTopic(sessionRepository.getSessionCreatedChannelPrefix() + "*")));
 		return container;
@@ -197,6 +203,14 @@ public class RedisHttpSessionConfiguration extends SpringHttpSessionConfiguratio
 		this.cleanupCron = cleanupCron;
 	}
 
+	/**
+	 * Enables the node-local {@link SessionNearCache} in front of Redis.
+	 * @param nearCacheMaxSize the maximum number of sessions cached on this node
+	 */
+	public void setNearCacheMaxSize(int nearCacheMaxSize) {
+		this.nearCacheMaxSize = nearCacheMaxSize;
+	}
+
 	/**
 	 * Sets the action to perform for configuring Redis.
 	 * @param configureRedisAction the configureRedis to set. The default is